@@ -24,6 +24,17 @@ public class ArrayList<E> implements Iterable<E>{
         size = 0;
     }
 
+    // pre : 0 <= size <= elements.length (throws IllegalArgumentException if not)
+    // post: constructs a list holding the first size elements of the given
+    //       array, using the array itself as storage rather than a copy
+    ArrayList(E[] elements, int size) {
+        if (elements == null || size < 0 || size > elements.length) {
+            throw new IllegalArgumentException("size: " + size);
+        }
+        elementData = elements;
+        this.size = size;
+    }
+
     // post: returns the current number of elements in the list
     public int size() {
         return size;
@@ -41,12 +52,12 @@ public class ArrayList<E> implements Iterable<E>{
         if (size == 0) {
             return "[]";
         } else {
-            String result = "[" + elementData[0];
+            StringBuilder result = new StringBuilder("[").append(elementData[0]);
             for (int i = 1; i < size; i++) {
-                result += ", " + elementData[i];
+                result.append(", ").append(elementData[i]);
             }
-            result += "]";
-            return result;
+            result.append("]");
+            return result.toString();
         }
     }
 
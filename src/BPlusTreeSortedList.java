@@ -0,0 +1,675 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Sorted list backed by a B+-tree whose leaves are small arrays; internal nodes keep the element count of every
+ * child, so adding, removing and positional access are all O(log n) instead of the O(n) array shift of
+ * SortedArrayList. Duplicates are kept, and a new duplicate goes before the equal elements already present,
+ * exactly as SortedArrayList.add places it.
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ *
+ * @param <E> type of element in the list; must be comparable inorder to be properly sorted
+ */
+public class BPlusTreeSortedList<E extends Comparable<E>> implements SortedArrayListInterface<E>, Iterable<E> {
+
+    /** most elements a leaf holds; sized so a leaf spans a few cache lines of references */
+    static final int LEAF_CAPACITY = 64;
+    /** most children an internal node holds */
+    static final int BRANCH_CAPACITY = 32;
+
+    /** root of the tree; a leaf while the list is small */
+    private Node root = new Leaf();
+    /** separator produced by the most recent split, passed up to the parent */
+    private Object splitSeparator;
+
+    /**
+     * Creates an empty list
+     */
+    public BPlusTreeSortedList() {
+    }
+
+    /**
+     * Retrieves the number of elements being maintained by the list
+     *
+     * @return the number of elements being maintained
+     */
+    @Override
+    public int size() {
+        return root.size();
+    }
+
+    /**
+     * Retrieves whether the list is empty
+     *
+     * @return true, if there are no elements in the list; false, if there are elements
+     */
+    @Override
+    public boolean isEmpty() {
+        return root.size() == 0;
+    }
+
+    /**
+     * Clears the list; no elements will remain after the call, and size will be 0
+     */
+    @Override
+    public void clear() {
+        root = new Leaf();
+    }
+
+    /**
+     * Retrieves whether the specified element is in the list
+     *
+     * @param value the value to search for
+     * @return true, if the element is in the list; false, if not
+     */
+    @Override
+    public boolean contains(E value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Descends the tree to find the index of the first occurrence of the specified value, or, if not found,
+     * the place that value should be
+     *
+     * @param value the value to search for
+     * @return if found, the index of the value in the list (range 0 to size - 1);
+     * if not found, an index representing where the value would go, if added, returned as -(position+1)
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public int indexOf(E value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        int index = 0;
+        Node node = root;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            int child = branch.childFor(value);
+            for (int i = 0; i < child; i++) {
+                index += branch.counts[i];
+            }
+            node = branch.children[child];
+        }
+        Leaf leaf = (Leaf) node;
+        int position = leaf.lowerBound(value);
+        index += position;
+        Object candidate = position < leaf.count ? leaf.elements[position]
+                : (leaf.next != null ? leaf.next.elements[0] : null);
+        if (candidate != null && ((E) candidate).compareTo(value) == 0) {
+            return index;
+        }
+        return -index - 1;
+    }
+
+    /**
+     * Retrieves the element at the specified position in the list
+     *
+     * @param index the index (position) in the list; must be 0 to size-1
+     * @return the element at the specified position
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        checkIndex(index);
+        Node node = root;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            int child = 0;
+            while (index >= branch.counts[child]) {
+                index -= branch.counts[child];
+                child++;
+            }
+            node = branch.children[child];
+        }
+        return (E) ((Leaf) node).elements[index];
+    }
+
+    /**
+     * Retrieves an array of elements that compare themselves equally to the specified value (via compareTo),
+     * with results being stored in the array specified.
+     *
+     * @param value    the element being sought; will be used to compareTo() other elements
+     * @param template a template array used to create results; pass in a 0-sized array
+     * @return a new array that is right-sized and contains element references, if any
+     */
+    @Override
+    public E[] get(E value, E[] template) {
+        if (value == null || template == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        int first = indexOf(value);
+        if (first < 0) {
+            return Arrays.copyOf(template, 0);
+        }
+        int count = 0;
+        Iterator<E> iterator = iteratorFrom(first);
+        while (iterator.hasNext() && iterator.next().compareTo(value) == 0) {
+            count++;
+        }
+        E[] result = Arrays.copyOf(template, count);
+        iterator = iteratorFrom(first);
+        for (int i = 0; i < count; i++) {
+            result[i] = iterator.next();
+        }
+        return result;
+    }
+
+    /**
+     * Adds a new element to the list, maintaining sorting via natural order (via compareTo)
+     *
+     * @param value the value to add to the list
+     */
+    @Override
+    public void add(E value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        Node right = insert(root, value);
+        if (right != null) {
+            Branch newRoot = new Branch();
+            newRoot.children[0] = root;
+            newRoot.children[1] = right;
+            newRoot.counts[0] = root.size();
+            newRoot.counts[1] = right.size();
+            newRoot.separators[0] = splitSeparator;
+            newRoot.childCount = 2;
+            newRoot.total = newRoot.counts[0] + newRoot.counts[1];
+            root = newRoot;
+        }
+        splitSeparator = null;
+    }
+
+    /**
+     * Removes from the list the element at the specified index
+     *
+     * @param index the index in the list; must be in range  0 to size-1
+     */
+    @Override
+    public void remove(int index) {
+        checkIndex(index);
+        removeAt(root, index);
+        if (root instanceof Branch && ((Branch) root).childCount == 1) {
+            root = ((Branch) root).children[0];
+        }
+    }
+
+    /**
+     * Retrieves an iterator over list elements that walks the linked leaves; for/each loops are also supported
+     *
+     * @return a strongly typed iterator over list elements
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return iteratorFrom(0);
+    }
+
+    /**
+     * Retrieves a text representation of the elements in the list
+     *
+     * @return text representing of list elements
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("[");
+        for (E element : this) {
+            if (result.length() > 1) {
+                result.append(", ");
+            }
+            result.append(element);
+        }
+        return result.append(']').toString();
+    }
+
+    /**
+     * Retrieves an array representing the contents of the list
+     *
+     * @param template a template list of the proper type, e.g., if E is String,
+     *                 the caller can pass in as an argument: new String[0]
+     * @return a right-sized array containing object references to list elements
+     */
+    @Override
+    public E[] toArray(E[] template) {
+        if (template == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        E[] result = Arrays.copyOf(template, size());
+        int i = 0;
+        for (E element : this) {
+            result[i++] = element;
+        }
+        return result;
+    }
+
+    /**
+     * Inserts a value into a subtree, splitting nodes that overflow
+     *
+     * @param node  the root of the subtree
+     * @param value the value to insert
+     * @return the new right sibling if node was split, with its separator left in splitSeparator; null otherwise
+     */
+    private Node insert(Node node, E value) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            int position = leaf.lowerBound(value);
+            System.arraycopy(leaf.elements, position, leaf.elements, position + 1, leaf.count - position);
+            leaf.elements[position] = value;
+            leaf.count++;
+            return leaf.count > LEAF_CAPACITY ? splitLeaf(leaf) : null;
+        }
+        Branch branch = (Branch) node;
+        int child = branch.childFor(value);
+        Node right = insert(branch.children[child], value);
+        branch.counts[child] = branch.children[child].size();
+        branch.total++;
+        if (right == null) {
+            return null;
+        }
+        int moved = branch.childCount - child - 1;
+        System.arraycopy(branch.children, child + 1, branch.children, child + 2, moved);
+        System.arraycopy(branch.counts, child + 1, branch.counts, child + 2, moved);
+        System.arraycopy(branch.separators, child, branch.separators, child + 1, moved);
+        branch.children[child + 1] = right;
+        branch.counts[child + 1] = right.size();
+        branch.separators[child] = splitSeparator;
+        branch.childCount++;
+        return branch.childCount > BRANCH_CAPACITY ? splitBranch(branch) : null;
+    }
+
+    /**
+     * Moves the upper half of an overflowing leaf into a new leaf
+     *
+     * @param leaf the leaf to split
+     * @return the new right leaf
+     */
+    private Leaf splitLeaf(Leaf leaf) {
+        Leaf right = new Leaf();
+        int keep = leaf.count / 2;
+        right.count = leaf.count - keep;
+        System.arraycopy(leaf.elements, keep, right.elements, 0, right.count);
+        Arrays.fill(leaf.elements, keep, leaf.count, null);
+        leaf.count = keep;
+        right.next = leaf.next;
+        right.prev = leaf;
+        if (leaf.next != null) {
+            leaf.next.prev = right;
+        }
+        leaf.next = right;
+        splitSeparator = right.elements[0];
+        return right;
+    }
+
+    /**
+     * Moves the upper half of an overflowing internal node into a new node, pushing the middle separator up
+     *
+     * @param branch the node to split
+     * @return the new right node
+     */
+    private Branch splitBranch(Branch branch) {
+        Branch right = new Branch();
+        int keep = branch.childCount / 2;
+        right.childCount = branch.childCount - keep;
+        System.arraycopy(branch.children, keep, right.children, 0, right.childCount);
+        System.arraycopy(branch.counts, keep, right.counts, 0, right.childCount);
+        System.arraycopy(branch.separators, keep, right.separators, 0, right.childCount - 1);
+        splitSeparator = branch.separators[keep - 1];
+        Arrays.fill(branch.children, keep, branch.childCount, null);
+        Arrays.fill(branch.separators, keep - 1, branch.childCount - 1, null);
+        branch.childCount = keep;
+        branch.recount();
+        right.recount();
+        return right;
+    }
+
+    /**
+     * Removes the element at a position within a subtree, rebalancing children that underflow
+     *
+     * @param node  the root of the subtree
+     * @param index the position within the subtree
+     */
+    private void removeAt(Node node, int index) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            System.arraycopy(leaf.elements, index + 1, leaf.elements, index, leaf.count - index - 1);
+            leaf.elements[--leaf.count] = null;
+            return;
+        }
+        Branch branch = (Branch) node;
+        int child = 0;
+        while (index >= branch.counts[child]) {
+            index -= branch.counts[child];
+            child++;
+        }
+        removeAt(branch.children[child], index);
+        branch.counts[child]--;
+        branch.total--;
+        if (branch.children[child].isUnderfull() && branch.childCount > 1) {
+            rebalance(branch, child);
+        }
+    }
+
+    /**
+     * Fixes an underfull child by merging it with a sibling, or by borrowing from the sibling if they would not fit
+     * in one node
+     *
+     * @param parent the parent of the underfull child
+     * @param child  the index of the underfull child
+     */
+    private void rebalance(Branch parent, int child) {
+        int left = child > 0 ? child - 1 : child;
+        int right = left + 1;
+        Node leftNode = parent.children[left];
+        Node rightNode = parent.children[right];
+
+        if (leftNode instanceof Leaf) {
+            Leaf l = (Leaf) leftNode;
+            Leaf r = (Leaf) rightNode;
+            if (l.count + r.count <= LEAF_CAPACITY) {
+                System.arraycopy(r.elements, 0, l.elements, l.count, r.count);
+                l.count += r.count;
+                l.next = r.next;
+                if (r.next != null) {
+                    r.next.prev = l;
+                }
+                parent.removeChild(right);
+            } else if (child == left) {
+                l.elements[l.count++] = r.elements[0];
+                System.arraycopy(r.elements, 1, r.elements, 0, r.count - 1);
+                r.elements[--r.count] = null;
+                parent.separators[left] = r.elements[0];
+            } else {
+                System.arraycopy(r.elements, 0, r.elements, 1, r.count);
+                r.elements[0] = l.elements[--l.count];
+                l.elements[l.count] = null;
+                r.count++;
+                parent.separators[left] = r.elements[0];
+            }
+        } else {
+            Branch l = (Branch) leftNode;
+            Branch r = (Branch) rightNode;
+            if (l.childCount + r.childCount <= BRANCH_CAPACITY) {
+                l.separators[l.childCount - 1] = parent.separators[left];
+                System.arraycopy(r.children, 0, l.children, l.childCount, r.childCount);
+                System.arraycopy(r.counts, 0, l.counts, l.childCount, r.childCount);
+                System.arraycopy(r.separators, 0, l.separators, l.childCount, r.childCount - 1);
+                l.childCount += r.childCount;
+                l.total += r.total;
+                parent.removeChild(right);
+            } else if (child == left) {
+                l.children[l.childCount] = r.children[0];
+                l.counts[l.childCount] = r.counts[0];
+                l.separators[l.childCount - 1] = parent.separators[left];
+                l.childCount++;
+                l.total += r.counts[0];
+                parent.separators[left] = r.separators[0];
+                r.total -= r.counts[0];
+                System.arraycopy(r.children, 1, r.children, 0, r.childCount - 1);
+                System.arraycopy(r.counts, 1, r.counts, 0, r.childCount - 1);
+                System.arraycopy(r.separators, 1, r.separators, 0, r.childCount - 2);
+                r.childCount--;
+                r.children[r.childCount] = null;
+                r.separators[r.childCount - 1] = null;
+            } else {
+                System.arraycopy(r.children, 0, r.children, 1, r.childCount);
+                System.arraycopy(r.counts, 0, r.counts, 1, r.childCount);
+                System.arraycopy(r.separators, 0, r.separators, 1, r.childCount - 1);
+                r.children[0] = l.children[l.childCount - 1];
+                r.counts[0] = l.counts[l.childCount - 1];
+                r.separators[0] = parent.separators[left];
+                r.childCount++;
+                r.total += r.counts[0];
+                parent.separators[left] = l.separators[l.childCount - 2];
+                l.total -= r.counts[0];
+                l.childCount--;
+                l.children[l.childCount] = null;
+                l.separators[l.childCount - 1] = null;
+            }
+        }
+        parent.counts[left] = parent.children[left].size();
+        if (right < parent.childCount && parent.children[right] == rightNode) {
+            parent.counts[right] = rightNode.size();
+        }
+    }
+
+    /**
+     * Creates an iterator that starts at the specified position
+     *
+     * @param index the position of the first element returned; 0 to size
+     * @return the iterator
+     */
+    private Iterator<E> iteratorFrom(int index) {
+        return new LeafIterator(index);
+    }
+
+    /**
+     * Throws an IndexOutOfBoundsException if the given index is not a legal index of the list
+     *
+     * @param index the index to check
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+    }
+
+    /**
+     * A node of the tree
+     */
+    private abstract static class Node {
+        /**
+         * Retrieves the number of elements in this subtree
+         *
+         * @return the number of elements
+         */
+        abstract int size();
+
+        /**
+         * Retrieves whether this node holds too few entries and should be merged or refilled
+         *
+         * @return true, if the node is less than half full
+         */
+        abstract boolean isUnderfull();
+    }
+
+    /**
+     * A leaf holding up to LEAF_CAPACITY elements in sorted order, linked to its neighbours
+     */
+    private static final class Leaf extends Node {
+        /** the elements; one extra slot lets a leaf overflow by one before it splits */
+        final Object[] elements = new Object[LEAF_CAPACITY + 1];
+        /** number of elements in use */
+        int count;
+        /** next leaf in sorted order */
+        Leaf next;
+        /** previous leaf in sorted order */
+        Leaf prev;
+
+        @Override
+        int size() {
+            return count;
+        }
+
+        @Override
+        boolean isUnderfull() {
+            return count < LEAF_CAPACITY / 2;
+        }
+
+        /**
+         * Finds the first position whose element is not less than the value
+         *
+         * @param value the value being sought
+         * @return the position, 0 to count
+         */
+        @SuppressWarnings("unchecked")
+        <E extends Comparable<E>> int lowerBound(E value) {
+            int min = 0;
+            int max = count;
+            while (min < max) {
+                int mid = (min + max) >>> 1;
+                if (((E) elements[mid]).compareTo(value) < 0) {
+                    min = mid + 1;
+                } else {
+                    max = mid;
+                }
+            }
+            return min;
+        }
+    }
+
+    /**
+     * An internal node; separators[i] is no greater than any element of children[i + 1] and no less than any
+     * element of children[i], and counts[i] is the number of elements under children[i]
+     */
+    private static final class Branch extends Node {
+        /** the children; one extra slot lets a node overflow by one before it splits */
+        final Node[] children = new Node[BRANCH_CAPACITY + 1];
+        /** element count of each child */
+        final int[] counts = new int[BRANCH_CAPACITY + 1];
+        /** separators between adjacent children */
+        final Object[] separators = new Object[BRANCH_CAPACITY];
+        /** number of children in use */
+        int childCount;
+        /** number of elements in this subtree */
+        int total;
+
+        @Override
+        int size() {
+            return total;
+        }
+
+        @Override
+        boolean isUnderfull() {
+            return childCount < BRANCH_CAPACITY / 2;
+        }
+
+        /**
+         * Finds the child to descend into for a value: the number of separators strictly less than it, which
+         * leads to the first element not less than the value
+         *
+         * @param value the value being sought
+         * @return the child index
+         */
+        @SuppressWarnings("unchecked")
+        <E extends Comparable<E>> int childFor(E value) {
+            int min = 0;
+            int max = childCount - 1;
+            while (min < max) {
+                int mid = (min + max) >>> 1;
+                if (((E) separators[mid]).compareTo(value) < 0) {
+                    min = mid + 1;
+                } else {
+                    max = mid;
+                }
+            }
+            return min;
+        }
+
+        /**
+         * Removes a child and the separator to its left
+         *
+         * @param child the index of the child; must be at least 1
+         */
+        void removeChild(int child) {
+            int moved = childCount - child - 1;
+            System.arraycopy(children, child + 1, children, child, moved);
+            System.arraycopy(counts, child + 1, counts, child, moved);
+            System.arraycopy(separators, child, separators, child - 1, moved);
+            childCount--;
+            children[childCount] = null;
+            counts[childCount] = 0;
+            separators[childCount - 1] = null;
+        }
+
+        /**
+         * Recomputes the element total from the child counts
+         */
+        void recount() {
+            total = 0;
+            for (int i = 0; i < childCount; i++) {
+                total += counts[i];
+            }
+        }
+    }
+
+    /**
+     * Iterator that walks the leaf chain; remove() is supported
+     */
+    private class LeafIterator implements Iterator<E> {
+        /** leaf holding the next element */
+        private Leaf leaf;
+        /** position of the next element within leaf */
+        private int offset;
+        /** position of the next element within the list */
+        private int index;
+        /** whether it's okay to remove now */
+        private boolean removeOK;
+
+        /**
+         * Creates an iterator whose first element is at the specified position
+         *
+         * @param index the starting position; 0 to size
+         */
+        LeafIterator(int index) {
+            seek(index);
+        }
+
+        @Override
+        public boolean hasNext() {
+            // only the root can be an empty leaf, so a following leaf always has an element
+            return offset < leaf.count || leaf.next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (offset >= leaf.count) {
+                if (leaf.next == null) {
+                    throw new NoSuchElementException();
+                }
+                leaf = leaf.next;
+                offset = 0;
+            }
+            E result = (E) leaf.elements[offset++];
+            index++;
+            removeOK = true;
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            if (!removeOK) {
+                throw new IllegalStateException();
+            }
+            BPlusTreeSortedList.this.remove(index - 1);
+            seek(index - 1);
+            removeOK = false;
+        }
+
+        /**
+         * Positions the iterator so that the next element returned is at the specified position
+         *
+         * @param position the position; 0 to size
+         */
+        private void seek(int position) {
+            index = position;
+            Node node = root;
+            while (node instanceof Branch) {
+                Branch branch = (Branch) node;
+                int child = 0;
+                while (child < branch.childCount - 1 && position >= branch.counts[child]) {
+                    position -= branch.counts[child];
+                    child++;
+                }
+                node = branch.children[child];
+            }
+            leaf = (Leaf) node;
+            offset = position;
+        }
+    }
+}
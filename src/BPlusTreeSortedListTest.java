@@ -0,0 +1,56 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the shared conformance suite against BPlusTreeSortedList, plus checks that exercise node splits and merges
+ */
+class BPlusTreeSortedListTest extends SortedListConformanceTest {
+
+    @Override
+    protected SortedArrayListInterface<String> createList() {
+        return new BPlusTreeSortedList<>();
+    }
+
+    @Test
+    public void testGrowAndShrinkAcrossLevels() {
+        BPlusTreeSortedList<Integer> list = new BPlusTreeSortedList<>();
+        int count = BPlusTreeSortedList.LEAF_CAPACITY * BPlusTreeSortedList.BRANCH_CAPACITY * 4;
+        for (int i = count - 1; i >= 0; i--) {
+            list.add(i);
+        }
+        assertEquals(count, list.size());
+        for (int i = 0; i < count; i += 97) {
+            assertEquals(i, (int) list.get(i));
+            assertEquals(i, list.indexOf(i));
+        }
+
+        // remove every other element from the front half, then everything else
+        for (int i = 0; i < count / 4; i++) {
+            list.remove(i);
+        }
+        assertEquals(count - count / 4, list.size());
+        assertEquals(1, (int) list.get(0));
+        assertEquals(-1, list.indexOf(0));
+        assertEquals(-2, list.indexOf(2));
+        while (!list.isEmpty()) {
+            list.remove(list.size() / 2);
+        }
+        assertEquals("[]", list.toString());
+    }
+
+    @Test
+    public void testDuplicatesSpanningLeaves() {
+        BPlusTreeSortedList<String> list = new BPlusTreeSortedList<>();
+        list.add("A");
+        list.add("C");
+        int duplicates = BPlusTreeSortedList.LEAF_CAPACITY * 3;
+        for (int i = 0; i < duplicates; i++) {
+            list.add("B");
+        }
+        assertEquals(1, list.indexOf("B"));
+        assertEquals(duplicates, list.get("B", new String[0]).length);
+        assertEquals(-(duplicates + 2) - 1, list.indexOf("D"));
+        assertEquals("C", list.get(duplicates + 1));
+    }
+}
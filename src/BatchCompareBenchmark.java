@@ -0,0 +1,83 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares resolving comparisons one pair at a time (two binary searches each) against WaterQueries.compareAll
+ * at batch sizes from 1k to 1M probes. Usage: java BatchCompareBenchmark [records] [maxBatch]
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class BatchCompareBenchmark {
+
+    public static void main(String[] args) {
+        int recordCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int maxBatch = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        WaterDataGenerator generator = new WaterDataGenerator(recordCount, WaterDataGenerator.Order.SORTED,
+                0, 0, 2000, 23, 42);
+        SortedArrayList<YearlyWaterRecord> waterData = new SortedArrayList<>();
+        for (long i = 0; i < generator.keyCount(); i++) {
+            waterData.add(new YearlyWaterRecord(generator.keyOf(i), i % 100, 0.0, 0.0, 0.0));
+        }
+        WaterQueries queries = new WaterQueries(waterData);
+
+        System.out.printf("%,d records%n", waterData.size());
+        System.out.println("     batch   perPairMs    batchMs  speedup");
+        for (int batch = 1_000; batch <= maxBatch; batch *= 10) {
+            List<WaterQueries.ComparisonRequest> requests = requests(generator, batch);
+            long perPair = Long.MAX_VALUE;
+            long batched = Long.MAX_VALUE;
+            for (int round = 0; round < 3; round++) {
+                long start = System.nanoTime();
+                int complete = 0;
+                for (WaterQueries.ComparisonRequest request : requests) {
+                    YearlyWaterRecord[] pair = queries.compare(request.isoYear1(), request.isoYear2());
+                    complete += pair[0] != null && pair[1] != null ? 1 : 0;
+                }
+                perPair = Math.min(perPair, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                int completeBatched = 0;
+                for (WaterQueries.ComparisonResult result : queries.compareAll(requests)) {
+                    completeBatched += result.isComplete() ? 1 : 0;
+                }
+                batched = Math.min(batched, System.nanoTime() - start);
+                if (complete != completeBatched) {
+                    throw new IllegalStateException("batch and per-pair results differ");
+                }
+            }
+            System.out.printf("%10d %11.2f %10.2f %8.2fx%n", batch, perPair / 1e6, batched / 1e6,
+                    (double) perPair / batched);
+        }
+    }
+
+    /**
+     * Builds random comparison requests; about one key in twenty does not exist
+     *
+     * @param generator the generator whose keys make up the dataset
+     * @param count     the number of requests
+     * @return the requests
+     */
+    private static List<WaterQueries.ComparisonRequest> requests(WaterDataGenerator generator, int count) {
+        Random random = new Random(count);
+        List<WaterQueries.ComparisonRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            requests.add(new WaterQueries.ComparisonRequest(key(generator, random), key(generator, random)));
+        }
+        return requests;
+    }
+
+    /**
+     * Picks a random existing key, or occasionally a key with a year outside the data
+     *
+     * @param generator the generator whose keys make up the dataset
+     * @param random    source of randomness
+     * @return the key
+     */
+    private static String key(WaterDataGenerator generator, Random random) {
+        String key = generator.keyOf((long) (random.nextDouble() * generator.keyCount()));
+        return random.nextInt(20) == 0 ? key.substring(0, key.length() - 4) + "1999" : key;
+    }
+}
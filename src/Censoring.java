@@ -0,0 +1,85 @@
+/**
+ * How a percentage in the source data relates to its true value; the data file writes very small and very large
+ * percentages as "&lt;1" and "&gt;99", and missing ones as "-"
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public enum Censoring {
+    /** the value is exact */
+    NONE,
+    /** the true value is below 1; stored as 0 */
+    BELOW,
+    /** the true value is above 99; stored as 100 */
+    ABOVE,
+    /** there is no value; stored as -1 */
+    MISSING;
+
+    /** number of bits used to store one censoring value */
+    public static final int BITS = 2;
+    /** mask selecting one censoring value */
+    public static final int MASK = (1 << BITS) - 1;
+
+    /** values indexed by ordinal, to avoid copying values() on every decode */
+    private static final Censoring[] BY_ORDINAL = values();
+
+    /**
+     * Determines the censoring of a raw value from the data file
+     *
+     * @param token the value as written in the file, e.g. "&lt;1" or "42.5"; must not be null
+     * @return the censoring of that value
+     */
+    public static Censoring of(String token) {
+        switch (token) {
+            case "<1":
+                return BELOW;
+            case ">99":
+                return ABOVE;
+            case "-":
+                return MISSING;
+            default:
+                return NONE;
+        }
+    }
+
+    /**
+     * Retrieves the token the data file uses for this censoring
+     *
+     * @return "&lt;1", "&gt;99" or "-"; null for NONE, whose values are written as numbers
+     */
+    public String token() {
+        switch (this) {
+            case BELOW:
+                return "<1";
+            case ABOVE:
+                return ">99";
+            case MISSING:
+                return "-";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Reads one metric's censoring out of a packed flags value, as stored by YearlyWaterRecord
+     *
+     * @param flags  the packed flags
+     * @param metric the metric index
+     * @return the censoring of that metric
+     */
+    public static Censoring unpack(int flags, int metric) {
+        return BY_ORDINAL[(flags >>> (metric * BITS)) & MASK];
+    }
+
+    /**
+     * Stores this censoring for one metric in a packed flags value
+     *
+     * @param flags  the packed flags
+     * @param metric the metric index
+     * @return the flags with that metric's censoring replaced
+     */
+    public int pack(int flags, int metric) {
+        int shift = metric * BITS;
+        return (flags & ~(MASK << shift)) | (ordinal() << shift);
+    }
+}
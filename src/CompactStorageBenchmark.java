@@ -0,0 +1,93 @@
+import java.util.Random;
+
+/**
+ * Compares SortedArrayList and CompactWaterRecordList on the same synthetic records: retained heap, per-year
+ * aggregate time, and the largest quantization error actually observed. Usage: java CompactStorageBenchmark
+ * [records] [scale]
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class CompactStorageBenchmark {
+
+    /** first synthetic year */
+    private static final int FIRST_YEAR = 2000;
+    /** number of synthetic years per region */
+    private static final int YEAR_COUNT = 23;
+
+    public static void main(String[] args) {
+        int recordCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int scale = args.length > 1 ? Integer.parseInt(args[1]) : CompactWaterRecordList.DEFAULT_SCALE;
+
+        WaterDataGenerator generator = new WaterDataGenerator(recordCount, WaterDataGenerator.Order.SORTED,
+                0, 0, FIRST_YEAR, YEAR_COUNT, 42);
+        Random random = new Random(42);
+        long before = usedHeap();
+        SortedArrayList<YearlyWaterRecord> waterData = new SortedArrayList<>();
+        for (long i = 0; i < generator.keyCount(); i++) {
+            waterData.add(new YearlyWaterRecord(generator.keyOf(i), random.nextDouble() * 100,
+                    random.nextDouble() * 100, random.nextInt(20) == 0 ? -1 : random.nextDouble() * 100,
+                    random.nextDouble() * 100));
+        }
+        long onHeapBytes = usedHeap() - before;
+
+        before = usedHeap();
+        CompactWaterRecordList compact = CompactWaterRecordList.copyOf(waterData, scale);
+        long compactBytes = usedHeap() - before;
+
+        System.out.printf("%,d records, scale %d (max error %.4f points)%n", waterData.size(), scale,
+                compact.maxError());
+        System.out.printf("retained heap: records %,d MB, compact %,d MB (%.1fx smaller); compact arrays %,d MB%n",
+                onHeapBytes >> 20, compactBytes >> 20, (double) onHeapBytes / compactBytes,
+                compact.footprintBytes() >> 20);
+
+        WaterQueries queries = new WaterQueries(waterData);
+        double worstMeanError = 0;
+        long recordNanos = Long.MAX_VALUE;
+        long compactNanos = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            double[][] exact = new double[YEAR_COUNT][];
+            for (int y = 0; y < YEAR_COUNT; y++) {
+                exact[y] = queries.yearAverages(FIRST_YEAR + y);
+            }
+            recordNanos = Math.min(recordNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            double[][] quantized = new double[YEAR_COUNT][];
+            for (int y = 0; y < YEAR_COUNT; y++) {
+                quantized[y] = compact.yearAverages(FIRST_YEAR + y);
+            }
+            compactNanos = Math.min(compactNanos, System.nanoTime() - start);
+
+            for (int y = 0; y < YEAR_COUNT; y++) {
+                for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                    worstMeanError = Math.max(worstMeanError, Math.abs(exact[y][metric] - quantized[y][metric]));
+                }
+            }
+        }
+        double worstValueError = 0;
+        for (int row = 0; row < waterData.size(); row += 7) {
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                worstValueError = Math.max(worstValueError,
+                        Math.abs(waterData.get(row).metric(metric) - compact.value(metric, row)));
+            }
+        }
+        System.out.printf("yearAverages for %d years: records %.1f ms, compact %.1f ms (%.1fx)%n", YEAR_COUNT,
+                recordNanos / 1e6, compactNanos / 1e6, (double) recordNanos / compactNanos);
+        System.out.printf("observed error: value %.5f, mean %.7f points%n", worstValueError, worstMeanError);
+    }
+
+    /**
+     * Measures live heap after a collection
+     *
+     * @return bytes of heap in use
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
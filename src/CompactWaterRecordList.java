@@ -0,0 +1,437 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only sorted list of water records in a compact form: each percentage is quantized to an unsigned 16-bit
+ * fixed-point code, keys are packed into a long and the censoring flags into a byte, so a record takes 19 bytes of
+ * arrays instead of a record object, its key String and four doubles. get and the iterator decode records back to
+ * YearlyWaterRecord, and the aggregate methods work on the codes directly.
+ * <p>
+ * Error bounds: a value is stored as round(value * scale), so every decoded value is within 0.5 / scale of the
+ * original (0.005 percentage points at the default scale of 100). Sums are accumulated exactly as integers, so a
+ * mean of n values is also within 0.5 / scale of the mean of the originals, and a sum within n * 0.5 / scale.
+ * Censoring flags and missing values are kept exactly.
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class CompactWaterRecordList implements SortedArrayListInterface<YearlyWaterRecord>, Iterable<YearlyWaterRecord> {
+
+    /** default codes per percentage point: 0.01% resolution */
+    public static final int DEFAULT_SCALE = 100;
+    /** code marking a missing value; never produced by quantizing 0 to 100 */
+    private static final int MISSING = 0xFFFF;
+    /** largest scale whose code for 100% still fits below MISSING */
+    public static final int MAX_SCALE = (MISSING - 1) / 100;
+
+    /** codes per percentage point */
+    private final int scale;
+    /** packed isoYear keys in ascending unsigned order, as produced by YearlyWaterRecord.packKey */
+    private final long[] keys;
+    /** year of each row, so per-year aggregates need not unpack keys */
+    private final short[] years;
+    /** quantized metric values, indexed [metric][row]; read as unsigned */
+    private final short[][] codes;
+    /** censoring flags of each row; four 2-bit fields fit in a byte */
+    private final byte[] flags;
+
+    /**
+     * Wraps filled arrays
+     *
+     * @param scale codes per percentage point
+     * @param keys  packed keys
+     * @param years year of each row
+     * @param codes quantized values
+     * @param flags censoring flags
+     */
+    private CompactWaterRecordList(int scale, long[] keys, short[] years, short[][] codes, byte[] flags) {
+        this.scale = scale;
+        this.keys = keys;
+        this.years = years;
+        this.codes = codes;
+        this.flags = flags;
+    }
+
+    /**
+     * Quantizes a sorted list of records at the default scale
+     *
+     * @param source the records to copy; keys must be at most 8 ASCII characters; must not be null
+     * @return the compact copy
+     */
+    public static CompactWaterRecordList copyOf(SortedArrayListInterface<YearlyWaterRecord> source) {
+        return copyOf(source, DEFAULT_SCALE);
+    }
+
+    /**
+     * Quantizes a sorted list of records
+     *
+     * @param source the records to copy; keys must be at most 8 ASCII characters; must not be null
+     * @param scale  codes per percentage point, 1 to MAX_SCALE; 100 gives 0.01% resolution
+     * @return the compact copy
+     */
+    public static CompactWaterRecordList copyOf(SortedArrayListInterface<YearlyWaterRecord> source, int scale) {
+        if (source == null) {
+            throw new IllegalArgumentException("source cannot be null");
+        }
+        if (scale < 1 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("scale must be 1 to " + MAX_SCALE + ": " + scale);
+        }
+        int size = source.size();
+        long[] keys = new long[size];
+        short[] years = new short[size];
+        short[][] codes = new short[YearlyWaterRecord.METRIC_COUNT][size];
+        byte[] flags = new byte[size];
+        Iterator<YearlyWaterRecord> iterator = source.iterator();
+        for (int row = 0; row < size; row++) {
+            YearlyWaterRecord record = iterator.next();
+            keys[row] = YearlyWaterRecord.packKey(record.isoYear());
+            if (row > 0 && Long.compareUnsigned(keys[row - 1], keys[row]) > 0) {
+                throw new IllegalArgumentException("records are not sorted at " + record.isoYear());
+            }
+            years[row] = (short) Main.yearOf(record.isoYear());
+            flags[row] = (byte) record.flags();
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                codes[metric][row] = (short) encode(record, metric, scale);
+            }
+        }
+        return new CompactWaterRecordList(scale, keys, years, codes, flags);
+    }
+
+    /**
+     * Retrieves the quantization scale
+     *
+     * @return codes per percentage point
+     */
+    public int scale() {
+        return scale;
+    }
+
+    /**
+     * Retrieves the largest difference between a decoded value and the value it was quantized from
+     *
+     * @return 0.5 / scale, in percentage points
+     */
+    public double maxError() {
+        return 0.5 / scale;
+    }
+
+    /**
+     * Decodes one metric value without building a record
+     *
+     * @param metric the metric index, in the order of YearlyWaterRecord.METRIC_NAMES
+     * @param row    the row; must be 0 to size-1
+     * @return the value; -1 if missing
+     */
+    public double value(int metric, int row) {
+        checkIndex(row);
+        int code = codes[metric][row] & 0xFFFF;
+        return code == MISSING ? -1 : (double) code / scale;
+    }
+
+    /**
+     * Averages one metric over a range of rows, e.g. one country's time series, summing the codes as integers
+     *
+     * @param metric the metric index
+     * @param from   first row, inclusive
+     * @param to     last row, exclusive
+     * @return the mean of the values present; NaN if there are none
+     */
+    public double mean(int metric, int from, int to) {
+        if (from < 0 || to > keys.length || from > to) {
+            throw new IndexOutOfBoundsException("range: " + from + " to " + to);
+        }
+        short[] column = codes[metric];
+        long sum = 0;
+        int count = 0;
+        for (int row = from; row < to; row++) {
+            int code = column[row] & 0xFFFF;
+            if (code != MISSING) {
+                sum += code;
+                count++;
+            }
+        }
+        return count == 0 ? Double.NaN : (double) sum / count / scale;
+    }
+
+    /**
+     * Retrieves the mean of each metric across all countries for one year, ignoring missing values; matches
+     * WaterQueries.yearAverages to within maxError
+     *
+     * @param year the year
+     * @return the means in the order of YearlyWaterRecord.METRIC_NAMES; NaN where no country has a value
+     */
+    public double[] yearAverages(int year) {
+        double[] averages = new double[YearlyWaterRecord.METRIC_COUNT];
+        for (int metric = 0; metric < averages.length; metric++) {
+            short[] column = codes[metric];
+            long sum = 0;
+            int count = 0;
+            for (int row = 0; row < keys.length; row++) {
+                int code = column[row] & 0xFFFF;
+                if (years[row] == year && code != MISSING) {
+                    sum += code;
+                    count++;
+                }
+            }
+            averages[metric] = count == 0 ? Double.NaN : (double) sum / count / scale;
+        }
+        return averages;
+    }
+
+    /**
+     * Estimates the memory held by the arrays
+     *
+     * @return bytes used by keys, years, codes and flags, including array headers
+     */
+    public long footprintBytes() {
+        long header = 16;
+        return header + (long) Long.BYTES * keys.length + header + (long) Short.BYTES * years.length
+                + header + YearlyWaterRecord.METRIC_COUNT * (header + (long) Short.BYTES * keys.length)
+                + header + flags.length;
+    }
+
+    /**
+     * Retrieves the number of elements being maintained by the list
+     *
+     * @return the number of elements being maintained
+     */
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Retrieves whether the list is empty
+     *
+     * @return true, if there are no elements in the list; false, if there are elements
+     */
+    @Override
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    /**
+     * Not supported; the list is read-only
+     */
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("compact record list is read-only");
+    }
+
+    /**
+     * Retrieves whether the specified element is in the list
+     *
+     * @param value the value to search for
+     * @return true, if the element is in the list; false, if not
+     */
+    @Override
+    public boolean contains(YearlyWaterRecord value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Uses a binary search over the packed keys to find the index of the first occurrence of the specified value,
+     * or, if not found, the place that value should be; a key that cannot be packed (see
+     * YearlyWaterRecord.isPackable) is never found, since every stored key was packed
+     *
+     * @param value the value to search for
+     * @return if found, the index of the value in the list (range 0 to size - 1);
+     * if not found, an index representing where the value would go, if added, returned as -(position+1)
+     */
+    @Override
+    public int indexOf(YearlyWaterRecord value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        String isoYear = value.isoYear();
+        if (!YearlyWaterRecord.isPackable(isoYear)) {
+            return -insertionPoint(isoYear) - 1;
+        }
+        long key = YearlyWaterRecord.packKey(isoYear);
+        int min = 0;
+        int max = keys.length;
+        while (min < max) {
+            int mid = (min + max) >>> 1;
+            if (Long.compareUnsigned(keys[mid], key) < 0) {
+                min = mid + 1;
+            } else {
+                max = mid;
+            }
+        }
+        if (min < keys.length && keys[min] == key) {
+            return min;
+        }
+        return -min - 1;
+    }
+
+    /**
+     * Finds where a key that cannot be packed would go by comparing it with the decoded keys
+     *
+     * @param isoYear the key
+     * @return the index of the first record whose key sorts after it
+     */
+    private int insertionPoint(String isoYear) {
+        int min = 0;
+        int max = keys.length;
+        while (min < max) {
+            int mid = (min + max) >>> 1;
+            if (YearlyWaterRecord.unpackKey(keys[mid]).compareTo(isoYear) < 0) {
+                min = mid + 1;
+            } else {
+                max = mid;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Retrieves the element at the specified position in the list, decoded from its quantized form
+     *
+     * @param index the index (position) in the list; must be 0 to size-1
+     * @return the element at the specified position
+     */
+    @Override
+    public YearlyWaterRecord get(int index) {
+        checkIndex(index);
+        return new YearlyWaterRecord(YearlyWaterRecord.unpackKey(keys[index]), value(0, index), value(1, index),
+                value(2, index), value(3, index), flags[index] & 0xFF);
+    }
+
+    /**
+     * Retrieves an array of elements that compare themselves equally to the specified value (via compareTo)
+     *
+     * @param value    the element being sought; must not be null
+     * @param template a template array used to create results; pass in a 0-sized array
+     * @return a new array that is right-sized and contains the matching elements, if any
+     */
+    @Override
+    public YearlyWaterRecord[] get(YearlyWaterRecord value, YearlyWaterRecord[] template) {
+        if (value == null || template == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        int first = indexOf(value);
+        if (first < 0) {
+            return Arrays.copyOf(template, 0);
+        }
+        int last = first;
+        while (last < keys.length && keys[last] == keys[first]) {
+            last++;
+        }
+        YearlyWaterRecord[] result = Arrays.copyOf(template, last - first);
+        for (int i = first; i < last; i++) {
+            result[i - first] = get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Not supported; the list is read-only
+     *
+     * @param value ignored
+     */
+    @Override
+    public void add(YearlyWaterRecord value) {
+        throw new UnsupportedOperationException("compact record list is read-only");
+    }
+
+    /**
+     * Not supported; the list is read-only
+     *
+     * @param index ignored
+     */
+    @Override
+    public void remove(int index) {
+        throw new UnsupportedOperationException("compact record list is read-only");
+    }
+
+    /**
+     * Retrieves an iterator over list elements; records are decoded as they are reached
+     *
+     * @return a strongly typed iterator over list elements
+     */
+    @Override
+    public Iterator<YearlyWaterRecord> iterator() {
+        return new Iterator<>() {
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < keys.length;
+            }
+
+            @Override
+            public YearlyWaterRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(position++);
+            }
+        };
+    }
+
+    /**
+     * Retrieves an array representing the contents of the list
+     *
+     * @param template a template list of the proper type; pass in a 0-sized array
+     * @return a right-sized array containing the decoded records
+     */
+    @Override
+    public YearlyWaterRecord[] toArray(YearlyWaterRecord[] template) {
+        if (template == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        YearlyWaterRecord[] result = Arrays.copyOf(template, keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            result[i] = get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves a text representation of the elements in the list
+     *
+     * @return text representing of list elements
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("[");
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                result.append(", ");
+            }
+            result.append(get(i));
+        }
+        return result.append(']').toString();
+    }
+
+    /**
+     * Quantizes one metric of a record
+     *
+     * @param record the record
+     * @param metric the metric index
+     * @param scale  codes per percentage point
+     * @return the code; MISSING if the record has no value
+     */
+    private static int encode(YearlyWaterRecord record, int metric, int scale) {
+        if (!record.isValid(metric)) {
+            return MISSING;
+        }
+        double value = record.metric(metric);
+        if (!(value >= 0 && value <= 100)) {
+            throw new IllegalArgumentException("percentage out of range in " + record.isoYear() + ": " + value);
+        }
+        return (int) Math.round(value * scale);
+    }
+
+    /**
+     * Throws an IndexOutOfBoundsException if the given index is not a legal index of the list
+     *
+     * @param index the index to check
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= keys.length) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that CompactWaterRecordList keeps keys, censoring and missing values of the bundled data exactly, keeps
+ * every value and aggregate within maxError of the original, and searches like the list it was copied from
+ */
+class CompactWaterRecordListTest {
+
+    @Test
+    public void testRoundTripWithinMaxError() throws FileNotFoundException {
+        SortedArrayList<YearlyWaterRecord> original = load();
+        for (int scale : new int[]{1, 7, CompactWaterRecordList.DEFAULT_SCALE, CompactWaterRecordList.MAX_SCALE}) {
+            CompactWaterRecordList compact = CompactWaterRecordList.copyOf(original, scale);
+            assertEquals(original.size(), compact.size());
+            assertEquals(0.5 / scale, compact.maxError());
+            double tolerance = compact.maxError() + 1e-9;   // a value halfway between codes is off by maxError
+            int row = 0;
+            for (YearlyWaterRecord decoded : compact) {
+                YearlyWaterRecord record = original.get(row);
+                assertEquals(record.isoYear(), decoded.isoYear());
+                assertEquals(record.flags(), decoded.flags(), record.isoYear());
+                for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                    assertEquals(record.isValid(metric), decoded.isValid(metric));
+                    assertEquals(record.censoring(metric), decoded.censoring(metric));
+                    if (record.isValid(metric)) {
+                        assertEquals(record.metric(metric), decoded.metric(metric), tolerance,
+                                record.isoYear() + " " + YearlyWaterRecord.METRIC_NAMES[metric]);
+                    } else {
+                        assertEquals(-1, decoded.metric(metric));
+                    }
+                    assertEquals(decoded.metric(metric), compact.value(metric, row));
+                }
+                assertEquals(row, compact.indexOf(record));
+                row++;
+            }
+            assertEquals(original.size(), row);
+        }
+    }
+
+    @Test
+    public void testAggregatesWithinMaxError() throws FileNotFoundException {
+        SortedArrayList<Integer> years = new SortedArrayList<>();
+        SortedArrayList<YearlyWaterRecord> original = Main.loadWaterData(new File("IsoYearWaterData.txt"), years);
+        WaterQueries queries = new WaterQueries(original);
+        for (int scale : new int[]{1, CompactWaterRecordList.DEFAULT_SCALE}) {
+            CompactWaterRecordList compact = CompactWaterRecordList.copyOf(original, scale);
+            double tolerance = compact.maxError() + 1e-9;
+            for (Integer year : years) {
+                double[] expected = queries.yearAverages(year);
+                double[] actual = compact.yearAverages(year);
+                for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                    assertEquals(expected[metric], actual[metric], tolerance, year + " metric " + metric);
+                }
+            }
+            for (double average : compact.yearAverages(1999)) {
+                assertTrue(Double.isNaN(average));
+            }
+
+            YearlyWaterRecord[] series = queries.series("KHM");
+            int from = compact.indexOf(series[0]);
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                double sum = 0;
+                int count = 0;
+                for (YearlyWaterRecord record : series) {
+                    if (record.isValid(metric)) {
+                        sum += record.metric(metric);
+                        count++;
+                    }
+                }
+                double actual = compact.mean(metric, from, from + series.length);
+                if (count == 0) {
+                    assertTrue(Double.isNaN(actual));
+                } else {
+                    assertEquals(sum / count, actual, tolerance);
+                }
+            }
+            assertTrue(Double.isNaN(compact.mean(0, from, from)));
+            assertThrows(IndexOutOfBoundsException.class, () -> compact.mean(0, from + 1, from));
+        }
+    }
+
+    @Test
+    public void testSearchesMatchOriginal() throws FileNotFoundException {
+        SortedArrayList<YearlyWaterRecord> original = load();
+        CompactWaterRecordList compact = CompactWaterRecordList.copyOf(original);
+        for (String isoYear : new String[]{"AAA1999", "KHM2000", "KHM2099", "ZZZ2099", "", "A", "KHM20001",
+                "KHM200012", "KHM2000XYZ", "ZZZZZ20001", "KÉM2000"}) {
+            YearlyWaterRecord probe = new YearlyWaterRecord(isoYear, 0.0, 0.0, 0.0, 0.0);
+            assertEquals(original.indexOf(probe), compact.indexOf(probe), isoYear);
+            assertEquals(original.contains(probe), compact.contains(probe), isoYear);
+        }
+        YearlyWaterRecord khm = new YearlyWaterRecord("KHM2000", 0.0, 0.0, 0.0, 0.0);
+        assertEquals(1, compact.get(khm, new YearlyWaterRecord[0]).length);
+        assertEquals(0, compact.get(new YearlyWaterRecord("KHM200012", 0.0, 0.0, 0.0, 0.0),
+                new YearlyWaterRecord[0]).length);
+        assertEquals(original.size(), compact.toArray(new YearlyWaterRecord[0]).length);
+        assertThrows(UnsupportedOperationException.class, () -> compact.add(khm));
+        assertThrows(UnsupportedOperationException.class, () -> compact.remove(0));
+        assertThrows(IllegalArgumentException.class, () -> CompactWaterRecordList.copyOf(original, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> CompactWaterRecordList.copyOf(original, CompactWaterRecordList.MAX_SCALE + 1));
+    }
+
+    /**
+     * Loads the bundled data
+     *
+     * @return the records
+     * @throws FileNotFoundException if the file is missing
+     */
+    private static SortedArrayList<YearlyWaterRecord> load() throws FileNotFoundException {
+        return Main.loadWaterData(new File("IsoYearWaterData.txt"), new SortedArrayList<>());
+    }
+}
@@ -0,0 +1,223 @@
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Ingestion throughput of ConcurrentSortedList against a SortedArrayList guarded by a read-write lock, with
+ * several writer threads adding random values while reader threads run contains lookups.
+ * Usage: java ConcurrentListBenchmark [elementsPerRun] [readers]
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class ConcurrentListBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int elements = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        System.out.printf("%,d elements per run, %d reader threads%n", elements, readers);
+        System.out.println("implementation          writers   addsPerSec   readsPerSec");
+        // the first pass warms up both implementations
+        for (int pass = 0; pass < 2; pass++) {
+            for (int writers = 1; writers <= 8; writers *= 2) {
+                run("locked SortedArrayList", LockedList::new, writers, readers, elements, pass == 1);
+                run("ConcurrentSortedList", ConcurrentSortedList::new, writers, readers, elements, pass == 1);
+            }
+        }
+    }
+
+    /**
+     * Fills a fresh list from several writers while readers look up values, and reports the rates
+     *
+     * @param name     implementation name for the report
+     * @param factory  creates an empty, thread-safe list
+     * @param writers  number of writer threads
+     * @param readers  number of reader threads
+     * @param elements total number of elements added
+     * @param report   whether to print the result
+     */
+    private static void run(String name, Supplier<SortedArrayListInterface<Integer>> factory, int writers,
+                            int readers, int elements, boolean report) throws Exception {
+        SortedArrayListInterface<Integer> list = factory.get();
+        ExecutorService pool = Executors.newFixedThreadPool(writers + readers);
+        CountDownLatch start = new CountDownLatch(1);
+        Future<?>[] writerTasks = new Future<?>[writers];
+        Future<?>[] readerTasks = new Future<?>[readers];
+        long[] reads = new long[readers];
+        for (int w = 0; w < writers; w++) {
+            int seed = w;
+            writerTasks[w] = pool.submit(() -> {
+                Random random = new Random(seed);
+                start.await();
+                for (int i = seed; i < elements; i += writers) {
+                    list.add(random.nextInt());
+                }
+                return null;
+            });
+        }
+        for (int r = 0; r < readers; r++) {
+            int reader = r;
+            readerTasks[r] = pool.submit(() -> {
+                Random random = new Random(-reader - 1);
+                start.await();
+                long count = 0;
+                while (!isDone(writerTasks)) {
+                    list.contains(random.nextInt());
+                    count++;
+                }
+                reads[reader] = count;
+                return null;
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> task : writerTasks) {
+            task.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        long totalReads = 0;
+        for (int r = 0; r < readers; r++) {
+            readerTasks[r].get();
+            totalReads += reads[r];
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+        if (list.size() != elements) {
+            throw new IllegalStateException(name + " lost elements: " + list.size());
+        }
+        if (report) {
+            System.out.printf("%-22s %8d %12.0f %13.0f%n", name, writers, elements / (elapsed / 1e9),
+                    totalReads / (elapsed / 1e9));
+        }
+    }
+
+    /**
+     * Retrieves whether every task has finished
+     *
+     * @param tasks the tasks
+     * @return true, if all are done
+     */
+    private static boolean isDone(Future<?>[] tasks) {
+        for (Future<?> task : tasks) {
+            if (!task.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * SortedArrayList behind a read-write lock: the usual way to share it between threads
+     */
+    private static final class LockedList implements SortedArrayListInterface<Integer> {
+        private final SortedArrayList<Integer> list = new SortedArrayList<>();
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        @Override
+        public int size() {
+            lock.readLock().lock();
+            try {
+                return list.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size() == 0;
+        }
+
+        @Override
+        public void clear() {
+            lock.writeLock().lock();
+            try {
+                list.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public boolean contains(Integer value) {
+            lock.readLock().lock();
+            try {
+                return list.contains(value);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public int indexOf(Integer value) {
+            lock.readLock().lock();
+            try {
+                return list.indexOf(value);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public Integer get(int index) {
+            lock.readLock().lock();
+            try {
+                return list.get(index);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public Integer[] get(Integer value, Integer[] template) {
+            lock.readLock().lock();
+            try {
+                return list.get(value, template);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void add(Integer value) {
+            lock.writeLock().lock();
+            try {
+                list.add(value);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void remove(int index) {
+            lock.writeLock().lock();
+            try {
+                list.remove(index);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        // iteration is not guarded; the benchmark never iterates
+        @Override
+        public Iterator<Integer> iterator() {
+            return list.iterator();
+        }
+
+        @Override
+        public Integer[] toArray(Integer[] template) {
+            lock.readLock().lock();
+            try {
+                return list.toArray(template);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
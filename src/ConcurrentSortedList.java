@@ -0,0 +1,434 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sorted list that any number of threads may add to, remove from and read concurrently without locking; elements
+ * live in a lock-free skip list. Each element is tagged with an insertion sequence number so duplicates are kept,
+ * and a new duplicate sorts before the equal elements already present, exactly as SortedArrayList.add places it.
+ * <p>
+ * Iterators are weakly consistent: they never throw ConcurrentModificationException and reflect some, all or none
+ * of the writes made while iterating. Positional methods (indexOf, get(int), remove(int)) are exact whenever no
+ * write overlaps the call, and otherwise off by at most the number of overlapping writes; they start from a sampled
+ * position index that is rebuilt after writes, and approximateIndexOf answers from that index alone when an
+ * estimate is enough.
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ *
+ * @param <E> type of element in the list; must be comparable inorder to be properly sorted
+ */
+public class ConcurrentSortedList<E extends Comparable<E>> implements SortedArrayListInterface<E>, Iterable<E> {
+
+    /** number of elements between consecutive samples of the position index */
+    static final int SAMPLE_STRIDE = 64;
+    /** approximateIndexOf rebuilds the position index once more than size / STALE_FRACTION writes have happened */
+    private static final int STALE_FRACTION = 16;
+    /** times an exact positional query retries after a concurrent write before counting from the head */
+    private static final int EXACT_RETRIES = 3;
+
+    /** elements, ordered by value and then newest first */
+    private final ConcurrentSkipListSet<Entry<E>> entries = new ConcurrentSkipListSet<>(Entry.order());
+    /**
+     * number of elements; tracked separately because counting the skip list is O(n). Raised before an insert and
+     * lowered after a removal, so it is never below the number of elements a reader can reach
+     */
+    private final AtomicInteger size = new AtomicInteger();
+    /** source of insertion sequence numbers */
+    private final AtomicLong sequence = new AtomicLong();
+    /** number of writes so far; a position index is current only while this has not moved */
+    private final AtomicLong modifications = new AtomicLong();
+    /** most recently built position index; null until first needed */
+    private volatile PositionIndex<E> positions;
+
+    /**
+     * Creates an empty list
+     */
+    public ConcurrentSortedList() {
+    }
+
+    /**
+     * Retrieves the number of elements being maintained by the list
+     *
+     * @return the number of elements being maintained
+     */
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Retrieves whether the list is empty
+     *
+     * @return true, if there are no elements in the list; false, if there are elements
+     */
+    @Override
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    /**
+     * Removes every element present when the call starts; elements added concurrently may remain
+     */
+    @Override
+    public void clear() {
+        while (entries.pollFirst() != null) {
+            size.decrementAndGet();
+            modifications.incrementAndGet();
+        }
+    }
+
+    /**
+     * Retrieves whether the specified element is in the list
+     *
+     * @param value the value to search for
+     * @return true, if the element is in the list; false, if not
+     */
+    @Override
+    public boolean contains(E value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        Entry<E> first = entries.ceiling(Entry.before(value));
+        return first != null && first.value.compareTo(value) == 0;
+    }
+
+    /**
+     * Estimates where the first occurrence of a value is, or would go, from the sampled position index alone
+     *
+     * @param value the value to search for
+     * @return a position 0 to size; off by at most SAMPLE_STRIDE plus the number of writes since the index was built
+     */
+    public int approximateIndexOf(E value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        PositionIndex<E> index = positions;
+        if (index == null || modifications.get() - index.modifications > Math.max(SAMPLE_STRIDE,
+                size.get() / STALE_FRACTION)) {
+            index = rebuildPositions();
+        }
+        int sample = index.lastSampleBefore(Entry.before(value));
+        return sample < 0 ? 0 : Math.min(sample * SAMPLE_STRIDE + SAMPLE_STRIDE / 2, size.get());
+    }
+
+    /**
+     * Finds the index of the first occurrence of the specified value, or, if not found, the place that value
+     * should be; starts from the nearest sample of the position index and counts the rest
+     *
+     * @param value the value to search for
+     * @return if found, the index of the value in the list (range 0 to size - 1);
+     * if not found, an index representing where the value would go, if added, returned as -(position+1)
+     */
+    @Override
+    public int indexOf(E value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        Entry<E> before = Entry.before(value);
+        int position = -1;
+        for (int attempt = 0; attempt < EXACT_RETRIES && position < 0; attempt++) {
+            PositionIndex<E> index = currentPositions();
+            int sample = index.lastSampleBefore(before);
+            int counted = sample < 0 ? entries.headSet(before).size()
+                    : sample * SAMPLE_STRIDE + entries.subSet(index.samples[sample], true, before, false).size();
+            if (modifications.get() == index.modifications) {
+                position = counted;
+            }
+        }
+        if (position < 0) {
+            position = entries.headSet(before).size();
+        }
+        Entry<E> first = entries.ceiling(before);
+        return first != null && first.value.compareTo(value) == 0 ? position : -position - 1;
+    }
+
+    /**
+     * Retrieves the element at the specified position in the list
+     *
+     * @param index the index (position) in the list; must be 0 to size-1
+     * @return the element at the specified position
+     */
+    @Override
+    public E get(int index) {
+        return entryAt(index).value;
+    }
+
+    /**
+     * Retrieves an array of elements that compare themselves equally to the specified value (via compareTo),
+     * with results being stored in the array specified.
+     *
+     * @param value    the element being sought; will be used to compareTo() other elements
+     * @param template a template array used to create results; pass in a 0-sized array
+     * @return a new array that is right-sized and contains element references, if any
+     */
+    @Override
+    public E[] get(E value, E[] template) {
+        if (value == null || template == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        NavigableSet<Entry<E>> equal = entries.subSet(Entry.before(value), false, Entry.after(value), false);
+        E[] result = Arrays.copyOf(template, 0);
+        int count = 0;
+        for (Entry<E> entry : equal) {
+            if (count == result.length) {
+                result = Arrays.copyOf(result, Math.max(4, count * 2));
+            }
+            result[count++] = entry.value;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Adds a new element to the list, maintaining sorting via natural order (via compareTo)
+     *
+     * @param value the value to add to the list
+     */
+    @Override
+    public void add(E value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        size.incrementAndGet(); // before the insert, so a position found by indexOf is always below size
+        entries.add(new Entry<>(value, sequence.getAndIncrement()));
+        modifications.incrementAndGet();
+    }
+
+    /**
+     * Removes from the list the element at the specified index; if another thread removes that element first,
+     * nothing is removed
+     *
+     * @param index the index in the list; must be in range  0 to size-1
+     */
+    @Override
+    public void remove(int index) {
+        remove(entryAt(index));
+    }
+
+    /**
+     * Retrieves a weakly consistent iterator over list elements; for/each loops are also supported
+     *
+     * @return a strongly typed iterator over list elements
+     */
+    @Override
+    public Iterator<E> iterator() {
+        Iterator<Entry<E>> iterator = entries.iterator();
+        return new Iterator<E>() {
+            /** entry most recently returned, for remove */
+            private Entry<E> last;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public E next() {
+                last = iterator.next();
+                return last.value;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                ConcurrentSortedList.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    /**
+     * Retrieves a text representation of the elements in the list
+     *
+     * @return text representing of list elements
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("[");
+        for (Entry<E> entry : entries) {
+            if (result.length() > 1) {
+                result.append(", ");
+            }
+            result.append(entry.value);
+        }
+        return result.append(']').toString();
+    }
+
+    /**
+     * Retrieves an array representing the contents of the list
+     *
+     * @param template a template list of the proper type, e.g., if E is String,
+     *                 the caller can pass in as an argument: new String[0]
+     * @return a right-sized array containing object references to list elements
+     */
+    @Override
+    public E[] toArray(E[] template) {
+        if (template == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        E[] result = Arrays.copyOf(template, size.get());
+        int count = 0;
+        for (Entry<E> entry : entries) {
+            if (count == result.length) {
+                result = Arrays.copyOf(result, count + 1 + count / 8);
+            }
+            result[count++] = entry.value;
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Removes one entry, counting the write only if this thread removed it
+     *
+     * @param entry the entry to remove
+     */
+    private void remove(Entry<E> entry) {
+        if (entries.remove(entry)) {
+            size.decrementAndGet();
+            modifications.incrementAndGet();
+        }
+    }
+
+    /**
+     * Finds the entry at a position, starting from the nearest sample of the position index
+     *
+     * @param index the position; must be 0 to size-1
+     * @return the entry
+     */
+    private Entry<E> entryAt(int index) {
+        if (index < 0 || index >= size.get()) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+        for (int attempt = 0; attempt < EXACT_RETRIES; attempt++) {
+            PositionIndex<E> positionIndex = currentPositions();
+            int sample = index / SAMPLE_STRIDE;
+            if (sample >= positionIndex.samples.length) {
+                continue;
+            }
+            Entry<E> found = walk(entries.tailSet(positionIndex.samples[sample], true), index % SAMPLE_STRIDE);
+            if (found != null && modifications.get() == positionIndex.modifications) {
+                return found;
+            }
+        }
+        Entry<E> found = walk(entries, index);
+        if (found == null) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+        return found;
+    }
+
+    /**
+     * Steps through a set to the entry a number of places from its start
+     *
+     * @param set   the set to walk
+     * @param steps number of entries to skip
+     * @return the entry; null if the set ran out first
+     */
+    private static <E extends Comparable<E>> Entry<E> walk(NavigableSet<Entry<E>> set, int steps) {
+        Iterator<Entry<E>> iterator = set.iterator();
+        for (int i = 0; i < steps && iterator.hasNext(); i++) {
+            iterator.next();
+        }
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    /**
+     * Retrieves a position index that reflects every write so far, rebuilding it if needed
+     *
+     * @return the position index
+     */
+    private PositionIndex<E> currentPositions() {
+        PositionIndex<E> index = positions;
+        return index != null && index.modifications == modifications.get() ? index : rebuildPositions();
+    }
+
+    /**
+     * Samples every SAMPLE_STRIDE-th entry in one pass; concurrent rebuilds are harmless, the last one wins
+     *
+     * @return the new position index
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private PositionIndex<E> rebuildPositions() {
+        long stamp = modifications.get();
+        Entry<E>[] samples = new Entry[size.get() / SAMPLE_STRIDE + 1];
+        int count = 0;
+        int position = 0;
+        for (Entry<E> entry : entries) {
+            if (position++ % SAMPLE_STRIDE == 0) {
+                if (count == samples.length) {
+                    samples = Arrays.copyOf(samples, count * 2);
+                }
+                samples[count++] = entry;
+            }
+        }
+        PositionIndex<E> index = new PositionIndex<>(Arrays.copyOf(samples, count), stamp);
+        positions = index;
+        return index;
+    }
+
+    /**
+     * An element tagged with its insertion sequence number
+     *
+     * @param value    the element; null only in search bounds
+     * @param sequence insertion order; Long.MAX_VALUE and Long.MIN_VALUE mark search bounds before and after all
+     *                 equal elements
+     */
+    private record Entry<E extends Comparable<E>>(E value, long sequence) {
+
+        /** orders by value, then newest first */
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        private static final Comparator<Entry> ORDER = (a, b) -> {
+            int result = a.value.compareTo(b.value);
+            return result != 0 ? result : Long.compare(b.sequence, a.sequence);
+        };
+
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        static <E extends Comparable<E>> Comparator<Entry<E>> order() {
+            return (Comparator) ORDER;
+        }
+
+        static <E extends Comparable<E>> Entry<E> before(E value) {
+            return new Entry<>(value, Long.MAX_VALUE);
+        }
+
+        static <E extends Comparable<E>> Entry<E> after(E value) {
+            return new Entry<>(value, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Every SAMPLE_STRIDE-th entry as of a given write count
+     *
+     * @param samples       samples[i] is the entry at position i * SAMPLE_STRIDE
+     * @param modifications the write count when sampling started
+     */
+    private record PositionIndex<E extends Comparable<E>>(Entry<E>[] samples, long modifications) {
+
+        /**
+         * Finds the last sample that sorts before a search bound
+         *
+         * @param bound the search bound
+         * @return the sample number; -1 if none
+         */
+        int lastSampleBefore(Entry<E> bound) {
+            Comparator<Entry<E>> order = Entry.order();
+            int min = 0;
+            int max = samples.length;
+            while (min < max) {
+                int mid = (min + max) >>> 1;
+                if (order.compare(samples[mid], bound) < 0) {
+                    min = mid + 1;
+                } else {
+                    max = mid;
+                }
+            }
+            return min - 1;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the shared conformance suite against ConcurrentSortedList, plus multi-threaded stress tests
+ */
+class ConcurrentSortedListTest extends SortedListConformanceTest {
+
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int PER_WRITER = 20_000;
+    /** sentinels kept below and above the values the writers use, so their positions are known during writes */
+    private static final int SENTINELS = 5 * ConcurrentSortedList.SAMPLE_STRIDE;
+    /** values in each half of the range the churn test writes to */
+    private static final int CHURN_RANGE = 50_000;
+    /** writers are adding: positions of the upper sentinels only grow */
+    private static final int ADDING = 0;
+    /** writers are removing: positions of the upper sentinels only shrink */
+    private static final int REMOVING = 1;
+
+    @Override
+    protected SortedArrayListInterface<String> createList() {
+        return new ConcurrentSortedList<>();
+    }
+
+    @Test
+    public void testDuplicatesNewestFirst() {
+        ConcurrentSortedList<YearlyWaterRecord> list = new ConcurrentSortedList<>();
+        YearlyWaterRecord older = new YearlyWaterRecord("ABW2000", 1, 1, 1, 1);
+        YearlyWaterRecord newer = new YearlyWaterRecord("ABW2000", 2, 2, 2, 2);
+        list.add(older);
+        list.add(newer);
+        assertSame(newer, list.get(0));
+        assertSame(older, list.get(1));
+    }
+
+    @Test
+    public void testApproximateIndexOf() {
+        ConcurrentSortedList<Integer> list = new ConcurrentSortedList<>();
+        for (int i = 0; i < 10_000; i++) {
+            list.add(i);
+        }
+        for (int i = 0; i < 10_000; i += 101) {
+            assertTrue(Math.abs(list.approximateIndexOf(i) - i) <= ConcurrentSortedList.SAMPLE_STRIDE);
+            assertEquals(i, list.indexOf(i));
+            assertEquals(i, (int) list.get(i));
+        }
+    }
+
+    @Test
+    public void testConcurrentWritersAndReaders() throws Exception {
+        ConcurrentSortedList<Integer> list = new ConcurrentSortedList<>();
+        int total = WRITERS * PER_WRITER;
+        for (int i = 0; i < SENTINELS; i++) {
+            list.add(i - SENTINELS);
+            list.add(total + i);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + 2 * READERS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch added = new CountDownLatch(WRITERS);
+        CountDownLatch removing = new CountDownLatch(1);
+        AtomicInteger phase = new AtomicInteger(ADDING);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                int writer = w;
+                writers.add(pool.submit(() -> {
+                    start.await();
+                    // interleaved values so every writer touches the whole key range; each value is added twice
+                    for (int i = 0; i < PER_WRITER; i++) {
+                        list.add(i * WRITERS + writer);
+                        list.add(i * WRITERS + writer);
+                    }
+                    added.countDown();
+                    removing.await();
+                    // then one copy of each odd value this writer owns is removed through a concurrent iterator
+                    int lastRemoved = -1;
+                    Iterator<Integer> iterator = list.iterator();
+                    while (iterator.hasNext()) {
+                        int value = iterator.next();
+                        if (value >= total) {
+                            break;  // the upper sentinels
+                        }
+                        if (value % WRITERS == writer && value % 2 == 1 && value != lastRemoved) {
+                            iterator.remove();
+                            lastRemoved = value;
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (int r = 0; r < READERS; r++) {
+                pool.submit(() -> {
+                    start.await();
+                    while (writing.get()) {
+                        Integer previous = null;
+                        for (Integer value : list) {
+                            if (previous != null && previous > value) {
+                                failures.add("iterator out of order: " + previous + " then " + value);
+                            }
+                            previous = value;
+                        }
+                        int size = list.size();
+                        if (size > 0) {
+                            int index = list.approximateIndexOf(size / 2);
+                            if (index < 0 || index > list.size()) {
+                                failures.add("approximate index out of range: " + index);
+                            }
+                        }
+                    }
+                    return null;
+                });
+                pool.submit(() -> {
+                    start.await();
+                    checkPositions(list, total, phase, writing, failures);
+                    return null;
+                });
+            }
+            start.countDown();
+            assertTrue(added.await(60, TimeUnit.SECONDS));
+            phase.set(REMOVING);
+            removing.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+        }
+
+        assertTrue(failures.isEmpty(), String.valueOf(failures.peek()));
+        assertEquals(total + total / 2 + 2 * SENTINELS, list.size());
+        int index = SENTINELS;
+        for (int value = 0; value < total; value++) {
+            int copies = value % 2 == 1 ? 1 : 2;
+            assertEquals(index, list.indexOf(value));
+            for (int copy = 0; copy < copies; copy++) {
+                assertEquals(value, (int) list.get(index++));
+            }
+        }
+    }
+
+    @Test
+    public void testPositionsUnderChurn() throws Exception {
+        // values 0 .. 2 * CHURN_RANGE - 1 once each, then the upper sentinels; each writer adds a value to the lower
+        // half and then removes one of its own values from the upper half, so without overlapping writes an upper
+        // sentinel is always within WRITERS of its starting position, while the position index keeps going stale
+        ConcurrentSortedList<Integer> list = new ConcurrentSortedList<>();
+        int base = 2 * CHURN_RANGE;
+        for (int value = 0; value < base + SENTINELS; value++) {
+            list.add(value);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + READERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicLong started = new AtomicLong();
+        AtomicLong finished = new AtomicLong();
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                int writer = w;
+                writers.add(pool.submit(() -> {
+                    java.util.Random random = new java.util.Random(writer);
+                    Iterator<Integer> upper = list.iterator();
+                    start.await();
+                    for (int i = 0; i < CHURN_RANGE / WRITERS / 2; i++) {
+                        started.incrementAndGet();
+                        list.add(random.nextInt(CHURN_RANGE));
+                        finished.incrementAndGet();
+                        int value;
+                        do {
+                            value = upper.next();
+                        } while (value < CHURN_RANGE || value % WRITERS != writer);
+                        started.incrementAndGet();
+                        upper.remove();
+                        finished.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (int r = 0; r < READERS; r++) {
+                pool.submit(() -> {
+                    java.util.Random random = new java.util.Random();
+                    start.await();
+                    while (writing.get()) {
+                        int sentinel = random.nextInt(SENTINELS);
+                        long before = finished.get();
+                        int position = list.indexOf(base + sentinel);
+                        int now = list.get(base + sentinel);
+                        int atPosition = list.get(position);
+                        // writes that overlapped the calls, plus the adds not yet matched by a removal when they began
+                        long tolerance = started.get() - before + WRITERS;
+                        if (Math.abs(position - base - sentinel) > tolerance) {
+                            failures.add("upper sentinel " + sentinel + " found at " + position + ", tolerance "
+                                    + tolerance);
+                        }
+                        for (int value : new int[]{now, atPosition}) {
+                            if (value >= base ? Math.abs(value - base - sentinel) > 2 * tolerance
+                                    : sentinel > 2 * tolerance) {
+                                failures.add("near upper sentinel " + sentinel + " found " + value + ", tolerance "
+                                        + tolerance);
+                            }
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+        }
+
+        assertTrue(failures.isEmpty(), failures.size() + " failures, first: " + failures.peek());
+        assertEquals(base + SENTINELS, list.size());
+        for (int sentinel = 0; sentinel < SENTINELS; sentinel++) {
+            assertEquals(base + sentinel, list.indexOf(base + sentinel));
+            assertEquals(base + sentinel, (int) list.get(base + sentinel));
+        }
+        list.remove(base);
+        assertEquals(-base - 1, list.indexOf(base));
+        assertEquals(base + 1, (int) list.get(base));
+    }
+
+    /**
+     * Calls indexOf and get(int) on the sentinels while the writers run and checks the answers against each other.
+     * The lower sentinels never move. While writers only add, an upper sentinel only moves right, so a later indexOf
+     * is never smaller and the element now at its earlier position is never larger; while they only remove, the
+     * reverse holds. An answer counted from a stale sample of the position index breaks these
+     *
+     * @param list     the list being written
+     * @param total    number of distinct values the writers use; the upper sentinels start there
+     * @param phase    what the writers are doing
+     * @param writing  cleared once the writers are done
+     * @param failures receives a description of each broken check
+     */
+    private static void checkPositions(ConcurrentSortedList<Integer> list, int total, AtomicInteger phase,
+                                       AtomicBoolean writing, ConcurrentLinkedQueue<String> failures) {
+        java.util.Random random = new java.util.Random();
+        int[] previous = new int[SENTINELS];
+        int previousPhase = -1;
+        while (writing.get()) {
+            int lower = random.nextInt(SENTINELS);
+            if (list.indexOf(lower - SENTINELS) != lower || list.get(lower) != lower - SENTINELS) {
+                failures.add("lower sentinel " + lower + " moved");
+            }
+
+            int sentinel = random.nextInt(SENTINELS);
+            int before = phase.get();
+            int position = list.indexOf(total + sentinel);
+            if (position < SENTINELS + sentinel) {
+                failures.add("upper sentinel " + sentinel + " at " + position);
+                continue;
+            }
+            Integer now;
+            try {
+                now = list.get(position);
+            } catch (IndexOutOfBoundsException e) {
+                now = null; // removals shrank the list below the earlier position
+            }
+            if (phase.get() != before) {
+                previousPhase = -1;
+                continue;
+            }
+            if (before != previousPhase) {
+                java.util.Arrays.fill(previous, before == ADDING ? 0 : Integer.MAX_VALUE);
+                previousPhase = before;
+            }
+            if (before == ADDING ? position < previous[sentinel] : position > previous[sentinel]) {
+                failures.add("upper sentinel " + sentinel + " went from " + previous[sentinel] + " to " + position);
+            }
+            if (now == null ? before == ADDING : before == ADDING ? now > total + sentinel : now < total + sentinel) {
+                failures.add("position " + position + " of upper sentinel " + sentinel + " then held " + now);
+            }
+            previous[sentinel] = position;
+        }
+    }
+}
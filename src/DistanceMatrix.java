@@ -0,0 +1,150 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * All-pairs profile distances for a set of records, computed in parallel on the common fork-join pool; only the
+ * upper triangle is stored, so n records take n(n-1)/2 doubles
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class DistanceMatrix {
+
+    /** rows computed by one task before it stops splitting */
+    private static final int ROWS_PER_TASK = 16;
+    /** most records a matrix may cover, so the triangle fits in one array */
+    static final int MAX_RECORDS = 65_000;
+
+    /** the records, in row order */
+    private final YearlyWaterRecord[] records;
+    /** upper triangle, row by row: (i, j) for i &lt; j is at offset(i) + j - i - 1 */
+    private final double[] distances;
+    /** row of each record, by isoYear */
+    private final Map<String, Integer> rows;
+
+    /**
+     * Computes the distances between every pair of records
+     *
+     * @param records records with all four metrics, as returned by SimilarityIndex.records(); rows follow their
+     *                sorted order; must not be null
+     */
+    public DistanceMatrix(YearlyWaterRecord[] records) {
+        if (records == null || records.length > MAX_RECORDS) {
+            throw new IllegalArgumentException("records must not be null or exceed " + MAX_RECORDS);
+        }
+        for (YearlyWaterRecord record : records) {
+            if (!SimilarityIndex.isComplete(record)) {
+                throw new IllegalArgumentException("every record must have all four metrics: " + record.isoYear());
+            }
+        }
+        this.records = records.clone();
+        Arrays.sort(this.records);
+        int n = records.length;
+        distances = new double[(int) ((long) n * (n - 1) / 2)];
+        ForkJoinPool.commonPool().invoke(new RowTask(0, n));
+        rows = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            rows.put(this.records[i].isoYear(), i);
+        }
+    }
+
+    /**
+     * Retrieves the number of records
+     *
+     * @return the number of rows and columns
+     */
+    public int size() {
+        return records.length;
+    }
+
+    /**
+     * Retrieves the record for a row
+     *
+     * @param row the row; must be 0 to size-1
+     * @return the record
+     */
+    public YearlyWaterRecord record(int row) {
+        return records[row];
+    }
+
+    /**
+     * Finds the row of a record
+     *
+     * @param isoYear the record's key
+     * @return the row; -1 if the record is not in the matrix
+     */
+    public int rowOf(String isoYear) {
+        Integer row = rows.get(isoYear);
+        return row == null ? -1 : row;
+    }
+
+    /**
+     * Retrieves the distance between two records
+     *
+     * @param row    one row; must be 0 to size-1
+     * @param column another row; must be 0 to size-1
+     * @return the Euclidean distance between their profiles, in percentage points
+     */
+    public double distance(int row, int column) {
+        if (row == column) {
+            return 0;
+        }
+        int i = Math.min(row, column);
+        int j = Math.max(row, column);
+        return distances[offset(i) + j - i - 1];
+    }
+
+    /**
+     * Computes where a row of the upper triangle starts
+     *
+     * @param row the row
+     * @return the array offset of (row, row + 1)
+     */
+    private int offset(int row) {
+        int n = records.length;
+        return (int) ((long) row * (2L * n - row - 1) / 2);
+    }
+
+    /**
+     * Fills a range of rows, splitting it in half until it is small; rows near the top are longer, and work
+     * stealing evens that out
+     */
+    private class RowTask extends RecursiveAction {
+        /** tasks are never serialized; declared to keep the serializable superclass's contract */
+        private static final long serialVersionUID = 1L;
+
+        /** first row */
+        private final int from;
+        /** one past the last row */
+        private final int to;
+
+        /**
+         * Creates a task for a range of rows
+         *
+         * @param from first row
+         * @param to   one past the last row
+         */
+        RowTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > ROWS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RowTask(from, mid), new RowTask(mid, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                int offset = offset(i) - i - 1;
+                for (int j = i + 1; j < records.length; j++) {
+                    distances[offset + j] = SimilarityIndex.distance(records[i], records[j]);
+                }
+            }
+        }
+    }
+}
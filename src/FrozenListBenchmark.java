@@ -0,0 +1,110 @@
+import java.util.Random;
+import java.util.function.ToLongFunction;
+
+/**
+ * Lookup latency of a SortedArrayList against its frozen snapshots, as freeze() makes them and with a packed key
+ * given, for Integer values, isoYear-style String keys and water records, which freeze() searches by packed key. Lists are filled in ascending order so that even the largest sizes load quickly. Larger sizes need a
+ * bigger heap, e.g. java -Xmx4g FrozenListBenchmark. Usage: java FrozenListBenchmark [size...]
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class FrozenListBenchmark {
+
+    /** lookups timed per measurement */
+    private static final int LOOKUPS = 2_000_000;
+
+    public static void main(String[] args) {
+        int[] sizes = {10_000, 100_000, 1_000_000, 10_000_000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        System.out.println("elements      size  mutableNs  frozenNs  packedNs  frozen speedup");
+        for (int size : sizes) {
+            Integer[] numbers = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                numbers[i] = i * 3;
+            }
+            compare("Integer", numbers, value -> (long) value ^ Long.MIN_VALUE);
+            numbers = null;
+
+            String[] keys = new String[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = code(i / 25) + (2000 + i % 25);
+            }
+            compare("String", keys, YearlyWaterRecord::packKey);
+
+            YearlyWaterRecord[] records = new YearlyWaterRecord[size];
+            for (int i = 0; i < size; i++) {
+                records[i] = new YearlyWaterRecord(keys[i], 50.0, 20.0, 20.0, 10.0);
+            }
+            keys = null;
+            compare("Record", records, YearlyWaterRecord::packedKey);
+        }
+    }
+
+    /**
+     * Spells a country ordinal as four capital letters, so keys sort in ordinal order and fit a packed key
+     *
+     * @param ordinal the ordinal
+     * @return e.g. "AAAB" for 1
+     */
+    private static String code(int ordinal) {
+        char[] letters = new char[4];
+        for (int i = letters.length - 1; i >= 0; i--) {
+            letters[i] = (char) ('A' + ordinal % 26);
+            ordinal /= 26;
+        }
+        return new String(letters);
+    }
+
+    /**
+     * Times random indexOf calls on the mutable list, the snapshot freeze() makes and one searching the given packed
+     * key, keeping the best of three rounds
+     *
+     * @param name      element type for the report
+     * @param values    values in ascending order
+     * @param packedKey packs a value into an order-preserving key
+     * @param <E>       type of element
+     */
+    private static <E extends Comparable<E>> void compare(String name, E[] values, ToLongFunction<E> packedKey) {
+        SortedArrayList<E> list = new SortedArrayList<>();
+        for (E value : values) {
+            list.add(value);
+        }
+        FrozenSortedArrayList<E> frozen = list.freeze();
+        FrozenSortedArrayList<E> packed = list.freeze(packedKey);
+        Random random = new Random(values.length);
+        int[] probes = new int[LOOKUPS];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = random.nextInt(values.length);
+        }
+        long mutable = Long.MAX_VALUE;
+        long snapshot = Long.MAX_VALUE;
+        long byKey = Long.MAX_VALUE;
+        long checksum = 0;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int probe : probes) {
+                checksum += list.indexOf(values[probe]);
+            }
+            mutable = Math.min(mutable, System.nanoTime() - start);
+            start = System.nanoTime();
+            for (int probe : probes) {
+                checksum -= frozen.indexOf(values[probe]);
+            }
+            snapshot = Math.min(snapshot, System.nanoTime() - start);
+            start = System.nanoTime();
+            for (int probe : probes) {
+                checksum += packed.indexOf(values[probe]);
+            }
+            byKey = Math.min(byKey, System.nanoTime() - start);
+        }
+        System.out.printf("%-8s %9d %10.1f %9.1f %9.1f %7.2fx   (checksum %d)%n", name, values.length,
+                (double) mutable / LOOKUPS, (double) snapshot / LOOKUPS, (double) byKey / LOOKUPS,
+                (double) mutable / snapshot, checksum);
+    }
+}
@@ -0,0 +1,308 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.ToLongFunction;
+
+/**
+ * Immutable snapshot of a sorted list, made by SortedArrayList.freeze(), for data that no longer changes after
+ * load. The elements are kept in a trimmed array in sorted order.
+ * <p>
+ * Given a packed key, a long that orders elements the way the list does (e.g. PackedKey.packedKey of a record),
+ * the snapshot also keeps the keys in Eytzinger (breadth-first) order: the root of the implicit search tree at
+ * slot 1 and the children of slot k at 2k and 2k+1. A search then reads the first few levels from a handful of
+ * cache lines that stay hot, walks down without a branch on each comparison, and touches no element until the
+ * last step. Without one, a search is a plain binary search of the elements: a tree of element references would
+ * still dereference an element at every level, which loses to the plain search for String-keyed data.
+ * <p>
+ * Every field is final and no array escapes, so a snapshot can be shared between threads without locking once the
+ * reference to it is published.
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ *
+ * @param <E> type of element in the list
+ */
+public final class FrozenSortedArrayList<E extends Comparable<E>> implements SortedArrayListInterface<E>, Iterable<E> {
+
+    /** elements in sorted order, trimmed to size */
+    private final E[] elements;
+    /** packed keys in Eytzinger order, 1-based, slot 0 unused, with the sign bit flipped, so signed comparison is
+     * unsigned order; null when searching by element */
+    private final long[] keyTree;
+    /** order of the elements; null for natural order */
+    private final Comparator<? super E> order;
+    /** packs an element into its key; null when searching by element */
+    private final ToLongFunction<? super E> packer;
+    /** sorted index of the element at each tree slot; null when searching by element */
+    private final int[] rank;
+
+    /**
+     * Lays out a sorted array for searching
+     *
+     * @param elements elements in sorted order; adopted, not copied
+     * @param order    the order of the elements; null for natural order
+     * @param packer   packs an element into a key that never decreases along the elements, compared as unsigned;
+     *                 null to search the elements themselves
+     */
+    FrozenSortedArrayList(E[] elements, Comparator<? super E> order, ToLongFunction<? super E> packer) {
+        this.elements = elements;
+        this.order = order;
+        this.packer = packer;
+        if (packer == null) {
+            keyTree = null;
+            rank = null;
+        } else {
+            keyTree = new long[elements.length + 1];
+            rank = new int[elements.length + 1];
+            layout(0, 1);
+        }
+    }
+
+    /**
+     * Fills the subtree at a slot by an in-order walk, so slots receive the sorted keys in turn
+     *
+     * @param next the next sorted index to place
+     * @param slot the tree slot
+     * @return the next sorted index after the subtree
+     */
+    private int layout(int next, int slot) {
+        if (slot < rank.length) {
+            next = layout(next, 2 * slot);
+            keyTree[slot] = packer.applyAsLong(elements[next]) ^ Long.MIN_VALUE;
+            rank[slot] = next++;
+            next = layout(next, 2 * slot + 1);
+        }
+        return next;
+    }
+
+    /**
+     * Retrieves the number of elements being maintained by the list
+     *
+     * @return the number of elements being maintained
+     */
+    @Override
+    public int size() {
+        return elements.length;
+    }
+
+    /**
+     * Retrieves whether the list is empty
+     *
+     * @return true, if there are no elements in the list; false, if there are elements
+     */
+    @Override
+    public boolean isEmpty() {
+        return elements.length == 0;
+    }
+
+    /**
+     * Not supported; the list is read-only
+     */
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("frozen list is read-only");
+    }
+
+    /**
+     * Retrieves whether the specified element is in the list
+     *
+     * @param value the value to search for
+     * @return true, if the element is in the list; false, if not
+     */
+    @Override
+    public boolean contains(E value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Finds the index of the first occurrence of the specified value, or, if not found, the place that value would
+     * go; duplicates need no extra walk, since the search finds the first element not less than the value
+     *
+     * @param value the value to search for
+     * @return if found, the index of the value in the list (range 0 to size - 1);
+     * if not found, -(position+1), e.g., -1 means it goes at index 0
+     */
+    @Override
+    public int indexOf(E value) {
+        int index = lowerBound(value);
+        return index < elements.length && compare(elements[index], value) == 0 ? index : -index - 1;
+    }
+
+    /**
+     * Finds the first element that is not less than a value
+     *
+     * @param value the value; must not be null
+     * @return its sorted index; size if every element is less
+     */
+    private int lowerBound(E value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        if (packer != null) {
+            return lowerBoundByKey(value);
+        }
+        int low = 0;
+        int high = elements.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(elements[mid], value) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the first element that is not less than a value by searching the packed keys, then stepping past the
+     * elements that share the value's key but are still less than it
+     *
+     * @param value the value
+     * @return its sorted index; size if every element is less
+     */
+    private int lowerBoundByKey(E value) {
+        long key = packer.applyAsLong(value) ^ Long.MIN_VALUE;
+        long[] keyTree = this.keyTree;
+        int slot = 1;
+        while (slot < keyTree.length) {
+            slot = 2 * slot + (keyTree[slot] < key ? 1 : 0);
+        }
+        int index = indexOfSlot(slot);
+        while (index < elements.length && compare(elements[index], value) < 0) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Compares two elements in the order of the list
+     *
+     * @param first  an element
+     * @param second another element
+     * @return negative, zero or positive as first sorts before, with or after second
+     */
+    private int compare(E first, E second) {
+        return order == null ? first.compareTo(second) : order.compare(first, second);
+    }
+
+    /**
+     * Converts the slot where a search fell off the tree into a sorted index
+     *
+     * @param slot the slot past the last level
+     * @return the sorted index of the first element not less than the value; size if there is none
+     */
+    private int indexOfSlot(int slot) {
+        // the answer is the last slot where the walk went left: drop the trailing right steps and that left step
+        slot >>>= Integer.numberOfTrailingZeros(~slot) + 1;
+        return slot == 0 ? elements.length : rank[slot];
+    }
+
+    /**
+     * Retrieves the element at the specified position in the list
+     *
+     * @param index the index (position) in the list; must be 0 to size-1
+     * @return the element at the specified position
+     */
+    @Override
+    public E get(int index) {
+        if (index < 0 || index >= elements.length) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+        return elements[index];
+    }
+
+    /**
+     * Retrieves an array of elements that are compare themselves equally to the specified value (via compareTo)
+     *
+     * @param value    the element being sought; will be used to compareTo() other elements
+     * @param template a template array used to create results; pass in a 0-sized array
+     * @return a new array that is right-sized and contains element references, if any
+     */
+    @Override
+    public E[] get(E value, E[] template) {
+        if (value == null || template == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        int from = lowerBound(value);
+        int to = from;
+        while (to < elements.length && compare(elements[to], value) == 0) {
+            to++;
+        }
+        E[] result = Arrays.copyOf(template, to - from);
+        System.arraycopy(elements, from, result, 0, to - from);
+        return result;
+    }
+
+    /**
+     * Not supported; the list is read-only
+     *
+     * @param value ignored
+     */
+    @Override
+    public void add(E value) {
+        throw new UnsupportedOperationException("frozen list is read-only");
+    }
+
+    /**
+     * Not supported; the list is read-only
+     *
+     * @param index ignored
+     */
+    @Override
+    public void remove(int index) {
+        throw new UnsupportedOperationException("frozen list is read-only");
+    }
+
+    /**
+     * Retrieves an iterator over list elements in sorted order; it does not support remove
+     *
+     * @return a strongly typed iterator over list elements
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < elements.length;
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return elements[position++];
+            }
+        };
+    }
+
+    /**
+     * Retrieves an array representing the contents of the list
+     *
+     * @param template a template list of the proper type; pass in a 0-sized array
+     * @return a right-sized copy of the elements
+     */
+    @Override
+    public E[] toArray(E[] template) {
+        if (template == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        E[] result = Arrays.copyOf(template, elements.length);
+        System.arraycopy(elements, 0, result, 0, elements.length);
+        return result;
+    }
+
+    /**
+     * Retrieves a text representation of the elements in the list
+     *
+     * @return text representing of list elements
+     */
+    @Override
+    public String toString() {
+        return Arrays.toString(elements);
+    }
+}
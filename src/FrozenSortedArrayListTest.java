@@ -0,0 +1,106 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrozenSortedArrayListTest {
+
+    @Test
+    public void testMatchesMutableListAtEverySize() {
+        Random random = new Random(42);
+        for (int size = 0; size < 140; size++) {
+            SortedArrayList<Integer> list = new SortedArrayList<>();
+            for (int i = 0; i < size; i++) {
+                list.add(random.nextInt(size + 1) * 2);     // even values, with duplicates
+            }
+            //by element, and by a packed key that several elements share
+            assertMatches(list, list.freeze());
+            assertMatches(list, list.freeze(value -> value / 8));
+        }
+    }
+
+    private static void assertMatches(SortedArrayList<Integer> list, FrozenSortedArrayList<Integer> frozen) {
+        assertEquals(list.size(), frozen.size());
+        for (int value = -1; value <= 2 * list.size() + 3; value++) {
+            assertEquals(list.indexOf(value), frozen.indexOf(value), "size " + list.size() + " value " + value);
+            assertEquals(list.contains(value), frozen.contains(value));
+            int equal = 0;
+            for (int i = 0; i < list.size(); i++) {
+                equal += list.get(i) == value ? 1 : 0;
+            }
+            assertEquals(equal, frozen.get(value, new Integer[0]).length);
+        }
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(list.get(i), frozen.get(i));
+        }
+    }
+
+    @Test
+    public void testRecordsAreSearchedByPackedKey() {
+        // long, non-ASCII and prefix keys share packed keys with their neighbours
+        String[] keys = {"KHM2000", "KHM2001", "KHM20001", "KHM200012", "KHM2000123", "AFG2000", "A", "ZWE2099",
+                "\u0100A2000", "\u0100Z2000", "\u0101A2000", "K\u00ffM2000", "KHM2000", "KHM"};
+        SortedArrayList<YearlyWaterRecord> list = new SortedArrayList<>();
+        for (String key : keys) {
+            list.add(new YearlyWaterRecord(key, 1.0, 2.0, 3.0, 4.0));
+        }
+        for (int i = 1; i < list.size(); i++) {
+            assertTrue(Long.compareUnsigned(list.get(i - 1).packedKey(), list.get(i).packedKey()) <= 0,
+                    list.get(i - 1).isoYear() + " " + list.get(i).isoYear());
+        }
+        assertEquals(YearlyWaterRecord.packKey("KHM2000"), list.get(list.indexOf(record("KHM2000"))).packedKey());
+
+        FrozenSortedArrayList<YearlyWaterRecord> frozen = list.freeze();
+        String[] probes = {"", "A", "AA", "KHM", "KHM1999", "KHM2000", "KHM20000", "KHM200012", "KHM2000124",
+                "\u0100", "\u0100M", "\u0101A2000", "\uffff", "ZZZ"};
+        for (String probe : probes) {
+            assertEquals(list.indexOf(record(probe)), frozen.indexOf(record(probe)), probe);
+        }
+        for (String key : keys) {
+            assertEquals(list.indexOf(record(key)), frozen.indexOf(record(key)), key);
+            int equal = 0;
+            for (String other : keys) {
+                equal += other.equals(key) ? 1 : 0;
+            }
+            assertEquals(equal, frozen.get(record(key), new YearlyWaterRecord[0]).length, key);
+        }
+    }
+
+    private static YearlyWaterRecord record(String isoYear) {
+        return new YearlyWaterRecord(isoYear, 0.0, 0.0, 0.0, 0.0);
+    }
+
+    @Test
+    public void testSnapshotIsIndependent() {
+        SortedArrayList<String> list = new SortedArrayList<>();
+        list.add("KHM2000"); list.add("AFG2000"); list.add("LAO2000");
+        FrozenSortedArrayList<String> frozen = list.freeze();
+        list.add("ALB2000");
+        list.remove(0);
+
+        assertEquals("[AFG2000, KHM2000, LAO2000]", frozen.toString());
+        assertEquals(3, frozen.toArray(new String[0]).length);
+        Iterator<String> iterator = frozen.iterator();
+        assertEquals("AFG2000", iterator.next());
+        assertEquals("KHM2000", iterator.next());
+        assertEquals("LAO2000", iterator.next());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testReadOnly() {
+        SortedArrayList<String> list = new SortedArrayList<>();
+        list.add("1");
+        FrozenSortedArrayList<String> frozen = list.freeze();
+
+        assertThrows(UnsupportedOperationException.class, () -> frozen.add("2"));
+        assertThrows(UnsupportedOperationException.class, () -> frozen.remove(0));
+        assertThrows(UnsupportedOperationException.class, frozen::clear);
+        assertThrows(UnsupportedOperationException.class, () -> frozen.iterator().remove());
+        assertThrows(IndexOutOfBoundsException.class, () -> frozen.get(1));
+        assertThrows(IllegalArgumentException.class, () -> frozen.indexOf(null));
+        assertTrue(new SortedArrayList<String>().freeze().isEmpty());
+    }
+}
@@ -0,0 +1,548 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+
+/**
+ * Column store for any number of indicator files keyed by ISO code plus year, e.g. the water data alongside
+ * sanitation and hygiene files. The header row of each file names its columns; each file becomes a column family,
+ * and all families share one sorted key index, so one binary search finds a country-year in every family at once.
+ * Attaching a file sorts only that file and merges its keys into the index.
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class IndicatorStore {
+
+    /** stored value of a missing indicator, matching YearlyWaterRecord */
+    private static final double MISSING_VALUE = -1;
+    /** censoring ordinals, to avoid copying values() on every read */
+    private static final Censoring[] CENSORING = Censoring.values();
+
+    /** keys of all families, sorted, without duplicates */
+    private String[] keys = new String[0];
+    /** raised whenever keys is replaced, so a Row knows when its row number may have moved */
+    private int keyEpoch;
+    /** families in the order they were attached */
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    /**
+     * Loads a comma-separated indicator file whose first row is a header naming the key column and then each
+     * indicator column; values may be numbers or the "&lt;1", "&gt;99" and "-" tokens of the water data
+     *
+     * @param name name of the new family, e.g. "water"; must be unique
+     * @param file the file to load; must not be null
+     * @return the attached family
+     * @throws FileNotFoundException if the file does not exist
+     */
+    public Family attach(String name, File file) throws FileNotFoundException {
+        if (file == null) {
+            throw new IllegalArgumentException("file must not be null");
+        }
+        try (Scanner scan = new Scanner(file)) {
+            return attach(name, scan);
+        }
+    }
+
+    /**
+     * Loads comma-separated indicator rows from a scanner, as described for attach(String, File)
+     *
+     * @param name  name of the new family; must be unique
+     * @param input the rows, header first; must not be null
+     * @return the attached family
+     */
+    public Family attach(String name, Scanner input) {
+        if (name == null || input == null) {
+            throw new IllegalArgumentException("name and input must not be null");
+        }
+        if (families.containsKey(name)) {
+            throw new IllegalArgumentException("family already attached: " + name);
+        }
+        if (!input.hasNextLine()) {
+            throw new IllegalArgumentException("missing header row in " + name);
+        }
+        String[] header = input.nextLine().split(",");
+        String[] columns = new String[header.length - 1];
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = header[c + 1].trim();
+            if (columns[c].isEmpty() || Arrays.asList(columns).subList(0, c).contains(columns[c])) {
+                throw new IllegalArgumentException("blank or repeated column name in " + name + ": " + columns[c]);
+            }
+        }
+
+        // parse in file order
+        int rows = 0;
+        int rejected = 0;
+        String[] fileKeys = new String[1024];
+        double[][] values = new double[columns.length][fileKeys.length];
+        byte[][] censoring = new byte[columns.length][fileKeys.length];
+        while (input.hasNextLine()) {
+            String[] fields = input.nextLine().split(",", -1);
+            if (fields.length != columns.length + 1 || fields[0].trim().isEmpty()) {
+                rejected++;
+                continue;
+            }
+            if (rows == fileKeys.length) {
+                fileKeys = Arrays.copyOf(fileKeys, rows * 2);
+                for (int c = 0; c < columns.length; c++) {
+                    values[c] = Arrays.copyOf(values[c], rows * 2);
+                    censoring[c] = Arrays.copyOf(censoring[c], rows * 2);
+                }
+            }
+            if (!parseRow(fields, rows, values, censoring)) {
+                rejected++;
+                continue;
+            }
+            fileKeys[rows++] = fields[0].trim();
+        }
+
+        // sort this file's rows by key, keeping the first of any duplicate key
+        Integer[] order = new Integer[rows];
+        for (int i = 0; i < rows; i++) {
+            order[i] = i;
+        }
+        String[] sortKeys = fileKeys;
+        Arrays.sort(order, Comparator.comparing(i -> sortKeys[i]));
+        int unique = 0;
+        for (int i = 0; i < rows; i++) {
+            if (unique > 0 && fileKeys[order[unique - 1]].equals(fileKeys[order[i]])) {
+                rejected++;
+            } else {
+                order[unique++] = order[i];
+            }
+        }
+
+        // merge the file's keys into the shared index, moving existing families only if new keys appear
+        int[] fileToRow = new int[unique];
+        String[] merged = mergeKeys(fileKeys, order, unique, fileToRow);
+        Family family = new Family(name, columns, merged.length, rejected);
+        for (int i = 0; i < unique; i++) {
+            for (int c = 0; c < columns.length; c++) {
+                family.values[c][fileToRow[i]] = values[c][order[i]];
+                family.censoring[c][fileToRow[i]] = censoring[c][order[i]];
+            }
+        }
+        families.put(name, family);
+        return family;
+    }
+
+    /**
+     * Retrieves the number of distinct keys across all families
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Retrieves the key of a row
+     *
+     * @param row the row; must be 0 to size-1
+     * @return the key, e.g. "KHM2000"
+     */
+    public String key(int row) {
+        return keys[row];
+    }
+
+    /**
+     * Finds the row of a key with one binary search over the shared index; rows are only valid until the next
+     * attach, which moves existing keys to new rows if the file brings keys the index did not have
+     *
+     * @param isoYear the key
+     * @return the row, or -(position+1) if the key is not present
+     */
+    public int rowOf(String isoYear) {
+        if (isoYear == null) {
+            throw new IllegalArgumentException("isoYear must not be null");
+        }
+        return Arrays.binarySearch(keys, isoYear);
+    }
+
+    /**
+     * Finds every indicator for a country-year
+     *
+     * @param isoYear the key, e.g. "KHM2000"
+     * @return a view of the row across all families, which stays on the same key when later files are attached;
+     * null if no family has the key
+     */
+    public Row lookup(String isoYear) {
+        int row = rowOf(isoYear);
+        return row < 0 ? null : new Row(this, keys[row], row);
+    }
+
+    /**
+     * Retrieves a family by name
+     *
+     * @param name the name given to attach
+     * @return the family; null if there is none with that name
+     */
+    public Family family(String name) {
+        return families.get(name);
+    }
+
+    /**
+     * Retrieves the attached families
+     *
+     * @return the families, in the order they were attached
+     */
+    public List<Family> families() {
+        return Collections.unmodifiableList(new java.util.ArrayList<>(families.values()));
+    }
+
+    /**
+     * Parses the value columns of one row
+     *
+     * @param fields    the fields, key first
+     * @param row       the row to fill
+     * @param values    value columns to fill
+     * @param censoring censoring columns to fill
+     * @return true, if every value was a number or a recognized token
+     */
+    private static boolean parseRow(String[] fields, int row, double[][] values, byte[][] censoring) {
+        for (int c = 0; c < values.length; c++) {
+            String token = fields[c + 1].trim();
+            Censoring kind = token.isEmpty() ? Censoring.MISSING : Censoring.of(token);
+            try {
+                values[c][row] = kind == Censoring.MISSING ? MISSING_VALUE
+                        : Double.parseDouble(Main.translation(token));
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            censoring[c][row] = (byte) kind.ordinal();
+        }
+        return true;
+    }
+
+    /**
+     * Merges sorted file keys into the shared index; if any are new, the index is replaced and every attached
+     * family is moved to the new row numbers
+     *
+     * @param fileKeys  the file's keys, in file order
+     * @param order     positions in fileKeys in ascending key order
+     * @param count     number of positions in order
+     * @param fileToRow filled with the shared row of each entry of order
+     * @return the new shared index
+     */
+    private String[] mergeKeys(String[] fileKeys, Integer[] order, int count, int[] fileToRow) {
+        int[] oldToRow = new int[keys.length];
+        String[] merged = new String[keys.length + count];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < keys.length || j < count) {
+            int compare = i == keys.length ? 1 : j == count ? -1 : keys[i].compareTo(fileKeys[order[j]]);
+            if (compare <= 0) {
+                oldToRow[i] = size;
+                merged[size] = keys[i++];
+                if (compare == 0) {
+                    fileToRow[j++] = size;
+                }
+            } else {
+                fileToRow[j] = size;
+                merged[size] = fileKeys[order[j++]];
+            }
+            size++;
+        }
+        if (size == keys.length) {
+            return keys;
+        }
+        for (Family family : families.values()) {
+            family.remap(oldToRow, size);
+        }
+        keys = Arrays.copyOf(merged, size);
+        keyEpoch++;
+        return keys;
+    }
+
+    /**
+     * The columns loaded from one file, aligned to the shared key index; rows the file did not contain are missing.
+     * Row numbers follow the index, so they change when a later file adds keys
+     */
+    public static final class Family {
+        /** name given to attach */
+        private final String name;
+        /** column names from the header row */
+        private final String[] columns;
+        /** values, indexed [column][row]; -1 where missing */
+        private double[][] values;
+        /** censoring ordinals, indexed [column][row] */
+        private byte[][] censoring;
+        /** rows of the file that were malformed or repeated a key */
+        private final int rejectedRows;
+
+        /**
+         * Creates a family with every value missing
+         *
+         * @param name         the family name
+         * @param columns      the column names
+         * @param rows         the number of rows in the shared index
+         * @param rejectedRows rows of the file that were skipped
+         */
+        private Family(String name, String[] columns, int rows, int rejectedRows) {
+            this.name = name;
+            this.columns = columns;
+            this.rejectedRows = rejectedRows;
+            values = new double[columns.length][rows];
+            censoring = new byte[columns.length][rows];
+            for (int c = 0; c < columns.length; c++) {
+                Arrays.fill(values[c], MISSING_VALUE);
+                Arrays.fill(censoring[c], (byte) Censoring.MISSING.ordinal());
+            }
+        }
+
+        /**
+         * Retrieves the family name
+         *
+         * @return the name given to attach
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Retrieves the column names
+         *
+         * @return the names from the header row, in file order
+         */
+        public List<String> columns() {
+            return Collections.unmodifiableList(Arrays.asList(columns));
+        }
+
+        /**
+         * Finds a column by name
+         *
+         * @param column the column name
+         * @return the column index; -1 if the family has no such column
+         */
+        public int columnIndex(String column) {
+            return Arrays.asList(columns).indexOf(column);
+        }
+
+        /**
+         * Retrieves the number of file rows that were skipped as malformed or as repeats of an earlier key
+         *
+         * @return the number of rejected rows
+         */
+        public int rejectedRows() {
+            return rejectedRows;
+        }
+
+        /**
+         * Retrieves a value
+         *
+         * @param column the column index
+         * @param row    the shared row
+         * @return the value; -1 if missing
+         */
+        public double value(int column, int row) {
+            return values[column][row];
+        }
+
+        /**
+         * Retrieves how a value relates to the source data
+         *
+         * @param column the column index
+         * @param row    the shared row
+         * @return the censoring of the value
+         */
+        public Censoring censoring(int column, int row) {
+            return CENSORING[censoring[column][row]];
+        }
+
+        /**
+         * Retrieves whether a value is present
+         *
+         * @param column the column index
+         * @param row    the shared row
+         * @return true, if the file had a value for that key
+         */
+        public boolean isValid(int column, int row) {
+            return censoring[column][row] != Censoring.MISSING.ordinal();
+        }
+
+        /**
+         * Moves every value to its row in a larger shared index
+         *
+         * @param oldToRow new row of each old row
+         * @param rows     number of rows in the new index
+         */
+        private void remap(int[] oldToRow, int rows) {
+            for (int c = 0; c < columns.length; c++) {
+                double[] newValues = new double[rows];
+                byte[] newCensoring = new byte[rows];
+                Arrays.fill(newValues, MISSING_VALUE);
+                Arrays.fill(newCensoring, (byte) Censoring.MISSING.ordinal());
+                for (int old = 0; old < oldToRow.length; old++) {
+                    newValues[oldToRow[old]] = values[c][old];
+                    newCensoring[oldToRow[old]] = censoring[c][old];
+                }
+                values[c] = newValues;
+                censoring[c] = newCensoring;
+            }
+        }
+    }
+
+    /**
+     * Every indicator of one country-year. Attaching a file with new keys moves existing keys to new rows, so the
+     * row number is kept with the store's key epoch it was found in and searched for again only once the epoch has
+     * moved on; keys are never removed, so the key is always present
+     */
+    public static final class Row {
+        /** the store the row belongs to */
+        private final IndicatorStore store;
+        /** the key, e.g. "KHM2000" */
+        private final String key;
+        /** the key's row in the shared index as of epoch */
+        private int row;
+        /** the store's key epoch when row was found */
+        private int epoch;
+
+        /**
+         * Creates a view of a row
+         *
+         * @param store the store the row belongs to
+         * @param key   the key, e.g. "KHM2000"
+         * @param row   the key's current row
+         */
+        private Row(IndicatorStore store, String key, int row) {
+            this.store = store;
+            this.key = key;
+            this.row = row;
+            this.epoch = store.keyEpoch;
+        }
+
+        /**
+         * Retrieves the store the row belongs to
+         *
+         * @return the store
+         */
+        public IndicatorStore store() {
+            return store;
+        }
+
+        /**
+         * Retrieves the key
+         *
+         * @return the key, e.g. "KHM2000"
+         */
+        public String key() {
+            return key;
+        }
+
+        /**
+         * Finds the key's current row in the shared index, searching only if a file has added keys since the last
+         * search
+         *
+         * @return the row
+         */
+        public int row() {
+            if (epoch != store.keyEpoch) {
+                row = store.rowOf(key);
+                epoch = store.keyEpoch;
+            }
+            return row;
+        }
+
+        /**
+         * Retrieves an indicator
+         *
+         * @param family the family name
+         * @param column the column name
+         * @return the value; -1 if missing or if there is no such family or column
+         */
+        public double value(String family, String column) {
+            Family columns = store.family(family);
+            int index = columns == null ? -1 : columns.columnIndex(column);
+            return index < 0 ? MISSING_VALUE : columns.value(index, row());
+        }
+
+        /**
+         * Retrieves how an indicator relates to the source data
+         *
+         * @param family the family name
+         * @param column the column name
+         * @return the censoring; MISSING if there is no such family or column
+         */
+        public Censoring censoring(String family, String column) {
+            Family columns = store.family(family);
+            int index = columns == null ? -1 : columns.columnIndex(column);
+            return index < 0 ? Censoring.MISSING : columns.censoring(index, row());
+        }
+
+        /**
+         * Builds a water record from a family whose header has the YearlyWaterRecord.METRIC_NAMES columns, in
+         * whatever order the file lists them
+         *
+         * @param family the family name, e.g. "water"
+         * @return the record; null if the family lacks one of the columns
+         */
+        public YearlyWaterRecord toWaterRecord(String family) {
+            Family columns = store.family(family);
+            if (columns == null) {
+                return null;
+            }
+            int row = row();
+            double[] metrics = new double[YearlyWaterRecord.METRIC_COUNT];
+            int flags = 0;
+            for (int metric = 0; metric < metrics.length; metric++) {
+                int index = columns.columnIndex(YearlyWaterRecord.METRIC_NAMES[metric]);
+                if (index < 0) {
+                    return null;
+                }
+                metrics[metric] = columns.value(index, row);
+                flags = columns.censoring(index, row).pack(flags, metric);
+            }
+            return new YearlyWaterRecord(key, metrics[0], metrics[1], metrics[2], metrics[3], flags);
+        }
+
+        /**
+         * Retrieves a text representation listing every indicator by family and column
+         *
+         * @return e.g. "KHM2000{water.BasicPlusPct=41.2, ...}"
+         */
+        @Override
+        public String toString() {
+            int row = row();
+            StringBuilder result = new StringBuilder(key).append('{');
+            for (Family family : store.families.values()) {
+                for (int c = 0; c < family.columns.length; c++) {
+                    if (result.charAt(result.length() - 1) != '{') {
+                        result.append(", ");
+                    }
+                    result.append(family.name).append('.').append(family.columns[c]).append('=');
+                    Censoring censoring = family.censoring(c, row);
+                    result.append(censoring == Censoring.NONE ? Double.toString(family.value(c, row))
+                            : censoring.token());
+                }
+            }
+            return result.append('}').toString();
+        }
+
+        /**
+         * Checks whether another object is a view of the same key in the same store
+         *
+         * @param other the object to compare
+         * @return true, if other is a Row of the same store and key
+         */
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Row that && store == that.store && key.equals(that.key);
+        }
+
+        /**
+         * Retrieves a hash code consistent with equals
+         *
+         * @return the hash of the store and key
+         */
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(store) + key.hashCode();
+        }
+    }
+}
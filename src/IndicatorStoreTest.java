@@ -0,0 +1,161 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that IndicatorStore aligns families with overlapping and new keys, keeps earlier families and looked-up
+ * rows on their keys when a later file adds keys, and counts the rows it rejects
+ */
+class IndicatorStoreTest {
+
+    /** water rows out of order, with one malformed row, one bad number and one repeated key */
+    private static final String WATER = String.join("\n",
+            "IsoYear,BasicPlusPct,LimitedPct,UnimprovedPct,SurfacePct",
+            "KHM2001,60,10,20,10",
+            "AFG2000,27.4,<1,43.8,-",
+            "KHM2000,41.2,>99,-,5",
+            "KHM2002,1,2,3",
+            "KHM2003,abc,2,3,4",
+            "KHM2000,99,99,99,99",
+            "ZWE2000,80,5,10,5");
+
+    /** sanitation rows: KHM2000 and ZWE2000 are shared, the rest are new; its columns are in a different order */
+    private static final String SANITATION = String.join("\n",
+            "iso_year,Safely,Basic",
+            "BGD2000,30,<1",
+            "KHM2000,12.5,",
+            "ZWE2000,>99,40",
+            "AAA1999,1,1",
+            ",5,5",
+            "ZZZ2020,-,7");
+
+    @Test
+    public void testFamiliesShareOneIndex() {
+        IndicatorStore store = new IndicatorStore();
+        IndicatorStore.Family water = store.attach("water", new Scanner(WATER));
+        assertEquals(3, water.rejectedRows());
+        assertEquals(4, store.size());
+        assertArrayEquals(new String[]{"AFG2000", "KHM2000", "KHM2001", "ZWE2000"}, keys(store));
+
+        IndicatorStore.Row khm = store.lookup("KHM2000");
+        int khmRowBefore = khm.row();
+        double[] zweBefore = waterValues(store, water, "ZWE2000");
+
+        IndicatorStore.Family sanitation = store.attach("sanitation", new Scanner(SANITATION));
+        assertEquals(1, sanitation.rejectedRows());
+        assertArrayEquals(new String[]{"AAA1999", "AFG2000", "BGD2000", "KHM2000", "KHM2001", "ZWE2000", "ZZZ2020"},
+                keys(store));
+
+        // the earlier family moved to the new rows, and the row looked up before the attach followed its key
+        assertNotEquals(khmRowBefore, khm.row());
+        assertEquals(store.rowOf("KHM2000"), khm.row());
+        assertEquals("KHM2000", khm.key());
+        assertEquals(41.2, khm.value("water", "BasicPlusPct"));
+        assertEquals(100.0, khm.value("water", "LimitedPct"));
+        assertEquals(Censoring.ABOVE, khm.censoring("water", "LimitedPct"));
+        assertEquals(Censoring.MISSING, khm.censoring("water", "UnimprovedPct"));
+        assertArrayEquals(zweBefore, waterValues(store, water, "ZWE2000"));
+
+        // one lookup reaches both families
+        assertEquals(12.5, khm.value("sanitation", "Safely"));
+        assertEquals(Censoring.MISSING, khm.censoring("sanitation", "Basic"));
+        IndicatorStore.Row zwe = store.lookup("ZWE2000");
+        assertEquals(80.0, zwe.value("water", "BasicPlusPct"));
+        assertEquals(Censoring.ABOVE, zwe.censoring("sanitation", "Safely"));
+        assertEquals(40.0, zwe.value("sanitation", "Basic"));
+
+        // keys from only one family are missing in the other
+        IndicatorStore.Row afg = store.lookup("AFG2000");
+        assertEquals(Censoring.BELOW, afg.censoring("water", "LimitedPct"));
+        assertEquals(-1, afg.value("sanitation", "Safely"));
+        assertEquals(Censoring.MISSING, afg.censoring("sanitation", "Safely"));
+        IndicatorStore.Row bgd = store.lookup("BGD2000");
+        assertEquals(Censoring.BELOW, bgd.censoring("sanitation", "Basic"));
+        assertFalse(water.isValid(0, bgd.row()));
+        YearlyWaterRecord bgdWater = bgd.toWaterRecord("water");
+        for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+            assertFalse(bgdWater.isValid(metric));
+        }
+        assertNull(bgd.toWaterRecord("sanitation"));            // has no water columns
+
+        assertEquals(-1, khm.value("health", "Safely"));
+        assertEquals(-1, khm.value("water", "Safely"));
+        assertNull(store.lookup("KHM2002"));
+        assertNull(store.lookup("KHM2003"));
+        assertEquals("KHM2000{water.BasicPlusPct=41.2, water.LimitedPct=>99, water.UnimprovedPct=-, "
+                + "water.SurfacePct=5.0, sanitation.Safely=12.5, sanitation.Basic=-}", khm.toString());
+
+        // attaching a file with no new keys leaves every row where it was
+        int zweRow = zwe.row();
+        store.attach("hygiene", new Scanner("IsoYear,Basic\nZWE2000,50\nKHM2001,60"));
+        assertEquals(zweRow, zwe.row());
+        assertEquals(7, store.size());
+        assertEquals(50.0, zwe.value("hygiene", "Basic"));
+        assertEquals(3, store.families().size());
+
+        // a row already read follows its key again through a second attach that adds keys
+        int khmRow = khm.row();
+        store.attach("health", new Scanner("IsoYear,Clinics\nAAA2000,1\nBBB2000,2"));
+        assertEquals(khmRow + 2, khm.row());
+        assertEquals(41.2, khm.value("water", "BasicPlusPct"));
+        assertEquals(store.lookup("KHM2000"), khm);
+
+        assertThrows(IllegalArgumentException.class, () -> store.attach("water", new Scanner(WATER)));
+        assertThrows(IllegalArgumentException.class, () -> store.attach("empty", new Scanner("")));
+        assertThrows(IllegalArgumentException.class, () -> store.attach("dup", new Scanner("IsoYear,A,A")));
+    }
+
+    @Test
+    public void testWaterFamilyMatchesLoadedRecords() throws FileNotFoundException {
+        IndicatorStore store = new IndicatorStore();
+        store.attach("water", new File("IsoYearWaterData.txt"));
+        store.attach("sanitation", new Scanner(SANITATION));
+        SortedArrayList<YearlyWaterRecord> waterData = Main.loadWaterData(new File("IsoYearWaterData.txt"),
+                new SortedArrayList<>());
+        assertEquals(0, store.family("water").rejectedRows());
+        for (YearlyWaterRecord record : waterData) {
+            YearlyWaterRecord rebuilt = store.lookup(record.isoYear()).toWaterRecord("water");
+            assertEquals(record.isoYear(), rebuilt.isoYear());
+            assertEquals(record.flags(), rebuilt.flags(), record.isoYear());
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                assertEquals(record.metric(metric), rebuilt.metric(metric));
+            }
+        }
+        assertEquals(waterData.size() + 2, store.size());            // only AAA1999 and ZZZ2020 are new
+    }
+
+    /**
+     * Lists the keys of the shared index
+     *
+     * @param store the store
+     * @return the keys, in row order
+     */
+    private static String[] keys(IndicatorStore store) {
+        String[] keys = new String[store.size()];
+        for (int row = 0; row < keys.length; row++) {
+            keys[row] = store.key(row);
+        }
+        return keys;
+    }
+
+    /**
+     * Reads every water value of a key straight from the family
+     *
+     * @param store  the store
+     * @param water  the water family
+     * @param key    the key
+     * @return the values, in column order
+     */
+    private static double[] waterValues(IndicatorStore store, IndicatorStore.Family water, String key) {
+        int row = store.rowOf(key);
+        double[] values = new double[water.columns().size()];
+        for (int column = 0; column < values.length; column++) {
+            values[column] = water.value(column, row);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,68 @@
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * Times indexOf on the same synthetic water records ordered three ways: natural isoYear order, key mode over the
+ * packed isoYear, and a comparator that orders by year first. Usage: java KeyModeBenchmark [records]
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class KeyModeBenchmark {
+
+    /** first synthetic year */
+    private static final int FIRST_YEAR = 2000;
+    /** number of synthetic years per region */
+    private static final int YEAR_COUNT = 23;
+    /** lookups timed per measurement */
+    private static final int LOOKUPS = 2_000_000;
+
+    public static void main(String[] args) {
+        int recordCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        WaterDataGenerator generator = new WaterDataGenerator(recordCount, WaterDataGenerator.Order.SORTED,
+                0, 0, FIRST_YEAR, YEAR_COUNT, 42);
+        Random random = new Random(42);
+        SortedArrayList<YearlyWaterRecord> natural = new SortedArrayList<>();
+        for (long i = 0; i < generator.keyCount(); i++) {
+            natural.add(new YearlyWaterRecord(generator.keyOf(i), random.nextDouble() * 100,
+                    random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100));
+        }
+        SortedArrayList<YearlyWaterRecord> packed =
+                natural.sortedByKey(record -> YearlyWaterRecord.packKey(record.isoYear()));
+        SortedArrayList<YearlyWaterRecord> byYear = natural.sortedBy(
+                Comparator.comparingInt((YearlyWaterRecord record) -> Main.yearOf(record.isoYear()))
+                        .thenComparing(YearlyWaterRecord::isoYear));
+
+        YearlyWaterRecord[] probes = new YearlyWaterRecord[LOOKUPS];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = natural.get(random.nextInt(natural.size()));
+        }
+        System.out.printf("%,d records, %,d lookups (ns per lookup, best of 3)%n", natural.size(), LOOKUPS);
+        System.out.printf("natural isoYear   %8.1f%n", time(natural, probes));
+        System.out.printf("packed key mode   %8.1f%n", time(packed, probes));
+        System.out.printf("year comparator   %8.1f%n", time(byYear, probes));
+    }
+
+    /**
+     * Times indexOf for every probe, keeping the best of three rounds
+     *
+     * @param list   the list to search
+     * @param probes records to look up
+     * @return nanoseconds per lookup
+     */
+    private static double time(SortedArrayList<YearlyWaterRecord> list, YearlyWaterRecord[] probes) {
+        long best = Long.MAX_VALUE;
+        long checksum = 0;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (YearlyWaterRecord probe : probes) {
+                checksum += list.indexOf(probe);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        if (checksum == 42) {
+            System.out.println();   // keeps the lookups from being optimized away
+        }
+        return (double) best / probes.length;
+    }
+}
@@ -0,0 +1,11 @@
+/**
+ * Runs the shared conformance suite against SortedArrayList in key mode; packed keys order short ASCII strings the
+ * same way compareTo does
+ */
+class KeyedSortedArrayListConformanceTest extends SortedListConformanceTest {
+
+    @Override
+    protected SortedArrayListInterface<String> createList() {
+        return SortedArrayList.byKey(YearlyWaterRecord::packKey);
+    }
+}
@@ -1,52 +1,21 @@
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.Arrays;
 import java.util.Scanner;
 
 public class Main {
 
-    public static void main(String[] args) {
-
-        //create a sorted ArrayList of YearlyWaterData
-        SortedArrayList<YearlyWaterRecord> waterArrayList = new SortedArrayList<>();
-
-        File waterDataFile = new File("IsoYearWaterData.txt");
-
-        int[] years = new int[0];
-        try {
-            Scanner scan = new Scanner(waterDataFile);
-            scan.nextLine(); // gets rid of the line with the isoYear,BasicPlusPct,etc...
-            SortedArrayList<Integer> yearsArrayList = new SortedArrayList<>();
-
-            while (scan.hasNext()) {
-
-                String[] sortedArrayList = scan.nextLine().split(",");
-
-                String isoYear = sortedArrayList[0];
-                String yearsString = isoYear.substring(3);
-                int yearsData = Integer.parseInt(yearsString);
-                if (!yearsArrayList.contains(yearsData)) {
-                    yearsArrayList.add(yearsData);
-                }
-
-                double basicPlusPct = Double.parseDouble(translation(sortedArrayList[1]));
-                double limitedPct = Double.parseDouble(translation(sortedArrayList[2]));
-                double unimprovedPct = Double.parseDouble(translation(sortedArrayList[3]));
-                double surfacePct = Double.parseDouble(translation(sortedArrayList[4]));
-
-                YearlyWaterRecord waterData = new YearlyWaterRecord(isoYear, basicPlusPct, limitedPct, unimprovedPct, surfacePct);
-
-                waterArrayList.add(waterData);
-            }
-
-            years = new int[yearsArrayList.size()];
-            for (int i = 0; i < years.length; i++) {
-                years[i] = yearsArrayList.get(i);
-            }
+    /** rows turned into records, when metrics are enabled */
+    private static final WaterMetrics.Counter ROWS_PARSED = WaterMetrics.counter("load.rows.parsed");
+    /** rows skipped because they could not be parsed, when metrics are enabled */
+    private static final WaterMetrics.Counter ROWS_REJECTED = WaterMetrics.counter("load.rows.rejected");
+    /** time to read and parse each input file, when metrics are enabled */
+    private static final WaterMetrics.Histogram FILE_LOAD = WaterMetrics.histogram("load.file.nanos");
+    /** records inserted into the sorted water data, when metrics are enabled */
+    private static final WaterMetrics.Counter INSERTS = WaterMetrics.counter("records.insert.calls");
+    /** sampled latency of those inserts, when metrics are enabled */
+    private static final WaterMetrics.Histogram INSERT_LATENCY = WaterMetrics.histogram("records.insert.nanos");
 
-        } catch (FileNotFoundException e) {
-            System.out.println("file not found");
-        }
+    public static void main(String[] args) {
 
         File countriesIsoCodeDataFile = new File("CountriesAndIsoCodes.txt");
 
@@ -54,6 +23,10 @@ public class Main {
         String[] isoCodes = new String[0];
 
         try {
+            WaterMetrics.FileLoadEvent loadEvent = new WaterMetrics.FileLoadEvent();
+            loadEvent.begin();
+            long start = System.nanoTime();
+
             Scanner scan = new Scanner(countriesIsoCodeDataFile);
             int arraySize = Integer.parseInt(scan.nextLine());
 
@@ -68,11 +41,153 @@ public class Main {
                 isoCodes[i] = isoCountry[1];
             }
 
+            if (WaterMetrics.ENABLED) {
+                FILE_LOAD.record(System.nanoTime() - start);
+                loadEvent.file = countriesIsoCodeDataFile.getPath();
+                loadEvent.rowsParsed = arraySize;
+                loadEvent.commit();
+            }
+
         } catch (FileNotFoundException e) {
             System.out.println("file not found");
         }
 
-        new WaterComparisonGui(waterArrayList, countries, isoCodes, years);
+        // the countries file is small, so the GUI can show up right away; water records stream in behind it
+        WaterComparisonGui gui = new WaterComparisonGui(new SortedArrayList<>(), countries, isoCodes, new int[0]);
+        WaterDataLoader loader = new WaterDataLoader(new File("IsoYearWaterData.txt"), gui);
+        gui.trackLoading(loader);
+        loader.execute();
+    }
+
+    /**
+     * Reads a file in the IsoYearWaterData.txt format into a sorted list of records; rows that cannot be parsed
+     * are skipped and counted as rejected
+     *
+     * @param waterDataFile the file to read; the first line is a header
+     * @param years         list that receives each distinct year found in the file; must not be null
+     * @return the records in the file, sorted by isoYear
+     * @throws FileNotFoundException if the file does not exist
+     */
+    public static SortedArrayList<YearlyWaterRecord> loadWaterData(File waterDataFile, SortedArrayList<Integer> years)
+            throws FileNotFoundException {
+        return loadWaterData(waterDataFile, years, null, null);
+    }
+
+    /**
+     * Reads a file in the IsoYearWaterData.txt format into a sorted list of records, summarizing each record's
+     * metrics as it is read; rows that cannot be parsed are skipped and counted as rejected
+     *
+     * @param waterDataFile the file to read; the first line is a header
+     * @param years         list that receives each distinct year found in the file; must not be null
+     * @param sketches      receives every record loaded; null for none
+     * @return the records in the file, sorted by isoYear
+     * @throws FileNotFoundException if the file does not exist
+     */
+    public static SortedArrayList<YearlyWaterRecord> loadWaterData(File waterDataFile, SortedArrayList<Integer> years,
+                                                                   WaterSketches sketches)
+            throws FileNotFoundException {
+        return loadWaterData(waterDataFile, years, sketches, null);
+    }
+
+    /**
+     * Reads a file in the IsoYearWaterData.txt format into a sorted list of records, summarizing each record's
+     * metrics and deriving its trend columns as it is read; rows that cannot be parsed are skipped and counted as
+     * rejected
+     *
+     * @param waterDataFile the file to read; the first line is a header
+     * @param years         list that receives each distinct year found in the file; must not be null
+     * @param sketches      receives every record loaded; null for none
+     * @param trends        receives every record loaded; null for none
+     * @return the records in the file, sorted by isoYear
+     * @throws FileNotFoundException if the file does not exist
+     */
+    public static SortedArrayList<YearlyWaterRecord> loadWaterData(File waterDataFile, SortedArrayList<Integer> years,
+                                                                   WaterSketches sketches, TrendColumns trends)
+            throws FileNotFoundException {
+        WaterMetrics.FileLoadEvent loadEvent = new WaterMetrics.FileLoadEvent();
+        loadEvent.begin();
+        long start = System.nanoTime();
+        long parsed = 0;
+        long rejected = 0;
+
+        SortedArrayList<YearlyWaterRecord> waterArrayList = new SortedArrayList<>();
+        Scanner scan = new Scanner(waterDataFile);
+        scan.nextLine(); // gets rid of the line with the isoYear,BasicPlusPct,etc...
+
+        while (scan.hasNext()) {
+
+            YearlyWaterRecord waterData = parseRecord(scan.nextLine());
+            if (waterData == null) {
+                rejected++; // malformed row: skip it rather than abandon the whole file
+                continue;
+            }
+
+            int yearsData = yearOf(waterData.isoYear());
+            if (!years.contains(yearsData)) {
+                years.add(yearsData);
+            }
+            long insertStart = WaterMetrics.ENABLED ? WaterMetrics.sampleStart(INSERTS) : 0;
+            waterArrayList.add(waterData);
+            if (insertStart != 0) {
+                WaterMetrics.sampleEnd(insertStart, INSERT_LATENCY, "insert");
+            }
+            if (sketches != null) {
+                sketches.add(waterData);
+            }
+            if (trends != null) {
+                trends.add(waterData);
+            }
+            parsed++;
+        }
+        scan.close();
+
+        if (WaterMetrics.ENABLED) {
+            ROWS_PARSED.add(parsed);
+            ROWS_REJECTED.add(rejected);
+            FILE_LOAD.record(System.nanoTime() - start);
+            loadEvent.file = waterDataFile.getPath();
+            loadEvent.rowsParsed = parsed;
+            loadEvent.rowsRejected = rejected;
+            loadEvent.commit();
+        }
+        return waterArrayList;
+    }
+
+    /**
+     * Parses one data row of the IsoYearWaterData.txt format
+     *
+     * @param line the row, e.g. {@code "ABW2000,94.4888063555081,<1,5.41957660372234,<1"}
+     * @return the record; null, if the row is malformed
+     */
+    public static YearlyWaterRecord parseRecord(String line) {
+        String[] sortedArrayList = line.split(",");
+        try {
+            String isoYear = sortedArrayList[0];
+            yearOf(isoYear); // rejects keys without a four-digit year
+            double basicPlusPct = Double.parseDouble(translation(sortedArrayList[1]));
+            double limitedPct = Double.parseDouble(translation(sortedArrayList[2]));
+            double unimprovedPct = Double.parseDouble(translation(sortedArrayList[3]));
+            double surfacePct = Double.parseDouble(translation(sortedArrayList[4]));
+
+            int flags = 0;
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                flags = Censoring.of(sortedArrayList[metric + 1]).pack(flags, metric);
+            }
+            return new YearlyWaterRecord(isoYear, basicPlusPct, limitedPct, unimprovedPct, surfacePct, flags);
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Extracts the year from an isoYear key; the year is always the last four characters, so region codes
+     * longer than three letters are supported
+     *
+     * @param isoYear the key, e.g. "KHM2000"
+     * @return the year, e.g. 2000
+     */
+    public static int yearOf(String isoYear) {
+        return Integer.parseInt(isoYear.substring(isoYear.length() - 4));
     }
 
     public static String translation(String value) {
@@ -0,0 +1,151 @@
+import java.lang.foreign.Arena;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Compares heap usage and garbage collection pauses of the on-heap SortedArrayList against OffHeapWaterRecordList
+ * while loading and searching the same synthetic records; usage: java OffHeapBenchmark [records] [lookups]
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class OffHeapBenchmark {
+
+    /** first synthetic year */
+    private static final int FIRST_YEAR = 2000;
+    /** number of synthetic years per region */
+    private static final int YEAR_COUNT = 23;
+
+    public static void main(String[] args) {
+        int recordCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int lookupCount = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        System.out.printf("%,d records, %,d lookups%n", recordCount, lookupCount);
+        System.out.println("backend    phase    millis   gcCount  gcMillis  heapUsedMB");
+
+        Snapshot start = Snapshot.take();
+        SortedArrayList<YearlyWaterRecord> onHeap = new SortedArrayList<>();
+        Iterator<YearlyWaterRecord> records = syntheticRecords(recordCount);
+        while (records.hasNext()) {
+            onHeap.add(records.next());
+        }
+        Snapshot loaded = Snapshot.take();
+        report("on-heap", "load", start, loaded);
+        lookups(onHeap, recordCount, lookupCount);
+        report("on-heap", "lookup", loaded, Snapshot.take());
+
+        onHeap = null;
+        System.gc();
+
+        try (Arena arena = Arena.ofConfined()) {
+            start = Snapshot.take();
+            OffHeapWaterRecordList offHeap = OffHeapWaterRecordList.copyOf(syntheticRecords(recordCount), recordCount, arena);
+            loaded = Snapshot.take();
+            report("off-heap", "load", start, loaded);
+            lookups(offHeap, recordCount, lookupCount);
+            report("off-heap", "lookup", loaded, Snapshot.take());
+        }
+    }
+
+    /**
+     * Runs random successful lookups against the specified list
+     *
+     * @param list        the list to search
+     * @param recordCount the number of synthetic records in the list
+     * @param lookupCount the number of lookups to run
+     */
+    private static void lookups(SortedArrayListInterface<YearlyWaterRecord> list, int recordCount, int lookupCount) {
+        Random random = new Random(42);
+        long checksum = 0;
+        for (int i = 0; i < lookupCount; i++) {
+            YearlyWaterRecord probe = syntheticRecord(random.nextInt(recordCount));
+            checksum += list.indexOf(probe);
+        }
+        if (checksum == Long.MIN_VALUE) {
+            System.out.println(checksum); // keeps the loop from being optimized away
+        }
+    }
+
+    /**
+     * Produces synthetic records in ascending isoYear order without materializing them
+     *
+     * @param count the number of records to produce
+     * @return an iterator over the records
+     */
+    private static Iterator<YearlyWaterRecord> syntheticRecords(int count) {
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public YearlyWaterRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return syntheticRecord(next++);
+            }
+        };
+    }
+
+    /**
+     * Builds the synthetic record with the specified ordinal; ordinals map to keys in ascending order
+     *
+     * @param ordinal the position of the record in sorted order
+     * @return the record
+     */
+    private static YearlyWaterRecord syntheticRecord(int ordinal) {
+        int region = ordinal / YEAR_COUNT;
+        int year = FIRST_YEAR + ordinal % YEAR_COUNT;
+        char[] code = new char[4];
+        for (int i = code.length - 1; i >= 0; i--) {
+            code[i] = (char) ('A' + region % 26);
+            region /= 26;
+        }
+        double basic = ordinal % 100;
+        return new YearlyWaterRecord(new String(code) + year, basic, 100 - basic, 0, 0);
+    }
+
+    /**
+     * Prints the difference between two snapshots
+     *
+     * @param backend the name of the list implementation
+     * @param phase   the name of the measured phase
+     * @param before  the snapshot taken at the start of the phase
+     * @param after   the snapshot taken at the end of the phase
+     */
+    private static void report(String backend, String phase, Snapshot before, Snapshot after) {
+        System.out.printf("%-10s %-8s %7d %9d %9d %11d%n", backend, phase,
+                (after.nanos - before.nanos) / 1_000_000,
+                after.gcCount - before.gcCount,
+                after.gcMillis - before.gcMillis,
+                after.heapUsed / (1024 * 1024));
+    }
+
+    /**
+     * Point-in-time reading of elapsed time, collector activity and heap usage
+     *
+     * @param nanos    value of System.nanoTime
+     * @param gcCount  total collections across all collectors
+     * @param gcMillis total collection time across all collectors
+     * @param heapUsed heap bytes in use
+     */
+    private record Snapshot(long nanos, long gcCount, long gcMillis, long heapUsed) {
+        static Snapshot take() {
+            long count = 0;
+            long millis = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, collector.getCollectionCount());
+                millis += Math.max(0, collector.getCollectionTime());
+            }
+            long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            return new Snapshot(System.nanoTime(), count, millis, heapUsed);
+        }
+    }
+}
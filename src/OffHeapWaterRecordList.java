@@ -0,0 +1,395 @@
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only sorted list of water records stored off the Java heap in a MemorySegment; each record is laid out
+ * as a packed isoYear key followed by its four percentages and its censoring flags, so the garbage collector never sees the data
+ * no matter how many records are loaded
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class OffHeapWaterRecordList implements SortedArrayListInterface<YearlyWaterRecord>, Iterable<YearlyWaterRecord> {
+
+    /** byte offset of the packed isoYear key within a record */
+    private static final long KEY_OFFSET = 0;
+    /** byte offset of the basic plus percentage within a record */
+    private static final long BASIC_PLUS_OFFSET = 8;
+    /** byte offset of the limited percentage within a record */
+    private static final long LIMITED_OFFSET = 16;
+    /** byte offset of the unimproved percentage within a record */
+    private static final long UNIMPROVED_OFFSET = 24;
+    /** byte offset of the surface percentage within a record */
+    private static final long SURFACE_OFFSET = 32;
+    /** byte offset of the censoring flags within a record; stored as a long to keep records 8-byte aligned */
+    private static final long FLAGS_OFFSET = 40;
+    /** number of bytes used by one record */
+    public static final long RECORD_BYTES = 48;
+
+    /** segment holding the records, sorted by packed key */
+    private final MemorySegment segment;
+    /** number of records in the segment */
+    private final int size;
+
+    /**
+     * Wraps a segment that already holds sorted records
+     *
+     * @param segment the segment holding the records; its size must be a multiple of RECORD_BYTES
+     */
+    private OffHeapWaterRecordList(MemorySegment segment) {
+        if (segment.byteSize() % RECORD_BYTES != 0 || segment.byteSize() / RECORD_BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segment does not hold a whole number of records: " + segment.byteSize());
+        }
+        this.segment = segment;
+        this.size = (int) (segment.byteSize() / RECORD_BYTES);
+    }
+
+    /**
+     * Copies a sorted list of records into a segment allocated from the specified arena
+     *
+     * @param source the records to copy; must not be null
+     * @param arena  the arena that owns the new segment; must not be null
+     * @return a list backed by the new segment; valid for as long as the arena is alive
+     */
+    public static OffHeapWaterRecordList copyOf(SortedArrayListInterface<YearlyWaterRecord> source, Arena arena) {
+        if (source == null) {
+            throw new IllegalArgumentException("source cannot be null");
+        }
+        return copyOf(source.iterator(), source.size(), arena);
+    }
+
+    /**
+     * Copies records, which must arrive in ascending isoYear order, into a segment allocated from the specified arena;
+     * the records can be produced lazily so that no on-heap copy of the whole dataset ever exists
+     *
+     * @param sortedRecords the records to copy, in ascending isoYear order; must not be null
+     * @param count         the number of records the iterator will produce
+     * @param arena         the arena that owns the new segment; must not be null
+     * @return a list backed by the new segment; valid for as long as the arena is alive
+     */
+    public static OffHeapWaterRecordList copyOf(Iterator<YearlyWaterRecord> sortedRecords, int count, Arena arena) {
+        if (sortedRecords == null || arena == null) {
+            throw new IllegalArgumentException("sortedRecords and arena cannot be null");
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("count: " + count);
+        }
+        MemorySegment segment = arena.allocate(count * RECORD_BYTES, Long.BYTES);
+        long previousKey = 0;
+        for (int i = 0; i < count; i++) {
+            if (!sortedRecords.hasNext()) {
+                throw new IllegalArgumentException("expected " + count + " records but found " + i);
+            }
+            YearlyWaterRecord record = sortedRecords.next();
+            long key = YearlyWaterRecord.packKey(record.isoYear());
+            if (i > 0 && Long.compareUnsigned(previousKey, key) > 0) {
+                throw new IllegalArgumentException("records are not sorted at " + record.isoYear());
+            }
+            long offset = i * RECORD_BYTES;
+            segment.set(ValueLayout.JAVA_LONG, offset + KEY_OFFSET, key);
+            segment.set(ValueLayout.JAVA_DOUBLE, offset + BASIC_PLUS_OFFSET, record.basicPlusPct());
+            segment.set(ValueLayout.JAVA_DOUBLE, offset + LIMITED_OFFSET, record.limitedPct());
+            segment.set(ValueLayout.JAVA_DOUBLE, offset + UNIMPROVED_OFFSET, record.unimprovedPct());
+            segment.set(ValueLayout.JAVA_DOUBLE, offset + SURFACE_OFFSET, record.surfacePct());
+            segment.set(ValueLayout.JAVA_LONG, offset + FLAGS_OFFSET, record.flags());
+            previousKey = key;
+        }
+        return new OffHeapWaterRecordList(segment);
+    }
+
+    /**
+     * Maps a file previously written by writeTo into memory without copying it onto the heap
+     *
+     * @param file  the file to map; must not be null
+     * @param arena the arena that controls how long the mapping stays valid; must not be null
+     * @return a list backed by the mapped file
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public static OffHeapWaterRecordList map(Path file, Arena arena) throws IOException {
+        if (file == null || arena == null) {
+            throw new IllegalArgumentException("file and arena cannot be null");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new OffHeapWaterRecordList(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena));
+        }
+    }
+
+    /**
+     * Writes the records to a file in the layout expected by map
+     *
+     * @param file the file to write; must not be null; replaced if it already exists
+     * @throws IOException if the file cannot be written
+     */
+    public void writeTo(Path file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("file cannot be null");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = segment.asByteBuffer();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of elements being maintained by the list
+     *
+     * @return the number of elements being maintained
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves whether the list is empty
+     *
+     * @return true, if there are no elements in the list; false, if there are elements
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Not supported; the list is read-only
+     */
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("off-heap record list is read-only");
+    }
+
+    /**
+     * Retrieves whether the specified element is in the list
+     *
+     * @param value the value to search for
+     * @return true, if the element is in the list; false, if not
+     */
+    @Override
+    public boolean contains(YearlyWaterRecord value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Uses a binary search directly over the packed keys in the segment to find the index of the first occurrence
+     * of the specified value, or, if not found, the place that value should be; a key that cannot be packed (see
+     * YearlyWaterRecord.isPackable) is never found, since every stored key was packed
+     *
+     * @param value the value to search for
+     * @return if found, the index of the value in the list (range 0 to size - 1);
+     * if not found, an index representing where the value would go, if added, returned as -(position+1)
+     */
+    @Override
+    public int indexOf(YearlyWaterRecord value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        String isoYear = value.isoYear();
+        if (!YearlyWaterRecord.isPackable(isoYear)) {
+            return -insertionPoint(isoYear) - 1;
+        }
+        return indexOfKey(YearlyWaterRecord.packKey(isoYear));
+    }
+
+    /**
+     * Finds where a key that cannot be packed would go by comparing it with the decoded keys
+     *
+     * @param isoYear the key
+     * @return the index of the first record whose key sorts after it
+     */
+    private int insertionPoint(String isoYear) {
+        int min = 0;
+        int max = size;
+        while (min < max) {
+            int mid = (min + max) >>> 1;
+            if (YearlyWaterRecord.unpackKey(keyAt(mid)).compareTo(isoYear) < 0) {
+                min = mid + 1;
+            } else {
+                max = mid;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Finds the first record with the specified packed key, as produced by YearlyWaterRecord.packKey
+     *
+     * @param key the packed key to search for
+     * @return the index of the first match, or -(position+1) if not found
+     */
+    public int indexOfKey(long key) {
+        int min = 0;
+        int max = size;
+        while (min < max) {
+            int mid = (min + max) >>> 1;
+            if (Long.compareUnsigned(keyAt(mid), key) < 0) {
+                min = mid + 1;
+            } else {
+                max = mid;
+            }
+        }
+        if (min < size && keyAt(min) == key) {
+            return min;
+        }
+        return -min - 1;
+    }
+
+    /**
+     * Retrieves the element at the specified position in the list; the record is decoded from the segment
+     *
+     * @param index the index (position) in the list; must be 0 to size-1
+     * @return the element at the specified position
+     */
+    @Override
+    public YearlyWaterRecord get(int index) {
+        checkIndex(index);
+        long offset = index * RECORD_BYTES;
+        return new YearlyWaterRecord(
+                YearlyWaterRecord.unpackKey(segment.get(ValueLayout.JAVA_LONG, offset + KEY_OFFSET)),
+                segment.get(ValueLayout.JAVA_DOUBLE, offset + BASIC_PLUS_OFFSET),
+                segment.get(ValueLayout.JAVA_DOUBLE, offset + LIMITED_OFFSET),
+                segment.get(ValueLayout.JAVA_DOUBLE, offset + UNIMPROVED_OFFSET),
+                segment.get(ValueLayout.JAVA_DOUBLE, offset + SURFACE_OFFSET),
+                (int) segment.get(ValueLayout.JAVA_LONG, offset + FLAGS_OFFSET));
+    }
+
+    /**
+     * Retrieves an array of elements that compare themselves equally to the specified value (via compareTo)
+     *
+     * @param value    the element being sought; must not be null
+     * @param template a template array used to create results; pass in a 0-sized array
+     * @return a new array that is right-sized and contains the matching elements, if any
+     */
+    @Override
+    public YearlyWaterRecord[] get(YearlyWaterRecord value, YearlyWaterRecord[] template) {
+        if (value == null || template == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        int first = indexOf(value);
+        if (first < 0) {
+            return Arrays.copyOf(template, 0);
+        }
+        long key = keyAt(first);
+        int last = first;
+        while (last < size && keyAt(last) == key) {
+            last++;
+        }
+        YearlyWaterRecord[] result = Arrays.copyOf(template, last - first);
+        for (int i = first; i < last; i++) {
+            result[i - first] = get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Not supported; the list is read-only
+     *
+     * @param value ignored
+     */
+    @Override
+    public void add(YearlyWaterRecord value) {
+        throw new UnsupportedOperationException("off-heap record list is read-only");
+    }
+
+    /**
+     * Not supported; the list is read-only
+     *
+     * @param index ignored
+     */
+    @Override
+    public void remove(int index) {
+        throw new UnsupportedOperationException("off-heap record list is read-only");
+    }
+
+    /**
+     * Retrieves an iterator over list elements; records are decoded as they are reached
+     *
+     * @return a strongly typed iterator over list elements
+     */
+    @Override
+    public Iterator<YearlyWaterRecord> iterator() {
+        return new Iterator<>() {
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < size;
+            }
+
+            @Override
+            public YearlyWaterRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(position++);
+            }
+        };
+    }
+
+    /**
+     * Retrieves an array representing the contents of the list
+     *
+     * @param template a template list of the proper type; pass in a 0-sized array
+     * @return a right-sized array containing the decoded records
+     */
+    @Override
+    public YearlyWaterRecord[] toArray(YearlyWaterRecord[] template) {
+        if (template == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        YearlyWaterRecord[] result = Arrays.copyOf(template, size);
+        for (int i = 0; i < size; i++) {
+            result[i] = get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves a text representation of the elements in the list
+     *
+     * @return text representing of list elements
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                result.append(", ");
+            }
+            result.append(get(i));
+        }
+        return result.append(']').toString();
+    }
+
+    /**
+     * Reads the packed key of the record at the specified index
+     *
+     * @param index the index of the record
+     * @return the packed key
+     */
+    private long keyAt(int index) {
+        return segment.get(ValueLayout.JAVA_LONG, index * RECORD_BYTES + KEY_OFFSET);
+    }
+
+    /**
+     * Throws an IndexOutOfBoundsException if the given index is not a legal index of the list
+     *
+     * @param index the index to check
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+    }
+}
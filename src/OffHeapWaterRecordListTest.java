@@ -0,0 +1,96 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that OffHeapWaterRecordList, copied from the bundled data or mapped back from a file, answers every read
+ * the same way as the on-heap list it was copied from
+ */
+class OffHeapWaterRecordListTest {
+
+    @Test
+    public void testCopyMatchesOnHeapList() throws FileNotFoundException {
+        SortedArrayList<YearlyWaterRecord> onHeap = Main.loadWaterData(new File("IsoYearWaterData.txt"),
+                new SortedArrayList<>());
+        try (Arena arena = Arena.ofConfined()) {
+            assertMatches(onHeap, OffHeapWaterRecordList.copyOf(onHeap, arena));
+        }
+    }
+
+    @Test
+    public void testMappedFileMatchesOnHeapList() throws IOException {
+        SortedArrayList<YearlyWaterRecord> onHeap = Main.loadWaterData(new File("IsoYearWaterData.txt"),
+                new SortedArrayList<>());
+        Path file = Files.createTempFile("water", ".bin");
+        try (Arena arena = Arena.ofConfined()) {
+            OffHeapWaterRecordList.copyOf(onHeap, arena).writeTo(file);
+            assertMatches(onHeap, OffHeapWaterRecordList.map(file, arena));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testUnpackableKeysAreNotFound() {
+        SortedArrayList<YearlyWaterRecord> onHeap = new SortedArrayList<>();
+        onHeap.add(record("AFG2000"));
+        onHeap.add(record("KHM2000"));
+        onHeap.add(record("KHM2001"));
+        onHeap.add(record("ZWE2000"));
+        try (Arena arena = Arena.ofConfined()) {
+            OffHeapWaterRecordList offHeap = OffHeapWaterRecordList.copyOf(onHeap, arena);
+            for (String isoYear : new String[]{"", "A", "KHM20001", "KHM2000XYZ", "KHM2001X", "ZZZZZ20001",
+                    "KÉM2000"}) {
+                assertEquals(onHeap.indexOf(record(isoYear)), offHeap.indexOf(record(isoYear)), isoYear);
+                assertFalse(offHeap.contains(record(isoYear)));
+                assertEquals(0, offHeap.get(record(isoYear), new YearlyWaterRecord[0]).length);
+            }
+        }
+        assertTrue(YearlyWaterRecord.isPackable("KHM2000"));
+        assertFalse(YearlyWaterRecord.isPackable("KHM200012"));
+        assertFalse(YearlyWaterRecord.isPackable(null));
+    }
+
+    @Test
+    public void testMutatorsAreRejected() {
+        try (Arena arena = Arena.ofConfined()) {
+            OffHeapWaterRecordList offHeap = OffHeapWaterRecordList.copyOf(new SortedArrayList<>(), arena);
+            assertTrue(offHeap.isEmpty());
+            assertThrows(UnsupportedOperationException.class, () -> offHeap.add(record("KHM2000")));
+            assertThrows(UnsupportedOperationException.class, () -> offHeap.remove(0));
+            assertThrows(UnsupportedOperationException.class, offHeap::clear);
+            assertThrows(IndexOutOfBoundsException.class, () -> offHeap.get(0));
+        }
+    }
+
+    private static void assertMatches(SortedArrayList<YearlyWaterRecord> onHeap, OffHeapWaterRecordList offHeap) {
+        assertEquals(onHeap.size(), offHeap.size());
+        int index = 0;
+        for (YearlyWaterRecord decoded : offHeap) {
+            YearlyWaterRecord original = onHeap.get(index);
+            assertEquals(original.isoYear(), decoded.isoYear());
+            assertEquals(original.flags(), decoded.flags(), original.isoYear());
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                assertEquals(original.metric(metric), decoded.metric(metric));
+                assertEquals(original.isValid(metric), decoded.isValid(metric));
+            }
+            assertEquals(index, offHeap.indexOf(original));
+            index++;
+        }
+        assertEquals(onHeap.size(), index);
+        assertEquals(onHeap.indexOf(record("AAA1999")), offHeap.indexOf(record("AAA1999")));
+        assertEquals(onHeap.indexOf(record("ZZZ2099")), offHeap.indexOf(record("ZZZ2099")));
+        assertEquals(onHeap.toString(), offHeap.toString());
+    }
+
+    private static YearlyWaterRecord record(String isoYear) {
+        return new YearlyWaterRecord(isoYear, 0.0, 0.0, 0.0, 0.0);
+    }
+}
@@ -0,0 +1,18 @@
+/**
+ * An element that can be searched by a long instead of by compareTo: compared as unsigned, the packed keys of two
+ * elements never contradict their natural order, so a frozen list can search an array of keys and compare elements
+ * only among those that share a key. SortedArrayList.freeze() uses the packed keys of elements that have them.
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public interface PackedKey {
+
+    /**
+     * Retrieves the packed key; if a.compareTo(b) &lt; 0, then a.packedKey() is at most b.packedKey(), compared as
+     * unsigned
+     *
+     * @return the packed key
+     */
+    long packedKey();
+}
@@ -0,0 +1,391 @@
+import java.util.Arrays;
+
+/**
+ * Streaming quantile sketch (KLL): answers rank and quantile queries over a stream of doubles from a summary of
+ * about 3k values, however long the stream. Values enter a level-0 buffer; when a level is full it is sorted and
+ * every other value moves up a level with twice the weight. Level capacities shrink by 2/3 going down, so most
+ * of the space sits at the top levels where each value stands for many. The rank of any value is off by about
+ * 1.7 / k of the count, with high probability; until the first compaction the sketch is exact.
+ * <p>
+ * Sketches with the same k can be merged, so chunks of a stream can be summarized in parallel and combined.
+ * Queries read an immutable sorted view that is rebuilt after updates, so any number of threads may query a sketch
+ * that is no longer being updated.
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class QuantileSketch {
+
+    /** default accuracy: rank error around 1% of the count */
+    public static final int DEFAULT_K = 200;
+
+    /** how much smaller each level's capacity is than the level above */
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+    /** smallest capacity of any level */
+    private static final int MIN_CAPACITY = 2;
+
+    /** accuracy parameter; capacity of the top level */
+    private final int k;
+    /** retained values of each level; a value at level h stands for 2^h values of the stream */
+    private double[][] levels = new double[1][];
+    /** number of values in use at each level */
+    private int[] sizes = new int[1];
+    /** number of retained values over all levels */
+    private int retained;
+    /** retained values that trigger a compaction */
+    private int maxRetained;
+    /** number of values added, counting those merged in */
+    private long count;
+    /** smallest value added */
+    private double min = Double.POSITIVE_INFINITY;
+    /** largest value added */
+    private double max = Double.NEGATIVE_INFINITY;
+    /** state of the generator choosing which half survives a compaction */
+    private long coinState;
+    /** retained values sorted with cumulative weights; null after an update until the next query */
+    private volatile SortedView view;
+
+    /**
+     * Creates a sketch with the default accuracy
+     */
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Creates a sketch
+     *
+     * @param k accuracy; larger is more accurate and uses about 3k values of space; at least 8
+     */
+    public QuantileSketch(int k) {
+        if (k < 8) {
+            throw new IllegalArgumentException("k must be at least 8: " + k);
+        }
+        this.k = k;
+        coinState = 0x9E3779B97F4A7C15L;
+        levels[0] = new double[k];
+        maxRetained = capacity(0);
+    }
+
+    /**
+     * Retrieves the accuracy parameter
+     *
+     * @return k
+     */
+    public int k() {
+        return k;
+    }
+
+    /**
+     * Retrieves the number of values summarized
+     *
+     * @return the count
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Retrieves whether nothing has been added
+     *
+     * @return true, if the count is 0
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Retrieves the smallest value added
+     *
+     * @return the minimum; NaN if empty
+     */
+    public double min() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * Retrieves the largest value added
+     *
+     * @return the maximum; NaN if empty
+     */
+    public double max() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * Adds a value
+     *
+     * @param value the value; NaN is ignored
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        append(0, value);
+        retained++;
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        view = null;
+        if (retained >= maxRetained) {
+            compress();
+        }
+    }
+
+    /**
+     * Adds every value summarized by another sketch; the other sketch is not changed
+     *
+     * @param other a sketch with the same k; must not be null
+     */
+    public void merge(QuantileSketch other) {
+        if (other == null || other.k != k) {
+            throw new IllegalArgumentException("other must not be null and must have k = " + k);
+        }
+        if (other.count == 0) {
+            return;
+        }
+        while (levels.length < other.levels.length) {
+            grow();
+        }
+        for (int level = 0; level < other.levels.length; level++) {
+            for (int i = 0; i < other.sizes[level]; i++) {
+                append(level, other.levels[level][i]);
+            }
+            retained += other.sizes[level];
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        view = null;
+        while (retained >= maxRetained) {
+            compress();
+        }
+    }
+
+    /**
+     * Estimates the fraction of values that are at most a value
+     *
+     * @param value the value
+     * @return 0 to 1; NaN if empty
+     */
+    public double rank(double value) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        SortedView sorted = view();
+        int index = upperBound(sorted.values, value);
+        return index == 0 ? 0 : (double) sorted.cumulative[index - 1] / sorted.total;
+    }
+
+    /**
+     * Estimates the value at a fraction of the way through the sorted values, e.g. 0.5 for the median
+     *
+     * @param fraction 0 to 1; 0 gives the minimum and 1 the maximum
+     * @return the estimate; NaN if empty
+     */
+    public double quantile(double fraction) {
+        if (!(fraction >= 0 && fraction <= 1)) {
+            throw new IllegalArgumentException("fraction must be 0 to 1: " + fraction);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (fraction == 0) {
+            return min;
+        }
+        if (fraction == 1) {
+            return max;
+        }
+        SortedView sorted = view();
+        long target = (long) Math.ceil(fraction * sorted.total);
+        int index = Arrays.binarySearch(sorted.cumulative, target);
+        return sorted.values[index >= 0 ? index : Math.min(-index - 1, sorted.values.length - 1)];
+    }
+
+    /**
+     * Estimates several quantiles at once
+     *
+     * @param fractions fractions, each 0 to 1
+     * @return the estimates, in the order of fractions
+     */
+    public double[] quantiles(double... fractions) {
+        double[] result = new double[fractions.length];
+        for (int i = 0; i < fractions.length; i++) {
+            result[i] = quantile(fractions[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves the number of values the sketch keeps
+     *
+     * @return the retained count
+     */
+    public int retained() {
+        return retained;
+    }
+
+    /**
+     * Appends a value to a level, growing its array if needed
+     *
+     * @param level the level
+     * @param value the value
+     */
+    private void append(int level, double value) {
+        if (sizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], Math.max(MIN_CAPACITY, levels[level].length * 2));
+        }
+        levels[level][sizes[level]++] = value;
+    }
+
+    /**
+     * Compacts the lowest level that is over capacity, which frees at least one value
+     */
+    private void compress() {
+        for (int level = 0; level < levels.length; level++) {
+            if (sizes[level] >= capacity(level)) {
+                if (level + 1 == levels.length) {
+                    grow();
+                }
+                compact(level);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sorts a level and moves every other value to the level above; with an odd count the smallest value stays
+     *
+     * @param level the level
+     */
+    private void compact(int level) {
+        double[] values = levels[level];
+        int size = sizes[level];
+        Arrays.sort(values, 0, size);
+        int kept = size % 2;
+        int pairs = size - kept;
+        // with an odd count the smallest value is skipped by the loop and stays, already at index 0
+        for (int i = coin() + kept; i < size; i += 2) {
+            append(level + 1, values[i]);
+        }
+        sizes[level] = kept;
+        retained -= pairs / 2;
+    }
+
+    /**
+     * Adds an empty level on top and recomputes the capacities, which depend on the number of levels
+     */
+    private void grow() {
+        int height = levels.length + 1;
+        levels = Arrays.copyOf(levels, height);
+        sizes = Arrays.copyOf(sizes, height);
+        levels[height - 1] = new double[MIN_CAPACITY];
+        maxRetained = 0;
+        for (int level = 0; level < height; level++) {
+            maxRetained += capacity(level);
+        }
+    }
+
+    /**
+     * Computes the capacity of a level
+     *
+     * @param level the level
+     * @return k for the top level, shrinking by 2/3 per level below, but at least MIN_CAPACITY
+     */
+    private int capacity(int level) {
+        int depth = levels.length - level - 1;
+        return Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+    }
+
+    /**
+     * Flips the coin that picks the surviving half of a compaction
+     *
+     * @return 0 or 1
+     */
+    private int coin() {
+        coinState ^= coinState << 13;
+        coinState ^= coinState >>> 7;
+        coinState ^= coinState << 17;
+        return (int) (coinState >>> 63);
+    }
+
+    /**
+     * Finds the number of values at most a value
+     *
+     * @param values sorted values
+     * @param value  the value
+     * @return the count
+     */
+    private static int upperBound(double[] values, double value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Retrieves the sorted view, building it if an update has invalidated it
+     *
+     * @return the view
+     */
+    private SortedView view() {
+        SortedView sorted = view;
+        if (sorted == null) {
+            sorted = new SortedView(levels, sizes);
+            view = sorted;
+        }
+        return sorted;
+    }
+
+    /**
+     * Retained values in sorted order with the running total of their weights
+     */
+    private static final class SortedView {
+        /** values, ascending */
+        final double[] values;
+        /** total weight of values[0..i] */
+        final long[] cumulative;
+        /** total weight of all values */
+        final long total;
+
+        /**
+         * Sorts each level, then merges the levels, carrying each value's weight along
+         *
+         * @param levels retained values by level
+         * @param sizes  number in use at each level
+         */
+        SortedView(double[][] levels, int[] sizes) {
+            double[][] sorted = new double[levels.length][];
+            int size = 0;
+            for (int level = 0; level < levels.length; level++) {
+                sorted[level] = Arrays.copyOf(levels[level], sizes[level]);
+                Arrays.sort(sorted[level]);
+                size += sizes[level];
+            }
+            values = new double[size];
+            cumulative = new long[size];
+            int[] heads = new int[levels.length];
+            long running = 0;
+            for (int i = 0; i < size; i++) {
+                int smallest = -1;
+                for (int level = 0; level < sorted.length; level++) {
+                    if (heads[level] < sorted[level].length && (smallest < 0
+                            || sorted[level][heads[level]] < sorted[smallest][heads[smallest]])) {
+                        smallest = level;
+                    }
+                }
+                values[i] = sorted[smallest][heads[smallest]++];
+                running += 1L << smallest;
+                cumulative[i] = running;
+            }
+            total = running;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchTest {
+
+    @Test
+    public void testExactBeforeFirstCompaction() {
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 100; i >= 1; i--) {
+            sketch.add(i);
+        }
+        assertEquals(100, sketch.count());
+        assertEquals(50.0, sketch.quantile(0.5));
+        assertEquals(90.0, sketch.quantile(0.9));
+        assertEquals(1.0, sketch.quantile(0));
+        assertEquals(100.0, sketch.quantile(1));
+        assertEquals(0.25, sketch.rank(25.5));
+        assertEquals(0.0, sketch.rank(0));
+
+        assertTrue(Double.isNaN(new QuantileSketch().quantile(0.5)));
+        assertThrows(IllegalArgumentException.class, () -> sketch.quantile(1.5));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(4));
+    }
+
+    @Test
+    public void testRankErrorWithinBound() {
+        Random random = new Random(45);
+        double[] values = new double[1_000_000];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.pow(random.nextDouble(), 3) * 100;     // skewed towards 0
+            sketch.add(values[i]);
+        }
+        assertTrue(sketch.retained() < 3 * QuantileSketch.DEFAULT_K + 100);
+        assertRanksClose(values, sketch);
+    }
+
+    @Test
+    public void testMergedChunksMatchStream() {
+        Random random = new Random(46);
+        double[] values = new double[400_000];
+        QuantileSketch merged = new QuantileSketch();
+        for (int chunk = 0; chunk < 8; chunk++) {
+            QuantileSketch part = new QuantileSketch();
+            for (int i = chunk * 50_000; i < (chunk + 1) * 50_000; i++) {
+                values[i] = random.nextGaussian() * 15 + 60;
+                part.add(values[i]);
+            }
+            merged.merge(part);
+        }
+        assertEquals(values.length, merged.count());
+        assertRanksClose(values, merged);
+        assertThrows(IllegalArgumentException.class, () -> merged.merge(new QuantileSketch(100)));
+    }
+
+    @Test
+    public void testWaterSketchesMatchRecords() {
+        Random random = new Random(47);
+        YearlyWaterRecord[] records = new YearlyWaterRecord[20_000];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = new YearlyWaterRecord(String.format("C%04d%d", i / 2, 2000 + i % 2),
+                    random.nextDouble() * 100, random.nextDouble() * 100, i % 10 == 0 ? -1 : random.nextDouble() * 100,
+                    100);
+        }
+        WaterSketches streamed = new WaterSketches();
+        for (YearlyWaterRecord record : records) {
+            streamed.add(record);
+        }
+        WaterSketches built = WaterSketches.build(records, QuantileSketch.DEFAULT_K, WaterSketches.DEFAULT_BINS);
+
+        assertArrayEquals(new int[]{2000, 2001}, built.years());
+        for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+            long[] expected = new long[WaterSketches.DEFAULT_BINS];
+            long count = 0;
+            for (YearlyWaterRecord record : records) {
+                if (Main.yearOf(record.isoYear()) == 2000 && record.isValid(metric)) {
+                    expected[Math.min(WaterSketches.DEFAULT_BINS - 1, (int) (record.metric(metric) / 5))]++;
+                    count++;
+                }
+            }
+            assertArrayEquals(expected, streamed.histogram(2000, metric));
+            assertArrayEquals(expected, built.histogram(2000, metric));
+            assertEquals(count, built.count(2000, metric));
+        }
+        assertEquals(50, built.quantile(2001, 0, 0.5), 3);
+        assertEquals(100.0, built.quantile(2000, 3, 0.5));
+        assertTrue(Double.isNaN(built.quantile(1999, 0, 0.5)));
+        assertEquals(0, built.histogram(1999, 0)[0]);
+    }
+
+    private static void assertRanksClose(double[] values, QuantileSketch sketch) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double fraction = 0.01; fraction < 1; fraction += 0.01) {
+            double estimate = sketch.quantile(fraction);
+            int trueRank = Arrays.binarySearch(sorted, estimate);
+            double rank = (double) (trueRank >= 0 ? trueRank : -trueRank - 1) / sorted.length;
+            assertEquals(fraction, rank, 3.3 / QuantileSketch.DEFAULT_K, "quantile " + fraction);
+        }
+    }
+}
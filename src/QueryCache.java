@@ -0,0 +1,228 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded least-recently-used cache of query results, limited by entry count or by estimated bytes; all entries
+ * are tied to one dataset and its version and are dropped as soon as a caller presents another dataset or version
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ *
+ * @param <K> type of the normalized query key; must implement equals and hashCode
+ * @param <V> type of the cached result
+ */
+public class QueryCache<K, V> {
+
+    /** entries in access order, least recently used first */
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /** estimates the size of a result; every entry weighs 1 when limiting by count */
+    private final ToLongFunction<? super V> weigher;
+    /** maximum total weight of the entries */
+    private final long maxWeight;
+    /** total weight of the current entries */
+    private long weight;
+    /** dataset the current entries were computed from, compared by identity; null if not specified */
+    private Object dataset;
+    /** dataset version the current entries were computed from */
+    private long datasetVersion;
+
+    /** lookups answered from the cache */
+    private final LongAdder hits = new LongAdder();
+    /** lookups that had to run the query */
+    private final LongAdder misses = new LongAdder();
+    /** entries removed to stay within the size limit */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache limited to the specified number of entries
+     *
+     * @param maxEntries maximum number of entries; must be positive
+     */
+    public QueryCache(int maxEntries) {
+        this(maxEntries, value -> 1);
+    }
+
+    /**
+     * Creates a cache limited by the total estimated size of its results
+     *
+     * @param maxWeight maximum total weight, e.g. in bytes; must be positive
+     * @param weigher   estimates the weight of one result; must not be null and must return a positive weight
+     */
+    public QueryCache(long maxWeight, ToLongFunction<? super V> weigher) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight must be positive: " + maxWeight);
+        }
+        if (weigher == null) {
+            throw new IllegalArgumentException("weigher must not be null");
+        }
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Retrieves the cached result for the key, running the query and caching its result on a miss; for callers
+     * that only ever query one dataset
+     *
+     * @param key            the normalized query; must not be null
+     * @param datasetVersion version of the data the query runs against; any other version empties the cache
+     * @param query          computes the result on a miss; must not be null; a null result is returned but not cached
+     * @return the result
+     */
+    public V get(K key, long datasetVersion, Function<? super K, ? extends V> query) {
+        return get(key, null, datasetVersion, query);
+    }
+
+    /**
+     * Retrieves the cached result for the key, running the query and caching its result on a miss; the query runs
+     * outside the cache lock, so concurrent readers are never blocked behind a slow query
+     *
+     * @param key            the normalized query; must not be null
+     * @param dataset        the data the query runs against, e.g. the list; versions of different lists are
+     *                       unrelated, so another dataset empties the cache whatever its version
+     * @param datasetVersion version of the data the query runs against; any other version empties the cache
+     * @param query          computes the result on a miss; must not be null; a null result is returned but not cached
+     * @return the result
+     */
+    public V get(K key, Object dataset, long datasetVersion, Function<? super K, ? extends V> query) {
+        if (key == null || query == null) {
+            throw new IllegalArgumentException("key and query must not be null");
+        }
+        synchronized (this) {
+            checkVersion(dataset, datasetVersion);
+            V cached = entries.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+        V result = query.apply(key);
+        if (result != null) {
+            put(key, dataset, datasetVersion, result);
+        }
+        return result;
+    }
+
+    /**
+     * Removes every entry
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Retrieves the number of entries currently cached
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Retrieves the total weight of the entries currently cached
+     *
+     * @return the total weight
+     */
+    public synchronized long weight() {
+        return weight;
+    }
+
+    /**
+     * Retrieves the number of lookups answered from the cache
+     *
+     * @return the hit count
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Retrieves the number of lookups that had to run the query
+     *
+     * @return the miss count
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Retrieves the number of entries removed to stay within the size limit
+     *
+     * @return the eviction count
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Retrieves the fraction of lookups answered from the cache
+     *
+     * @return the hit rate, 0 to 1; 0 if there have been no lookups
+     */
+    public double hitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Retrieves a one-line summary of the cache statistics
+     *
+     * @return text describing the statistics
+     */
+    @Override
+    public String toString() {
+        return String.format("QueryCache[size=%d, weight=%d/%d, hits=%d, misses=%d, evictions=%d, hitRate=%.3f]",
+                size(), weight(), maxWeight, hitCount(), missCount(), evictionCount(), hitRate());
+    }
+
+    /**
+     * Stores a result, evicting least recently used entries until the cache is within its limit
+     *
+     * @param key            the normalized query
+     * @param dataset        the data the result was computed from
+     * @param datasetVersion version of the data the result was computed from
+     * @param result         the result; must not be null
+     */
+    private synchronized void put(K key, Object dataset, long datasetVersion, V result) {
+        if (dataset != this.dataset || datasetVersion != this.datasetVersion) {
+            return; // computed from other data than the cache now holds
+        }
+        long resultWeight = weigher.applyAsLong(result);
+        if (resultWeight > maxWeight) {
+            return;
+        }
+        V previous = entries.put(key, result);
+        if (previous != null) {
+            weight -= weigher.applyAsLong(previous);
+        }
+        weight += resultWeight;
+        Iterator<Map.Entry<K, V>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            Map.Entry<K, V> entry = eldest.next();
+            weight -= weigher.applyAsLong(entry.getValue());
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Empties the cache if the specified dataset or version differs from the one its entries were computed from
+     *
+     * @param dataset        the dataset presented by the caller
+     * @param datasetVersion the version presented by the caller
+     */
+    private void checkVersion(Object dataset, long datasetVersion) {
+        if (dataset != this.dataset || datasetVersion != this.datasetVersion) {
+            invalidateAll();
+            this.dataset = dataset;
+            this.datasetVersion = datasetVersion;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Random;
+
+/**
+ * Replays a skewed (Zipf-distributed) mix of lookups, comparisons, time series and year aggregates against the
+ * bundled data, with and without a QueryCache, and prints throughput and cache statistics.
+ * Usage: java QueryCacheBenchmark [queries] [cacheEntries] [zipfExponent]
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class QueryCacheBenchmark {
+
+    public static void main(String[] args) throws FileNotFoundException {
+        int queryCount = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int cacheEntries = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        double exponent = args.length > 2 ? Double.parseDouble(args[2]) : 1.1;
+
+        SortedArrayList<Integer> years = new SortedArrayList<>();
+        SortedArrayList<YearlyWaterRecord> waterData = Main.loadWaterData(new File("IsoYearWaterData.txt"), years);
+        String[] keys = new String[waterData.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = waterData.get(i).isoYear();
+        }
+
+        // ranks are assigned to keys in a shuffled order so that popular keys are spread through the list
+        Random random = new Random(1);
+        for (int i = keys.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            String swap = keys[i];
+            keys[i] = keys[j];
+            keys[j] = swap;
+        }
+        double[] cumulative = zipfCumulative(keys.length, exponent);
+
+        System.out.printf("%,d records, %,d queries, zipf s=%.2f%n", keys.length, queryCount, exponent);
+        run("uncached", new WaterQueries(waterData), keys, years, cumulative, queryCount);
+        QueryCache<WaterQueries.QueryKey, Object> cache = new QueryCache<>(cacheEntries);
+        run("cached", new WaterQueries(waterData, cache), keys, years, cumulative, queryCount);
+        System.out.println(cache);
+    }
+
+    /**
+     * Runs the query mix against one query service, twice, and reports the second (warmed up) run
+     *
+     * @param label      name printed with the result
+     * @param queries    the service under test
+     * @param keys       keys in popularity order
+     * @param years      distinct years in the data
+     * @param cumulative cumulative Zipf probabilities over the keys
+     * @param queryCount number of queries to run
+     */
+    private static void run(String label, WaterQueries queries, String[] keys, SortedArrayList<Integer> years,
+                            double[] cumulative, int queryCount) {
+        long elapsed = 0;
+        for (int round = 0; round < 2; round++) {
+            Random random = new Random(2);
+            long checksum = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < queryCount; i++) {
+                String key = keys[sample(cumulative, random)];
+                double kind = random.nextDouble();
+                if (kind < 0.70) {
+                    checksum += queries.lookup(key) == null ? 0 : 1;
+                } else if (kind < 0.85) {
+                    checksum += queries.compare(key, keys[sample(cumulative, random)]).length;
+                } else if (kind < 0.95) {
+                    checksum += queries.series(key.substring(0, key.length() - 4)).length;
+                } else {
+                    checksum += (long) queries.yearAverages(years.get(random.nextInt(years.size())))[0];
+                }
+            }
+            elapsed = System.nanoTime() - start;
+            if (checksum == Long.MIN_VALUE) {
+                System.out.println(checksum); // keeps the loop from being optimized away
+            }
+        }
+        System.out.printf("%-9s %,12.0f queries/s  %,8d ns/query%n", label,
+                queryCount * 1e9 / elapsed, elapsed / queryCount);
+    }
+
+    /**
+     * Builds the cumulative distribution of a Zipf law over ranks 1 to n
+     *
+     * @param n        the number of ranks
+     * @param exponent the skew; larger is more skewed
+     * @return cumulative probabilities, last element 1
+     */
+    private static double[] zipfCumulative(int n, double exponent) {
+        double[] cumulative = new double[n];
+        double total = 0;
+        for (int rank = 0; rank < n; rank++) {
+            total += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cumulative[rank] /= total;
+        }
+        return cumulative;
+    }
+
+    /**
+     * Draws a rank from a cumulative distribution
+     *
+     * @param cumulative the cumulative probabilities
+     * @param random     source of randomness
+     * @return the rank, 0 to cumulative.length-1
+     */
+    private static int sample(double[] cumulative, Random random) {
+        double target = random.nextDouble();
+        int min = 0;
+        int max = cumulative.length - 1;
+        while (min < max) {
+            int mid = (min + max) >>> 1;
+            if (cumulative[mid] < target) {
+                min = mid + 1;
+            } else {
+                max = mid;
+            }
+        }
+        return min;
+    }
+}
@@ -0,0 +1,136 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that QueryCache evicts least recently used entries, stays within its weight limit, and drops its entries
+ * when the list it caches results of is changed
+ */
+class QueryCacheTest {
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        QueryCache<String, String> cache = new QueryCache<>(3);
+        AtomicInteger runs = new AtomicInteger();
+        for (String key : new String[]{"a", "b", "c"}) {
+            cache.get(key, 0, k -> k + runs.incrementAndGet());
+        }
+        assertEquals("a1", cache.get("a", 0, k -> k + runs.incrementAndGet()));    // a is now the most recent
+        cache.get("d", 0, k -> k + runs.incrementAndGet());                        // evicts b
+
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.evictionCount());
+        assertEquals("a1", cache.get("a", 0, k -> k + runs.incrementAndGet()));
+        assertEquals("c3", cache.get("c", 0, k -> k + runs.incrementAndGet()));
+        assertEquals("b5", cache.get("b", 0, k -> k + runs.incrementAndGet()));    // evicts d
+        assertEquals("d6", cache.get("d", 0, k -> k + runs.incrementAndGet()));    // evicts a
+        assertEquals(3, cache.evictionCount());
+        assertEquals(3, cache.hitCount());
+        assertEquals(6, cache.missCount());
+        assertNull(cache.get("x", 0, k -> null));                                 // null results are not cached
+        assertEquals(3, cache.size());
+        assertEquals(0.3, cache.hitRate(), 1e-9);
+    }
+
+    @Test
+    public void testStaysWithinWeightLimit() {
+        QueryCache<Integer, int[]> cache = new QueryCache<>(100, array -> array.length);
+        cache.get(1, 0, k -> new int[40]);
+        cache.get(2, 0, k -> new int[40]);
+        assertEquals(80, cache.weight());
+
+        cache.get(3, 0, k -> new int[30]);                 // 110 > 100: evicts 1
+        assertEquals(70, cache.weight());
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictionCount());
+
+        int[] tooHeavy = cache.get(4, 0, k -> new int[101]);
+        assertEquals(101, tooHeavy.length);                 // returned, but not cached
+        assertEquals(70, cache.weight());
+        assertEquals(1, cache.evictionCount());
+
+        cache.get(5, 0, k -> new int[100]);                 // fills the cache alone
+        assertEquals(100, cache.weight());
+        assertEquals(1, cache.size());
+
+        cache.invalidateAll();
+        assertEquals(0, cache.weight());
+        assertEquals(0, cache.size());
+        assertThrows(IllegalArgumentException.class, () -> new QueryCache<Integer, int[]>(0, array -> 1));
+        assertThrows(IllegalArgumentException.class, () -> cache.get(null, 0, k -> new int[1]));
+    }
+
+    @Test
+    public void testOtherVersionOrDatasetEmptiesCache() {
+        QueryCache<String, String> cache = new QueryCache<>(10);
+        cache.get("a", 1, k -> "old");
+        assertEquals("old", cache.get("a", 1, k -> "new"));
+        assertEquals("older", cache.get("a", 0, k -> "older"));  // any other version empties it
+        assertEquals("new", cache.get("a", 2, k -> "new"));
+        assertEquals(1, cache.size());
+
+        Object first = new Object();
+        Object second = new Object();
+        assertEquals("first", cache.get("a", first, 0, k -> "first"));
+        assertEquals("first", cache.get("a", first, 0, k -> "other"));
+        assertEquals("second", cache.get("a", second, 0, k -> "second"));   // same version, other dataset
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testSharedCacheFollowsList() {
+        QueryCache<WaterQueries.QueryKey, Object> cache = new QueryCache<>(10);
+        SortedArrayList<YearlyWaterRecord> first = new SortedArrayList<YearlyWaterRecord>().mergeAll(
+                java.util.List.of(new YearlyWaterRecord("KHM2000", 50.0, 10.0, 20.0, 30.0)));
+        SortedArrayList<YearlyWaterRecord> second = first.mergeAll(
+                java.util.List.of(new YearlyWaterRecord("KHM2001", 60.0, 10.0, 20.0, 30.0)));
+        assertEquals(first.version(), second.version());            // versions of separate lists can coincide
+
+        assertEquals(1, new WaterQueries(first, cache).series("KHM").length);
+        assertEquals(2, new WaterQueries(second, cache).series("KHM").length);
+        assertEquals(1, new WaterQueries(first, cache).series("KHM").length);
+        assertEquals(0, cache.hitCount());
+    }
+
+    @Test
+    public void testAddAndRemoveBumpVersion() {
+        SortedArrayList<YearlyWaterRecord> waterData = new SortedArrayList<>();
+        long version = waterData.version();
+        waterData.add(new YearlyWaterRecord("KHM2000", 50.0, 10.0, 20.0, 30.0));
+        assertTrue(waterData.version() > version);
+        version = waterData.version();
+        waterData.add(new YearlyWaterRecord("KHM2001", 60.0, 10.0, 20.0, 30.0));
+        assertTrue(waterData.version() > version);
+        version = waterData.version();
+        waterData.remove(1);
+        assertTrue(waterData.version() > version);
+        version = waterData.version();
+        waterData.iterator().next();
+        assertEquals(version, waterData.version());             // reads leave it alone
+
+        WaterQueries queries = new WaterQueries(waterData, new QueryCache<>(10));
+        assertEquals(50.0, queries.series("KHM")[0].metric(0));
+        assertEquals(1, queries.series("KHM").length);
+        assertEquals(1, queries.cache().hitCount());
+        waterData.add(new YearlyWaterRecord("KHM2001", 60.0, 10.0, 20.0, 30.0));
+        assertEquals(2, queries.series("KHM").length);              // recomputed, not the cached series
+        assertEquals(1, queries.cache().size());
+        waterData.remove(0);
+        assertEquals(60.0, queries.series("KHM")[0].metric(0));
+        assertEquals(1, queries.cache().hitCount());
+        assertEquals(3, queries.cache().missCount());
+
+        Iterator<YearlyWaterRecord> iterator = waterData.iterator();
+        iterator.next();
+        version = waterData.version();
+        iterator.remove();
+        assertTrue(waterData.version() > version);
+        waterData.add(new YearlyWaterRecord("KHM2002", 70.0, 10.0, 20.0, 30.0));
+        version = waterData.version();
+        waterData.clear();
+        assertTrue(waterData.version() > version);
+    }
+}
@@ -0,0 +1,124 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Runs load, lookup and aggregate workloads over synthetic datasets of increasing size and prints time and memory
+ * for each scale, so that super-linear paths show up as a bend in the curve.
+ * Usage: java ScalingHarness [sorted|year_major|shuffled|reversed] [scale ...]
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class ScalingHarness {
+
+    /** scales used when none are given on the command line */
+    private static final long[] DEFAULT_SCALES = {10_000, 30_000, 100_000, 300_000, 1_000_000};
+    /** number of random lookups per scale */
+    private static final int LOOKUPS = 100_000;
+
+    public static void main(String[] args) throws IOException {
+        WaterDataGenerator.Order order = args.length > 0
+                ? WaterDataGenerator.Order.valueOf(args[0].toUpperCase()) : WaterDataGenerator.Order.SHUFFLED;
+        long[] scales = DEFAULT_SCALES;
+        if (args.length > 1) {
+            scales = new long[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                scales[i - 1] = Long.parseLong(args[i]);
+            }
+        }
+
+        File directory = Files.createTempDirectory("water-scaling").toFile();
+        File waterFile = new File(directory, "IsoYearWaterData.txt");
+        File countriesFile = new File(directory, "CountriesAndIsoCodes.txt");
+
+        System.out.println("order: " + order);
+        System.out.println("      rows    loadMs  loadNs/row    heapMB  lookupNs/op  aggregateMs");
+        for (long rows : scales) {
+            WaterDataGenerator generator = new WaterDataGenerator(rows, order, 0.01, 0.05, 2000, 23, 42);
+            generator.writeWaterData(waterFile);
+            generator.writeCountries(countriesFile);
+
+            long heapBefore = usedHeap();
+            long start = System.nanoTime();
+            SortedArrayList<Integer> years = new SortedArrayList<>();
+            SortedArrayList<YearlyWaterRecord> records = Main.loadWaterData(waterFile, years);
+            long loadNanos = System.nanoTime() - start;
+            long heapBytes = usedHeap() - heapBefore;
+
+            long lookupNanos = lookups(records, generator);
+
+            start = System.nanoTime();
+            double[] means = meanBasicPlusByYear(records, years);
+            long aggregateNanos = System.nanoTime() - start;
+            if (means.length == 0 && records.size() > 0) {
+                System.out.println("no years found");
+            }
+
+            System.out.printf("%10d %9d %11d %9d %12d %12d%n", rows,
+                    loadNanos / 1_000_000, loadNanos / rows, heapBytes / (1024 * 1024),
+                    lookupNanos / LOOKUPS, aggregateNanos / 1_000_000);
+        }
+
+        waterFile.delete();
+        countriesFile.delete();
+        directory.delete();
+    }
+
+    /**
+     * Times random lookups of keys known to exist in the dataset
+     *
+     * @param records   the loaded records
+     * @param generator the generator that produced the dataset
+     * @return total nanoseconds spent
+     */
+    private static long lookups(SortedArrayList<YearlyWaterRecord> records, WaterDataGenerator generator) {
+        Random random = new Random(7);
+        YearlyWaterRecord[] probes = new YearlyWaterRecord[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            String key = generator.keyOf((long) (random.nextDouble() * generator.keyCount()));
+            probes[i] = new YearlyWaterRecord(key, 0.0, 0.0, 0.0, 0.0);
+        }
+        long misses = 0;
+        long start = System.nanoTime();
+        for (YearlyWaterRecord probe : probes) {
+            if (records.indexOf(probe) < 0) {
+                misses++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (misses > 0) {
+            System.out.println(misses + " expected keys were missing");
+        }
+        return elapsed;
+    }
+
+    /**
+     * Computes the mean basic-plus percentage for every year, copying the records into a WaterTable and averaging
+     * each year's rows through the validity bitmap, so missing values are skipped without being tested
+     *
+     * @param records the loaded records
+     * @param years   the distinct years in the records, sorted
+     * @return the mean for each year, parallel to years
+     */
+    private static double[] meanBasicPlusByYear(SortedArrayList<YearlyWaterRecord> records, SortedArrayList<Integer> years) {
+        WaterTable table = new WaterTable(records);
+        double[] means = new double[years.size()];
+        for (int i = 0; i < means.length; i++) {
+            means[i] = table.mean(0, table.yearMask(years.get(i)));     // metric 0 is BasicPlusPct
+        }
+        return means;
+    }
+
+    /**
+     * Retrieves the heap in use after requesting a collection
+     *
+     * @return heap bytes in use
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,505 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * KD-tree over the water access profiles of one year, where a profile is the point formed by a record's four
+ * percentages and similarity is Euclidean distance in percentage points; answers k-nearest-neighbour and radius
+ * queries without comparing against every record. Records missing any of the four metrics are left out, since
+ * they have no position in the space.
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class SimilarityIndex {
+
+    /** number of coordinates in a profile */
+    private static final int DIMENSIONS = YearlyWaterRecord.METRIC_COUNT;
+
+    /** records in tree order: the root of every subrange [lo, hi) is at its midpoint */
+    private final YearlyWaterRecord[] records;
+    /** coordinates parallel to records, DIMENSIONS per record */
+    private final double[] points;
+    /** tree position of each record, by isoYear */
+    private final Map<String, Integer> positions;
+
+    /**
+     * Builds the tree by splitting each range at its median, cycling through the metrics level by level
+     *
+     * @param candidates the records to index; records missing a metric are skipped; must not be null
+     */
+    public SimilarityIndex(YearlyWaterRecord[] candidates) {
+        if (candidates == null) {
+            throw new IllegalArgumentException("candidates must not be null");
+        }
+        int count = 0;
+        YearlyWaterRecord[] complete = new YearlyWaterRecord[candidates.length];
+        for (YearlyWaterRecord record : candidates) {
+            if (isComplete(record)) {
+                complete[count++] = record;
+            }
+        }
+        records = Arrays.copyOf(complete, count);
+        points = new double[count * DIMENSIONS];
+        for (int i = 0; i < count; i++) {
+            for (int d = 0; d < DIMENSIONS; d++) {
+                points[i * DIMENSIONS + d] = records[i].metric(d);
+            }
+        }
+        build(0, count, 0);
+        positions = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            positions.put(records[i].isoYear(), i);
+        }
+    }
+
+    /**
+     * Retrieves the number of indexed records
+     *
+     * @return the number of records with all four metrics
+     */
+    public int size() {
+        return records.length;
+    }
+
+    /**
+     * Retrieves whether a record is indexed
+     *
+     * @param isoYear the record's key
+     * @return true, if the record is present and has all four metrics
+     */
+    public boolean contains(String isoYear) {
+        return positions.containsKey(isoYear);
+    }
+
+    /**
+     * Retrieves the indexed records, in no particular order
+     *
+     * @return a copy of the records
+     */
+    public YearlyWaterRecord[] records() {
+        return records.clone();
+    }
+
+    /**
+     * Computes the distance between two profiles
+     *
+     * @param a a record with all four metrics
+     * @param b a record with all four metrics
+     * @return the Euclidean distance in percentage points
+     */
+    public static double distance(YearlyWaterRecord a, YearlyWaterRecord b) {
+        double sum = 0;
+        for (int d = 0; d < DIMENSIONS; d++) {
+            double diff = a.metric(d) - b.metric(d);
+            sum += diff * diff;
+        }
+        return Math.sqrt(sum);
+    }
+
+    /**
+     * Finds the records whose profiles are closest to a record's, excluding the record itself
+     *
+     * @param target the record to compare against; must have all four metrics
+     * @param k      the number of neighbours wanted; must be positive
+     * @return up to k neighbours, nearest first
+     */
+    public Neighbor[] nearest(YearlyWaterRecord target, int k) {
+        return nearest(profile(target), k, target.isoYear());
+    }
+
+    /**
+     * Finds the records closest to an arbitrary profile
+     *
+     * @param profile the four percentages, in the order of YearlyWaterRecord.METRIC_NAMES
+     * @param k       the number of neighbours wanted; must be positive
+     * @return up to k neighbours, nearest first
+     */
+    public Neighbor[] nearest(double[] profile, int k) {
+        return nearest(profile, k, null);
+    }
+
+    /**
+     * Finds every record within a distance of a record's profile, excluding the record itself
+     *
+     * @param target the record to compare against; must have all four metrics
+     * @param radius the largest distance included, in percentage points; must not be negative
+     * @return the neighbours, nearest first
+     */
+    public Neighbor[] withinRadius(YearlyWaterRecord target, double radius) {
+        return withinRadius(profile(target), radius, target.isoYear());
+    }
+
+    /**
+     * Finds every record within a distance of an arbitrary profile
+     *
+     * @param profile the four percentages, in the order of YearlyWaterRecord.METRIC_NAMES
+     * @param radius  the largest distance included, in percentage points; must not be negative
+     * @return the neighbours, nearest first
+     */
+    public Neighbor[] withinRadius(double[] profile, double radius) {
+        return withinRadius(profile, radius, null);
+    }
+
+    /**
+     * Runs a k-nearest-neighbour search with a bounded max-heap of the best candidates so far
+     *
+     * @param query   the query point
+     * @param k       the number of neighbours wanted
+     * @param exclude key of a record to leave out; null for none
+     * @return the neighbours, nearest first
+     */
+    private Neighbor[] nearest(double[] query, int k, String exclude) {
+        checkProfile(query);
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        Heap heap = new Heap(Math.min(k, records.length));
+        if (heap.capacity > 0) {
+            searchNearest(0, records.length, 0, query, heap, position(exclude));
+        }
+        return heap.drainSorted(records);
+    }
+
+    /**
+     * Collects every record within the radius, pruning subtrees whose splitting plane is farther away
+     *
+     * @param query   the query point
+     * @param radius  the largest distance included
+     * @param exclude key of a record to leave out; null for none
+     * @return the neighbours, nearest first
+     */
+    private Neighbor[] withinRadius(double[] query, double radius, String exclude) {
+        checkProfile(query);
+        if (!(radius >= 0)) {
+            throw new IllegalArgumentException("radius must not be negative: " + radius);
+        }
+        Heap found = new Heap(records.length);
+        searchRadius(0, records.length, 0, query, radius * radius, found, position(exclude));
+        return found.drainSorted(records);
+    }
+
+    /**
+     * Visits the subtree for [lo, hi), descending first toward the query and then into the far side only if the
+     * splitting plane is closer than the worst candidate kept
+     *
+     * @param lo      first position of the subtree
+     * @param hi      one past the last position
+     * @param depth   tree depth of the subtree's root, which picks the splitting metric
+     * @param query   the query point
+     * @param heap    the nearest candidates so far
+     * @param exclude position never offered to the heap; -1 for none
+     */
+    private void searchNearest(int lo, int hi, int depth, double[] query, Heap heap, int exclude) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        if (mid != exclude) {
+            heap.offer(squaredDistance(query, mid), mid);
+        }
+        int dimension = depth % DIMENSIONS;
+        double diff = query[dimension] - points[mid * DIMENSIONS + dimension];
+        if (diff < 0) {
+            searchNearest(lo, mid, depth + 1, query, heap, exclude);
+            if (!heap.isFull() || diff * diff < heap.worst()) {
+                searchNearest(mid + 1, hi, depth + 1, query, heap, exclude);
+            }
+        } else {
+            searchNearest(mid + 1, hi, depth + 1, query, heap, exclude);
+            if (!heap.isFull() || diff * diff < heap.worst()) {
+                searchNearest(lo, mid, depth + 1, query, heap, exclude);
+            }
+        }
+    }
+
+    /**
+     * Visits the subtree for [lo, hi), skipping a side whose splitting plane is beyond the radius
+     *
+     * @param lo            first position of the subtree
+     * @param hi            one past the last position
+     * @param depth         tree depth of the subtree's root, which picks the splitting metric
+     * @param query         the query point
+     * @param radiusSquared the square of the largest distance included
+     * @param found         collects every record within the radius
+     * @param exclude       position never collected; -1 for none
+     */
+    private void searchRadius(int lo, int hi, int depth, double[] query, double radiusSquared, Heap found,
+                              int exclude) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        double distance = squaredDistance(query, mid);
+        if (distance <= radiusSquared && mid != exclude) {
+            found.offer(distance, mid);
+        }
+        int dimension = depth % DIMENSIONS;
+        double diff = query[dimension] - points[mid * DIMENSIONS + dimension];
+        if (diff <= 0 || diff * diff <= radiusSquared) {
+            searchRadius(lo, mid, depth + 1, query, radiusSquared, found, exclude);
+        }
+        if (diff >= 0 || diff * diff <= radiusSquared) {
+            searchRadius(mid + 1, hi, depth + 1, query, radiusSquared, found, exclude);
+        }
+    }
+
+    /**
+     * Arranges [lo, hi) so its midpoint holds the median on this level's metric, then does the same for each half
+     *
+     * @param lo    first position of the range
+     * @param hi    one past the last position
+     * @param depth tree depth of the range's root
+     */
+    private void build(int lo, int hi, int depth) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, depth % DIMENSIONS);
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
+    }
+
+    /**
+     * Quickselect: partially orders [left, right] on one metric so the element at target is in its sorted place
+     *
+     * @param left      first position
+     * @param right     last position, inclusive
+     * @param target    the position to settle
+     * @param dimension the metric to order by
+     */
+    private void select(int left, int right, int target, int dimension) {
+        while (left < right) {
+            double pivot = points[((left + right) >>> 1) * DIMENSIONS + dimension];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (points[i * DIMENSIONS + dimension] < pivot) {
+                    i++;
+                }
+                while (points[j * DIMENSIONS + dimension] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (target <= j) {
+                right = j;
+            } else if (target >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Exchanges two records and their coordinates
+     *
+     * @param a first position
+     * @param b second position
+     */
+    private void swap(int a, int b) {
+        YearlyWaterRecord record = records[a];
+        records[a] = records[b];
+        records[b] = record;
+        for (int d = 0; d < DIMENSIONS; d++) {
+            double value = points[a * DIMENSIONS + d];
+            points[a * DIMENSIONS + d] = points[b * DIMENSIONS + d];
+            points[b * DIMENSIONS + d] = value;
+        }
+    }
+
+    /**
+     * Computes the squared distance from a query point to an indexed record
+     *
+     * @param query    the query point
+     * @param position tree position of the record
+     * @return the squared Euclidean distance
+     */
+    private double squaredDistance(double[] query, int position) {
+        double sum = 0;
+        int base = position * DIMENSIONS;
+        for (int d = 0; d < DIMENSIONS; d++) {
+            double diff = query[d] - points[base + d];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    /**
+     * Finds the tree position of a record
+     *
+     * @param isoYear the record's key; may be null
+     * @return the position; -1 if absent
+     */
+    private int position(String isoYear) {
+        Integer position = isoYear == null ? null : positions.get(isoYear);
+        return position == null ? -1 : position;
+    }
+
+    /**
+     * Retrieves whether a record has a value for every metric
+     *
+     * @param record the record
+     * @return true, if it can be placed in the space
+     */
+    static boolean isComplete(YearlyWaterRecord record) {
+        for (int d = 0; d < DIMENSIONS; d++) {
+            if (!record.isValid(d)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Extracts a record's coordinates
+     *
+     * @param record the record; must have all four metrics
+     * @return the four percentages in metric order
+     */
+    private static double[] profile(YearlyWaterRecord record) {
+        if (record == null || !isComplete(record)) {
+            throw new IllegalArgumentException("target must be a record with all four metrics");
+        }
+        double[] profile = new double[DIMENSIONS];
+        for (int d = 0; d < DIMENSIONS; d++) {
+            profile[d] = record.metric(d);
+        }
+        return profile;
+    }
+
+    /**
+     * Rejects a query point of the wrong shape
+     *
+     * @param profile the query point
+     */
+    private static void checkProfile(double[] profile) {
+        if (profile == null || profile.length != DIMENSIONS) {
+            throw new IllegalArgumentException("profile must hold " + DIMENSIONS + " percentages");
+        }
+    }
+
+    /**
+     * A record found by a similarity query
+     *
+     * @param record   the record
+     * @param distance its distance from the query, in percentage points
+     */
+    public record Neighbor(YearlyWaterRecord record, double distance) {
+    }
+
+    /**
+     * Max-heap of (squared distance, position) pairs holding at most capacity entries
+     */
+    private static final class Heap {
+        /** most entries kept */
+        private final int capacity;
+        /** squared distances, in heap order */
+        private double[] distances;
+        /** tree positions parallel to distances */
+        private int[] positions;
+        /** number of entries */
+        private int size;
+
+        /**
+         * Creates an empty heap
+         *
+         * @param capacity most entries kept
+         */
+        Heap(int capacity) {
+            this.capacity = capacity;
+            int initial = Math.min(capacity, 16);
+            distances = new double[initial];
+            positions = new int[initial];
+        }
+
+        /**
+         * Retrieves whether the heap holds capacity entries
+         *
+         * @return true, if full
+         */
+        boolean isFull() {
+            return size == capacity;
+        }
+
+        /**
+         * Retrieves the largest squared distance kept
+         *
+         * @return the squared distance at the root; only meaningful when not empty
+         */
+        double worst() {
+            return distances[0];
+        }
+
+        /**
+         * Adds a pair, or replaces the farthest one if the heap is full and this one is nearer
+         *
+         * @param distance squared distance
+         * @param position tree position
+         */
+        void offer(double distance, int position) {
+            if (size < capacity) {
+                if (size == distances.length) {
+                    distances = Arrays.copyOf(distances, Math.min(capacity, size * 2));
+                    positions = Arrays.copyOf(positions, distances.length);
+                }
+                int child = size++;
+                while (child > 0 && distances[(child - 1) / 2] < distance) {
+                    int parent = (child - 1) / 2;
+                    distances[child] = distances[parent];
+                    positions[child] = positions[parent];
+                    child = parent;
+                }
+                distances[child] = distance;
+                positions[child] = position;
+            } else if (distance < distances[0]) {
+                siftDown(distance, position, size);
+            }
+        }
+
+        /**
+         * Places a pair at the root and sifts it down within the first count entries
+         *
+         * @param distance squared distance
+         * @param position tree position
+         * @param count    number of entries in the heap
+         */
+        private void siftDown(double distance, int position, int count) {
+            int parent = 0;
+            while (2 * parent + 1 < count) {
+                int child = 2 * parent + 1;
+                if (child + 1 < count && distances[child + 1] > distances[child]) {
+                    child++;
+                }
+                if (distances[child] <= distance) {
+                    break;
+                }
+                distances[parent] = distances[child];
+                positions[parent] = positions[child];
+                parent = child;
+            }
+            distances[parent] = distance;
+            positions[parent] = position;
+        }
+
+        /**
+         * Empties the heap into an array ordered nearest first
+         *
+         * @param records records by tree position
+         * @return the neighbours, with distances in percentage points
+         */
+        Neighbor[] drainSorted(YearlyWaterRecord[] records) {
+            Neighbor[] result = new Neighbor[size];
+            for (int last = size - 1; last >= 0; last--) {
+                result[last] = new Neighbor(records[positions[0]], Math.sqrt(distances[0]));
+                siftDown(distances[last], positions[last], last);
+            }
+            size = 0;
+            return result;
+        }
+    }
+}
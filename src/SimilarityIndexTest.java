@@ -0,0 +1,201 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks SimilarityIndex's k-nearest-neighbour and radius searches, DistanceMatrix, and the per-year record
+ * collection behind SimilaritySearch against brute-force computations
+ */
+class SimilarityIndexTest {
+
+    @Test
+    public void testNearestMatchesBruteForce() {
+        YearlyWaterRecord[] records = randomRecords(new Random(36), 3000);
+        SimilarityIndex index = new SimilarityIndex(records);
+        YearlyWaterRecord[] complete = completeOnly(records);
+        assertEquals(complete.length, index.size());
+        Random random = new Random(37);
+        for (int trial = 0; trial < 200; trial++) {
+            YearlyWaterRecord target = complete[random.nextInt(complete.length)];
+            int k = 1 + random.nextInt(40);
+            double[] expected = bruteForceDistances(complete, profileOf(target), target);
+            SimilarityIndex.Neighbor[] found = index.nearest(target, k);
+            assertEquals(Math.min(k, expected.length), found.length);
+            for (int i = 0; i < found.length; i++) {
+                assertEquals(expected[i], found[i].distance(), 1e-9, target.isoYear() + " neighbour " + i);
+                assertEquals(SimilarityIndex.distance(target, found[i].record()), found[i].distance(), 1e-9);
+                assertNotEquals(target.isoYear(), found[i].record().isoYear());
+            }
+
+            double[] profile = {random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100,
+                    random.nextDouble() * 100};
+            expected = bruteForceDistances(complete, profile, null);
+            found = index.nearest(profile, k);
+            for (int i = 0; i < found.length; i++) {
+                assertEquals(expected[i], found[i].distance(), 1e-9);
+            }
+        }
+        assertEquals(complete.length, index.nearest(new double[]{50, 50, 50, 50}, complete.length + 10).length);
+        assertThrows(IllegalArgumentException.class, () -> index.nearest(new double[]{50, 50, 50, 50}, 0));
+        assertThrows(IllegalArgumentException.class, () -> index.nearest(new double[3], 1));
+    }
+
+    @Test
+    public void testRadiusMatchesBruteForce() {
+        YearlyWaterRecord[] records = randomRecords(new Random(38), 3000);
+        SimilarityIndex index = new SimilarityIndex(records);
+        YearlyWaterRecord[] complete = completeOnly(records);
+        Random random = new Random(39);
+        for (int trial = 0; trial < 200; trial++) {
+            YearlyWaterRecord target = complete[random.nextInt(complete.length)];
+            double radius = random.nextDouble() * 30;
+            double[] all = bruteForceDistances(complete, profileOf(target), target);
+            double[] expected = Arrays.stream(all).filter(distance -> distance <= radius).toArray();
+            SimilarityIndex.Neighbor[] found = index.withinRadius(target, radius);
+            assertEquals(expected.length, found.length, target.isoYear() + " radius " + radius);
+            for (int i = 0; i < found.length; i++) {
+                assertEquals(expected[i], found[i].distance(), 1e-9);
+                assertTrue(found[i].distance() <= radius);
+            }
+        }
+        assertEquals(complete.length, index.withinRadius(new double[]{50, 50, 50, 50}, 200).length);
+        assertThrows(IllegalArgumentException.class, () -> index.withinRadius(complete[0], -1));
+    }
+
+    @Test
+    public void testDistanceMatrixMatchesBruteForce() {
+        YearlyWaterRecord[] records = randomRecords(new Random(40), 500);
+        SimilarityIndex index = new SimilarityIndex(records);
+        DistanceMatrix matrix = new DistanceMatrix(index.records());
+        YearlyWaterRecord[] complete = completeOnly(records);
+        Arrays.sort(complete);
+        assertEquals(complete.length, matrix.size());
+        for (int row = 0; row < complete.length; row++) {
+            assertSame(complete[row], matrix.record(row));
+            assertEquals(row, matrix.rowOf(complete[row].isoYear()));
+            assertEquals(0, matrix.distance(row, row));
+            for (int column = 0; column < complete.length; column++) {
+                assertEquals(SimilarityIndex.distance(complete[row], complete[column]),
+                        matrix.distance(row, column), 1e-9);
+            }
+        }
+        assertEquals(-1, matrix.rowOf("ZZZ2099"));
+        assertThrows(IllegalArgumentException.class, () -> new DistanceMatrix(records));
+    }
+
+    @Test
+    public void testSearchUsesEachYearsRecords() throws FileNotFoundException {
+        SortedArrayList<Integer> years = new SortedArrayList<>();
+        SortedArrayList<YearlyWaterRecord> waterData = Main.loadWaterData(new File("IsoYearWaterData.txt"), years);
+        WaterQueries queries = new WaterQueries(waterData);
+        SimilaritySearch search = new SimilaritySearch(waterData);
+        for (int year : new int[]{years.get(0), 2010, years.get(years.size() - 1), 1999}) {
+            java.util.ArrayList<YearlyWaterRecord> scanned = new java.util.ArrayList<>();
+            for (YearlyWaterRecord record : waterData) {
+                if (Main.yearOf(record.isoYear()) == year) {
+                    scanned.add(record);
+                }
+            }
+            assertArrayEquals(scanned.toArray(new YearlyWaterRecord[0]), queries.yearRecords(year));
+            assertEquals(completeOnly(scanned.toArray(new YearlyWaterRecord[0])).length, search.index(year).size());
+        }
+
+        YearlyWaterRecord target = queries.lookup("KHM2010");
+        YearlyWaterRecord[] sameYear = completeOnly(queries.yearRecords(2010));
+        double[] expected = bruteForceDistances(sameYear, profileOf(target), target);
+        SimilarityIndex.Neighbor[] found = search.nearest("khm2010", 5);
+        for (int i = 0; i < found.length; i++) {
+            assertEquals(expected[i], found[i].distance(), 1e-9);
+            assertEquals(2010, Main.yearOf(found[i].record().isoYear()));
+        }
+        DistanceMatrix matrix = search.distanceMatrix(2010);
+        int row = matrix.rowOf("KHM2010");
+        assertSame(target, matrix.record(row));
+        assertEquals(0, search.nearest("ZZZ2010", 5).length);
+
+        SortedArrayList<YearlyWaterRecord> duplicated = new SortedArrayList<>();
+        for (String key : new String[]{"AB2000", "AB2001", "ABC2000", "ABC2000", "ABCD2001", "B2000"}) {
+            duplicated.add(new YearlyWaterRecord(key, 1.0, 2.0, 3.0, 4.0));
+        }
+        assertEquals(4, new WaterQueries(duplicated).yearRecords(2000).length);
+        assertEquals(2, new WaterQueries(duplicated).yearRecords(2001).length);
+        assertEquals(0, new WaterQueries(new SortedArrayList<>()).yearRecords(2000).length);
+    }
+
+    /**
+     * Creates records with random profiles, about one in ten missing a metric
+     *
+     * @param random the source of values
+     * @param count  the number of records
+     * @return the records
+     */
+    private static YearlyWaterRecord[] randomRecords(Random random, int count) {
+        YearlyWaterRecord[] records = new YearlyWaterRecord[count];
+        for (int i = 0; i < count; i++) {
+            double[] values = new double[YearlyWaterRecord.METRIC_COUNT];
+            for (int metric = 0; metric < values.length; metric++) {
+                // whole numbers give many ties, which the tree must split correctly
+                values[metric] = i % 3 == 0 ? random.nextInt(101) : random.nextDouble() * 100;
+            }
+            if (i % 10 == 0) {
+                values[random.nextInt(values.length)] = -1;
+            }
+            records[i] = new YearlyWaterRecord(String.format("R%05d2000", i), values[0], values[1], values[2],
+                    values[3]);
+        }
+        return records;
+    }
+
+    /**
+     * Keeps the records that have every metric
+     *
+     * @param records the records
+     * @return the complete records, in their original order
+     */
+    private static YearlyWaterRecord[] completeOnly(YearlyWaterRecord[] records) {
+        return Arrays.stream(records).filter(SimilarityIndex::isComplete).toArray(YearlyWaterRecord[]::new);
+    }
+
+    /**
+     * Extracts a record's four metrics
+     *
+     * @param record the record
+     * @return the profile
+     */
+    private static double[] profileOf(YearlyWaterRecord record) {
+        double[] profile = new double[YearlyWaterRecord.METRIC_COUNT];
+        for (int metric = 0; metric < profile.length; metric++) {
+            profile[metric] = record.metric(metric);
+        }
+        return profile;
+    }
+
+    /**
+     * Computes the distance from a profile to every record, by comparing against each one
+     *
+     * @param records the records
+     * @param profile the query point
+     * @param exclude a record to leave out; null for none
+     * @return the distances, ascending
+     */
+    private static double[] bruteForceDistances(YearlyWaterRecord[] records, double[] profile,
+                                                YearlyWaterRecord exclude) {
+        return Arrays.stream(records)
+                .filter(record -> record != exclude)
+                .mapToDouble(record -> {
+                    double sum = 0;
+                    for (int metric = 0; metric < profile.length; metric++) {
+                        double diff = profile[metric] - record.metric(metric);
+                        sum += diff * diff;
+                    }
+                    return Math.sqrt(sum);
+                })
+                .sorted()
+                .toArray();
+    }
+}
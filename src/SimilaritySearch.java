@@ -0,0 +1,108 @@
+/**
+ * Finds the country-years whose water access profile is most like a given one within the same year, e.g. the
+ * countries most like KHM2000 in 2000. The KD-tree and the distance matrix of each year are built on first use
+ * and cached, and both caches are dropped whenever the list's version changes.
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class SimilaritySearch {
+
+    /** years kept in each cache by default */
+    private static final int DEFAULT_CACHED_YEARS = 8;
+
+    /** sorted water records being searched */
+    private final SortedArrayList<YearlyWaterRecord> waterData;
+    /** record lookups */
+    private final WaterQueries queries;
+    /** KD-trees by year */
+    private final QueryCache<Integer, SimilarityIndex> indexes;
+    /** distance matrices by year */
+    private final QueryCache<Integer, DistanceMatrix> matrices;
+
+    /**
+     * Creates a search service caching the default number of years
+     *
+     * @param waterData sorted water records; must not be null
+     */
+    public SimilaritySearch(SortedArrayList<YearlyWaterRecord> waterData) {
+        this(waterData, DEFAULT_CACHED_YEARS);
+    }
+
+    /**
+     * Creates a search service
+     *
+     * @param waterData   sorted water records; must not be null
+     * @param cachedYears number of years whose index and matrix are kept; must be positive
+     */
+    public SimilaritySearch(SortedArrayList<YearlyWaterRecord> waterData, int cachedYears) {
+        if (waterData == null) {
+            throw new IllegalArgumentException("waterData must not be null");
+        }
+        this.waterData = waterData;
+        this.queries = new WaterQueries(waterData);
+        this.indexes = new QueryCache<>(cachedYears);
+        this.matrices = new QueryCache<>(cachedYears);
+    }
+
+    /**
+     * Finds the k country-years of the same year with the most similar profiles
+     *
+     * @param isoYear ISO code followed by year, e.g. "KHM2000"
+     * @param k       the number of neighbours wanted; must be positive
+     * @return up to k neighbours, nearest first; empty if the record is missing or lacks a metric
+     */
+    public SimilarityIndex.Neighbor[] nearest(String isoYear, int k) {
+        YearlyWaterRecord target = queries.lookup(isoYear);
+        if (target == null || !SimilarityIndex.isComplete(target)) {
+            return new SimilarityIndex.Neighbor[0];
+        }
+        return index(Main.yearOf(target.isoYear())).nearest(target, k);
+    }
+
+    /**
+     * Finds every country-year of the same year within a distance of a record's profile
+     *
+     * @param isoYear ISO code followed by year, e.g. "KHM2000"
+     * @param radius  the largest distance included, in percentage points; must not be negative
+     * @return the neighbours, nearest first; empty if the record is missing or lacks a metric
+     */
+    public SimilarityIndex.Neighbor[] withinRadius(String isoYear, double radius) {
+        YearlyWaterRecord target = queries.lookup(isoYear);
+        if (target == null || !SimilarityIndex.isComplete(target)) {
+            return new SimilarityIndex.Neighbor[0];
+        }
+        return index(Main.yearOf(target.isoYear())).withinRadius(target, radius);
+    }
+
+    /**
+     * Retrieves the KD-tree for a year, building it if it is not cached for the current version of the data
+     *
+     * @param year the year
+     * @return the index of that year's records that have all four metrics
+     */
+    public SimilarityIndex index(int year) {
+        return indexes.get(year, waterData.version(), this::buildIndex);
+    }
+
+    /**
+     * Retrieves the all-pairs distance matrix for a year, computing it in parallel if it is not cached for the
+     * current version of the data
+     *
+     * @param year the year
+     * @return the distances between that year's records that have all four metrics
+     */
+    public DistanceMatrix distanceMatrix(int year) {
+        return matrices.get(year, waterData.version(), y -> new DistanceMatrix(index(y).records()));
+    }
+
+    /**
+     * Collects the records of one year, one search per country, and indexes them
+     *
+     * @param year the year
+     * @return the new index
+     */
+    private SimilarityIndex buildIndex(int year) {
+        return new SimilarityIndex(queries.yearRecords(year));
+    }
+}
@@ -1,7 +1,13 @@
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 /**
- * Provides a sorted version of ArrayList using natural ordering with additional methods
+ * Provides a sorted version of ArrayList using natural ordering with additional methods. A list can instead be
+ * ordered by a Comparator, or by a long key extracted from each element: in key mode the keys are cached in an
+ * array parallel to the elements, so searches compare primitives instead of calling into the elements, and two
+ * elements with the same key count as equal. sortedBy and sortedByKey make differently ordered lists over the same
+ * element objects.
  *
  * @author Raingsey Tevy
  * @version 2024-10-13
@@ -10,14 +16,101 @@ import java.util.*;
  */
 public class SortedArrayList<E extends Comparable<E>> implements SortedArrayListInterface<E>, Iterable<E>{
 
+    /** merge runs whose key occurs only in this list */
+    private static final int LEFT_ONLY = 1;
+    /** merge runs whose key occurs in both lists */
+    private static final int BOTH = 2;
+    /** merge runs whose key occurs only in the other list */
+    private static final int RIGHT_ONLY = 4;
+
     /** ArrayList that will become a sorted array list*/
     private final ArrayList<E> elementList;
+    /** order of the list; null for natural order or key mode */
+    private final Comparator<? super E> order;
+    /** extracts the sort key of an element in key mode; null otherwise */
+    private final ToLongFunction<? super E> keyOf;
+    /** in key mode, the key of each element, parallel to elementList; null otherwise */
+    private long[] keys;
+    /** number of modifications made to the list; lets derived results detect that they are stale */
+    private long version;
 
     /**
      * Creates a sorted array list using ArrayList
      */
     public SortedArrayList() {
-        elementList = new ArrayList<>();
+        this(new ArrayList<>(), null, null);
+    }
+
+    /**
+     * Creates a sorted array list ordered by a comparator rather than natural order
+     *
+     * @param order the order of the list, e.g. by year and then isoYear; must not be null
+     */
+    public SortedArrayList(Comparator<? super E> order) {
+        this(new ArrayList<>(), order, null);
+        if (order == null) {
+            throw new IllegalArgumentException("order must not be null");
+        }
+    }
+
+    /**
+     * Creates a sorted array list ordered by a long key of each element, e.g. a year or a packed isoYear; the keys
+     * are cached, and elements with the same key count as equal
+     *
+     * @param key extracts the key; must give the same key for an element every time; must not be null
+     * @param <E> type of element in the list
+     * @return an empty list in key mode
+     */
+    public static <E extends Comparable<E>> SortedArrayList<E> byKey(ToLongFunction<? super E> key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key must not be null");
+        }
+        return new SortedArrayList<E>(new ArrayList<E>(), null, key);
+    }
+
+    /**
+     * Creates a sorted array list over elements that are already in order
+     *
+     * @param elements the backing list; adopted, not copied
+     * @param order    the comparator, or null
+     * @param keyOf    the key extractor for key mode, or null
+     */
+    private SortedArrayList(ArrayList<E> elements, Comparator<? super E> order, ToLongFunction<? super E> keyOf) {
+        elementList = elements;
+        this.order = order;
+        this.keyOf = keyOf;
+        if (keyOf != null) {
+            keys = new long[Math.max(elements.size(), ArrayList.DEFAULT_CAPACITY)];
+            for (int i = 0; i < elements.size(); i++) {
+                keys[i] = keyOf.applyAsLong(elements.get(i));
+            }
+        }
+    }
+
+    /**
+     * Retrieves the order of the list
+     *
+     * @return the comparator the elements are sorted by; in key mode, one that compares keys
+     */
+    public Comparator<? super E> comparator() {
+        if (keyOf != null) {
+            return Comparator.comparingLong(keyOf);
+        }
+        return order != null ? order : Comparator.naturalOrder();
+    }
+
+    /**
+     * Compares two elements in the order of the list
+     *
+     * @param first  an element
+     * @param second another element
+     * @return negative, zero or positive as first sorts before, with or after second
+     */
+    private int compare(E first, E second) {
+        if (keyOf != null) {
+            return Long.compare(keyOf.applyAsLong(first), keyOf.applyAsLong(second));
+        }
+        return order == null ? first.compareTo(second) : order.compare(first, second);
     }
 
     /**
@@ -46,6 +139,16 @@ public class SortedArrayList<E extends Comparable<E>> implements SortedArrayList
     @Override
     public void clear() {
         elementList.clear();
+        version++;
+    }
+
+    /**
+     * Retrieves the modification count of the list; it changes whenever elements are added or removed
+     *
+     * @return the current version
+     */
+    public long version() {
+        return version;
     }
 
     /**
@@ -76,14 +179,27 @@ public class SortedArrayList<E extends Comparable<E>> implements SortedArrayList
         if (value == null) {
             throw new IllegalArgumentException("value cannot be null");
         }
+        return search(value);
+    }
+
+    /**
+     * Binary search behind indexOf and add
+     *
+     * @param value the value to search for; must not be null
+     * @return the index of the first occurrence, or -(position+1) if not found
+     */
+    private int search(E value) {
+        if (keyOf != null) {
+            return searchKeys(keyOf.applyAsLong(value));
+        }
         int min = 0;
         int max = elementList.size() - 1;
         int mid;
         while (min <= max) {
             mid = (max + min) / 2;
-            int compare = elementList.get(mid).compareTo(value);
+            int compare = compare(elementList.get(mid), value);
             if (compare == 0) {
-                while (mid > 0 && elementList.get(mid - 1).compareTo(value) == 0) {
+                while (mid > 0 && compare(elementList.get(mid - 1), value) == 0) {
                     mid--;
                 }
                 return mid;     // found it!
@@ -98,6 +214,28 @@ public class SortedArrayList<E extends Comparable<E>> implements SortedArrayList
         return - min - 1;   // not found
     }
 
+    /**
+     * Binary search over the cached keys in key mode; it narrows to the first key not less than the one sought, so
+     * duplicates need no walk back
+     *
+     * @param key the key to search for
+     * @return the index of the first element with that key, or -(position+1) if there is none
+     */
+    private int searchKeys(long key) {
+        long[] keys = this.keys;
+        int min = 0;
+        int max = elementList.size() - 1;
+        while (min <= max) {
+            int mid = (min + max) >>> 1;
+            if (keys[mid] < key) {
+                min = mid + 1;
+            } else {
+                max = mid - 1;
+            }
+        }
+        return min < elementList.size() && keys[min] == key ? min : -min - 1;
+    }
+
     /**
      * Retrieves the element at the specified position in the list
      *
@@ -123,25 +261,25 @@ public class SortedArrayList<E extends Comparable<E>> implements SortedArrayList
             throw new IllegalArgumentException("value cannot be null");
         }
         //makes the arraylist specifically to store objects of equal/the same value
-        SortedArrayList<E> equal = new SortedArrayList<>();
+        ArrayList<E> equal = new ArrayList<>();
 
-        //loops over every element in elementList
-        for (int i = 0; i < elementList.size(); i++) {
+        //equal elements are adjacent, starting from the first occurrence
+        for (int i = Math.max(search(value), 0); i < elementList.size(); i++) {
 
-            //checks if they're the same using compare to
-            if (elementList.get(i).compareTo(value) == 0) {
-
-                //add them to the sorted arrayList if they are
-                equal.add(elementList.get(i));
+            //stops at the first element that is not the same in the list's order
+            if (compare(elementList.get(i), value) != 0) {
+                break;
             }
+            equal.add(elementList.get(i));
         }
 
-        //returns the sorted arrayList as an array
+        //returns the arrayList as an array
         return equal.toArray(template);
     }
 
     /**
-     * Adds a new element to the list, maintaining sorting via natural order (via compareTo)
+     * Adds a new element to the list, maintaining sorting via natural order (via compareTo), or the list's
+     * comparator or key
      *
      * @param value the value to add to the list
      */
@@ -151,17 +289,19 @@ public class SortedArrayList<E extends Comparable<E>> implements SortedArrayList
             throw new IllegalArgumentException("value cannot be null");
         }
         //find where to put it
-        int findIndex = indexOf(value);
+        int findIndex = search(value);
 
         //if it finds the same value, add it there
-        if (findIndex < 0) {
-            int insert = -(findIndex + 1);
-            elementList.add(insert, value);
-        } else { //takes into account duplicates
-            elementList.add(findIndex, value);
+        int insert = findIndex < 0 ? -(findIndex + 1) : findIndex;  //takes into account duplicates
+        elementList.add(insert, value);
+        if (keyOf != null) {
+            if (keys.length < elementList.size()) {
+                keys = Arrays.copyOf(keys, keys.length * 2);
+            }
+            System.arraycopy(keys, insert, keys, insert + 1, elementList.size() - 1 - insert);
+            keys[insert] = keyOf.applyAsLong(value);
         }
-
-
+        version++;
     }
 
     /**
@@ -172,16 +312,79 @@ public class SortedArrayList<E extends Comparable<E>> implements SortedArrayList
     @Override
     public void remove(int index) {
         elementList.remove(index);
+        if (keyOf != null) {
+            System.arraycopy(keys, index + 1, keys, index, elementList.size() - index);
+        }
+        version++;
     }
 
     /**
      * Retrieves an iterator over list elements; for/each loop are also supported
      *
-     * @return a strongly typed iterator over list elements
+     * @return a strongly typed iterator over list elements; its remove goes through remove(int), so cached keys
+     * and the version stay in step
      */
     @Override
     public Iterator<E> iterator() {
-        return elementList.iterator();
+        return new Iterator<>() {
+            private int position = 0;
+            private boolean removeOK = false;
+
+            @Override
+            public boolean hasNext() {
+                return position < elementList.size();
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                removeOK = true;
+                return elementList.get(position++);
+            }
+
+            @Override
+            public void remove() {
+                if (!removeOK) {
+                    throw new IllegalStateException();
+                }
+                SortedArrayList.this.remove(--position);
+                removeOK = false;
+            }
+        };
+    }
+
+    /**
+     * Creates a list of the same element objects in another order; the lists share the elements but not their
+     * order, so later adds and removes on one are not seen by the other
+     *
+     * @param order the order of the new list; must not be null
+     * @return the new list
+     */
+    public SortedArrayList<E> sortedBy(Comparator<? super E> order) {
+        if (order == null) {
+            throw new IllegalArgumentException("order must not be null");
+        }
+        E[] elements = trimmedElements();
+        Arrays.sort(elements, order);
+        return new SortedArrayList<>(new ArrayList<>(elements, elements.length), order, null);
+    }
+
+    /**
+     * Creates a list of the same element objects in key mode, ordered by a long key of each element; the lists
+     * share the elements but not their order
+     *
+     * @param key extracts the key; must not be null
+     * @return the new list, with its keys already cached
+     */
+    public SortedArrayList<E> sortedByKey(ToLongFunction<? super E> key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key must not be null");
+        }
+        E[] elements = trimmedElements();
+        Arrays.sort(elements, Comparator.comparingLong(key));
+        return new SortedArrayList<>(new ArrayList<>(elements, elements.length), null, key);
     }
 
     /**
@@ -199,6 +402,251 @@ public class SortedArrayList<E extends Comparable<E>> implements SortedArrayList
         return elementList.toArray(template);
     }
 
+    /**
+     * Takes an immutable snapshot of the list for read-mostly use; later changes to this list do not affect it. A
+     * list in key mode, or in natural order with every element a PackedKey, is searched by packed key; any other
+     * list by element
+     *
+     * @return a trimmed, read-only copy laid out for fast searching
+     */
+    public FrozenSortedArrayList<E> freeze() {
+        if (keyOf != null) {
+            // the snapshot compares packed keys as unsigned; flipping the sign bit keeps signed key order
+            ToLongFunction<? super E> keyOf = this.keyOf;
+            return new FrozenSortedArrayList<>(trimmedElements(), comparator(),
+                    value -> keyOf.applyAsLong(value) ^ Long.MIN_VALUE);
+        }
+        E[] elements = trimmedElements();
+        boolean packed = order == null && elements.length > 0;
+        for (int i = 0; packed && i < elements.length; i++) {
+            packed = elements[i] instanceof PackedKey;
+        }
+        return new FrozenSortedArrayList<>(elements, order, packed ? value -> ((PackedKey) value).packedKey() : null);
+    }
+
+    /**
+     * Takes an immutable snapshot of the list that searches packed keys rather than elements, which avoids
+     * reaching into every element visited when comparing is expensive, as it is for Strings
+     *
+     * @param packedKey packs an element into a long key that, compared as unsigned, never decreases along the list,
+     *                  e.g. record -> YearlyWaterRecord.packKey(record.isoYear()); elements may share a key, but
+     *                  long runs of them make searches slower; must not be null
+     * @return a trimmed, read-only copy laid out for fast searching
+     */
+    public FrozenSortedArrayList<E> freeze(ToLongFunction<? super E> packedKey) {
+        if (packedKey == null) {
+            throw new IllegalArgumentException("packedKey must not be null");
+        }
+        return new FrozenSortedArrayList<>(trimmedElements(), keyOf != null ? comparator() : order, packedKey);
+    }
+
+    /**
+     * Copies the elements into an array of exactly the list's size
+     *
+     * @return the elements in order
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private E[] trimmedElements() {
+        E[] elements = (E[]) new Comparable[elementList.size()];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = elementList.get(i);
+        }
+        return elements;
+    }
+
+    /**
+     * Retrieves the elements of this list and of the other list, in one merge pass; an element of the other list is
+     * left out when an equal element is in this list, so two lists without duplicates give their set union
+     *
+     * @param other a list sorted in the same order as this list; must not be null
+     * @return a new list in the order of this list
+     */
+    public SortedArrayList<E> union(SortedArrayListInterface<E> other) {
+        return merge(other, value -> value, this::compare, LEFT_ONLY | BOTH | RIGHT_ONLY);
+    }
+
+    /**
+     * Retrieves the elements of this list and of the other list, leaving out elements of the other list whose key
+     * occurs in this list
+     *
+     * @param other a list sorted in the same order as this list; must not be null
+     * @param key   extracts the key to match on, e.g. the ISO code of a record; keys must not decrease along either
+     *              list; must not be null
+     * @param <K>   type of key
+     * @return a new list in the order of this list
+     */
+    public <K extends Comparable<? super K>> SortedArrayList<E> union(SortedArrayListInterface<E> other,
+                                                                      Function<? super E, ? extends K> key) {
+        return merge(other, key, Comparator.naturalOrder(), LEFT_ONLY | BOTH | RIGHT_ONLY);
+    }
+
+    /**
+     * Retrieves the elements of this list that are also in the other list, in one merge pass
+     *
+     * @param other a list sorted in the same order as this list; must not be null
+     * @return a new list in the order of this list
+     */
+    public SortedArrayList<E> intersection(SortedArrayListInterface<E> other) {
+        return merge(other, value -> value, this::compare, BOTH);
+    }
+
+    /**
+     * Retrieves the elements of this list whose key occurs in the other list, e.g. the 2000 records of countries
+     * that also have a 2020 record when matching on ISO code
+     *
+     * @param other a list sorted in the same order as this list; must not be null
+     * @param key   extracts the key to match on; keys must not decrease along either list; must not be null
+     * @param <K>   type of key
+     * @return a new list in the order of this list
+     */
+    public <K extends Comparable<? super K>> SortedArrayList<E> intersection(SortedArrayListInterface<E> other,
+                                                                             Function<? super E, ? extends K> key) {
+        return merge(other, key, Comparator.naturalOrder(), BOTH);
+    }
+
+    /**
+     * Retrieves the elements of this list that are not in the other list, in one merge pass
+     *
+     * @param other a list sorted in the same order as this list; must not be null
+     * @return a new list in the order of this list
+     */
+    public SortedArrayList<E> difference(SortedArrayListInterface<E> other) {
+        return merge(other, value -> value, this::compare, LEFT_ONLY);
+    }
+
+    /**
+     * Retrieves the elements of this list whose key does not occur in the other list
+     *
+     * @param other a list sorted in the same order as this list; must not be null
+     * @param key   extracts the key to match on; keys must not decrease along either list; must not be null
+     * @param <K>   type of key
+     * @return a new list in the order of this list
+     */
+    public <K extends Comparable<? super K>> SortedArrayList<E> difference(SortedArrayListInterface<E> other,
+                                                                           Function<? super E, ? extends K> key) {
+        return merge(other, key, Comparator.naturalOrder(), LEFT_ONLY);
+    }
+
+    /**
+     * Retrieves the elements that are in exactly one of this list and the other list, in one merge pass
+     *
+     * @param other a list sorted in the same order as this list; must not be null
+     * @return a new list in the order of this list
+     */
+    public SortedArrayList<E> symmetricDifference(SortedArrayListInterface<E> other) {
+        return merge(other, value -> value, this::compare, LEFT_ONLY | RIGHT_ONLY);
+    }
+
+    /**
+     * Retrieves the elements of either list whose key does not occur in the other list
+     *
+     * @param other a list sorted in the same order as this list; must not be null
+     * @param key   extracts the key to match on; keys must not decrease along either list; must not be null
+     * @param <K>   type of key
+     * @return a new list in the order of this list
+     */
+    public <K extends Comparable<? super K>> SortedArrayList<E> symmetricDifference(
+            SortedArrayListInterface<E> other, Function<? super E, ? extends K> key) {
+        return merge(other, key, Comparator.naturalOrder(), LEFT_ONLY | RIGHT_ONLY);
+    }
+
+    /**
+     * Retrieves a new list holding the elements of this list and the values, by sorting the values and merging them
+     * in one pass, so adding many values costs a sort rather than an insert, and an array shift, for each; equal
+     * elements end up in the order that adding each value in turn would give. This list is not changed
+     *
+     * @param values the values to add, in any order; must not be null or contain null
+     * @return a new list in the order of this list
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public SortedArrayList<E> mergeAll(Collection<? extends E> values) {
+        if (values == null) {
+            throw new IllegalArgumentException("values must not be null");
+        }
+        E[] added = (E[]) new Comparable[values.size()];
+        int next = added.length;
+        for (E value : values) {
+            if (value == null) {
+                throw new IllegalArgumentException("values must not contain null");
+            }
+            added[--next] = value;      // reversed, so the stable sort puts later equal values first, as add does
+        }
+        Arrays.sort(added, this::compare);
+
+        E[] merged = (E[]) new Comparable[size() + added.length];
+        int count = 0;
+        int index = 0;
+        for (E value : added) {
+            while (index < size() && compare(elementList.get(index), value) < 0) {
+                merged[count++] = elementList.get(index++);
+            }
+            merged[count++] = value;    // before this list's equal elements, as add puts it
+        }
+        while (index < size()) {
+            merged[count++] = elementList.get(index++);
+        }
+        return new SortedArrayList<>(new ArrayList<>(merged, count), order, keyOf);
+    }
+
+    /**
+     * Walks both lists once, a run of equal keys at a time, copying the runs that the operation keeps straight into
+     * an array sized for the worst case; the array is trimmed once at the end if the result came out smaller
+     *
+     * @param other    the right-hand list
+     * @param key      extracts the key to match on
+     * @param keyOrder order of the keys
+     * @param keep     which runs to copy: LEFT_ONLY, BOTH and RIGHT_ONLY combined; BOTH copies this list's run
+     * @param <K>      type of key
+     * @return a new list backed by the merged array, ordered like this list
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private <K> SortedArrayList<E> merge(SortedArrayListInterface<E> other, Function<? super E, ? extends K> key,
+                                         Comparator<? super K> keyOrder, int keep) {
+        if (other == null || key == null) {
+            throw new IllegalArgumentException("other and key must not be null");
+        }
+        int capacity = (keep & RIGHT_ONLY) != 0 ? size() + other.size() : size();
+        E[] merged = (E[]) new Comparable[capacity];
+        int count = 0;
+        Iterator<E> left = iterator();
+        Iterator<E> right = other.iterator();
+        E leftValue = left.hasNext() ? left.next() : null;
+        E rightValue = right.hasNext() ? right.next() : null;
+        K leftKey = leftValue != null ? key.apply(leftValue) : null;
+        K rightKey = rightValue != null ? key.apply(rightValue) : null;
+        while (leftValue != null || rightValue != null) {
+            int compare = leftValue == null ? 1 : rightValue == null ? -1 : keyOrder.compare(leftKey, rightKey);
+            if (compare <= 0) {
+                // copy or skip this list's run of the current key
+                K run = leftKey;
+                boolean copy = (keep & (compare == 0 ? BOTH : LEFT_ONLY)) != 0;
+                do {
+                    if (copy) {
+                        merged[count++] = leftValue;
+                    }
+                    leftValue = left.hasNext() ? left.next() : null;
+                    leftKey = leftValue != null ? key.apply(leftValue) : null;
+                } while (leftValue != null && keyOrder.compare(leftKey, run) == 0);
+            }
+            if (compare >= 0) {
+                // copy or skip the other list's run; a matched run is never copied, BOTH keeps this list's
+                K run = rightKey;
+                boolean copy = compare > 0 && (keep & RIGHT_ONLY) != 0;
+                do {
+                    if (copy) {
+                        merged[count++] = rightValue;
+                    }
+                    rightValue = right.hasNext() ? right.next() : null;
+                    rightKey = rightValue != null ? key.apply(rightValue) : null;
+                } while (rightValue != null && keyOrder.compare(rightKey, run) == 0);
+            }
+        }
+        if (count < merged.length) {
+            merged = Arrays.copyOf(merged, count);
+        }
+        return new SortedArrayList<>(new ArrayList<>(merged, count), order, keyOf);
+    }
+
     /**
      * Retrieves a  text representation of the elements in the list
      * @return      text representing of list elements
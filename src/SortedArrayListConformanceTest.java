@@ -0,0 +1,10 @@
+/**
+ * Runs the shared conformance suite against SortedArrayList
+ */
+class SortedArrayListConformanceTest extends SortedListConformanceTest {
+
+    @Override
+    protected SortedArrayListInterface<String> createList() {
+        return new SortedArrayList<>();
+    }
+}
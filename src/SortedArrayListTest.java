@@ -1,7 +1,10 @@
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -156,4 +159,139 @@ class SortedArrayListTest {
         assertThrows(IllegalArgumentException.class, () -> testArrayList.add(null));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testSetOperations() {
+        SortedArrayList<String> other = new SortedArrayList<>();
+        other.add("3"); other.add("4"); other.add("5"); other.add("6");
+
+        assertEquals("[1, 2, 3, 4, 5, 6]", testArrayList.union(other).toString());
+        assertEquals("[3, 4]", testArrayList.intersection(other).toString());
+        assertEquals("[1, 2]", testArrayList.difference(other).toString());
+        assertEquals("[5, 6]", other.difference(testArrayList).toString());
+        assertEquals("[1, 2, 5, 6]", testArrayList.symmetricDifference(other).toString());
+
+        //results are right-sized
+        assertEquals(2, testArrayList.intersection(other).toArray(new String[0]).length);
+
+        //empty lists
+        SortedArrayList<String> empty = new SortedArrayList<>();
+        assertEquals("[1, 2, 3, 4]", testArrayList.union(empty).toString());
+        assertEquals("[1, 2, 3, 4]", empty.union(testArrayList).toString());
+        assertTrue(testArrayList.intersection(empty).isEmpty());
+        assertTrue(empty.difference(testArrayList).isEmpty());
+
+        assertThrows(IllegalArgumentException.class, () -> testArrayList.union(null));
+    }
+
+    @Test
+    public void testSetOperationsByKey() {
+        SortedArrayList<String> first = new SortedArrayList<>();
+        first.add("AFG2000"); first.add("AFG2001"); first.add("ALB2000"); first.add("KHM2000");
+        SortedArrayList<String> second = new SortedArrayList<>();
+        second.add("AFG2020"); second.add("KHM2020"); second.add("LAO2020");
+
+        assertEquals("[AFG2000, AFG2001, KHM2000]",
+                first.intersection(second, isoYear -> isoYear.substring(0, 3)).toString());
+        assertEquals("[ALB2000]", first.difference(second, isoYear -> isoYear.substring(0, 3)).toString());
+        assertEquals("[AFG2000, AFG2001, ALB2000, KHM2000, LAO2020]",
+                first.union(second, isoYear -> isoYear.substring(0, 3)).toString());
+        assertEquals("[ALB2000, LAO2020]",
+                first.symmetricDifference(second, isoYear -> isoYear.substring(0, 3)).toString());
+
+        //other implementations can be merged with
+        SortedArrayListInterface<String> tree = new BPlusTreeSortedList<>();
+        tree.add("AFG2000"); tree.add("LAO2020");
+        assertEquals("[AFG2000]", first.intersection(tree).toString());
+    }
+
+    @Test
+    public void testComparatorOrder() {
+        SortedArrayList<String> byYear = new SortedArrayList<>(
+                Comparator.comparing((String isoYear) -> isoYear.substring(3)).thenComparing(isoYear -> isoYear));
+        byYear.add("KHM2001"); byYear.add("AFG2001"); byYear.add("LAO2000"); byYear.add("AFG2000");
+
+        assertEquals("[AFG2000, LAO2000, AFG2001, KHM2001]", byYear.toString());
+        assertEquals(2, byYear.indexOf("AFG2001"));
+        assertEquals(-2, byYear.indexOf("ALB2000"));
+        assertEquals("[AFG2000, LAO2000]", byYear.intersection(testYears()).toString());
+    }
+
+    @Test
+    public void testKeyMode() {
+        SortedArrayList<String> byYear = SortedArrayList.byKey(isoYear -> Main.yearOf(isoYear));
+        byYear.add("KHM2001"); byYear.add("AFG2000"); byYear.add("LAO2002"); byYear.add("ALB2001");
+
+        //elements with the same key count as equal
+        assertEquals(1, byYear.indexOf("XXX2001"));
+        assertEquals(3, byYear.indexOf("XXX2002"));
+        assertEquals(-5, byYear.indexOf("XXX2003"));
+        assertTrue(byYear.contains("ZZZ2000"));
+        assertFalse(byYear.contains("ZZZ1999"));
+        String[] sameYear = byYear.get("XXX2001", new String[0]);
+        assertEquals("ALB2001", sameYear[0]);
+        assertEquals("KHM2001", sameYear[1]);
+
+        //removes keep the cached keys in step
+        Iterator<String> iterator = byYear.iterator();
+        iterator.next();
+        iterator.next();
+        iterator.remove();
+        assertEquals("[AFG2000, KHM2001, LAO2002]", byYear.toString());
+        assertEquals(2, byYear.indexOf("XXX2002"));
+        assertEquals(-4, byYear.indexOf("XXX2003"));
+        assertEquals(0, byYear.freeze().indexOf("XXX2000"));
+        assertEquals(-1, byYear.freeze().indexOf("XXX1999"));
+
+        assertThrows(IllegalArgumentException.class, () -> SortedArrayList.<String>byKey(null));
+    }
+
+    @Test
+    public void testSortedViewsShareElements() {
+        SortedArrayList<String> byKey = testYears().sortedByKey(isoYear -> -Main.yearOf(isoYear));
+        SortedArrayList<String> byName = byKey.sortedBy(Comparator.reverseOrder());
+
+        assertEquals("[AFG2000, LAO2000, KHM1999]", byKey.toString());
+        assertEquals("[LAO2000, KHM1999, AFG2000]", byName.toString());
+        assertSame(byKey.get(0), byName.get(2));
+
+        //the lists are independent afterwards
+        byName.add("ZZZ2010");
+        assertEquals(3, byKey.size());
+        assertEquals("ZZZ2010", byName.get(0));
+    }
+
+    @Test
+    public void testMergeAllMatchesAddingInTurn() {
+        Random random = new Random(29);
+        for (int round = 0; round < 50; round++) {
+            SortedArrayList<String> added = SortedArrayList.byKey(isoYear -> Main.yearOf(isoYear));
+            for (int i = random.nextInt(30); i > 0; i--) {
+                added.add("C" + i + (2000 + random.nextInt(10)));
+            }
+            SortedArrayList<String> before = added.sortedByKey(isoYear -> Main.yearOf(isoYear));
+            List<String> values = new java.util.ArrayList<>();
+            for (int i = random.nextInt(30); i > 0; i--) {
+                // equal by key but distinct objects, so the order of equal elements shows
+                values.add("V" + i + (2000 + random.nextInt(10)));
+            }
+            for (String value : values) {
+                added.add(value);
+            }
+
+            SortedArrayList<String> merged = before.mergeAll(values);
+            assertEquals(added.toString(), merged.toString());
+            assertEquals(added.size(), merged.size());
+            assertEquals(added.indexOf("X2005"), merged.indexOf("X2005"));
+        }
+        assertEquals("[]", new SortedArrayList<String>().mergeAll(List.of()).toString());
+        assertThrows(IllegalArgumentException.class, () -> new SortedArrayList<String>().mergeAll(null));
+    }
+
+    private static SortedArrayList<String> testYears() {
+        SortedArrayList<String> years = new SortedArrayList<>(
+                Comparator.comparing((String isoYear) -> isoYear.substring(3)).thenComparing(isoYear -> isoYear));
+        years.add("LAO2000"); years.add("AFG2000"); years.add("KHM1999");
+        return years;
+    }
+
+}
@@ -0,0 +1,90 @@
+import java.util.Iterator;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Head-to-head timing of SortedArrayList and BPlusTreeSortedList: random inserts, positional gets, value lookups,
+ * a full in-order iteration, and random removes. Usage: java SortedListBenchmark [size...]
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class SortedListBenchmark {
+
+    public static void main(String[] args) {
+        int[] sizes = {10_000, 100_000, 300_000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        System.out.println("implementation          size   insertMs  getIdxMs  indexOfMs  iterateMs  removeMs");
+        for (int size : sizes) {
+            // warm up both implementations before measuring
+            run("SortedArrayList", SortedArrayList::new, Math.min(size, 20_000), false);
+            run("BPlusTreeSortedList", BPlusTreeSortedList::new, Math.min(size, 20_000), false);
+            run("SortedArrayList", SortedArrayList::new, size, true);
+            run("BPlusTreeSortedList", BPlusTreeSortedList::new, size, true);
+        }
+    }
+
+    /**
+     * Runs every operation once against a fresh list
+     *
+     * @param name    implementation name for the report
+     * @param factory creates an empty list
+     * @param size    number of elements to insert
+     * @param report  whether to print the timings
+     */
+    private static void run(String name, Supplier<SortedArrayListInterface<Integer>> factory, int size,
+                            boolean report) {
+        Random random = new Random(size);
+        Integer[] values = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = random.nextInt();
+        }
+        SortedArrayListInterface<Integer> list = factory.get();
+
+        long start = System.nanoTime();
+        for (Integer value : values) {
+            list.add(value);
+        }
+        long insert = System.nanoTime() - start;
+
+        long checksum = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            checksum += list.get(random.nextInt(size));
+        }
+        long get = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            checksum += list.indexOf(values[random.nextInt(size)]);
+        }
+        long indexOf = System.nanoTime() - start;
+
+        // a single pass is too short to time reliably, so keep the best of several
+        long iterate = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            start = System.nanoTime();
+            Iterator<Integer> iterator = list.iterator();
+            while (iterator.hasNext()) {
+                checksum += iterator.next();
+            }
+            iterate = Math.min(iterate, System.nanoTime() - start);
+        }
+
+        start = System.nanoTime();
+        while (!list.isEmpty()) {
+            list.remove(random.nextInt(list.size()));
+        }
+        long remove = System.nanoTime() - start;
+
+        if (report) {
+            System.out.printf("%-20s %8d %10.1f %9.1f %10.1f %10.1f %9.1f   (checksum %d)%n", name, size,
+                    insert / 1e6, get / 1e6, indexOf / 1e6, iterate / 1e6, remove / 1e6, checksum);
+        }
+    }
+}
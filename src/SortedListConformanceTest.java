@@ -0,0 +1,220 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Behaviour every SortedArrayListInterface implementation must share; derived from SortedArrayListTest, with
+ * subclasses supplying the implementation under test
+ */
+abstract class SortedListConformanceTest {
+
+    private SortedArrayListInterface<String> testList;
+
+    /**
+     * Creates an empty list of the implementation under test
+     *
+     * @return a new, empty list
+     */
+    protected abstract SortedArrayListInterface<String> createList();
+
+    @BeforeEach
+    void setup() {
+        testList = createList();
+        testList.add("1"); testList.add("2"); testList.add("3"); testList.add("4");
+    }
+
+    @Test
+    public void testSize() {
+        assertEquals(4, testList.size());
+    }
+
+    @Test
+    public void testClearAndIsEmpty() {
+        assertFalse(testList.isEmpty());
+
+        testList.clear();
+        assertTrue(testList.isEmpty());
+        assertEquals(0, testList.size());
+    }
+
+    @Test
+    public void testContains() {
+        assertTrue(testList.contains("3"));
+        assertFalse(testList.contains("10"));
+        assertThrows(IllegalArgumentException.class, () -> testList.contains(null));
+    }
+
+    @Test
+    public void testIndexOf() {
+        SortedArrayListInterface<String> list = createList();
+        list.add("ABW2000"); list.add("AIA2000"); list.add("AFG2000"); list.add("AGO2000");
+
+        //testing if it returns the correct index
+        assertEquals(2, list.indexOf("AGO2000"));
+        assertEquals(1, list.indexOf("AFG2000"));
+        assertEquals(0, list.indexOf("ABW2000"));
+        assertEquals(3, list.indexOf("AIA2000"));
+
+        //testing the location of where an object would go
+        assertEquals(-1, list.indexOf("ABC2000"));
+        assertEquals(-2, list.indexOf("ACD2000"));
+        assertEquals(-5, list.indexOf("AZX2000"));
+
+        //testing empty list
+        SortedArrayListInterface<String> empty = createList();
+        assertEquals(-1, empty.indexOf("0"));
+
+        //testing case-sensitive
+        empty.add("A");
+        empty.add("a");
+        assertEquals(0, empty.indexOf("A"));
+
+        assertThrows(IllegalArgumentException.class, () -> list.indexOf(null));
+    }
+
+    @Test
+    public void testIndexOfDuplicates() {
+        SortedArrayListInterface<String> list = createList();
+        list.add("ABB");
+        list.add("ABC");
+        list.add("ABC");
+        list.add("ABC");
+        list.add("ABC");
+        assertEquals(1, list.indexOf("ABC"));
+    }
+
+    @Test
+    public void testGet() {
+        assertEquals("1", testList.get(0));
+        assertEquals("4", testList.get(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> testList.get(4));
+        assertThrows(IndexOutOfBoundsException.class, () -> testList.get(-1));
+    }
+
+    @Test
+    public void testGetWithValueTemplate() {
+        SortedArrayListInterface<String> list = createList();
+        list.add("2"); list.add("3"); list.add("3"); list.add("3"); list.add("4");
+
+        String[] stringArray = list.get("3", new String[0]);
+
+        // implementations may return spare capacity, but only the matches are filled in
+        int matches = 0;
+        for (String s : stringArray) {
+            if (s != null) {
+                assertEquals("3", s);
+                matches++;
+            }
+        }
+        assertEquals(3, matches);
+
+        assertThrows(IllegalArgumentException.class, () -> list.get(null, new String[0]));
+        assertThrows(IllegalArgumentException.class, () -> list.get("3", null));
+    }
+
+    @Test
+    public void testRemove() {
+        testList.remove(2);
+        assertEquals(3, testList.size());
+        assertEquals("4", testList.get(2));
+        assertFalse(testList.contains("3"));
+    }
+
+    @Test
+    public void testIterator() {
+        SortedArrayListInterface<String> copy = createList();
+        Iterator<String> iterator = testList.iterator();
+        while (iterator.hasNext()) {
+            copy.add(iterator.next());
+        }
+        assertEquals(4, copy.size());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        Iterator<String> iterator = testList.iterator();
+        iterator.next();
+        iterator.next();
+        iterator.remove();
+        assertEquals("3", iterator.next());
+        assertEquals("[1, 3, 4]", testList.toString());
+    }
+
+    @Test
+    public void testToArray() {
+        String[] testArray = testList.toArray(new String[0]);
+        assertEquals("1", testArray[0]);
+        assertEquals("2", testArray[1]);
+        assertEquals("3", testArray[2]);
+        assertEquals("4", testArray[3]);
+
+        assertThrows(IllegalArgumentException.class, () -> testList.toArray(null));
+    }
+
+    @Test
+    public void testToString() {
+        assertEquals("[1, 2, 3, 4]", testList.toString());
+        assertEquals("[]", createList().toString());
+    }
+
+    @Test
+    public void testAddDuplicates() {
+        SortedArrayListInterface<String> list = createList();
+        list.add("1");
+        list.add("1");
+        list.add("1");
+
+        assertEquals(3, list.size());
+        assertEquals("1", list.get(0));
+        assertEquals("1", list.get(1));
+        assertEquals("1", list.get(2));
+
+        assertThrows(IllegalArgumentException.class, () -> testList.add(null));
+    }
+
+    @Test
+    public void testRandomOperationsMatchModel() {
+        SortedArrayListInterface<String> list = createList();
+        List<String> model = new java.util.ArrayList<>();
+        Random random = new Random(34);
+        for (int op = 0; op < 20_000; op++) {
+            if (random.nextInt(10) < 6 || model.isEmpty()) {
+                String value = String.format("%04d", random.nextInt(3_000));
+                int position = Collections.binarySearch(model, value);
+                if (position < 0) {
+                    position = -position - 1;
+                }
+                model.add(position, value);
+                list.add(value);
+            } else {
+                int index = random.nextInt(model.size());
+                model.remove(index);
+                list.remove(index);
+            }
+        }
+
+        assertEquals(model.size(), list.size());
+        for (int i = 0; i < model.size(); i++) {
+            assertEquals(model.get(i), list.get(i));
+        }
+        int i = 0;
+        Iterator<String> iterator = list.iterator();
+        while (iterator.hasNext()) {
+            assertEquals(model.get(i++), iterator.next());
+        }
+        for (int probe = 0; probe < 3_000; probe += 7) {
+            String value = String.format("%04d", probe);
+            int first = model.indexOf(value);
+            int expected = first >= 0 ? first : -(-Collections.binarySearch(model, value) - 1) - 1;
+            assertEquals(expected, list.indexOf(value), value);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+import java.util.Arrays;
+
+/**
+ * Animation frames for playing a two-country comparison through the years. prefetch copies each country's
+ * percentages for every year into a primitive buffer with one range scan of the sorted data, since a country's
+ * records are adjacent in isoYear order; interpolate then fills every frame between consecutive years. Once built,
+ * reading a frame is an array read, so a timer can step through them without lookups or allocation.
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public final class TimelineFrames {
+
+    /** frames drawn while moving from one year to the next: half a second at 60 frames per second */
+    public static final int FRAMES_PER_YEAR = 30;
+
+    /** number of countries compared */
+    public static final int COUNTRY_COUNT = 2;
+
+    /** years in order */
+    private final int[] years;
+    /** year labels, made once so painting a frame does not build strings */
+    private final String[] yearLabels;
+    /** percentages by [country][year][metric], flattened; NaN where there is no value */
+    private final float[] series;
+    /** interpolated percentages by [frame][country][metric], flattened; null until interpolate has run */
+    private float[] frames;
+
+    /**
+     * Wraps a prefetched series
+     *
+     * @param years  years in order
+     * @param series percentages by country, year and metric
+     */
+    private TimelineFrames(int[] years, float[] series) {
+        this.years = years;
+        this.series = series;
+        yearLabels = new String[years.length];
+        for (int i = 0; i < years.length; i++) {
+            yearLabels[i] = String.valueOf(years[i]);
+        }
+    }
+
+    /**
+     * Copies the percentages of two countries for every year out of the water data; cheap enough to call on the
+     * event dispatch thread, which is where the data may be changed
+     *
+     * @param waterData sorted water data; must not be null
+     * @param isoCodes  ISO code of each country, COUNTRY_COUNT of them; must not be null
+     * @param years     years to play, ascending; must not be null or empty
+     * @return the series, not yet interpolated
+     */
+    public static TimelineFrames prefetch(SortedArrayListInterface<YearlyWaterRecord> waterData, String[] isoCodes,
+                                          int[] years) {
+        if (waterData == null || isoCodes == null || isoCodes.length != COUNTRY_COUNT) {
+            throw new IllegalArgumentException("waterData must not be null and isoCodes must hold "
+                    + COUNTRY_COUNT + " codes");
+        }
+        if (years == null || years.length == 0) {
+            throw new IllegalArgumentException("years must not be null or empty");
+        }
+        int stride = years.length * YearlyWaterRecord.METRIC_COUNT;
+        float[] series = new float[COUNTRY_COUNT * stride];
+        Arrays.fill(series, Float.NaN);
+        for (int country = 0; country < COUNTRY_COUNT; country++) {
+            String iso = isoCodes[country];
+            // the first record at or after the country's first year, then every record until the country ends
+            int index = waterData.indexOf(new YearlyWaterRecord(iso + years[0], 0.0, 0.0, 0.0, 0.0));
+            for (index = index < 0 ? -(index + 1) : index; index < waterData.size(); index++) {
+                YearlyWaterRecord record = waterData.get(index);
+                String isoYear = record.isoYear();
+                if (!isoYear.startsWith(iso) || isoYear.length() != iso.length() + 4) {
+                    break;
+                }
+                int year = Arrays.binarySearch(years, Main.yearOf(isoYear));
+                if (year < 0) {
+                    continue;
+                }
+                for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                    if (record.isValid(metric)) {
+                        series[country * stride + year * YearlyWaterRecord.METRIC_COUNT + metric] =
+                                (float) record.metric(metric);
+                    }
+                }
+            }
+        }
+        return new TimelineFrames(years.clone(), series);
+    }
+
+    /**
+     * Fills every frame by interpolating linearly between years; a missing value is bridged from the nearest years
+     * that have one, held flat past the first and last, and drawn as 0 if the country never has one. Safe to run on
+     * a background thread, since it reads only the prefetched series
+     *
+     * @return this, for chaining
+     */
+    public TimelineFrames interpolate() {
+        int metrics = YearlyWaterRecord.METRIC_COUNT;
+        int frameWidth = COUNTRY_COUNT * metrics;
+        float[] frames = new float[frameCount() * frameWidth];
+        float[] filled = new float[years.length];
+        for (int country = 0; country < COUNTRY_COUNT; country++) {
+            for (int metric = 0; metric < metrics; metric++) {
+                fillGaps(country, metric, filled);
+                int column = country * metrics + metric;
+                for (int year = 0; year < years.length; year++) {
+                    float from = filled[year];
+                    float to = filled[Math.min(year + 1, years.length - 1)];
+                    int steps = year + 1 < years.length ? FRAMES_PER_YEAR : 1;
+                    for (int step = 0; step < steps; step++) {
+                        frames[(year * FRAMES_PER_YEAR + step) * frameWidth + column] =
+                                from + (to - from) * step / FRAMES_PER_YEAR;
+                    }
+                }
+            }
+        }
+        this.frames = frames;
+        return this;
+    }
+
+    /**
+     * Copies one country's values of a metric, bridging missing years
+     *
+     * @param country the country
+     * @param metric  the metric index
+     * @param filled  receives a value for every year
+     */
+    private void fillGaps(int country, int metric, float[] filled) {
+        int metrics = YearlyWaterRecord.METRIC_COUNT;
+        int base = country * years.length * metrics + metric;
+        int previous = -1;
+        for (int year = 0; year <= years.length; year++) {
+            if (year < years.length && Float.isNaN(series[base + year * metrics])) {
+                continue;
+            }
+            // years previous+1 .. year-1 are missing; bridge them from the values on either side
+            float left = previous >= 0 ? series[base + previous * metrics] : Float.NaN;
+            float right = year < years.length ? series[base + year * metrics] : Float.NaN;
+            for (int gap = previous + 1; gap < year; gap++) {
+                if (Float.isNaN(left) || Float.isNaN(right)) {
+                    filled[gap] = Float.isNaN(left) ? (Float.isNaN(right) ? 0 : right) : left;
+                } else {
+                    filled[gap] = left + (right - left) * (gap - previous) / (year - previous);
+                }
+            }
+            if (year < years.length) {
+                filled[year] = right;
+                previous = year;
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of frames from the first year to the last
+     *
+     * @return the frame count
+     */
+    public int frameCount() {
+        return (years.length - 1) * FRAMES_PER_YEAR + 1;
+    }
+
+    /**
+     * Retrieves whether interpolate has run
+     *
+     * @return true, if frames can be read
+     */
+    public boolean isInterpolated() {
+        return frames != null;
+    }
+
+    /**
+     * Retrieves an interpolated percentage
+     *
+     * @param frame   the frame, 0 to frameCount-1
+     * @param country the country, 0 or 1
+     * @param metric  the metric index
+     * @return the percentage to draw
+     */
+    public float value(int frame, int country, int metric) {
+        return frames[(frame * COUNTRY_COUNT + country) * YearlyWaterRecord.METRIC_COUNT + metric];
+    }
+
+    /**
+     * Retrieves the year a frame starts from
+     *
+     * @param frame the frame
+     * @return index into the years
+     */
+    public int yearIndexOf(int frame) {
+        return frame / FRAMES_PER_YEAR;
+    }
+
+    /**
+     * Retrieves the frame that shows a year exactly
+     *
+     * @param yearIndex index into the years
+     * @return the frame
+     */
+    public int frameOf(int yearIndex) {
+        return yearIndex * FRAMES_PER_YEAR;
+    }
+
+    /**
+     * Retrieves the label of the year a frame starts from
+     *
+     * @param frame the frame
+     * @return the year as text
+     */
+    public String yearLabel(int frame) {
+        return yearLabels[yearIndexOf(frame)];
+    }
+
+    /**
+     * Retrieves the number of years played
+     *
+     * @return the year count
+     */
+    public int yearCount() {
+        return years.length;
+    }
+}
@@ -0,0 +1,111 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that TimelineFrames has one frame per step between years plus the last, shows each year's values exactly
+ * on its frame, and interpolates between years, bridging years with missing values
+ */
+class TimelineFramesTest {
+
+    /** tolerance for float interpolation */
+    private static final double TOLERANCE = 1e-4;
+
+    /** years played */
+    private static final int[] YEARS = {2000, 2001, 2002, 2003, 2004};
+
+    /**
+     * Expected KHM values by [metric][year]: 2001 lacks BasicPlusPct, UnimprovedPct and SurfacePct, 2002 lacks
+     * LimitedPct, 2003 has no record, and SurfacePct is never reported so it is drawn as 0
+     */
+    private static final double[][] KHM = {
+            {40, 43, 46, 48, 50},
+            {10, 12, 12 + 8.0 / 3, 12 + 16.0 / 3, 20},
+            {30, 27, 24, 22, 20},
+            {0, 0, 0, 0, 0},
+    };
+
+    /** Expected AFG values by metric: its only year is held flat across the timeline */
+    private static final double[] AFG = {20, 5, 40, 35};
+
+    @Test
+    public void testFramesInterpolateBetweenYears() {
+        TimelineFrames timeline = TimelineFrames.prefetch(waterData(), new String[]{"KHM", "AFG"}, YEARS);
+        assertFalse(timeline.isInterpolated());
+        assertSame(timeline, timeline.interpolate());
+        assertTrue(timeline.isInterpolated());
+        assertEquals(YEARS.length, timeline.yearCount());
+        assertEquals((YEARS.length - 1) * TimelineFrames.FRAMES_PER_YEAR + 1, timeline.frameCount());
+
+        for (int frame = 0; frame < timeline.frameCount(); frame++) {
+            int year = timeline.yearIndexOf(frame);
+            int step = frame - timeline.frameOf(year);
+            int next = Math.min(year + 1, YEARS.length - 1);
+            assertEquals(String.valueOf(YEARS[year]), timeline.yearLabel(frame));
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                double expected = KHM[metric][year]
+                        + (KHM[metric][next] - KHM[metric][year]) * step / TimelineFrames.FRAMES_PER_YEAR;
+                assertEquals(expected, timeline.value(frame, 0, metric), TOLERANCE, "frame " + frame);
+                assertEquals(AFG[metric], timeline.value(frame, 1, metric), TOLERANCE, "frame " + frame);
+            }
+        }
+
+        // the endpoints and every year's own frame show that year exactly
+        int last = timeline.frameCount() - 1;
+        assertEquals(YEARS.length - 1, timeline.yearIndexOf(last));
+        assertEquals(last, timeline.frameOf(YEARS.length - 1));
+        for (int year = 0; year < YEARS.length; year++) {
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                assertEquals(KHM[metric][year], timeline.value(timeline.frameOf(year), 0, metric), TOLERANCE);
+            }
+        }
+        assertEquals(40, timeline.value(0, 0, 0));
+        assertEquals(50, timeline.value(last, 0, 0));
+        assertEquals(41.5, timeline.value(TimelineFrames.FRAMES_PER_YEAR / 2, 0, 0), TOLERANCE);
+    }
+
+    @Test
+    public void testSubsetOfYearsAndEdgeCases() {
+        // only the years asked for are read, so 2001's missing values and KHMX's records play no part
+        TimelineFrames timeline = TimelineFrames.prefetch(waterData(), new String[]{"KHM", "ZZZ"},
+                new int[]{2000, 2004}).interpolate();
+        assertEquals(TimelineFrames.FRAMES_PER_YEAR + 1, timeline.frameCount());
+        assertEquals(45, timeline.value(TimelineFrames.FRAMES_PER_YEAR / 2, 0, 0), TOLERANCE);
+        assertEquals(20, timeline.value(timeline.frameCount() - 1, 0, 1), TOLERANCE);
+        for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+            assertEquals(0, timeline.value(TimelineFrames.FRAMES_PER_YEAR, 1, metric));   // unknown country
+        }
+
+        TimelineFrames single = TimelineFrames.prefetch(waterData(), new String[]{"KHM", "AFG"}, new int[]{2002})
+                .interpolate();
+        assertEquals(1, single.frameCount());
+        assertEquals(46, single.value(0, 0, 0));
+        assertEquals("2002", single.yearLabel(0));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> TimelineFrames.prefetch(waterData(), new String[]{"KHM"}, YEARS));
+        assertThrows(IllegalArgumentException.class,
+                () -> TimelineFrames.prefetch(waterData(), new String[]{"KHM", "AFG"}, new int[0]));
+        assertThrows(IllegalArgumentException.class,
+                () -> TimelineFrames.prefetch(null, new String[]{"KHM", "AFG"}, YEARS));
+    }
+
+    /**
+     * Builds a small data set with gaps, missing values, years outside the timeline and a longer code sharing
+     * KHM's prefix
+     *
+     * @return the sorted records
+     */
+    private static SortedArrayList<YearlyWaterRecord> waterData() {
+        SortedArrayList<YearlyWaterRecord> waterData = new SortedArrayList<>();
+        waterData.add(new YearlyWaterRecord("KHM1999", 1.0, 1.0, 1.0, 1.0));
+        waterData.add(new YearlyWaterRecord("KHM2000", 40.0, 10.0, 30.0, -1));
+        waterData.add(new YearlyWaterRecord("KHM2001", -1, 12.0, -1, -1));
+        waterData.add(new YearlyWaterRecord("KHM2002", 46.0, -1, 24.0, -1));
+        waterData.add(new YearlyWaterRecord("KHM2004", 50.0, 20.0, 20.0, -1));
+        waterData.add(new YearlyWaterRecord("KHM2005", 99.0, 99.0, 99.0, 99.0));
+        waterData.add(new YearlyWaterRecord("KHMX2001", 99.0, 99.0, 99.0, 99.0));
+        waterData.add(new YearlyWaterRecord("AFG2002", 20.0, 5.0, 40.0, 35.0));
+        return waterData;
+    }
+}
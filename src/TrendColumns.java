@@ -0,0 +1,337 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Derived trend columns for every country-year and metric: the change since the country's previous survey year,
+ * the mean over a trailing window of years, and the least-squares slope over the same window. Records sorted by
+ * isoYear arrive grouped by country in year order, so building is one pass; afterwards each value is a hash lookup
+ * of the country plus an array index by year. Adding or removing a record recomputes only that country, so the
+ * columns can also be filled record by record as a file is loaded.
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class TrendColumns {
+
+    /** default number of years in the rolling window */
+    public static final int DEFAULT_WINDOW = 5;
+
+    /** years covered by the rolling mean and slope, ending at the row's own year */
+    private final int window;
+    /** trend series by ISO code */
+    private final Map<String, Series> countries = new HashMap<>();
+
+    /**
+     * Creates empty columns with the default five-year window, for records to be added as they are loaded
+     */
+    public TrendColumns() {
+        this(DEFAULT_WINDOW);
+    }
+
+    /**
+     * Creates empty columns, for records to be added as they are loaded
+     *
+     * @param window number of years in the rolling window, including the row's own year; must be positive
+     */
+    public TrendColumns(int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        this.window = window;
+    }
+
+    /**
+     * Builds the columns with the default five-year window
+     *
+     * @param waterData records to derive from; must not be null
+     */
+    public TrendColumns(SortedArrayListInterface<YearlyWaterRecord> waterData) {
+        this(waterData, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Builds the columns in one pass over the records
+     *
+     * @param waterData records to derive from, ideally sorted so each country's years are adjacent; must not be null
+     * @param window    number of years in the rolling window, including the row's own year; must be positive
+     */
+    public TrendColumns(SortedArrayListInterface<YearlyWaterRecord> waterData, int window) {
+        if (waterData == null || window < 1) {
+            throw new IllegalArgumentException("waterData must not be null and window must be positive");
+        }
+        this.window = window;
+        Series current = null;
+        String currentIso = null;
+        java.util.Iterator<YearlyWaterRecord> iterator = waterData.iterator();
+        while (iterator.hasNext()) {
+            YearlyWaterRecord record = iterator.next();
+            String iso = isoOf(record.isoYear());
+            if (!iso.equals(currentIso)) {
+                current = countries.computeIfAbsent(iso, key -> new Series());
+                currentIso = iso;
+            }
+            current.put(record);
+        }
+        for (Series series : countries.values()) {
+            series.recompute(window);
+        }
+    }
+
+    /**
+     * Retrieves the rolling window length
+     *
+     * @return number of years in the window
+     */
+    public int window() {
+        return window;
+    }
+
+    /**
+     * Retrieves the number of countries with trend columns
+     *
+     * @return the number of countries
+     */
+    public int countryCount() {
+        return countries.size();
+    }
+
+    /**
+     * Retrieves the change in a metric since the country's most recent earlier year with a value for it
+     *
+     * @param isoYear ISO code followed by year, e.g. "AFG2010"
+     * @param metric  the metric index, in the order of YearlyWaterRecord.METRIC_NAMES
+     * @return the difference in percentage points; NaN if either value is missing or the record is unknown
+     */
+    public double delta(String isoYear, int metric) {
+        return column(isoYear, metric, Series.DELTA);
+    }
+
+    /**
+     * Retrieves the mean of a metric over the window of years ending at the record's year, ignoring missing values
+     *
+     * @param isoYear ISO code followed by year
+     * @param metric  the metric index
+     * @return the mean; NaN if no year in the window has a value or the record is unknown
+     */
+    public double rollingMean(String isoYear, int metric) {
+        return column(isoYear, metric, Series.MEAN);
+    }
+
+    /**
+     * Retrieves the least-squares slope of a metric against year over the window ending at the record's year
+     *
+     * @param isoYear ISO code followed by year
+     * @param metric  the metric index
+     * @return the slope in percentage points per year; NaN if fewer than two years in the window have a value
+     */
+    public double slope(String isoYear, int metric) {
+        return column(isoYear, metric, Series.SLOPE);
+    }
+
+    /**
+     * Adds a record, or replaces the one with the same isoYear, and recomputes that country's columns; call it
+     * alongside adding the record to the list
+     *
+     * @param record the record; must not be null
+     */
+    public void add(YearlyWaterRecord record) {
+        if (record == null) {
+            throw new IllegalArgumentException("record must not be null");
+        }
+        Series series = countries.computeIfAbsent(isoOf(record.isoYear()), key -> new Series());
+        series.put(record);
+        series.recompute(window);
+    }
+
+    /**
+     * Removes a record and recomputes that country's columns
+     *
+     * @param isoYear ISO code followed by year
+     * @return true, if there was such a record
+     */
+    public boolean remove(String isoYear) {
+        String iso = isoOf(isoYear);
+        Series series = countries.get(iso);
+        if (series == null || !series.remove(Main.yearOf(isoYear))) {
+            return false;
+        }
+        if (series.count == 0) {
+            countries.remove(iso);
+        } else {
+            series.recompute(window);
+        }
+        return true;
+    }
+
+    /**
+     * Reads one derived value
+     *
+     * @param isoYear the key
+     * @param metric  the metric index
+     * @param column  which derived column
+     * @return the value; NaN if unknown
+     */
+    private double column(String isoYear, int metric, int column) {
+        if (isoYear == null || metric < 0 || metric >= YearlyWaterRecord.METRIC_COUNT) {
+            throw new IllegalArgumentException("isoYear must not be null and metric must be 0 to "
+                    + (YearlyWaterRecord.METRIC_COUNT - 1));
+        }
+        if (isoYear.length() < 5) {
+            return Double.NaN;
+        }
+        Series series = countries.get(isoOf(isoYear));
+        int slot = series == null ? -1 : series.slot(Main.yearOf(isoYear));
+        return slot < 0 ? Double.NaN : series.columns[column][metric][slot];
+    }
+
+    /**
+     * Extracts the ISO code from an isoYear key
+     *
+     * @param isoYear the key; the year is the last four characters
+     * @return the ISO code
+     */
+    private static String isoOf(String isoYear) {
+        return isoYear.substring(0, isoYear.length() - 4);
+    }
+
+    /**
+     * One country's records in year order with their derived columns
+     */
+    private static final class Series {
+        /** index of the delta column */
+        static final int DELTA = 0;
+        /** index of the rolling mean column */
+        static final int MEAN = 1;
+        /** index of the slope column */
+        static final int SLOPE = 2;
+
+        /** years of the records, ascending */
+        private int[] years = new int[8];
+        /** records parallel to years */
+        private YearlyWaterRecord[] records = new YearlyWaterRecord[8];
+        /** number of records */
+        private int count;
+        /** derived values, indexed [column][metric][position] */
+        private double[][][] columns = new double[3][YearlyWaterRecord.METRIC_COUNT][0];
+        /** position of each year from years[0], or -1; makes lookups a subtraction and an array read */
+        private int[] slotByYear = new int[0];
+
+        /**
+         * Creates an empty series; records are added with put
+         */
+        Series() {
+        }
+
+        /**
+         * Inserts a record in year order, replacing any record of the same year
+         *
+         * @param record the record
+         */
+        void put(YearlyWaterRecord record) {
+            int year = Main.yearOf(record.isoYear());
+            int position = Arrays.binarySearch(years, 0, count, year);
+            if (position >= 0) {
+                records[position] = record;
+                return;
+            }
+            position = -position - 1;
+            if (count == years.length) {
+                years = Arrays.copyOf(years, count * 2);
+                records = Arrays.copyOf(records, count * 2);
+            }
+            System.arraycopy(years, position, years, position + 1, count - position);
+            System.arraycopy(records, position, records, position + 1, count - position);
+            years[position] = year;
+            records[position] = record;
+            count++;
+        }
+
+        /**
+         * Removes the record of a year
+         *
+         * @param year the year
+         * @return true, if there was one
+         */
+        boolean remove(int year) {
+            int position = Arrays.binarySearch(years, 0, count, year);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(years, position + 1, years, position, count - position - 1);
+            System.arraycopy(records, position + 1, records, position, count - position - 1);
+            records[--count] = null;
+            return true;
+        }
+
+        /**
+         * Finds the position of a year
+         *
+         * @param year the year
+         * @return the position; -1 if the country has no record for it
+         */
+        int slot(int year) {
+            int offset = count == 0 ? -1 : year - years[0];
+            return offset < 0 || offset >= slotByYear.length ? -1 : slotByYear[offset];
+        }
+
+        /**
+         * Recomputes every derived value with running sums over a sliding window of years
+         *
+         * @param window number of years in the window
+         */
+        void recompute(int window) {
+            slotByYear = new int[years[count - 1] - years[0] + 1];
+            Arrays.fill(slotByYear, -1);
+            for (int i = 0; i < count; i++) {
+                slotByYear[years[i] - years[0]] = i;
+            }
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                double[] delta = new double[count];
+                double[] mean = new double[count];
+                double[] slope = new double[count];
+                double previous = Double.NaN;
+                // running sums of the valid (x, y) points in the window, with x measured from years[0]
+                int n = 0;
+                double sumX = 0;
+                double sumY = 0;
+                double sumXY = 0;
+                double sumXX = 0;
+                int oldest = 0;
+                for (int i = 0; i < count; i++) {
+                    YearlyWaterRecord record = records[i];
+                    boolean valid = record.isValid(metric);
+                    double y = record.metric(metric);
+                    delta[i] = valid ? y - previous : Double.NaN;
+                    if (valid) {
+                        previous = y;
+                        double x = years[i] - years[0];
+                        n++;
+                        sumX += x;
+                        sumY += y;
+                        sumXY += x * y;
+                        sumXX += x * x;
+                    }
+                    while (years[oldest] <= years[i] - window) {
+                        if (records[oldest].isValid(metric)) {
+                            double x = years[oldest] - years[0];
+                            double old = records[oldest].metric(metric);
+                            n--;
+                            sumX -= x;
+                            sumY -= old;
+                            sumXY -= x * old;
+                            sumXX -= x * x;
+                        }
+                        oldest++;
+                    }
+                    mean[i] = n == 0 ? Double.NaN : sumY / n;
+                    double denominator = n * sumXX - sumX * sumX;
+                    slope[i] = n < 2 || denominator == 0 ? Double.NaN : (n * sumXY - sumX * sumY) / denominator;
+                }
+                columns[DELTA][metric] = delta;
+                columns[MEAN][metric] = mean;
+                columns[SLOPE][metric] = slope;
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks TrendColumns' running-sum delta, rolling mean and slope against a direct computation over each window, on
+ * the bundled data, filled while loading or built afterwards, and on a country with gaps in its years and missing
+ * values, and after adding and removing years
+ */
+class TrendColumnsTest {
+
+    /** tolerance for values built from running sums rather than summed afresh */
+    private static final double TOLERANCE = 1e-9;
+
+    @Test
+    public void testMatchesDirectComputationOnBundledData() throws FileNotFoundException {
+        TrendColumns loaded = new TrendColumns();
+        SortedArrayList<YearlyWaterRecord> waterData = Main.loadWaterData(new File("IsoYearWaterData.txt"),
+                new SortedArrayList<>(), null, loaded);
+        for (int window : new int[]{1, 3, TrendColumns.DEFAULT_WINDOW}) {
+            // at the default window, check the columns filled record by record while the file was loaded
+            TrendColumns trends = window == TrendColumns.DEFAULT_WINDOW ? loaded : new TrendColumns(waterData, window);
+            TreeMap<String, TreeMap<Integer, YearlyWaterRecord>> countries = new TreeMap<>();
+            for (YearlyWaterRecord record : waterData) {
+                String isoYear = record.isoYear();
+                countries.computeIfAbsent(isoYear.substring(0, isoYear.length() - 4), key -> new TreeMap<>())
+                        .put(Main.yearOf(isoYear), record);
+            }
+            assertEquals(countries.size(), trends.countryCount());
+            for (YearlyWaterRecord record : waterData) {
+                String isoYear = record.isoYear();
+                assertMatches(trends, countries.get(isoYear.substring(0, isoYear.length() - 4)), isoYear, window);
+            }
+        }
+    }
+
+    @Test
+    public void testGapsMissingValuesAndEdits() {
+        // years 2000, 2001, 2004, 2005, 2009 with LimitedPct missing in 2001 and 2005, SurfacePct missing in all
+        // but 2004, so windows see gaps in years, missing values and windows with a single value
+        SortedArrayList<YearlyWaterRecord> waterData = new SortedArrayList<>();
+        waterData.add(new YearlyWaterRecord("KHM2000", 40.0, 10.0, 30.0, -1));
+        waterData.add(new YearlyWaterRecord("KHM2001", 44.0, -1, 28.0, -1));
+        waterData.add(new YearlyWaterRecord("KHM2004", 50.0, 12.5, 20.0, 7.0));
+        waterData.add(new YearlyWaterRecord("KHM2005", 53.0, -1, 19.0, -1));
+        waterData.add(new YearlyWaterRecord("KHM2009", 61.0, 15.0, 11.0, -1));
+        waterData.add(new YearlyWaterRecord("AFG2003", 20.0, 5.0, 40.0, 35.0));
+        TreeMap<Integer, YearlyWaterRecord> khm = new TreeMap<>();
+        for (YearlyWaterRecord record : waterData) {
+            if (record.isoYear().startsWith("KHM")) {
+                khm.put(Main.yearOf(record.isoYear()), record);
+            }
+        }
+
+        for (int window = 1; window <= 11; window++) {
+            TrendColumns trends = new TrendColumns(waterData, window);
+            assertEquals(2, trends.countryCount());
+            assertCountry(trends, khm, window);
+
+            // removing the first year shifts every later slot; removing the last shrinks the year range
+            TreeMap<Integer, YearlyWaterRecord> edited = new TreeMap<>(khm);
+            assertTrue(trends.remove("KHM2000"));
+            edited.remove(2000);
+            assertCountry(trends, edited, window);
+            assertTrue(trends.remove("KHM2009"));
+            edited.remove(2009);
+            assertCountry(trends, edited, window);
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                assertTrue(Double.isNaN(trends.delta("KHM2000", metric)));
+                assertTrue(Double.isNaN(trends.rollingMean("KHM2009", metric)));
+                assertTrue(Double.isNaN(trends.slope("KHM2009", metric)));
+            }
+            assertFalse(trends.remove("KHM2000"));
+
+            // adding them back, and replacing a middle year, matches a fresh build
+            trends.add(khm.get(2009));
+            trends.add(khm.get(2000));
+            YearlyWaterRecord replacement = new YearlyWaterRecord("KHM2004", -1, 13.0, 21.0, -1);
+            trends.add(replacement);
+            edited = new TreeMap<>(khm);
+            edited.put(2004, replacement);
+            assertCountry(trends, edited, window);
+        }
+
+        TrendColumns trends = new TrendColumns(waterData, 1);
+        assertEquals(4.0, trends.delta("KHM2001", 0), TOLERANCE);
+        assertEquals(2.5, trends.delta("KHM2004", 1), TOLERANCE);   // since 2000; 2001 is missing
+        assertTrue(Double.isNaN(trends.delta("KHM2000", 0)));
+        assertTrue(Double.isNaN(trends.slope("KHM2004", 0)));      // one point per window
+        assertEquals(50.0, trends.rollingMean("KHM2004", 0));
+
+        trends = new TrendColumns(waterData);
+        assertEquals(TrendColumns.DEFAULT_WINDOW, trends.window());
+        assertEquals((40.0 + 44.0 + 50.0) / 3, trends.rollingMean("KHM2004", 0), TOLERANCE);
+        assertEquals(7.0, trends.rollingMean("KHM2005", 3));
+        assertTrue(Double.isNaN(trends.rollingMean("KHM2009", 3)));  // 2004 fell out of the window
+        assertTrue(Double.isNaN(trends.slope("KHM2005", 3)));
+
+        assertTrue(trends.remove("AFG2003"));
+        assertEquals(1, trends.countryCount());
+        assertTrue(Double.isNaN(trends.delta("AFG2003", 0)));
+        assertTrue(Double.isNaN(trends.delta("KHM", 0)));
+        assertTrue(Double.isNaN(trends.delta("KHM1999", 0)));
+        assertThrows(IllegalArgumentException.class, () -> new TrendColumns(waterData, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TrendColumns(0));
+        TrendColumns finalTrends = trends;
+        assertThrows(IllegalArgumentException.class, () -> finalTrends.delta("KHM2000", 4));
+        assertThrows(IllegalArgumentException.class, () -> finalTrends.delta(null, 0));
+    }
+
+    /**
+     * Checks every year of one country
+     *
+     * @param trends  the columns
+     * @param country the country's records by year
+     * @param window  the window length
+     */
+    private static void assertCountry(TrendColumns trends, TreeMap<Integer, YearlyWaterRecord> country,
+                                      int window) {
+        for (YearlyWaterRecord record : country.values()) {
+            assertMatches(trends, country, record.isoYear(), window);
+        }
+    }
+
+    /**
+     * Checks one record's derived values against a direct computation over its window
+     *
+     * @param trends  the columns
+     * @param country the country's records by year
+     * @param isoYear the record's key
+     * @param window  the window length
+     */
+    private static void assertMatches(TrendColumns trends, TreeMap<Integer, YearlyWaterRecord> country,
+                                      String isoYear, int window) {
+        int year = Main.yearOf(isoYear);
+        for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+            String message = isoYear + " " + YearlyWaterRecord.METRIC_NAMES[metric] + " window " + window;
+            YearlyWaterRecord record = country.get(year);
+            double expectedDelta = Double.NaN;
+            if (record.isValid(metric)) {
+                for (YearlyWaterRecord earlier : country.headMap(year, false).descendingMap().values()) {
+                    if (earlier.isValid(metric)) {
+                        expectedDelta = record.metric(metric) - earlier.metric(metric);
+                        break;
+                    }
+                }
+            }
+
+            int n = 0;
+            double sumY = 0;
+            double sumX = 0;
+            for (YearlyWaterRecord inWindow : country.subMap(year - window, false, year, true).values()) {
+                if (inWindow.isValid(metric)) {
+                    n++;
+                    sumY += inWindow.metric(metric);
+                    sumX += Main.yearOf(inWindow.isoYear());
+                }
+            }
+            double expectedMean = n == 0 ? Double.NaN : sumY / n;
+            double expectedSlope = Double.NaN;
+            if (n >= 2) {
+                double meanX = sumX / n;
+                double covariance = 0;
+                double variance = 0;
+                for (YearlyWaterRecord inWindow : country.subMap(year - window, false, year, true).values()) {
+                    if (inWindow.isValid(metric)) {
+                        double dx = Main.yearOf(inWindow.isoYear()) - meanX;
+                        covariance += dx * (inWindow.metric(metric) - expectedMean);
+                        variance += dx * dx;
+                    }
+                }
+                expectedSlope = covariance / variance;
+            }
+
+            assertClose(expectedDelta, trends.delta(isoYear, metric), message + " delta");
+            assertClose(expectedMean, trends.rollingMean(isoYear, metric), message + " mean");
+            assertClose(expectedSlope, trends.slope(isoYear, metric), message + " slope");
+        }
+    }
+
+    /**
+     * Compares two values, treating NaN as equal to NaN
+     *
+     * @param expected the direct value
+     * @param actual   the derived value
+     * @param message  what is compared
+     */
+    private static void assertClose(double expected, double actual, String message) {
+        if (Double.isNaN(expected)) {
+            assertTrue(Double.isNaN(actual), message + ": expected NaN but was " + actual);
+        } else {
+            assertEquals(expected, actual, TOLERANCE, message);
+        }
+    }
+}
@@ -0,0 +1,437 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless entry point for scripts and scheduled jobs: loads the water data once, then answers queries read line
+ * by line from stdin or a file, writing one result line per query to stdout in input order. Queries are grouped
+ * into batches that a worker pool answers while the next batch is being read and earlier ones are written.
+ * <pre>
+ * lookup KHM2000
+ * compare KHM2000 LAO2000
+ * series KHM
+ * topk BasicPlusPct 2010 5
+ * aggregate 2010
+ * trend KHM2010
+ * quantile BasicPlusPct 2010 0.5
+ * histogram BasicPlusPct 2010
+ * </pre>
+ * Blank lines and lines starting with # are skipped. Usage: java WaterCli [-f queryFile] [-t threads]
+ * [-d dataFile]
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class WaterCli {
+
+    /** queries handed to a worker at a time */
+    private static final int BATCH_SIZE = 256;
+    /** batches submitted per worker before the oldest must be written */
+    private static final int BATCHES_IN_FLIGHT_PER_WORKER = 4;
+    /** cached results kept across queries */
+    private static final int CACHE_ENTRIES = 4096;
+
+    /** queries being answered */
+    private final WaterQueries queries;
+    /** derived trend columns; null if trend queries are unavailable */
+    private final TrendColumns trends;
+    /** distribution summaries; null if quantile and histogram queries are unavailable */
+    private final WaterSketches sketches;
+
+    /**
+     * Creates a query runner without trend queries
+     *
+     * @param queries the query service to answer from; must not be null
+     */
+    public WaterCli(WaterQueries queries) {
+        this(queries, null);
+    }
+
+    /**
+     * Creates a query runner
+     *
+     * @param queries the query service to answer from; must not be null
+     * @param trends  trend columns built from the same data; null to reject trend queries
+     */
+    public WaterCli(WaterQueries queries, TrendColumns trends) {
+        this(queries, trends, null);
+    }
+
+    /**
+     * Creates a query runner
+     *
+     * @param queries  the query service to answer from; must not be null
+     * @param trends   trend columns built from the same data; null to reject trend queries
+     * @param sketches distribution summaries of the same data; null to reject quantile and histogram queries
+     */
+    public WaterCli(WaterQueries queries, TrendColumns trends, WaterSketches sketches) {
+        if (queries == null) {
+            throw new IllegalArgumentException("queries must not be null");
+        }
+        this.queries = queries;
+        this.trends = trends;
+        this.sketches = sketches;
+    }
+
+    /**
+     * Loads the data file and answers the queries of a file or of stdin
+     *
+     * @param args -f queryFile, -t threads and -d dataFile, each optional
+     * @throws IOException          if the queries cannot be read or the results written
+     * @throws InterruptedException if interrupted while waiting for a batch
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        File queryFile = null;
+        File dataFile = new File("IsoYearWaterData.txt");
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-f") && i + 1 < args.length) {
+                queryFile = new File(args[++i]);
+            } else if (args[i].equals("-t") && i + 1 < args.length && isPositiveInteger(args[i + 1])) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-d") && i + 1 < args.length) {
+                dataFile = new File(args[++i]);
+            } else {
+                System.err.println("usage: java WaterCli [-f queryFile] [-t threads] [-d dataFile]");
+                System.exit(2);
+            }
+        }
+
+        SortedArrayList<YearlyWaterRecord> waterData;
+        WaterSketches sketches = new WaterSketches();
+        TrendColumns trends = new TrendColumns();
+        try {
+            waterData = Main.loadWaterData(dataFile, new SortedArrayList<>(), sketches, trends);
+        } catch (FileNotFoundException e) {
+            System.err.println("file not found: " + dataFile);
+            System.exit(1);
+            return;
+        }
+        WaterCli cli = new WaterCli(new WaterQueries(waterData, new QueryCache<>(CACHE_ENTRIES)), trends, sketches);
+        try (BufferedReader input = new BufferedReader(queryFile == null
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8) : new FileReader(queryFile, StandardCharsets.UTF_8));
+             Writer output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            cli.run(input, output, threads, System.err);
+        }
+    }
+
+    /**
+     * Answers every query from the input, keeping a bounded number of batches in flight. Answered batches are
+     * written as soon as every earlier one is, and when the input has no further line ready the queries read so far
+     * are answered and flushed, so an interactive caller sees each answer without closing the input
+     *
+     * @param input   query lines
+     * @param output  where result lines are written, in input order
+     * @param threads number of worker threads; must be positive
+     * @param report  where the throughput summary is printed; null for none
+     * @return the number of queries answered
+     * @throws IOException          if reading or writing fails
+     * @throws InterruptedException if interrupted while waiting for a batch
+     */
+    public long run(BufferedReader input, Writer output, int threads, PrintStream report)
+            throws IOException, InterruptedException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        long start = System.nanoTime();
+        long count = 0;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ArrayDeque<Future<String>> inFlight = new ArrayDeque<>();
+        try {
+            String[] batch = new String[BATCH_SIZE];
+            int size = 0;
+            String line;
+            while ((line = input.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    batch[size++] = line;
+                    count++;
+                }
+                // with nothing more to read yet, answer what has arrived rather than wait for a full batch
+                boolean idle = !input.ready();
+                if (size == BATCH_SIZE || idle && size > 0) {
+                    submit(pool, inFlight, batch, size);
+                    batch = new String[BATCH_SIZE];
+                    size = 0;
+                }
+                while (!inFlight.isEmpty() && (idle || inFlight.peek().isDone()
+                        || inFlight.size() > threads * BATCHES_IN_FLIGHT_PER_WORKER)) {
+                    output.write(await(inFlight.poll()));
+                }
+                if (idle) {
+                    output.flush();
+                }
+            }
+            if (size > 0) {
+                submit(pool, inFlight, batch, size);
+            }
+            while (!inFlight.isEmpty()) {
+                output.write(await(inFlight.poll()));
+            }
+            output.flush();
+        } finally {
+            pool.shutdownNow();
+        }
+        if (report != null) {
+            double seconds = (System.nanoTime() - start) / 1e9;
+            report.printf(Locale.ROOT, "%,d queries in %.3f s (%,.0f queries/s, %d threads)%n", count, seconds,
+                    count / seconds, threads);
+        }
+        return count;
+    }
+
+    /**
+     * Answers one query
+     *
+     * @param query the query line, e.g. "compare KHM2000 LAO2000"
+     * @return the result line without a line terminator, or a line starting with "error:" if the query is invalid
+     */
+    public String answer(String query) {
+        String[] words = query.trim().split("\\s+");
+        try {
+            switch (words[0].toLowerCase(Locale.ROOT)) {
+                case "lookup":
+                    expect(words, 2);
+                    return query + " -> " + format(queries.lookup(words[1]));
+                case "compare":
+                    expect(words, 3);
+                    return query + " -> " + format(queries.compare(words[1], words[2]));
+                case "series":
+                    expect(words, 2);
+                    return query + " -> " + format(queries.series(words[1]));
+                case "topk":
+                    expect(words, 4);
+                    return query + " -> " + format(queries.topK(metricIndex(words[1]), Integer.parseInt(words[2]),
+                            Integer.parseInt(words[3])));
+                case "aggregate":
+                    expect(words, 2);
+                    return query + " -> " + formatAverages(queries.yearAverages(Integer.parseInt(words[1])));
+                case "trend":
+                    expect(words, 2);
+                    if (trends == null) {
+                        throw new IllegalArgumentException("trend columns not loaded");
+                    }
+                    return query + " -> " + formatTrend(words[1]);
+                case "quantile":
+                    expect(words, 4);
+                    return query + " -> " + formatValue(sketches().quantile(Integer.parseInt(words[2]),
+                            metricIndex(words[1]), Double.parseDouble(words[3])));
+                case "histogram":
+                    expect(words, 3);
+                    return query + " -> " + formatHistogram(sketches().histogram(Integer.parseInt(words[2]),
+                            metricIndex(words[1])));
+                default:
+                    return "error: unknown query: " + query;
+            }
+        } catch (IllegalArgumentException e) {
+            return "error: " + e.getMessage() + ": " + query;
+        }
+    }
+
+    /**
+     * Hands a batch to the pool
+     *
+     * @param pool     the worker pool
+     * @param inFlight batches not yet written, oldest first
+     * @param batch    the query lines
+     * @param size     number of lines in use
+     */
+    private void submit(ExecutorService pool, ArrayDeque<Future<String>> inFlight, String[] batch, int size) {
+        inFlight.add(pool.submit(() -> {
+            StringBuilder result = new StringBuilder(size * 64);
+            for (int i = 0; i < size; i++) {
+                result.append(answer(batch[i])).append(System.lineSeparator());
+            }
+            return result.toString();
+        }));
+    }
+
+    /**
+     * Waits for a batch to be answered
+     *
+     * @param batch the batch
+     * @return its result lines
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IOException          if answering the batch failed
+     */
+    private static String await(Future<String> batch) throws InterruptedException, IOException {
+        try {
+            return batch.get();
+        } catch (ExecutionException e) {
+            throw new IOException("query batch failed", e.getCause());
+        }
+    }
+
+    /**
+     * Checks a command-line argument is a thread count
+     *
+     * @param text the argument
+     * @return true, if it is a positive int
+     */
+    private static boolean isPositiveInteger(String text) {
+        try {
+            return Integer.parseInt(text) > 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Rejects a query with the wrong number of words
+     *
+     * @param words    the query words, command first
+     * @param expected the number of words required
+     */
+    private static void expect(String[] words, int expected) {
+        if (words.length != expected) {
+            throw new IllegalArgumentException("expected " + (expected - 1) + " argument(s)");
+        }
+    }
+
+    /**
+     * Finds a metric by name, ignoring case, or by index
+     *
+     * @param name e.g. "BasicPlusPct" or "0"
+     * @return the metric index
+     */
+    private static int metricIndex(String name) {
+        for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+            if (YearlyWaterRecord.METRIC_NAMES[metric].equalsIgnoreCase(name)
+                    || String.valueOf(metric).equals(name)) {
+                return metric;
+            }
+        }
+        throw new IllegalArgumentException("unknown metric " + name);
+    }
+
+    /**
+     * Formats records as the rows of IsoYearWaterData.txt, separated by semicolons
+     *
+     * @param records the records; null entries are written as "not found"
+     * @return the text; "none" if there are no records
+     */
+    private static String format(YearlyWaterRecord... records) {
+        if (records.length == 0) {
+            return "none";
+        }
+        StringBuilder result = new StringBuilder();
+        for (YearlyWaterRecord record : records) {
+            if (result.length() > 0) {
+                result.append(';');
+            }
+            if (record == null) {
+                result.append("not found");
+                continue;
+            }
+            result.append(record.isoYear());
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                String token = record.censoring(metric).token();
+                result.append(',').append(token != null ? token : Double.toString(record.metric(metric)));
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Formats the trend columns of a record by metric name
+     *
+     * @param isoYear the record's key
+     * @return e.g. "BasicPlusPct=+1.2/86.4/0.9,..." as delta/rolling mean/slope; missing values are written as "-"
+     */
+    private String formatTrend(String isoYear) {
+        StringBuilder result = new StringBuilder();
+        for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+            if (metric > 0) {
+                result.append(',');
+            }
+            double delta = trends.delta(isoYear, metric);
+            result.append(YearlyWaterRecord.METRIC_NAMES[metric]).append('=')
+                    .append(Double.isNaN(delta) ? "-" : String.format(Locale.ROOT, "%+.3f", delta)).append('/')
+                    .append(formatValue(trends.rollingMean(isoYear, metric))).append('/')
+                    .append(formatValue(trends.slope(isoYear, metric)));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Retrieves the distribution summaries for a query
+     *
+     * @return the summaries
+     */
+    private WaterSketches sketches() {
+        if (sketches == null) {
+            throw new IllegalArgumentException("sketches not loaded");
+        }
+        return sketches;
+    }
+
+    /**
+     * Formats histogram counts by bin range
+     *
+     * @param counts counts per equal-width bin over 0 to 100
+     * @return e.g. "0-5:3,5-10:0,...,95-100:120"
+     */
+    private static String formatHistogram(long[] counts) {
+        StringBuilder result = new StringBuilder();
+        for (int bin = 0; bin < counts.length; bin++) {
+            if (bin > 0) {
+                result.append(',');
+            }
+            result.append(formatBound(bin * 100.0 / counts.length)).append('-')
+                    .append(formatBound((bin + 1) * 100.0 / counts.length)).append(':').append(counts[bin]);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Formats a bin bound without a fraction when it is whole
+     *
+     * @param bound the bound
+     * @return e.g. "5" or "33.333"
+     */
+    private static String formatBound(double bound) {
+        return bound == Math.rint(bound) ? String.valueOf((long) bound) : formatValue(bound);
+    }
+
+    /**
+     * Formats a derived value to three decimals
+     *
+     * @param value the value
+     * @return the text; "-" if the value is NaN
+     */
+    private static String formatValue(double value) {
+        return Double.isNaN(value) ? "-" : String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    /**
+     * Formats per-metric means by name
+     *
+     * @param averages the means in the order of YearlyWaterRecord.METRIC_NAMES
+     * @return e.g. "BasicPlusPct=87.1,LimitedPct=3.3,..."; missing means are written as "-"
+     */
+    private static String formatAverages(double[] averages) {
+        StringBuilder result = new StringBuilder();
+        for (int metric = 0; metric < averages.length; metric++) {
+            if (metric > 0) {
+                result.append(',');
+            }
+            result.append(YearlyWaterRecord.METRIC_NAMES[metric]).append('=')
+                    .append(Double.isNaN(averages[metric]) ? "-" : Double.toString(averages[metric]));
+        }
+        return result.toString();
+    }
+}
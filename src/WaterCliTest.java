@@ -0,0 +1,119 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.PipedReader;
+import java.io.PipedWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs WaterCli over the same queries with one and with several worker threads and checks that both give every
+ * answer in input order, and that queries arriving one at a time are answered before the input closes
+ */
+class WaterCliTest {
+
+    @Test
+    public void testThreadCountDoesNotChangeOutput() throws IOException, InterruptedException {
+        WaterSketches sketches = new WaterSketches();
+        SortedArrayList<YearlyWaterRecord> waterData = Main.loadWaterData(new File("IsoYearWaterData.txt"),
+                new SortedArrayList<>(), sketches);
+        WaterCli cli = new WaterCli(new WaterQueries(waterData, new QueryCache<>(64)), new TrendColumns(waterData),
+                sketches);
+
+        // enough queries for many batches, so several are in flight at once with four threads
+        StringBuilder input = new StringBuilder("# header comment\n\n");
+        java.util.ArrayList<String> queries = new java.util.ArrayList<>();
+        int row = 0;
+        for (YearlyWaterRecord record : waterData) {
+            String iso = record.isoYear().substring(0, 3);
+            int year = Main.yearOf(record.isoYear());
+            String metric = YearlyWaterRecord.METRIC_NAMES[row % YearlyWaterRecord.METRIC_COUNT];
+            String[] lines = {
+                    "lookup " + record.isoYear(),
+                    "compare " + record.isoYear() + " " + waterData.get((row * 7) % waterData.size()).isoYear(),
+                    row % 5 == 0 ? "series " + iso : "trend " + record.isoYear(),
+                    row % 3 == 0 ? "topk " + metric + " " + year + " 3" : "aggregate " + year,
+                    row % 2 == 0 ? "quantile " + metric + " " + year + " 0.5" : "histogram " + metric + " " + year,
+                    row % 97 == 0 ? "bogus " + iso : "lookup XXX" + year,
+            };
+            for (String line : lines) {
+                queries.add(line);
+                input.append(row % 50 == 0 ? "  " + line + "  " : line).append('\n');
+            }
+            if (row % 500 == 0) {
+                input.append("\n# another comment\n");
+            }
+            row++;
+        }
+
+        StringWriter single = new StringWriter();
+        StringWriter pooled = new StringWriter();
+        assertEquals(queries.size(), cli.run(new BufferedReader(new StringReader(input.toString())), single, 1,
+                null));
+        assertEquals(queries.size(), cli.run(new BufferedReader(new StringReader(input.toString())), pooled, 4,
+                null));
+        assertEquals(single.toString(), pooled.toString());
+
+        String[] lines = pooled.toString().split(System.lineSeparator());
+        assertEquals(queries.size(), lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(cli.answer(queries.get(i)), lines[i]);
+        }
+        assertEquals("lookup ABW2000 -> ABW2000,94.4888063555081,<1,5.41957660372234,<1", lines[0]);
+        assertEquals("error: unknown query: bogus ABW", lines[5]);
+        assertTrue(lines[6].startsWith("lookup "));
+        assertEquals("lookup XXX2000 -> not found", cli.answer("lookup XXX2000"));
+        assertTrue(cli.answer("topk Nothing 2000 3").startsWith("error: unknown metric"));
+        assertTrue(cli.answer("compare KHM2000").startsWith("error: expected 2 argument(s)"));
+    }
+
+    @Test
+    public void testAnswersAppearBeforeInputCloses() throws Exception {
+        SortedArrayList<YearlyWaterRecord> waterData = new SortedArrayList<>();
+        waterData.add(new YearlyWaterRecord("KHM2000", 40.0, 10.0, 30.0, 20.0));
+        WaterCli cli = new WaterCli(new WaterQueries(waterData));
+        PipedWriter typed = new PipedWriter();
+        BufferedReader input = new BufferedReader(new PipedReader(typed));
+        StringWriter output = new StringWriter();
+        ExecutorService runner = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> answered = runner.submit(() -> cli.run(input, output, 2, null));
+            // each line is answered while the input is still open, as it is for someone typing queries
+            for (String query : new String[]{"lookup KHM2000", "lookup KHM2001"}) {
+                typed.write(query + "\n");
+                typed.flush();
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+                while (!output.toString().contains(query + " -> ") && System.nanoTime() < deadline) {
+                    Thread.sleep(5);
+                }
+                assertTrue(output.toString().contains(query + " -> "), "no answer to " + query);
+            }
+            typed.close();
+            assertEquals(2, answered.get(10, TimeUnit.SECONDS));
+            assertEquals(cli.answer("lookup KHM2000") + System.lineSeparator() + cli.answer("lookup KHM2001")
+                    + System.lineSeparator(), output.toString());
+        } finally {
+            runner.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testEmptyInputAndBadThreadCount() throws IOException, InterruptedException {
+        WaterCli cli = new WaterCli(new WaterQueries(new SortedArrayList<>()));
+        StringWriter output = new StringWriter();
+        assertEquals(0, cli.run(new BufferedReader(new StringReader("# only a comment\n\n")), output, 4, null));
+        assertEquals("", output.toString());
+        assertTrue(cli.answer("trend KHM2000").startsWith("error: trend columns not loaded"));
+        assertTrue(cli.answer("quantile BasicPlusPct 2000 0.5").startsWith("error: sketches not loaded"));
+        assertThrows(IllegalArgumentException.class,
+                () -> cli.run(new BufferedReader(new StringReader("")), output, 0, null));
+    }
+}
@@ -2,6 +2,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.List;
 
 /**
  * Provides a graphical user interface to allow users to compare water data across years and countries
@@ -66,17 +67,38 @@ public class WaterComparisonGui extends JFrame {
     /** strings for legend labels  */
     private static final String[] LEGEND_LABELS = new String[]{" Basic", "Basic30", "NonSep", "Surface"};
 
+    /** colors of the first country's bars, in metric order */
+    private static final Color[] LEFT_COLORS = new Color[]{BASIC1, BASIC30_1, UNSEP1, SURFACE1};
+    /** colors of the second country's bars, in metric order */
+    private static final Color[] RIGHT_COLORS = new Color[]{BASIC2, BASIC30_2, UNSEP2, SURFACE2};
+
+    /** y position of the playback controls */
+    private static final int PLAYBACK_Y = 220;
+    /** frames painted per second during playback */
+    private static final int FRAMES_PER_SECOND = 60;
+
+    /** time spent painting the chart, when metrics are enabled */
+    private static final WaterMetrics.Histogram PAINT_LATENCY = WaterMetrics.histogram("gui.paint.nanos");
+    /** chart lookups that found no record, when metrics are enabled */
+    private static final WaterMetrics.Counter LOOKUP_MISSES = WaterMetrics.counter("gui.lookup.misses");
+    /** binary searches of the sorted water data, when metrics are enabled */
+    private static final WaterMetrics.Counter LOOKUPS = WaterMetrics.counter("records.lookup.calls");
+    /** sampled latency of those searches, when metrics are enabled */
+    private static final WaterMetrics.Histogram LOOKUP_LATENCY = WaterMetrics.histogram("records.lookup.nanos");
+
     //*************************************************************************
     //          INSTANCE
     //*************************************************************************
     /** list of sorted water data */
-    private final SortedArrayListInterface<YearlyWaterRecord> waterData;
+    private SortedArrayListInterface<YearlyWaterRecord> waterData;
     /** array of countries included in water data */
     private final String[] countries;
     /** array of ISO codes included in water data */
     private final String[] isoCodes;
-    /** array of years covered by water data */
-    private final int[] years;
+    /** sorted list of years covered by water data; grows as records arrive */
+    private final transient SortedArrayList<Integer> years;
+    /** whether water data is still being loaded in the background */
+    private boolean loading;
 
     /** widget for selecting first comparison year */
     JComboBox<String> year1Combo;
@@ -88,13 +110,30 @@ public class WaterComparisonGui extends JFrame {
     JComboBox<String> country2Combo;
     /** panel to use for drawing bars */
     JPanel drawPanel;
+    /** bar showing progress of a background load */
+    JProgressBar progressBar;
+    /** button that starts and pauses playback through the years */
+    JButton playButton;
+    /** slider showing and choosing the year being played */
+    JSlider timelineSlider;
+    /** steps playback one frame at a time on the event dispatch thread */
+    private final Timer playbackTimer;
+    /** frames for the countries being played; null when the chart shows the combo box selection */
+    private transient TimelineFrames timeline;
+    /** frame of the timeline being shown */
+    private int frame;
+    /** counts playback requests, so frames finished after the selection changed are dropped */
+    private int playbackRequest;
+    /** whether the slider is being moved by playback rather than by the user */
+    private boolean adjustingSlider;
 
     //*************************************************************************
     //          CONSTRUCTOR
     //*************************************************************************
     /**
      * Creates and displays the graphical user interface
-     * @param waterData     sorted list of water data for all years and countries; must not be null or empty
+     * @param waterData     sorted list of water data for all years and countries; must not be null; may be
+     *                      empty if records will arrive later through showRecords
      * @param countries     array of countries covered; must not be null or empty; must be the same size as isoCodes array
      * @param isoCodes      array of country ISO codes; must not be null or empty; must be the same size as countries array
      * @param years         array of years covered by this data
@@ -106,8 +145,8 @@ public class WaterComparisonGui extends JFrame {
             int[] years) {
 
         //      Preconditions
-        if (waterData == null || waterData.size() == 0) {
-            throw new IllegalArgumentException("waterData must not be null, and must contain some data");
+        if (waterData == null) {
+            throw new IllegalArgumentException("waterData must not be null");
         }
         if (countries == null || countries.length == 0) {
             throw new IllegalArgumentException("countries must not be null, and must contain some data");
@@ -122,7 +161,7 @@ public class WaterComparisonGui extends JFrame {
         this.waterData = waterData;
         this.countries = countries;
         this.isoCodes = isoCodes;
-        this.years = years;
+        this.years = new SortedArrayList<>();
 
         //      JFrame and main JPanel Setup
         setTitle("Water Quality Comparison");
@@ -147,9 +186,14 @@ public class WaterComparisonGui extends JFrame {
         country2Combo = new JComboBox<>();
         country2Combo.setBounds(COMBO_X, comboCurrentY, 200, 30);
 
+        playButton = new JButton("Play");
+        playButton.setBounds(COMBO_X, PLAYBACK_Y, 70, 25);
+        timelineSlider = new JSlider(0, 0, 0);
+        timelineSlider.setBounds(COMBO_X + 75, PLAYBACK_Y, 125, 25);
+        playbackTimer = new Timer(1000 / FRAMES_PER_SECOND, event -> nextFrame());
+
         for (int year : years)  {
-            year1Combo.addItem(String.valueOf(year));
-            year2Combo.addItem(String.valueOf(year));
+            addYear(year);
         }
 
         for (String country : countries) {
@@ -161,6 +205,8 @@ public class WaterComparisonGui extends JFrame {
         mainPanel.add(year2Combo);
         mainPanel.add(country1Combo);
         mainPanel.add(country2Combo);
+        mainPanel.add(playButton);
+        mainPanel.add(timelineSlider);
 
         drawPanel = new DrawPanel();
         drawPanel.setBounds(250, 30, GRAPH_WIDTH, GRAPH_HEIGHT);
@@ -172,12 +218,218 @@ public class WaterComparisonGui extends JFrame {
         year2Combo.addActionListener(comboListener);
         country1Combo.addActionListener(comboListener);
         country2Combo.addActionListener(comboListener);
+        playButton.addActionListener(event -> togglePlayback());
+        timelineSlider.addChangeListener(event -> seek());
 
         addLegend(mainPanel, LEGEND_COLORS, LEGEND_LABELS);
 
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setBounds(COMBO_X, LEGEND_START_Y, 200, 25);
+        progressBar.setStringPainted(true);
+        progressBar.setVisible(false);
+        mainPanel.add(progressBar);
+
         setVisible(true);
     }
 
+    //*************************************************************************
+    //          BACKGROUND LOADING
+    //*************************************************************************
+
+    /**
+     * shows the progress of a background load until it finishes; charts for data that has not arrived yet
+     * show a loading message instead of bars
+     * @param loader    worker that reports progress through its "progress" property; must not be null
+     */
+    public void trackLoading(SwingWorker<?, ?> loader) {
+        if (loader == null) {
+            throw new IllegalArgumentException("loader must not be null");
+        }
+        loading = true;
+        progressBar.setValue(0);
+        progressBar.setString("Loading data...");
+        progressBar.setVisible(true);
+        loader.addPropertyChangeListener(event -> {
+            if ("progress".equals(event.getPropertyName())) {
+                progressBar.setValue((Integer) event.getNewValue());
+            } else if ("state".equals(event.getPropertyName()) && event.getNewValue() == SwingWorker.StateValue.DONE) {
+                loading = false;
+                progressBar.setVisible(false);
+                drawPanel.repaint();
+            }
+        });
+    }
+
+    /**
+     * makes years selectable, e.g. before their records have loaded; must be called on the event dispatch thread
+     * @param years     years to add, in any order; must not be null
+     */
+    public void addYears(int[] years) {
+        if (years == null) {
+            throw new IllegalArgumentException("years must not be null");
+        }
+        for (int year : years) {
+            addYear(year);
+        }
+    }
+
+    /**
+     * replaces the water data with a newer list, e.g. one holding more of the records being loaded; must be called
+     * on the event dispatch thread, and the list must not be changed afterwards by any other thread
+     * @param records   sorted list of the records to show; must not be null
+     */
+    public void showRecords(SortedArrayListInterface<YearlyWaterRecord> records) {
+        if (records == null) {
+            throw new IllegalArgumentException("records must not be null");
+        }
+        waterData = records;
+        if (timeline != null) {
+            stopPlayback();     // the frames were built from the data before these records
+        }
+        drawPanel.repaint();
+    }
+
+    /**
+     * adds a year to both year combo boxes in sorted position, if not already present
+     * @param year      year to add
+     */
+    private void addYear(int year) {
+        int index = years.indexOf(year);
+        if (index >= 0) {
+            return;
+        }
+        index = -(index + 1);
+        years.add(year);
+        year1Combo.insertItemAt(String.valueOf(year), index);
+        year2Combo.insertItemAt(String.valueOf(year), index);
+        adjustingSlider = true;
+        timelineSlider.setMaximum(years.size() - 1);
+        adjustingSlider = false;
+        if (year1Combo.getSelectedIndex() < 0) {
+            year1Combo.setSelectedIndex(0);
+            year2Combo.setSelectedIndex(0);
+        }
+    }
+
+    //*************************************************************************
+    //          PLAYBACK
+    //*************************************************************************
+
+    /**
+     * starts playback from the slider's year, or pauses or resumes it
+     */
+    private void togglePlayback() {
+        if (playbackTimer.isRunning()) {
+            pause();
+        } else if (timeline != null) {
+            if (frame == timeline.frameCount() - 1) {
+                frame = 0;
+            }
+            playButton.setText("Pause");
+            playbackTimer.start();
+        } else {
+            preparePlayback(true);
+        }
+    }
+
+    /**
+     * copies the selected countries' series on this thread, where the water data is safe to read, then builds the
+     * frames on a background thread; the chart keeps showing the combo box selection until they are ready
+     * @param play      whether to start playing once the frames are ready, rather than show the slider's year
+     */
+    private void preparePlayback(boolean play) {
+        String iso1 = lookUpIso((String) country1Combo.getSelectedItem());
+        String iso2 = lookUpIso((String) country2Combo.getSelectedItem());
+        if (iso1 == null || iso2 == null || years.isEmpty()) {
+            return;
+        }
+        int[] playYears = new int[years.size()];
+        for (int i = 0; i < playYears.length; i++) {
+            playYears[i] = years.get(i);
+        }
+        TimelineFrames prefetched = TimelineFrames.prefetch(waterData, new String[]{iso1, iso2}, playYears);
+        int request = ++playbackRequest;
+        playButton.setEnabled(false);
+        new SwingWorker<TimelineFrames, Void>() {
+            @Override
+            protected TimelineFrames doInBackground() {
+                return prefetched.interpolate();
+            }
+
+            @Override
+            protected void done() {
+                if (request != playbackRequest) {
+                    return;
+                }
+                playButton.setEnabled(true);
+                try {
+                    timeline = get();
+                } catch (Exception e) {
+                    return;
+                }
+                frame = timeline.frameOf(Math.min(timelineSlider.getValue(), timeline.yearCount() - 1));
+                if (play) {
+                    playButton.setText("Pause");
+                    playbackTimer.start();
+                }
+                drawPanel.repaint();
+            }
+        }.execute();
+    }
+
+    /**
+     * advances playback one frame, stopping at the last year
+     */
+    private void nextFrame() {
+        if (frame >= timeline.frameCount() - 1) {
+            pause();
+            return;
+        }
+        frame++;
+        int yearIndex = timeline.yearIndexOf(frame);
+        if (timelineSlider.getValue() != yearIndex) {
+            adjustingSlider = true;
+            timelineSlider.setValue(yearIndex);
+            adjustingSlider = false;
+        }
+        drawPanel.repaint();
+    }
+
+    /**
+     * pauses playback, keeping the current frame on screen
+     */
+    private void pause() {
+        playbackTimer.stop();
+        playButton.setText("Play");
+    }
+
+    /**
+     * shows the year the user moved the slider to, preparing frames first if there are none
+     */
+    private void seek() {
+        if (adjustingSlider) {
+            return;
+        }
+        if (timeline == null) {
+            if (playButton.isEnabled()) {
+                preparePlayback(false);
+            }
+            return;
+        }
+        frame = timeline.frameOf(Math.min(timelineSlider.getValue(), timeline.yearCount() - 1));
+        drawPanel.repaint();
+    }
+
+    /**
+     * leaves playback, so the chart shows the combo box selection again
+     */
+    private void stopPlayback() {
+        pause();
+        playbackRequest++;
+        playButton.setEnabled(true);
+        timeline = null;
+    }
+
     //*************************************************************************
     //          HELPER METHODS
     //*************************************************************************
@@ -199,6 +451,29 @@ public class WaterComparisonGui extends JFrame {
         return null;
     }
 
+    /**
+     * finds the water record for the specified ISO code and year
+     * @param isoYear       ISO code followed by year, e.g. "KHM2000"
+     * @return              the record; null, if there is no data for that country and year
+     */
+    private YearlyWaterRecord lookUpRecord(String isoYear) {
+        long start = WaterMetrics.ENABLED ? WaterMetrics.sampleStart(LOOKUPS) : 0;
+        int index = waterData.indexOf(new YearlyWaterRecord(isoYear, 0.0, 0.0, 0.0, 0.0));
+        if (start != 0) {
+            WaterMetrics.sampleEnd(start, LOOKUP_LATENCY, "lookup");
+        }
+        if (index >= 0) {
+            return waterData.get(index);
+        }
+        if (WaterMetrics.ENABLED) {
+            LOOKUP_MISSES.increment();
+            WaterMetrics.LookupMissEvent event = new WaterMetrics.LookupMissEvent();
+            event.isoYear = isoYear;
+            event.commit();
+        }
+        return null;
+    }
+
     /**
      * draws one bar pair in the GUI's drawing area
      * @param g                 graphics tools for drawing on the requested panel
@@ -268,6 +543,7 @@ public class WaterComparisonGui extends JFrame {
 
         @Override
         public void actionPerformed(ActionEvent e) {
+            stopPlayback();
             drawPanel.repaint();
         }
     }
@@ -286,7 +562,28 @@ public class WaterComparisonGui extends JFrame {
          */
         @Override
         protected void paintComponent(Graphics g) {
+            if (!WaterMetrics.ENABLED) {
+                paintChart(g);
+                return;
+            }
+            WaterMetrics.PaintEvent event = new WaterMetrics.PaintEvent();
+            event.begin();
+            long start = System.nanoTime();
+            paintChart(g);
+            PAINT_LATENCY.record(System.nanoTime() - start);
+            event.commit();
+        }
+
+        /**
+         * draws the bars for the currently selected countries and years
+         * @param g     graphics tools to draw on the corresponding panel
+         */
+        private void paintChart(Graphics g) {
             super.paintComponent(g);
+            if (timeline != null) {
+                paintFrame(g);
+                return;
+            }
 
             // Retrieve pertinent data
             String country1 = (String)country1Combo.getSelectedItem();
@@ -295,10 +592,15 @@ public class WaterComparisonGui extends JFrame {
             String year2 = (String)year2Combo.getSelectedItem();
             String iso1 = lookUpIso(country1) + year1;
             String iso2 = lookUpIso(country2) + year2;
-            YearlyWaterRecord record1 = waterData.get(waterData.indexOf(
-                    new YearlyWaterRecord(iso1, 0.0, 0.0, 0.0, 0.0)));
-            YearlyWaterRecord record2 = waterData.get(waterData.indexOf(
-                    new YearlyWaterRecord(iso2, 0.0, 0.0, 0.0, 0.0)));
+            YearlyWaterRecord record1 = lookUpRecord(iso1);
+            YearlyWaterRecord record2 = lookUpRecord(iso2);
+            if (record1 == null || record2 == null) {
+                if (loading) {
+                    g.setColor(Color.BLACK);
+                    g.drawString("Loading...", GRAPH_WIDTH / 2 - 25, GRAPH_HEIGHT / 2);
+                }
+                return;
+            }
 
             // Draw bars in sections
             int currentBarX = 0;
@@ -311,5 +613,20 @@ public class WaterComparisonGui extends JFrame {
             currentBarX += BAR_WIDTH * 3;
             drawSection(g, record1.surfacePct(), record2.surfacePct(), SURFACE1, SURFACE2, currentBarX);
         }
+
+        /**
+         * draws the current playback frame from the prepared buffer; nothing is looked up or allocated
+         * @param g     graphics tools to draw on the corresponding panel
+         */
+        private void paintFrame(Graphics g) {
+            int currentBarX = BAR_WIDTH;
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                drawSection(g, timeline.value(frame, 0, metric), timeline.value(frame, 1, metric),
+                        LEFT_COLORS[metric], RIGHT_COLORS[metric], currentBarX);
+                currentBarX += BAR_WIDTH * 3;
+            }
+            g.setColor(Color.BLACK);
+            g.drawString(timeline.yearLabel(frame), GRAPH_WIDTH - 40, 20);
+        }
     }
 }
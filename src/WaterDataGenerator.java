@@ -0,0 +1,317 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Writes synthetic datasets in the exact IsoYearWaterData.txt and CountriesAndIsoCodes.txt formats at any scale;
+ * rows are produced from their ordinal alone, so memory use is constant regardless of the number of rows.
+ * Usage: java WaterDataGenerator rows waterFile countriesFile [sorted|year_major|shuffled|reversed]
+ * [duplicateFraction] [sentinelFraction] [firstYear] [yearCount] [seed]
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class WaterDataGenerator {
+
+    /**
+     * Order in which rows are written to the water data file
+     */
+    public enum Order {
+        /** ascending isoYear order: every year of one region, then the next region */
+        SORTED,
+        /**
+         * grouped by year, as in the bundled file: every region for the first year, then every region for the next;
+         * each year after the first inserts all through an already sorted array
+         */
+        YEAR_MAJOR,
+        /** a pseudo-random permutation of the rows */
+        SHUFFLED,
+        /** descending isoYear order; the worst case for insertion into a sorted array */
+        REVERSED
+    }
+
+    /** number of letters available for region codes */
+    private static final int LETTERS = 26;
+    /** line separator of the bundled files, whatever the platform */
+    private static final String LINE_END = "\r\n";
+
+    /** number of rows to write */
+    private final long rows;
+    /** order in which rows are written */
+    private final Order order;
+    /** fraction of values (0 to 1) written as one of the sentinels {@code "-"}, {@code "<1"} or {@code ">99"} */
+    private final double sentinelFraction;
+    /** first year covered by the data */
+    private final int firstYear;
+    /** number of consecutive years covered by the data */
+    private final int yearCount;
+    /** seed for all random choices */
+    private final long seed;
+
+    /** number of distinct keys */
+    private final long keyCount;
+    /** number of distinct region codes */
+    private final long regionCount;
+    /** number of letters in each region code */
+    private final int codeWidth;
+    /** multiplier of the affine permutation used for shuffled order; coprime with rows */
+    private final long shuffleMultiplier;
+    /** offset of the affine permutation used for shuffled order */
+    private final long shuffleOffset;
+
+    /**
+     * Creates a generator
+     *
+     * @param rows              number of rows to write; must be 1 to Integer.MAX_VALUE
+     * @param order             order in which rows are written; must not be null
+     * @param duplicateFraction fraction of rows that repeat another row's key; must be 0 (inclusive) to 1 (exclusive)
+     * @param sentinelFraction  fraction of values written as sentinels; must be 0 to 1
+     * @param firstYear         first year covered by the data; must be 1000 to 9999
+     * @param yearCount         number of years covered by the data; must be positive and end by 9999
+     * @param seed              seed for all random choices
+     */
+    public WaterDataGenerator(long rows, Order order, double duplicateFraction, double sentinelFraction,
+                              int firstYear, int yearCount, long seed) {
+        if (rows <= 0 || rows > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("rows must be 1 to " + Integer.MAX_VALUE + ": " + rows);
+        }
+        if (order == null) {
+            throw new IllegalArgumentException("order must not be null");
+        }
+        if (duplicateFraction < 0 || duplicateFraction >= 1) {
+            throw new IllegalArgumentException("duplicateFraction must be in [0, 1): " + duplicateFraction);
+        }
+        if (sentinelFraction < 0 || sentinelFraction > 1) {
+            throw new IllegalArgumentException("sentinelFraction must be in [0, 1]: " + sentinelFraction);
+        }
+        if (firstYear < 1000 || yearCount <= 0 || firstYear + yearCount - 1 > 9999) {
+            throw new IllegalArgumentException("years must stay within four digits: " + firstYear + "+" + yearCount);
+        }
+        this.rows = rows;
+        this.order = order;
+        this.sentinelFraction = sentinelFraction;
+        this.firstYear = firstYear;
+        this.yearCount = yearCount;
+        this.seed = seed;
+
+        keyCount = Math.max(1, Math.round(rows * (1 - duplicateFraction)));
+        regionCount = (keyCount + yearCount - 1) / yearCount;
+        int width = 3;
+        long capacity = LETTERS * LETTERS * LETTERS;
+        while (capacity < regionCount) {
+            width++;
+            capacity *= LETTERS;
+        }
+        codeWidth = width;
+
+        long multiplier = (long) (rows * 0.6180339887) | 1;
+        while (gcd(multiplier, rows) != 1) {
+            multiplier++;
+        }
+        shuffleMultiplier = multiplier % rows;
+        shuffleOffset = Math.floorMod(seed, rows);
+    }
+
+    /**
+     * Retrieves the number of distinct keys the generator writes
+     *
+     * @return the number of distinct keys
+     */
+    public long keyCount() {
+        return keyCount;
+    }
+
+    /**
+     * Retrieves the number of distinct region codes the generator writes
+     *
+     * @return the number of region codes
+     */
+    public long regionCount() {
+        return regionCount;
+    }
+
+    /**
+     * Retrieves the isoYear key with the specified ordinal; keys are in ascending order of ordinal
+     *
+     * @param keyOrdinal the ordinal of the key; must be 0 to keyCount-1
+     * @return the key, e.g. "AAB2003"
+     */
+    public String keyOf(long keyOrdinal) {
+        if (keyOrdinal < 0 || keyOrdinal >= keyCount) {
+            throw new IndexOutOfBoundsException("keyOrdinal: " + keyOrdinal);
+        }
+        return regionCode(keyOrdinal / yearCount) + (firstYear + keyOrdinal % yearCount);
+    }
+
+    /**
+     * Retrieves the region code with the specified ordinal; codes are in ascending order of ordinal
+     *
+     * @param regionOrdinal the ordinal of the region; must be 0 to regionCount-1
+     * @return the code, e.g. "AAB"
+     */
+    public String regionCode(long regionOrdinal) {
+        char[] code = new char[codeWidth];
+        for (int i = codeWidth - 1; i >= 0; i--) {
+            code[i] = (char) ('A' + regionOrdinal % LETTERS);
+            regionOrdinal /= LETTERS;
+        }
+        return new String(code);
+    }
+
+    /**
+     * Writes the water data file: a header line followed by one comma-separated row per record
+     *
+     * @param waterDataFile the file to write; replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public void writeWaterData(File waterDataFile) throws IOException {
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(waterDataFile), 1 << 16)) {
+            out.write("IsoYear,BasicPlusPct,LimitedPct,UnimprovedPct,SurfacePct");
+            out.write(LINE_END);
+            Random random = new Random(seed);
+            StringBuilder line = new StringBuilder(96);
+            for (long row = 0; row < rows; row++) {
+                long keyOrdinal = keyOrdinalOf(row);
+                double basic = random.nextDouble() * 100;
+                double limited = random.nextDouble() * (100 - basic);
+                double unimproved = random.nextDouble() * (100 - basic - limited);
+                double surface = 100 - basic - limited - unimproved;
+
+                line.setLength(0);
+                line.append(keyOf(keyOrdinal));
+                appendValue(line, basic, random);
+                appendValue(line, limited, random);
+                appendValue(line, unimproved, random);
+                appendValue(line, surface, random);
+                out.append(line);
+                out.write(LINE_END);
+            }
+        }
+    }
+
+    /**
+     * Writes the countries file: the region count, a header line, then one "name#code" line per region
+     *
+     * @param countriesFile the file to write; replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public void writeCountries(File countriesFile) throws IOException {
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(countriesFile), 1 << 16)) {
+            out.write(String.valueOf(regionCount));
+            out.write(LINE_END);
+            out.write("Country#ISO Code");
+            out.write(LINE_END);
+            for (long region = 0; region < regionCount; region++) {
+                String code = regionCode(region);
+                out.write("Region " + code + "#" + code);
+                out.write(LINE_END);
+            }
+        }
+    }
+
+    /**
+     * Finds the key written on a row according to the configured order; rows sharing a key are adjacent
+     *
+     * @param row the row number in the file
+     * @return the ordinal of the key, 0 to keyCount-1
+     */
+    private long keyOrdinalOf(long row) {
+        long position = rowPosition(row) * keyCount / rows;
+        if (order != Order.YEAR_MAJOR) {
+            return position;
+        }
+        // the last region may cover only the first fullYears years; later years have one region fewer
+        long fullYears = keyCount - (regionCount - 1) * yearCount;
+        long yearIndex;
+        long region;
+        if (position < fullYears * regionCount) {
+            yearIndex = position / regionCount;
+            region = position % regionCount;
+        } else {
+            position -= fullYears * regionCount;
+            yearIndex = fullYears + position / (regionCount - 1);
+            region = position % (regionCount - 1);
+        }
+        return region * yearCount + yearIndex;
+    }
+
+    /**
+     * Maps a row number to its position in sorted order according to the configured order
+     *
+     * @param row the row number in the file
+     * @return the position of the row in sorted order, 0 to rows-1
+     */
+    private long rowPosition(long row) {
+        switch (order) {
+            case SHUFFLED:
+                return (shuffleMultiplier * row + shuffleOffset) % rows;
+            case REVERSED:
+                return rows - 1 - row;
+            default:
+                return row;
+        }
+    }
+
+    /**
+     * Appends a comma and the value, or a sentinel in its place for the configured fraction of values
+     *
+     * @param line   the line being built
+     * @param value  the percentage to append
+     * @param random source of randomness for sentinel choice
+     */
+    private void appendValue(StringBuilder line, double value, Random random) {
+        line.append(',');
+        if (random.nextDouble() < sentinelFraction) {
+            double pick = random.nextDouble();
+            if (pick < 1.0 / 3) {
+                line.append('-');
+            } else if (pick < 2.0 / 3) {
+                line.append("<1");
+            } else {
+                line.append(">99");
+            }
+        } else {
+            line.append(value);
+        }
+    }
+
+    /**
+     * Computes the greatest common divisor of two positive numbers
+     *
+     * @param a the first number
+     * @param b the second number
+     * @return the greatest common divisor
+     */
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("usage: java WaterDataGenerator rows waterFile countriesFile"
+                    + " [sorted|year_major|shuffled|reversed]"
+                    + " [duplicateFraction] [sentinelFraction] [firstYear] [yearCount] [seed]");
+            return;
+        }
+        long rows = Long.parseLong(args[0]);
+        Order order = args.length > 3 ? Order.valueOf(args[3].toUpperCase()) : Order.SORTED;
+        double duplicateFraction = args.length > 4 ? Double.parseDouble(args[4]) : 0;
+        double sentinelFraction = args.length > 5 ? Double.parseDouble(args[5]) : 0.05;
+        int firstYear = args.length > 6 ? Integer.parseInt(args[6]) : 2000;
+        int yearCount = args.length > 7 ? Integer.parseInt(args[7]) : 23;
+        long seed = args.length > 8 ? Long.parseLong(args[8]) : 42;
+
+        WaterDataGenerator generator = new WaterDataGenerator(rows, order, duplicateFraction, sentinelFraction,
+                firstYear, yearCount, seed);
+        generator.writeWaterData(new File(args[1]));
+        generator.writeCountries(new File(args[2]));
+        System.out.printf("wrote %,d rows (%,d keys, %,d regions)%n", rows, generator.keyCount(), generator.regionCount());
+    }
+}
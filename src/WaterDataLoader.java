@@ -0,0 +1,175 @@
+import javax.swing.*;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Reads the water data file on a background thread so the window is usable while a large file loads. A first,
+ * file is read once: each
+ * chunk of records is sorted and merged into a new sorted list on the background thread, and that list is handed
+ * to the GUI together with the years first seen in the chunk, so the first records and their years show up as
+ * soon as they are read. The GUI only swaps the list in: the event dispatch thread never inserts a record. Chunks
+ * grow with the list, so all the merges together copy about 2n records, where inserting one record at a time
+ * shifts O(n^2).
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class WaterDataLoader extends SwingWorker<Integer, WaterDataLoader.Chunk> {
+
+    /** number of records in the first chunk, and between progress updates */
+    private static final int CHUNK_SIZE = 1000;
+
+    /** rows turned into records, when metrics are enabled */
+    private static final WaterMetrics.Counter ROWS_PARSED = WaterMetrics.counter("load.rows.parsed");
+    /** rows skipped because they could not be parsed, when metrics are enabled */
+    private static final WaterMetrics.Counter ROWS_REJECTED = WaterMetrics.counter("load.rows.rejected");
+    /** time to read and parse each input file, when metrics are enabled */
+    private static final WaterMetrics.Histogram FILE_LOAD = WaterMetrics.histogram("load.file.nanos");
+
+    /** file in the IsoYearWaterData.txt format */
+    private final File waterDataFile;
+    /** GUI that receives the records */
+    private final WaterComparisonGui gui;
+
+    /**
+     * Creates a loader; call execute() to start it
+     *
+     * @param waterDataFile file in the IsoYearWaterData.txt format; must not be null
+     * @param gui           GUI that receives the records; must not be null
+     */
+    public WaterDataLoader(File waterDataFile, WaterComparisonGui gui) {
+        if (waterDataFile == null || gui == null) {
+            throw new IllegalArgumentException("waterDataFile and gui must not be null");
+        }
+        this.waterDataFile = waterDataFile;
+        this.gui = gui;
+    }
+
+    /**
+     * Parses the file, publishing ever larger sorted lists of the records read so far with the years they add, and
+     * progress as the fraction of bytes read
+     *
+     * @return the number of records parsed
+     * @throws IOException if the file cannot be read
+     */
+    @Override
+    protected Integer doInBackground() throws IOException {
+        WaterMetrics.FileLoadEvent loadEvent = new WaterMetrics.FileLoadEvent();
+        loadEvent.begin();
+        long start = System.nanoTime();
+        int parsed = 0;
+        int rejected = 0;
+
+        long totalBytes = Math.max(1, waterDataFile.length());
+        SortedArrayList<YearlyWaterRecord> loaded = new SortedArrayList<>();
+        SortedArrayList<Integer> years = new SortedArrayList<>();
+        try (FileInputStream stream = new FileInputStream(waterDataFile);
+             BufferedReader in = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line = in.readLine(); // gets rid of the line with the isoYear,BasicPlusPct,etc...
+            List<YearlyWaterRecord> chunk = new java.util.ArrayList<>(CHUNK_SIZE);
+            List<Integer> newYears = new java.util.ArrayList<>();
+            while (line != null && (line = in.readLine()) != null) {
+                YearlyWaterRecord record = Main.parseRecord(line);
+                if (record == null) {
+                    rejected++;
+                    continue;
+                }
+                chunk.add(record);
+                parsed++;
+                int year = Main.yearOf(record.isoYear());
+                if (!years.contains(year)) {
+                    years.add(year);
+                    newYears.add(year);
+                }
+                if (chunk.size() >= Math.max(CHUNK_SIZE, loaded.size())) {
+                    // a new list each time, so a list already handed to the GUI is never changed
+                    loaded = loaded.mergeAll(chunk);
+                    publish(new Chunk(loaded, toArray(newYears)));
+                    chunk.clear();
+                    newYears.clear();
+                }
+                if (parsed % CHUNK_SIZE == 0) {
+                    // bytes the reader has taken from the file, so line endings and multi-byte characters count
+                    setProgress((int) Math.min(99, stream.getChannel().position() * 100 / totalBytes));
+                }
+            }
+            if (!chunk.isEmpty()) {
+                publish(new Chunk(loaded.mergeAll(chunk), toArray(newYears)));
+            }
+        }
+        setProgress(100);
+
+        if (WaterMetrics.ENABLED) {
+            ROWS_PARSED.add(parsed);
+            ROWS_REJECTED.add(rejected);
+            FILE_LOAD.record(System.nanoTime() - start);
+            loadEvent.file = waterDataFile.getPath();
+            loadEvent.rowsParsed = parsed;
+            loadEvent.rowsRejected = rejected;
+            loadEvent.commit();
+        }
+        return parsed;
+    }
+
+    /**
+     * Copies years into an array
+     *
+     * @param years the years
+     * @return the years, in the same order
+     */
+    private static int[] toArray(List<Integer> years) {
+        int[] result = new int[years.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = years.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Hands the years of every chunk published since the last call and the newest list to the GUI; runs on the
+     * event dispatch thread
+     *
+     * @param chunks the chunks published since the last call, each list holding all records of the ones before it
+     */
+    @Override
+    protected void process(List<Chunk> chunks) {
+        for (Chunk chunk : chunks) {
+            gui.addYears(chunk.newYears());
+        }
+        gui.showRecords(chunks.get(chunks.size() - 1).records());
+    }
+
+    /**
+     * Reports a failed load; runs on the event dispatch thread
+     */
+    @Override
+    protected void done() {
+        try {
+            get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof FileNotFoundException) {
+                System.out.println("file not found");
+            } else {
+                System.out.println("could not load " + waterDataFile + ": " + e.getCause());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * One published step of the load
+     *
+     * @param records  sorted list of every record read so far; never changed after it is published
+     * @param newYears years first seen since the previous chunk, in the order they were read
+     */
+    record Chunk(SortedArrayList<YearlyWaterRecord> records, int[] newYears) {
+    }
+}
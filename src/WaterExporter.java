@@ -0,0 +1,569 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Streams records, time series and per-year aggregates to a channel as CSV, JSON or the IsoYearWaterData.txt
+ * format; output goes through one reusable direct buffer, so memory use does not depend on the size of the result.
+ * Numbers and keys are encoded straight into the buffer, keys as UTF-8 and escaped or quoted as the format needs.
+ * Usage: java WaterExporter csv|json|isoyear outputFile [isoCode]
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class WaterExporter {
+
+    /**
+     * Output formats
+     */
+    public enum Format {
+        /** comma-separated values with a header row; missing values are empty fields */
+        CSV,
+        /** a JSON array of objects; missing values are null and censored values are listed per object */
+        JSON,
+        /** the exact layout of IsoYearWaterData.txt, including the "&lt;1", "&gt;99" and "-" sentinels */
+        ISO_YEAR
+    }
+
+    /** size of the output buffer */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /** longest text a single put may need; a double is at most 24 characters */
+    private static final int MAX_FIELD = 64;
+    /** largest magnitude written with the integer fast path */
+    private static final double MAX_EXACT_LONG = 1e15;
+    /** powers of ten that are exact doubles, indexed by exponent */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17};
+    /** every integer below this is an exact double */
+    private static final double MAX_EXACT_INTEGER = 0x1p53;
+    /** smallest magnitude Double.toString writes without an exponent */
+    private static final double MIN_PLAIN = 1e-3;
+    /** magnitudes from this one up are written by Double.toString with an exponent */
+    private static final double MAX_PLAIN = 1e7;
+    /** scaledDecimal result when no decimal parses back to the value */
+    private static final long NONE = -1;
+    /** scaledDecimal result when two decimals are equally near the value */
+    private static final long TIE = -2;
+    /** digits of hexadecimal escapes */
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    /** destination of the output */
+    private final WritableByteChannel channel;
+    /** format of the output */
+    private final Format format;
+    /** reusable direct buffer that output is staged in */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    /** scratch space for formatting integers back to front */
+    private final byte[] digits = new byte[20];
+
+    /**
+     * Creates an exporter; the caller remains responsible for closing the channel
+     *
+     * @param channel destination of the output; must not be null
+     * @param format  format of the output; must not be null
+     */
+    public WaterExporter(WritableByteChannel channel, Format format) {
+        if (channel == null || format == null) {
+            throw new IllegalArgumentException("channel and format must not be null");
+        }
+        this.channel = channel;
+        this.format = format;
+    }
+
+    /**
+     * Writes records as one complete document, consuming the iterator as it goes
+     *
+     * @param records the records to write, e.g. a list's iterator or a time series; must not be null
+     * @return the number of records written
+     * @throws IOException if the channel cannot be written
+     */
+    public long exportRecords(Iterator<YearlyWaterRecord> records) throws IOException {
+        if (records == null) {
+            throw new IllegalArgumentException("records must not be null");
+        }
+        long count = 0;
+        switch (format) {
+            case CSV:
+                putAscii("isoYear");
+                for (String name : YearlyWaterRecord.METRIC_NAMES) {
+                    putByte(',');
+                    putAscii(name);
+                }
+                putByte('\n');
+                while (records.hasNext()) {
+                    putCsvRecord(records.next());
+                    count++;
+                }
+                break;
+            case JSON:
+                putByte('[');
+                while (records.hasNext()) {
+                    if (count > 0) {
+                        putByte(',');
+                    }
+                    putByte('\n');
+                    putJsonRecord(records.next());
+                    count++;
+                }
+                putAscii("\n]\n");
+                break;
+            default:
+                putAscii("IsoYear");
+                for (String name : YearlyWaterRecord.METRIC_NAMES) {
+                    putByte(',');
+                    putAscii(name);
+                }
+                while (records.hasNext()) {
+                    putAscii("\r\n"); // the bundled file uses CRLF and has no newline after its last row
+                    putIsoYearRecord(records.next());
+                    count++;
+                }
+                break;
+        }
+        flush();
+        return count;
+    }
+
+    /**
+     * Writes per-year metric means as one complete document
+     *
+     * @param years    the years, one row each; must not be null
+     * @param averages the means for each year in the order of YearlyWaterRecord.METRIC_NAMES, parallel to years;
+     *                 NaN marks a metric with no data
+     * @throws IOException if the channel cannot be written
+     */
+    public void exportYearAverages(int[] years, double[][] averages) throws IOException {
+        if (years == null || averages == null || years.length != averages.length) {
+            throw new IllegalArgumentException("years and averages must not be null and must be parallel arrays");
+        }
+        if (format == Format.ISO_YEAR) {
+            throw new IllegalStateException("aggregates have no IsoYearWaterData.txt representation");
+        }
+        if (format == Format.CSV) {
+            putAscii("year");
+            for (String name : YearlyWaterRecord.METRIC_NAMES) {
+                putByte(',');
+                putAscii(name);
+            }
+            putByte('\n');
+        } else {
+            putByte('[');
+        }
+        for (int row = 0; row < years.length; row++) {
+            if (format == Format.CSV) {
+                putLong(years[row]);
+                for (double value : averages[row]) {
+                    putByte(',');
+                    if (!Double.isNaN(value)) {
+                        putDouble(value);
+                    }
+                }
+                putByte('\n');
+            } else {
+                putAscii(row == 0 ? "\n{\"year\":" : ",\n{\"year\":");
+                putLong(years[row]);
+                for (int metric = 0; metric < averages[row].length; metric++) {
+                    putJsonName(metric);
+                    if (Double.isNaN(averages[row][metric])) {
+                        putAscii("null");
+                    } else {
+                        putDouble(averages[row][metric]);
+                    }
+                }
+                putByte('}');
+            }
+        }
+        if (format == Format.JSON) {
+            putAscii("\n]\n");
+        }
+        flush();
+    }
+
+    /**
+     * Writes one CSV row
+     *
+     * @param record the record
+     * @throws IOException if the channel cannot be written
+     */
+    private void putCsvRecord(YearlyWaterRecord record) throws IOException {
+        putCsvField(record.isoYear());
+        for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+            putByte(',');
+            if (record.isValid(metric)) {
+                putDouble(record.metric(metric));
+            }
+        }
+        putByte('\n');
+    }
+
+    /**
+     * Writes one JSON object
+     *
+     * @param record the record
+     * @throws IOException if the channel cannot be written
+     */
+    private void putJsonRecord(YearlyWaterRecord record) throws IOException {
+        putAscii("{\"isoYear\":");
+        putJsonString(record.isoYear());
+        boolean censored = false;
+        for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+            putJsonName(metric);
+            if (record.isValid(metric)) {
+                putDouble(record.metric(metric));
+            } else {
+                putAscii("null");
+            }
+            censored |= record.censoring(metric) == Censoring.BELOW || record.censoring(metric) == Censoring.ABOVE;
+        }
+        if (censored) {
+            putAscii(",\"censored\":{");
+            boolean first = true;
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                Censoring censoring = record.censoring(metric);
+                if (censoring == Censoring.BELOW || censoring == Censoring.ABOVE) {
+                    putAscii(first ? "\"" : ",\"");
+                    putAscii(YearlyWaterRecord.METRIC_NAMES[metric]);
+                    putAscii("\":\"");
+                    putAscii(censoring.token());
+                    putByte('"');
+                    first = false;
+                }
+            }
+            putByte('}');
+        }
+        putByte('}');
+    }
+
+    /**
+     * Writes one row in the IsoYearWaterData.txt layout, restoring sentinels from the censoring flags
+     *
+     * @param record the record
+     * @throws IOException if the channel cannot be written
+     */
+    private void putIsoYearRecord(YearlyWaterRecord record) throws IOException {
+        putUtf8(record.isoYear(), 0, record.isoYear().length());
+        for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+            putByte(',');
+            String token = record.censoring(metric).token();
+            if (token != null) {
+                putAscii(token);
+            } else {
+                putDouble(record.metric(metric));
+            }
+        }
+    }
+
+    /**
+     * Writes a comma and the quoted JSON field name of a metric followed by a colon
+     *
+     * @param metric the metric index
+     * @throws IOException if the channel cannot be written
+     */
+    private void putJsonName(int metric) throws IOException {
+        putAscii(",\"");
+        putAscii(YearlyWaterRecord.METRIC_NAMES[metric]);
+        putAscii("\":");
+    }
+
+    /**
+     * Writes a double in its shortest round-trip form without an intermediate String: whole numbers as integers,
+     * and others as Double.toString would write them; only values that need an exponent or a tie-break between two
+     * equally short decimals go through Double.toString
+     *
+     * @param value the value; must be finite
+     * @throws IOException if the channel cannot be written
+     */
+    private void putDouble(double value) throws IOException {
+        if (value == (long) value && Math.abs(value) < MAX_EXACT_LONG && !(value == 0 && 1 / value < 0)) {
+            putLong((long) value);
+        } else if (!putPlainDouble(value)) {
+            putAscii(Double.toString(value));
+        }
+    }
+
+    /**
+     * Writes a value from 1e-3 to 1e7 in plain notation with the fewest fraction digits that parse back to it,
+     * which is the decimal Double.toString chooses. A decimal with k fraction digits that parses back to the value
+     * still does with more digits, so the fewest are found by binary search over k
+     *
+     * @param value the value; not a whole number
+     * @return true, if written; false if the value must be written by Double.toString
+     * @throws IOException if the channel cannot be written
+     */
+    private boolean putPlainDouble(double value) throws IOException {
+        double magnitude = Math.abs(value);
+        if (!(magnitude >= MIN_PLAIN && magnitude < MAX_PLAIN)) {
+            return false;
+        }
+        int high = POWERS_OF_TEN.length - 1;
+        while (high > 0 && magnitude * POWERS_OF_TEN[high] >= MAX_EXACT_INTEGER) {
+            high--;
+        }
+        long scaled = scaledDecimal(magnitude, high);
+        int low = 1;
+        while (scaled >= 0 && low < high) {
+            int middle = (low + high) >>> 1;
+            long candidate = scaledDecimal(magnitude, middle);
+            if (candidate == TIE) {
+                return false;
+            } else if (candidate >= 0) {
+                high = middle;
+                scaled = candidate;
+            } else {
+                low = middle + 1;
+            }
+        }
+        if (scaled < 0) {
+            return false;
+        }
+        long divisor = (long) POWERS_OF_TEN[high];
+        ensure(MAX_FIELD);
+        if (value < 0) {
+            buffer.put((byte) '-');
+        }
+        putLong(scaled / divisor);
+        buffer.put((byte) '.');
+        long fraction = scaled % divisor;
+        for (int position = digits.length - 1; position >= digits.length - high; position--) {
+            digits[position] = (byte) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        buffer.put(digits, digits.length - high, high);
+        return true;
+    }
+
+    /**
+     * Finds the decimal with k fraction digits that parses back to a value and is nearest to it. The integer
+     * nearest to value * 10^k is found exactly, since a fused multiply-add gives the rounding error of the product;
+     * that integer and 10^k are exact doubles, so their quotient is correctly rounded and equals the value exactly
+     * when the decimal parses back to it
+     *
+     * @param magnitude the value; positive, and below 2^53 once scaled
+     * @param k         the number of fraction digits
+     * @return the decimal scaled by 10^k; NONE if no decimal with k fraction digits parses back to the value, TIE if
+     * two are equally near
+     */
+    private static long scaledDecimal(double magnitude, int k) {
+        double power = POWERS_OF_TEN[k];
+        double product = magnitude * power;
+        double nearest = Math.rint(product);
+        // both terms are exact, so the sum is on the correct side of +-0.5 unless it rounds to it
+        double offset = (product - nearest) + Math.fma(magnitude, power, -product);
+        if (Math.abs(offset) == 0.5) {
+            return TIE;
+        }
+        nearest += offset > 0.5 ? 1 : offset < -0.5 ? -1 : 0;
+        // the decimals that parse back to the value are consecutive, so if any has k digits, nearest or a neighbor does
+        if (nearest / power == magnitude) {
+            return (long) nearest;
+        } else if ((nearest + 1) / power == magnitude) {
+            return (long) nearest + 1;
+        } else if ((nearest - 1) / power == magnitude) {
+            return (long) nearest - 1;
+        }
+        return NONE;
+    }
+
+    /**
+     * Writes a long in decimal without creating a String
+     *
+     * @param value the value
+     * @throws IOException if the channel cannot be written
+     */
+    private void putLong(long value) throws IOException {
+        ensure(MAX_FIELD);
+        if (value == Long.MIN_VALUE) {
+            putAscii(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int position = digits.length;
+        do {
+            digits[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        buffer.put(digits, position, digits.length - position);
+    }
+
+    /**
+     * Writes ASCII text, such as the field names and sentinels of the formats
+     *
+     * @param text the text; must be ASCII
+     * @throws IOException if the channel cannot be written
+     */
+    private void putAscii(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.put((byte) text.charAt(i));
+        }
+    }
+
+    /**
+     * Writes part of a text as UTF-8 without creating a byte array
+     *
+     * @param text the text
+     * @param from index of the first character to write
+     * @param to   index after the last character to write
+     * @throws IOException if the channel cannot be written
+     */
+    private void putUtf8(String text, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            ensure(4);
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer.put((byte) (0xF0 | codePoint >> 18));
+                buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?'); // an unpaired surrogate, replaced as String.getBytes does
+            } else {
+                buffer.put((byte) (0xE0 | c >> 12));
+                buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Writes a quoted JSON string, escaping quotes, backslashes and control characters
+     *
+     * @param text the text
+     * @throws IOException if the channel cannot be written
+     */
+    private void putJsonString(String text) throws IOException {
+        putByte('"');
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                putUtf8(text, start, i);
+                putByte('\\');
+                if (c == '"' || c == '\\') {
+                    putByte(c);
+                } else {
+                    putAscii("u00");
+                    putByte((char) HEX_DIGITS[c >> 4]);
+                    putByte((char) HEX_DIGITS[c & 0xF]);
+                }
+                start = i + 1;
+            }
+        }
+        putUtf8(text, start, text.length());
+        putByte('"');
+    }
+
+    /**
+     * Writes a CSV field, quoting it if it holds a comma, a quote or a line break
+     *
+     * @param text the text
+     * @throws IOException if the channel cannot be written
+     */
+    private void putCsvField(String text) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            putUtf8(text, 0, text.length());
+            return;
+        }
+        putByte('"');
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                putUtf8(text, start, i + 1);
+                start = i; // the quote is written again, doubling it
+            }
+        }
+        putUtf8(text, start, text.length());
+        putByte('"');
+    }
+
+    /**
+     * Writes one ASCII character
+     *
+     * @param c the character
+     * @throws IOException if the channel cannot be written
+     */
+    private void putByte(char c) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put((byte) c);
+    }
+
+    /**
+     * Makes room for the specified number of bytes, flushing if necessary
+     *
+     * @param bytes the number of bytes about to be written
+     * @throws IOException if the channel cannot be written
+     */
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes everything staged in the buffer to the channel
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Exports the bundled data, or one country's series, to a file
+     *
+     * @param args the format (csv, json or isoyear), the output file and optionally an ISO code
+     * @throws IOException if the output file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("usage: java WaterExporter csv|json|isoyear outputFile [isoCode]");
+            return;
+        }
+        Format format = args[0].equalsIgnoreCase("isoyear") ? Format.ISO_YEAR : Format.valueOf(args[0].toUpperCase());
+        SortedArrayList<YearlyWaterRecord> waterData;
+        try {
+            waterData = Main.loadWaterData(new File("IsoYearWaterData.txt"), new SortedArrayList<>());
+        } catch (FileNotFoundException e) {
+            System.out.println("file not found");
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(args[1]), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            WaterExporter exporter = new WaterExporter(channel, format);
+            Iterator<YearlyWaterRecord> records = args.length > 2
+                    ? Arrays.asList(new WaterQueries(waterData).series(args[2])).iterator()
+                    : waterData.iterator();
+            System.out.println("wrote " + exporter.exportRecords(records) + " records");
+        }
+    }
+}
@@ -0,0 +1,261 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exports the bundled data in every format, reads each output back and checks it against the records it was
+ * written from
+ */
+class WaterExporterTest {
+
+    /** one metric of a JSON object: its name and its value or null */
+    private static final Pattern JSON_METRIC = Pattern.compile("\"(\\w+)\":(null|[-0-9.Ee]+)");
+    /** one censored metric of a JSON object: its name and its sentinel */
+    private static final Pattern JSON_CENSORED = Pattern.compile("\"(\\w+)\":\"([<>0-9]+)\"");
+
+    @Test
+    public void testIsoYearOutputReproducesFile() throws IOException {
+        SortedArrayList<YearlyWaterRecord> waterData = load();
+        String output = export(WaterExporter.Format.ISO_YEAR, waterData.iterator());
+        String[] lines = output.split("\r\n", -1);
+        assertEquals(waterData.size() + 1, lines.length);
+        assertEquals("IsoYear,BasicPlusPct,LimitedPct,UnimprovedPct,SurfacePct", lines[0]);
+        for (int row = 0; row < waterData.size(); row++) {
+            YearlyWaterRecord original = waterData.get(row);
+            YearlyWaterRecord parsed = Main.parseRecord(lines[row + 1]);
+            assertEquals(original.isoYear(), parsed.isoYear());
+            assertEquals(original.flags(), parsed.flags(), original.isoYear());
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                assertEquals(original.metric(metric), parsed.metric(metric), original.isoYear());
+            }
+        }
+
+        // the bundled file is grouped by year, so exporting it in that order must give back the file itself
+        SortedArrayList<YearlyWaterRecord> byYear = waterData.sortedBy(
+                java.util.Comparator.comparingInt((YearlyWaterRecord record) -> Main.yearOf(record.isoYear()))
+                        .thenComparing(YearlyWaterRecord::isoYear));
+        byte[] file = Files.readAllBytes(new File("IsoYearWaterData.txt").toPath());
+        assertEquals(new String(file, StandardCharsets.US_ASCII).stripTrailing(),
+                export(WaterExporter.Format.ISO_YEAR, byYear.iterator()));
+    }
+
+    @Test
+    public void testCsvOutputMatchesRecords() throws IOException {
+        SortedArrayList<YearlyWaterRecord> waterData = load();
+        String[] lines = export(WaterExporter.Format.CSV, waterData.iterator()).split("\n");
+        assertEquals(waterData.size() + 1, lines.length);
+        assertEquals("isoYear,BasicPlusPct,LimitedPct,UnimprovedPct,SurfacePct", lines[0]);
+        for (int row = 0; row < waterData.size(); row++) {
+            YearlyWaterRecord original = waterData.get(row);
+            String[] fields = lines[row + 1].split(",", -1);
+            assertEquals(YearlyWaterRecord.METRIC_COUNT + 1, fields.length);
+            assertEquals(original.isoYear(), fields[0]);
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                String field = fields[metric + 1];
+                assertEquals(original.isValid(metric), !field.isEmpty(), original.isoYear());
+                if (!field.isEmpty()) {
+                    assertEquals(original.metric(metric), Double.parseDouble(field), original.isoYear());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testJsonOutputMatchesRecords() throws IOException {
+        SortedArrayList<YearlyWaterRecord> waterData = load();
+        String[] lines = export(WaterExporter.Format.JSON, waterData.iterator()).split("\n");
+        assertEquals(waterData.size() + 2, lines.length);
+        assertEquals("[", lines[0]);
+        assertEquals("]", lines[lines.length - 1]);
+        for (int row = 0; row < waterData.size(); row++) {
+            YearlyWaterRecord original = waterData.get(row);
+            String object = lines[row + 1];
+            assertTrue(object.startsWith("{\"isoYear\":\"" + original.isoYear() + "\","), object);
+            assertTrue(object.endsWith(row + 1 < waterData.size() ? "}," : "}"), object);
+
+            Matcher metrics = JSON_METRIC.matcher(object);
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                assertTrue(metrics.find(), object);
+                assertEquals(YearlyWaterRecord.METRIC_NAMES[metric], metrics.group(1));
+                if (original.isValid(metric)) {
+                    assertEquals(original.metric(metric), Double.parseDouble(metrics.group(2)), object);
+                } else {
+                    assertEquals("null", metrics.group(2), object);
+                }
+            }
+
+            int flags = 0;
+            Matcher censored = JSON_CENSORED.matcher(object);
+            while (censored.find()) {
+                int metric = java.util.Arrays.asList(YearlyWaterRecord.METRIC_NAMES).indexOf(censored.group(1));
+                flags = Censoring.of(censored.group(2)).pack(flags, metric);
+            }
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                if (!original.isValid(metric)) {
+                    flags = Censoring.MISSING.pack(flags, metric);
+                }
+            }
+            assertEquals(original.flags(), flags, object);
+        }
+    }
+
+    @Test
+    public void testYearAveragesAndSeries() throws IOException {
+        SortedArrayList<YearlyWaterRecord> waterData = load();
+        WaterQueries queries = new WaterQueries(waterData);
+        int[] years = {2000, 2010, 1999};
+        double[][] averages = new double[years.length][];
+        for (int i = 0; i < years.length; i++) {
+            averages[i] = queries.yearAverages(years[i]);
+        }
+        String[] lines = export(WaterExporter.Format.CSV, years, averages).split("\n");
+        assertEquals("year,BasicPlusPct,LimitedPct,UnimprovedPct,SurfacePct", lines[0]);
+        for (int i = 0; i < years.length; i++) {
+            String[] fields = lines[i + 1].split(",", -1);
+            assertEquals(years[i], Integer.parseInt(fields[0]));
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                if (Double.isNaN(averages[i][metric])) {
+                    assertEquals("", fields[metric + 1]);
+                } else {
+                    assertEquals(averages[i][metric], Double.parseDouble(fields[metric + 1]));
+                }
+            }
+        }
+        String json = export(WaterExporter.Format.JSON, years, averages);
+        assertTrue(json.contains("{\"year\":1999,\"BasicPlusPct\":null,"), json);
+        assertThrows(IllegalStateException.class, () -> export(WaterExporter.Format.ISO_YEAR, years, averages));
+
+        YearlyWaterRecord[] series = queries.series("KHM");
+        String[] rows = export(WaterExporter.Format.CSV, java.util.Arrays.asList(series).iterator()).split("\n");
+        assertEquals(series.length + 1, rows.length);
+        assertTrue(rows[1].startsWith("KHM2000,"));
+    }
+
+    @Test
+    public void testDoublesMatchDoubleToString() throws IOException {
+        // every value of the bundled data, then random decimals of 1 to 17 digits and random bit patterns across
+        // the plain range and beyond it, with either sign
+        java.util.List<Double> values = new java.util.ArrayList<>();
+        for (YearlyWaterRecord record : load()) {
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                values.add(record.metric(metric));
+            }
+        }
+        java.util.Random random = new java.util.Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            StringBuilder digits = new StringBuilder();
+            for (int digit = 1 + random.nextInt(17); digit > 0; digit--) {
+                digits.append(random.nextInt(10));
+            }
+            double value = Double.parseDouble(digits + "E" + (random.nextInt(14) - 20 + digits.length()));
+            values.add(random.nextBoolean() ? value : -value);
+            values.add(Double.longBitsToDouble(random.nextLong(0x3F40000000000000L, 0x4180000000000000L)));
+        }
+        for (double value : new double[]{0.001, 0.1, 0.3, 1e7 - 0.5, 9999999.999999998, 1e-3 - 1e-19, 2.5e-4,
+                1e7, 1.0E21, 5e-324, Double.MAX_VALUE, -0.0, 100.0, -7.0, 0.1 + 0.2, 1.0 / 3}) {
+            values.add(value);
+        }
+
+        int[] years = new int[(values.size() + 3) / 4];
+        double[][] averages = new double[years.length][4];
+        for (int i = 0; i < values.size(); i++) {
+            averages[i / 4][i % 4] = values.get(i);
+        }
+        for (int i = values.size(); i < years.length * 4; i++) {
+            averages[i / 4][i % 4] = 1.5;
+        }
+        String[] lines = export(WaterExporter.Format.CSV, years, averages).split("\n");
+        for (int i = 0; i < values.size(); i++) {
+            double value = values.get(i);
+            String expected = value == (long) value && Math.abs(value) < 1e15 && !(value == 0 && 1 / value < 0)
+                    ? Long.toString((long) value) : Double.toString(value);
+            assertEquals(expected, lines[i / 4 + 1].split(",")[i % 4 + 1]);
+        }
+    }
+
+    @Test
+    public void testKeysAreEscapedAndEncoded() throws IOException {
+        String[] keys = {"K\"M2000", "K\\M2000", "K,M2000", "K\u00c9M2000", "K\u6c34M2000", "K\ud83d\udca7M2000",
+                "K\tM2000"};
+        java.util.List<YearlyWaterRecord> records = new java.util.ArrayList<>();
+        for (String key : keys) {
+            records.add(new YearlyWaterRecord(key, 1.5, -1, 2.0, 3.25));
+        }
+
+        String[] json = export(WaterExporter.Format.JSON, records.iterator()).split("\n");
+        assertEquals("{\"isoYear\":\"K\\\"M2000\",\"BasicPlusPct\":1.5,\"LimitedPct\":null,"
+                + "\"UnimprovedPct\":2,\"SurfacePct\":3.25},", json[1]);
+        assertTrue(json[2].startsWith("{\"isoYear\":\"K\\\\M2000\","), json[2]);
+        assertTrue(json[3].startsWith("{\"isoYear\":\"K,M2000\","), json[3]);
+        assertTrue(json[4].startsWith("{\"isoYear\":\"K\u00c9M2000\","), json[4]);
+        assertTrue(json[5].startsWith("{\"isoYear\":\"K\u6c34M2000\","), json[5]);
+        assertTrue(json[6].startsWith("{\"isoYear\":\"K\ud83d\udca7M2000\","), json[6]);
+        assertTrue(json[7].startsWith("{\"isoYear\":\"K\\u0009M2000\","), json[7]);
+
+        String[] csv = export(WaterExporter.Format.CSV, records.iterator()).split("\n");
+        assertEquals("\"K\"\"M2000\",1.5,,2,3.25", csv[1]);
+        assertEquals("K\\M2000,1.5,,2,3.25", csv[2]);
+        assertEquals("\"K,M2000\",1.5,,2,3.25", csv[3]);
+        assertEquals("K\u00c9M2000,1.5,,2,3.25", csv[4]);
+        assertEquals("K\ud83d\udca7M2000,1.5,,2,3.25", csv[6]);
+
+        // keys without commas come back unchanged from the IsoYearWaterData.txt layout
+        String[] rows = export(WaterExporter.Format.ISO_YEAR, records.iterator()).split("\r\n");
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].indexOf(',') < 0) {
+                assertEquals(keys[i], Main.parseRecord(rows[i + 1]).isoYear());
+            }
+        }
+    }
+
+    /**
+     * Loads the bundled data
+     *
+     * @return the records
+     * @throws IOException if the file cannot be read
+     */
+    private static SortedArrayList<YearlyWaterRecord> load() throws IOException {
+        return Main.loadWaterData(new File("IsoYearWaterData.txt"), new SortedArrayList<>());
+    }
+
+    /**
+     * Exports records to memory
+     *
+     * @param format  the format
+     * @param records the records
+     * @return the output
+     * @throws IOException if the exporter fails
+     */
+    private static String export(WaterExporter.Format format, Iterator<YearlyWaterRecord> records)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new WaterExporter(Channels.newChannel(bytes), format).exportRecords(records);
+        assertFalse(records.hasNext());
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Exports year averages to memory
+     *
+     * @param format   the format
+     * @param years    the years
+     * @param averages the means of each year
+     * @return the output
+     * @throws IOException if the exporter fails
+     */
+    private static String export(WaterExporter.Format format, int[] years, double[][] averages) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new WaterExporter(Channels.newChannel(bytes), format).exportYearAverages(years, averages);
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,271 @@
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Small in-process metrics registry (counters and latency histograms) plus the JDK Flight Recorder events
+ * emitted by the load, lookup and repaint paths. Everything is off unless the JVM is started with
+ * -Dwater.metrics=true; call sites test the constant ENABLED first, so the disabled cost is a folded branch.
+ * A summary is printed to standard error on exit unless -Dwater.metrics.dumpOnExit=false.
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public final class WaterMetrics {
+
+    /** whether instrumentation is switched on for this JVM */
+    public static final boolean ENABLED = Boolean.getBoolean("water.metrics");
+
+    /** one in this many list operations is timed; must be a power of two */
+    private static final int SAMPLE_RATE = Integer.highestOneBit(Math.max(1, Integer.getInteger("water.metrics.sampleRate", 64)));
+
+    /** counters by name */
+    private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    /** histograms by name */
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    static {
+        if (ENABLED && !"false".equals(System.getProperty("water.metrics.dumpOnExit"))) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> dumpSummary(System.err), "water-metrics-dump"));
+        }
+    }
+
+    /**
+     * Not instantiable; all members are static
+     */
+    private WaterMetrics() {
+    }
+
+    /**
+     * Retrieves the counter with the specified name, registering it on first use
+     *
+     * @param name the name of the counter
+     * @return the counter
+     */
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, key -> new Counter());
+    }
+
+    /**
+     * Retrieves the histogram with the specified name, registering it on first use
+     *
+     * @param name the name of the histogram
+     * @return the histogram
+     */
+    public static Histogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    /**
+     * Counts a call and decides whether it is one of the sampled calls
+     *
+     * @param calls the counter of calls to the operation
+     * @return the start time in nanoseconds if this call is sampled; 0 if not
+     */
+    public static long sampleStart(Counter calls) {
+        calls.increment();
+        int tick = ++calls.sampleTick;
+        return (tick & (SAMPLE_RATE - 1)) == 0 ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Completes a sampled call started by sampleStart; does nothing if the call was not sampled
+     *
+     * @param start     the value returned by sampleStart
+     * @param latency   the histogram receiving the latency
+     * @param operation the name of the operation, recorded in the flight recorder event
+     */
+    public static void sampleEnd(long start, Histogram latency, String operation) {
+        if (start == 0) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        latency.record(nanos);
+        ListOperationEvent event = new ListOperationEvent();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.latency = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Prints every counter and histogram, sorted by name
+     *
+     * @param out the stream to print to
+     */
+    public static void dumpSummary(PrintStream out) {
+        out.println("---- water metrics (1 in " + SAMPLE_RATE + " list operations timed) ----");
+        for (Map.Entry<String, Counter> entry : new TreeMap<>(COUNTERS).entrySet()) {
+            out.printf("%-32s %,14d%n", entry.getKey(), entry.getValue().get());
+        }
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(HISTOGRAMS).entrySet()) {
+            Histogram histogram = entry.getValue();
+            out.printf("%-32s count=%,d mean=%,dns p50<=%,dns p99<=%,dns max<=%,dns%n", entry.getKey(),
+                    histogram.count(), histogram.mean(), histogram.percentile(0.50), histogram.percentile(0.99),
+                    histogram.percentile(1.0));
+        }
+    }
+
+    /**
+     * Monotonic counter safe for concurrent updates
+     */
+    public static final class Counter {
+        /** running total */
+        private final LongAdder total = new LongAdder();
+        /** racy tick used to pick sampled calls; lost updates only shift which calls get sampled */
+        private int sampleTick;
+
+        /**
+         * Adds one to the counter
+         */
+        public void increment() {
+            total.increment();
+        }
+
+        /**
+         * Adds the specified amount to the counter
+         *
+         * @param amount the amount to add
+         */
+        public void add(long amount) {
+            total.add(amount);
+        }
+
+        /**
+         * Retrieves the current total
+         *
+         * @return the total
+         */
+        public long get() {
+            return total.sum();
+        }
+    }
+
+    /**
+     * Histogram of nanosecond latencies with one bucket per power of two
+     */
+    public static final class Histogram {
+        /** bucket i counts values whose highest set bit is bit i-1; bucket 0 counts zeros */
+        private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE + 1);
+        /** sum of recorded values */
+        private final LongAdder sum = new LongAdder();
+
+        /**
+         * Records one value
+         *
+         * @param nanos the value to record; negative values are recorded as 0
+         */
+        public void record(long nanos) {
+            nanos = Math.max(0, nanos);
+            buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(nanos));
+            sum.add(nanos);
+        }
+
+        /**
+         * Retrieves the number of recorded values
+         *
+         * @return the number of values
+         */
+        public long count() {
+            long count = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                count += buckets.get(i);
+            }
+            return count;
+        }
+
+        /**
+         * Retrieves the mean of the recorded values
+         *
+         * @return the mean, or 0 if nothing was recorded
+         */
+        public long mean() {
+            long count = count();
+            return count == 0 ? 0 : sum.sum() / count;
+        }
+
+        /**
+         * Retrieves an upper bound for the specified percentile, accurate to within a factor of two
+         *
+         * @param fraction the percentile as a fraction, 0 to 1
+         * @return the upper bound of the bucket holding the percentile, or 0 if nothing was recorded
+         */
+        public long percentile(double fraction) {
+            long count = count();
+            long target = (long) Math.ceil(count * fraction);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= target && seen > 0) {
+                    return i == 0 ? 0 : (i >= Long.SIZE ? Long.MAX_VALUE : (1L << i) - 1);
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Flight recorder event for reading and parsing one input file
+     */
+    @Name("water.FileLoad")
+    @Label("File Load")
+    @Category("Water Comparison")
+    public static final class FileLoadEvent extends Event {
+        /** path of the file */
+        @Label("File")
+        public String file;
+        /** rows turned into records */
+        @Label("Rows Parsed")
+        public long rowsParsed;
+        /** rows skipped because they could not be parsed */
+        @Label("Rows Rejected")
+        public long rowsRejected;
+    }
+
+    /**
+     * Flight recorder event for one sampled insert into or lookup in the sorted water data, recorded by the caller
+     */
+    @Name("water.ListOperation")
+    @Label("Sorted List Operation")
+    @Category("Water Comparison")
+    public static final class ListOperationEvent extends Event {
+        /** name of the operation, e.g. "add" */
+        @Label("Operation")
+        public String operation;
+        /** time the operation took */
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        public long latency;
+    }
+
+    /**
+     * Flight recorder event for one repaint of the comparison chart
+     */
+    @Name("water.Paint")
+    @Label("Chart Paint")
+    @Category("Water Comparison")
+    public static final class PaintEvent extends Event {
+    }
+
+    /**
+     * Flight recorder event for a chart lookup that found no record
+     */
+    @Name("water.LookupMiss")
+    @Label("Lookup Miss")
+    @Category("Water Comparison")
+    public static final class LookupMissEvent extends Event {
+        /** key that was not found */
+        @Label("IsoYear")
+        public String isoYear;
+    }
+}
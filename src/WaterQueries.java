@@ -0,0 +1,574 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Answers the lookup, comparison, time series and per-year aggregate queries used by the GUI and reports,
+ * optionally through a QueryCache keyed by the normalized query and invalidated when the list or its version changes
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class WaterQueries {
+
+    /** estimated bytes for one cached record, including its key string */
+    private static final long RECORD_BYTES = 96;
+    /** estimated bytes for a cached array header */
+    private static final long ARRAY_BYTES = 16;
+    /** binary searches of the sorted water data, when metrics are enabled */
+    private static final WaterMetrics.Counter LOOKUPS = WaterMetrics.counter("records.lookup.calls");
+    /** sampled latency of those searches, when metrics are enabled */
+    private static final WaterMetrics.Histogram LOOKUP_LATENCY = WaterMetrics.histogram("records.lookup.nanos");
+
+    /** sorted water records being queried */
+    private final SortedArrayList<YearlyWaterRecord> waterData;
+    /** cache of query results; null when caching is off */
+    private final QueryCache<QueryKey, Object> cache;
+    /** column copy of the water data that aggregates read; null until first needed */
+    private WaterTable table;
+    /** version of the water data the table was copied from */
+    private long tableVersion;
+
+    /**
+     * Creates a query service without caching
+     *
+     * @param waterData sorted water records; must not be null
+     */
+    public WaterQueries(SortedArrayList<YearlyWaterRecord> waterData) {
+        this(waterData, null);
+    }
+
+    /**
+     * Creates a query service
+     *
+     * @param waterData sorted water records; must not be null
+     * @param cache     cache of results; null to run every query
+     */
+    public WaterQueries(SortedArrayList<YearlyWaterRecord> waterData, QueryCache<QueryKey, Object> cache) {
+        if (waterData == null) {
+            throw new IllegalArgumentException("waterData must not be null");
+        }
+        this.waterData = waterData;
+        this.cache = cache;
+    }
+
+    /**
+     * Estimates the memory held by a cached result, for use as the weigher of a byte-limited QueryCache
+     *
+     * @param result a result returned by one of the query methods
+     * @return the estimated size in bytes
+     */
+    public static long estimateBytes(Object result) {
+        if (result instanceof YearlyWaterRecord[]) {
+            return ARRAY_BYTES + RECORD_BYTES * ((YearlyWaterRecord[]) result).length;
+        } else if (result instanceof double[]) {
+            return ARRAY_BYTES + Double.BYTES * ((double[]) result).length;
+        }
+        return RECORD_BYTES;
+    }
+
+    /**
+     * Retrieves the record for a country and year
+     *
+     * @param isoYear ISO code followed by year, e.g. "KHM2000"; must not be null
+     * @return the record; null, if there is none
+     */
+    public YearlyWaterRecord lookup(String isoYear) {
+        return (YearlyWaterRecord) cached(QueryKey.lookup(isoYear), key -> find(key.first()));
+    }
+
+    /**
+     * Retrieves the records for two country-years; the pair is cached in one order whichever order it is asked in
+     *
+     * @param isoYear1 first ISO code followed by year; must not be null
+     * @param isoYear2 second ISO code followed by year; must not be null
+     * @return a two-element array in the order requested; an element is null if that record does not exist
+     */
+    public YearlyWaterRecord[] compare(String isoYear1, String isoYear2) {
+        QueryKey key = QueryKey.comparison(isoYear1, isoYear2);
+        YearlyWaterRecord[] pair = (YearlyWaterRecord[]) cached(key,
+                k -> new YearlyWaterRecord[]{find(k.first()), find(k.second())});
+        boolean swapped = !key.first().equals(normalize(isoYear1));
+        return swapped ? new YearlyWaterRecord[]{pair[1], pair[0]} : pair.clone();
+    }
+
+    /**
+     * Resolves many comparisons in one pass: every key from every request is sorted once and then matched against
+     * the sorted records in a single forward merge, galloping over stretches of records that no probe needs.
+     * Keys that fit in a packed long (see YearlyWaterRecord.packKey) are radix sorted instead of compared as strings
+     *
+     * @param requests the comparisons to resolve; must not be null or contain null
+     * @return one result per request, in request order; missing records are null in the result
+     */
+    public ComparisonResult[] compareAll(List<ComparisonRequest> requests) {
+        if (requests == null) {
+            throw new IllegalArgumentException("requests must not be null");
+        }
+        String[] keys = new String[requests.size() * 2];
+        for (int i = 0; i < requests.size(); i++) {
+            ComparisonRequest request = requests.get(i);
+            if (request == null) {
+                throw new IllegalArgumentException("requests must not contain null");
+            }
+            keys[2 * i] = normalize(request.isoYear1());
+            keys[2 * i + 1] = normalize(request.isoYear2());
+        }
+        int[] order = sortedOrder(keys);
+
+        YearlyWaterRecord[] found = new YearlyWaterRecord[keys.length];
+        int position = 0;
+        int size = waterData.size();
+        for (int slot : order) {
+            String key = keys[slot];
+            position = gallop(key, position, size);
+            if (position < size && waterData.get(position).isoYear().equals(key)) {
+                found[slot] = waterData.get(position);
+            }
+        }
+
+        ComparisonResult[] results = new ComparisonResult[requests.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = new ComparisonResult(found[2 * i], found[2 * i + 1]);
+        }
+        return results;
+    }
+
+    /**
+     * Retrieves every record for one country, in year order; the records are contiguous in the sorted list, so
+     * this is one binary search followed by a short walk
+     *
+     * @param iso ISO code of the country, e.g. "KHM"; must not be null
+     * @return the records, oldest year first; empty if there are none
+     */
+    public YearlyWaterRecord[] series(String iso) {
+        YearlyWaterRecord[] series = (YearlyWaterRecord[]) cached(QueryKey.series(iso), key -> findSeries(key.first()));
+        return series.clone();
+    }
+
+    /**
+     * Retrieves every record of one year, in key order. A year's records are spread through the sorted list, one
+     * per country, so this gallops from each country's first record to its record for the year and then on to the
+     * next country, touching O(log years) records per country instead of every record; the year digits sort
+     * before ':', so appending ':' to a code gives a key just past its last year
+     *
+     * @param year the year
+     * @return the records of that year; empty if there are none
+     */
+    public YearlyWaterRecord[] yearRecords(int year) {
+        java.util.ArrayList<YearlyWaterRecord> found = new java.util.ArrayList<>();
+        int size = waterData.size();
+        int position = 0;
+        while (position < size) {
+            String first = waterData.get(position).isoYear();
+            String iso = first.substring(0, first.length() - 4);
+            String key = iso + year;
+            position = gallop(key, position, size);
+            while (position < size && waterData.get(position).isoYear().equals(key)) {
+                found.add(waterData.get(position++));
+            }
+            position = gallop(iso + ':', position, size);
+        }
+        return found.toArray(new YearlyWaterRecord[0]);
+    }
+
+    /**
+     * Retrieves the mean of each metric across all countries for one year, ignoring missing values
+     *
+     * @param year the year
+     * @return the means in the order of YearlyWaterRecord.METRIC_NAMES; NaN where no country has a value
+     */
+    public double[] yearAverages(int year) {
+        double[] averages = (double[]) cached(QueryKey.aggregate(year), key -> computeYearAverages(year));
+        return averages.clone();
+    }
+
+    /**
+     * Retrieves the countries with the highest value of one metric in one year, ignoring missing values
+     *
+     * @param metric the metric index, in the order of YearlyWaterRecord.METRIC_NAMES
+     * @param year   the year
+     * @param k      the number of records wanted; must be positive
+     * @return up to k records, highest value first; ties in key order
+     */
+    public YearlyWaterRecord[] topK(int metric, int year, int k) {
+        if (metric < 0 || metric >= YearlyWaterRecord.METRIC_COUNT || k <= 0) {
+            throw new IllegalArgumentException("metric must be 0 to " + (YearlyWaterRecord.METRIC_COUNT - 1)
+                    + " and k positive: " + metric + ", " + k);
+        }
+        YearlyWaterRecord[] top = (YearlyWaterRecord[]) cached(QueryKey.topK(metric, year, k),
+                key -> computeTopK(metric, year, k));
+        return top.clone();
+    }
+
+    /**
+     * Retrieves the cache, if any
+     *
+     * @return the cache; null when caching is off
+     */
+    public QueryCache<QueryKey, Object> cache() {
+        return cache;
+    }
+
+    /**
+     * Runs a query through the cache, or directly if caching is off
+     *
+     * @param key   the normalized query
+     * @param query computes the result
+     * @return the result
+     */
+    private Object cached(QueryKey key, Function<QueryKey, Object> query) {
+        if (cache == null) {
+            return query.apply(key);
+        }
+        return cache.get(key, waterData, waterData.version(), query);
+    }
+
+    /**
+     * Binary searches for a record
+     *
+     * @param isoYear the normalized key
+     * @return the record; null, if there is none
+     */
+    private YearlyWaterRecord find(String isoYear) {
+        int index = indexOf(isoYear);
+        return index >= 0 ? waterData.get(index) : null;
+    }
+
+    /**
+     * Binary searches the water data for a key, timing a sample of searches when metrics are enabled
+     *
+     * @param isoYear the normalized key, or an ISO code alone to find where its first year would go
+     * @return the index of the first match, or -(position+1) if not found
+     */
+    private int indexOf(String isoYear) {
+        if (!WaterMetrics.ENABLED) {
+            return waterData.indexOf(probe(isoYear));
+        }
+        long start = WaterMetrics.sampleStart(LOOKUPS);
+        int index = waterData.indexOf(probe(isoYear));
+        WaterMetrics.sampleEnd(start, LOOKUP_LATENCY, "lookup");
+        return index;
+    }
+
+    /**
+     * Computes the order that sorts the keys, without moving them
+     *
+     * @param keys the keys to sort
+     * @return indexes into keys, in ascending key order
+     */
+    private static int[] sortedOrder(String[] keys) {
+        long[] packed = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            try {
+                packed[i] = YearlyWaterRecord.packKey(keys[i]);
+            } catch (IllegalArgumentException e) {
+                return sortedOrderByString(keys);
+            }
+        }
+
+        // least-significant-byte radix sort of (packed key, index) pairs; unsigned byte order matches String order
+        int[] order = new int[keys.length];
+        int[] buffer = new int[keys.length];
+        long[] sortedKeys = packed.clone();
+        long[] keyBuffer = new long[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        int[] counts = new int[257];
+        for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+            Arrays.fill(counts, 0);
+            for (long key : sortedKeys) {
+                counts[(int) ((key >>> shift) & 0xFF) + 1]++;
+            }
+            if (counts[(int) ((sortedKeys.length == 0 ? 0 : sortedKeys[0]) >>> shift & 0xFF) + 1] == sortedKeys.length) {
+                continue; // every key has the same byte here, so this pass would not move anything
+            }
+            for (int b = 0; b < 256; b++) {
+                counts[b + 1] += counts[b];
+            }
+            for (int i = 0; i < sortedKeys.length; i++) {
+                int destination = counts[(int) ((sortedKeys[i] >>> shift) & 0xFF)]++;
+                keyBuffer[destination] = sortedKeys[i];
+                buffer[destination] = order[i];
+            }
+            long[] swapKeys = sortedKeys;
+            sortedKeys = keyBuffer;
+            keyBuffer = swapKeys;
+            int[] swapOrder = order;
+            order = buffer;
+            buffer = swapOrder;
+        }
+        return order;
+    }
+
+    /**
+     * Computes the order that sorts the keys by comparing them as strings
+     *
+     * @param keys the keys to sort
+     * @return indexes into keys, in ascending key order
+     */
+    private static int[] sortedOrderByString(String[] keys) {
+        Integer[] boxed = new Integer[keys.length];
+        for (int i = 0; i < boxed.length; i++) {
+            boxed[i] = i;
+        }
+        Arrays.sort(boxed, Comparator.comparing(i -> keys[i]));
+        int[] order = new int[boxed.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = boxed[i];
+        }
+        return order;
+    }
+
+    /**
+     * Finds the first record at or after a position whose key is not less than the specified key, probing
+     * 1, 2, 4, ... records ahead before binary searching, so short hops cost O(1) and long ones O(log distance)
+     *
+     * @param key   the key being sought
+     * @param from  the position to start from; every record before it is known to be smaller than key
+     * @param size  the number of records
+     * @return the position of the first record not less than key; size if there is none
+     */
+    private int gallop(String key, int from, int size) {
+        int step = 1;
+        int low = from;
+        int high = from;
+        while (high < size && waterData.get(high).isoYear().compareTo(key) < 0) {
+            low = high + 1;
+            high = from + step;
+            step <<= 1;
+        }
+        high = Math.min(high, size);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (waterData.get(mid).isoYear().compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Collects the contiguous run of records for one country
+     *
+     * @param iso the normalized ISO code
+     * @return the records in year order
+     */
+    private YearlyWaterRecord[] findSeries(String iso) {
+        int start = indexOf(iso);
+        start = start >= 0 ? start : -(start + 1);
+        int end = start;
+        while (end < waterData.size() && isYearOf(waterData.get(end).isoYear(), iso)) {
+            end++;
+        }
+        YearlyWaterRecord[] series = new YearlyWaterRecord[end - start];
+        for (int i = start; i < end; i++) {
+            series[i - start] = waterData.get(i);
+        }
+        return series;
+    }
+
+    /**
+     * Averages each metric for one year from the column table, which skips missing values by their bitmaps
+     *
+     * @param year the year
+     * @return the means, NaN where there are no values
+     */
+    private double[] computeYearAverages(int year) {
+        WaterTable columns = table();
+        long[] mask = columns.yearMask(year);
+        double[] means = new double[YearlyWaterRecord.METRIC_COUNT];
+        for (int metric = 0; metric < means.length; metric++) {
+            means[metric] = columns.mean(metric, mask);
+        }
+        return means;
+    }
+
+    /**
+     * Retrieves the column table of the water data, copying it again if the list has changed since the last copy
+     *
+     * @return the table
+     */
+    private synchronized WaterTable table() {
+        if (table == null || tableVersion != waterData.version()) {
+            tableVersion = waterData.version();
+            table = new WaterTable(waterData);
+        }
+        return table;
+    }
+
+    /**
+     * Scans all records of one year, keeping the best k in a min-heap
+     *
+     * @param metric the metric index
+     * @param year   the year
+     * @param k      the number of records wanted
+     * @return the records, highest value first
+     */
+    private YearlyWaterRecord[] computeTopK(int metric, int year, int k) {
+        Comparator<YearlyWaterRecord> ascending = Comparator
+                .comparingDouble((YearlyWaterRecord record) -> record.metric(metric))
+                .thenComparing(Comparator.reverseOrder());
+        PriorityQueue<YearlyWaterRecord> best = new PriorityQueue<>(k + 1, ascending);
+        for (YearlyWaterRecord record : waterData) {
+            if (record.isValid(metric) && Main.yearOf(record.isoYear()) == year) {
+                best.add(record);
+                if (best.size() > k) {
+                    best.poll();
+                }
+            }
+        }
+        YearlyWaterRecord[] top = new YearlyWaterRecord[best.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = best.poll();
+        }
+        return top;
+    }
+
+    /**
+     * Determines whether a key is the specified ISO code followed by a four-digit year
+     *
+     * @param isoYear the key to test
+     * @param iso     the ISO code
+     * @return true, if the key belongs to that country
+     */
+    private static boolean isYearOf(String isoYear, String iso) {
+        return isoYear.length() == iso.length() + 4 && isoYear.startsWith(iso);
+    }
+
+    /**
+     * Creates a record usable only as a search key
+     *
+     * @param isoYear the key
+     * @return a record with that key and zero values
+     */
+    private static YearlyWaterRecord probe(String isoYear) {
+        return new YearlyWaterRecord(isoYear, 0.0, 0.0, 0.0, 0.0);
+    }
+
+    /**
+     * Normalizes a key so that equivalent queries share a cache entry
+     *
+     * @param text the key as given
+     * @return the key trimmed and in upper case
+     */
+    private static String normalize(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("query keys must not be null");
+        }
+        return text.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * One requested comparison of two country-years
+     *
+     * @param isoYear1 first ISO code followed by year, e.g. "KHM2000"
+     * @param isoYear2 second ISO code followed by year
+     */
+    public record ComparisonRequest(String isoYear1, String isoYear2) {
+    }
+
+    /**
+     * Outcome of one comparison; a null record marks a country-year with no data
+     *
+     * @param first  the record for the first country-year; null if missing
+     * @param second the record for the second country-year; null if missing
+     */
+    public record ComparisonResult(YearlyWaterRecord first, YearlyWaterRecord second) {
+
+        /**
+         * Retrieves whether both records were found
+         *
+         * @return true, if neither record is missing
+         */
+        public boolean isComplete() {
+            return first != null && second != null;
+        }
+    }
+
+    /**
+     * Kinds of query that can be cached
+     */
+    public enum Kind {
+        /** one country-year record */
+        LOOKUP,
+        /** a pair of country-year records */
+        COMPARISON,
+        /** all years of one country */
+        SERIES,
+        /** per-metric means for one year */
+        AGGREGATE,
+        /** highest values of one metric in one year */
+        TOP_K
+    }
+
+    /**
+     * Normalized, hashable description of a query
+     *
+     * @param kind   the kind of query
+     * @param first  the first key, e.g. isoYear, ISO code or year
+     * @param second the second key of a comparison, or the metric and k of a ranking; empty otherwise
+     */
+    public record QueryKey(Kind kind, String first, String second) {
+
+        /**
+         * Creates the key for a single lookup
+         *
+         * @param isoYear the country-year
+         * @return the key
+         */
+        public static QueryKey lookup(String isoYear) {
+            return new QueryKey(Kind.LOOKUP, normalize(isoYear), "");
+        }
+
+        /**
+         * Creates the key for a comparison, ordering the pair so that (a, b) and (b, a) share an entry
+         *
+         * @param isoYear1 the first country-year
+         * @param isoYear2 the second country-year
+         * @return the key
+         */
+        public static QueryKey comparison(String isoYear1, String isoYear2) {
+            String a = normalize(isoYear1);
+            String b = normalize(isoYear2);
+            return a.compareTo(b) <= 0 ? new QueryKey(Kind.COMPARISON, a, b) : new QueryKey(Kind.COMPARISON, b, a);
+        }
+
+        /**
+         * Creates the key for a time series
+         *
+         * @param iso the ISO code
+         * @return the key
+         */
+        public static QueryKey series(String iso) {
+            return new QueryKey(Kind.SERIES, normalize(iso), "");
+        }
+
+        /**
+         * Creates the key for a per-year aggregate
+         *
+         * @param year the year
+         * @return the key
+         */
+        public static QueryKey aggregate(int year) {
+            return new QueryKey(Kind.AGGREGATE, String.valueOf(year), "");
+        }
+
+        /**
+         * Creates the key for a top-k ranking
+         *
+         * @param metric the metric index
+         * @param year   the year
+         * @param k      the number of records
+         * @return the key
+         */
+        public static QueryKey topK(int metric, int year, int k) {
+            return new QueryKey(Kind.TOP_K, String.valueOf(year), metric + ":" + k);
+        }
+    }
+}
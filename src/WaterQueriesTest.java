@@ -0,0 +1,99 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that WaterQueries.compareAll answers every request exactly as compare does one pair at a time
+ */
+class WaterQueriesTest {
+
+    @Test
+    public void testCompareAllMatchesPairwiseCompare() throws FileNotFoundException {
+        SortedArrayList<YearlyWaterRecord> waterData = Main.loadWaterData(new File("IsoYearWaterData.txt"),
+                new SortedArrayList<>());
+        WaterQueries queries = new WaterQueries(waterData);
+        Random random = new Random(32);
+        java.util.ArrayList<WaterQueries.ComparisonRequest> requests = new java.util.ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            requests.add(new WaterQueries.ComparisonRequest(probe(waterData, random), probe(waterData, random)));
+        }
+        requests.add(new WaterQueries.ComparisonRequest("KHM2000", "KHM2000"));        // same key twice
+        requests.add(new WaterQueries.ComparisonRequest("khm2000", " KHM2000 "));      // same key, other spelling
+        requests.add(new WaterQueries.ComparisonRequest("AAA1999", "ZZZ2099"));        // before and after all keys
+        requests.add(new WaterQueries.ComparisonRequest("ABW2000", "ZWE2022"));        // first and last record
+        assertMatchesPairwise(queries, requests);                        // every key packable: radix sorted
+
+        requests.add(new WaterQueries.ComparisonRequest("KHM200012", "kém2000"));    // not packable: string sorted
+        requests.add(new WaterQueries.ComparisonRequest("", "Khm2001"));
+        assertMatchesPairwise(queries, requests);
+    }
+
+    @Test
+    public void testCompareAllEdgeCases() {
+        SortedArrayList<YearlyWaterRecord> waterData = new SortedArrayList<>();
+        WaterQueries queries = new WaterQueries(waterData);
+        assertEquals(0, queries.compareAll(List.of()).length);
+        WaterQueries.ComparisonResult[] results = queries.compareAll(
+                List.of(new WaterQueries.ComparisonRequest("KHM2000", "KHM2001")));
+        assertNull(results[0].first());
+        assertFalse(results[0].isComplete());
+
+        waterData.add(new YearlyWaterRecord("KHM2000", 50.0, 10.0, 20.0, 30.0));
+        results = queries.compareAll(List.of(new WaterQueries.ComparisonRequest("khm2000", "KHM2000")));
+        assertSame(waterData.get(0), results[0].first());
+        assertSame(waterData.get(0), results[0].second());
+        assertTrue(results[0].isComplete());
+
+        assertThrows(IllegalArgumentException.class, () -> queries.compareAll(null));
+        java.util.ArrayList<WaterQueries.ComparisonRequest> withNull = new java.util.ArrayList<>();
+        withNull.add(null);
+        assertThrows(IllegalArgumentException.class, () -> queries.compareAll(withNull));
+    }
+
+    /**
+     * Checks each result of a batch against compare on the same pair
+     *
+     * @param queries  the query service
+     * @param requests the batch
+     */
+    private static void assertMatchesPairwise(WaterQueries queries,
+                                              List<WaterQueries.ComparisonRequest> requests) {
+        WaterQueries.ComparisonResult[] results = queries.compareAll(requests);
+        assertEquals(requests.size(), results.length);
+        for (int i = 0; i < results.length; i++) {
+            WaterQueries.ComparisonRequest request = requests.get(i);
+            YearlyWaterRecord[] pair = queries.compare(request.isoYear1(), request.isoYear2());
+            assertSame(pair[0], results[i].first(), request.toString());
+            assertSame(pair[1], results[i].second(), request.toString());
+        }
+    }
+
+    /**
+     * Picks a key to probe with: usually a record's key, sometimes in lower case or padded with spaces, and
+     * sometimes a key with no record
+     *
+     * @param waterData the records
+     * @param random    the source of choices
+     * @return the key
+     */
+    private static String probe(SortedArrayList<YearlyWaterRecord> waterData, Random random) {
+        String key = waterData.get(random.nextInt(waterData.size())).isoYear();
+        switch (random.nextInt(6)) {
+            case 0:
+                return key.toLowerCase();
+            case 1:
+                return " " + key + " ";
+            case 2:
+                return key.substring(0, 3) + "1999";                  // a year before the data
+            case 3:
+                return "Q" + key.substring(1);                        // usually no such country
+            default:
+                return key;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Distribution summaries of each metric across countries, per year: a QuantileSketch for medians and percentiles,
+ * and a histogram with fixed-width bins over 0 to 100 percent. Both are updated one record at a time, so they can
+ * be built in the same pass that loads the records and kept current as more arrive, and both merge, so chunks of
+ * the data can be summarized in parallel. Queries read only the summaries, never the records.
+ * <p>
+ * Like SortedArrayList, a WaterSketches is not safe to update from several threads at once; once updates stop, any
+ * number of threads may query it.
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class WaterSketches {
+
+    /** default number of histogram bins: 5 percentage points each */
+    public static final int DEFAULT_BINS = 20;
+    /** records summarized by each task of build */
+    private static final int BUILD_CHUNK = 4096;
+
+    /** accuracy of the quantile sketches */
+    private final int k;
+    /** number of histogram bins over 0 to 100 */
+    private final int bins;
+    /** summaries by year */
+    private final Map<Integer, YearSummary> years = new HashMap<>();
+
+    /**
+     * Creates empty summaries with the default accuracy and bins
+     */
+    public WaterSketches() {
+        this(QuantileSketch.DEFAULT_K, DEFAULT_BINS);
+    }
+
+    /**
+     * Creates empty summaries
+     *
+     * @param k    accuracy of the quantile sketches; see QuantileSketch
+     * @param bins number of equal-width histogram bins over 0 to 100; must be positive
+     */
+    public WaterSketches(int k, int bins) {
+        if (k < 8 || bins < 1) {
+            throw new IllegalArgumentException("k must be at least 8 and bins must be positive");
+        }
+        this.k = k;
+        this.bins = bins;
+    }
+
+    /**
+     * Summarizes records in parallel: chunks are summarized by separate tasks and their summaries merged
+     *
+     * @param records the records; must not be null
+     * @param k       accuracy of the quantile sketches
+     * @param bins    number of histogram bins
+     * @return the merged summaries
+     */
+    public static WaterSketches build(YearlyWaterRecord[] records, int k, int bins) {
+        if (records == null) {
+            throw new IllegalArgumentException("records must not be null");
+        }
+        return ForkJoinPool.commonPool().invoke(new BuildTask(records, 0, records.length, k, bins));
+    }
+
+    /**
+     * Adds a record's valid metric values to its year's summaries
+     *
+     * @param record the record; must not be null
+     */
+    public void add(YearlyWaterRecord record) {
+        if (record == null) {
+            throw new IllegalArgumentException("record must not be null");
+        }
+        YearSummary summary = years.computeIfAbsent(Main.yearOf(record.isoYear()), year -> new YearSummary(k, bins));
+        for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+            if (record.isValid(metric)) {
+                double value = record.metric(metric);
+                summary.sketches[metric].add(value);
+                summary.histograms[metric][binOf(value)]++;
+            }
+        }
+    }
+
+    /**
+     * Adds everything summarized by another instance; the other is not changed
+     *
+     * @param other summaries with the same accuracy and bins; must not be null
+     */
+    public void merge(WaterSketches other) {
+        if (other == null || other.k != k || other.bins != bins) {
+            throw new IllegalArgumentException("other must not be null and must have k = " + k + " and "
+                    + bins + " bins");
+        }
+        for (Map.Entry<Integer, YearSummary> entry : other.years.entrySet()) {
+            YearSummary summary = years.computeIfAbsent(entry.getKey(), year -> new YearSummary(k, bins));
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                summary.sketches[metric].merge(entry.getValue().sketches[metric]);
+                long[] histogram = summary.histograms[metric];
+                long[] added = entry.getValue().histograms[metric];
+                for (int bin = 0; bin < bins; bin++) {
+                    histogram[bin] += added[bin];
+                }
+            }
+        }
+    }
+
+    /**
+     * Estimates a quantile of a metric across the countries of a year
+     *
+     * @param year     the year
+     * @param metric   the metric index
+     * @param fraction 0 to 1, e.g. 0.5 for the median
+     * @return the estimate; NaN if the year has no values for the metric
+     */
+    public double quantile(int year, int metric, double fraction) {
+        QuantileSketch sketch = sketch(year, metric);
+        return sketch == null ? Double.NaN : sketch.quantile(fraction);
+    }
+
+    /**
+     * Estimates the fraction of a year's values of a metric that are at most a value
+     *
+     * @param year   the year
+     * @param metric the metric index
+     * @param value  the percentage
+     * @return 0 to 1; NaN if the year has no values for the metric
+     */
+    public double rank(int year, int metric, double value) {
+        QuantileSketch sketch = sketch(year, metric);
+        return sketch == null ? Double.NaN : sketch.rank(value);
+    }
+
+    /**
+     * Retrieves the number of values of a metric in a year
+     *
+     * @param year   the year
+     * @param metric the metric index
+     * @return the count
+     */
+    public long count(int year, int metric) {
+        QuantileSketch sketch = sketch(year, metric);
+        return sketch == null ? 0 : sketch.count();
+    }
+
+    /**
+     * Retrieves the histogram of a metric in a year; exact, since each value only increments its bin
+     *
+     * @param year   the year
+     * @param metric the metric index
+     * @return a copy of the counts per bin, bin i covering [i, i+1) * 100 / bins, with 100 in the last bin; all
+     * zero if the year has no values
+     */
+    public long[] histogram(int year, int metric) {
+        checkMetric(metric);
+        YearSummary summary = years.get(year);
+        return summary == null ? new long[bins] : summary.histograms[metric].clone();
+    }
+
+    /**
+     * Retrieves the number of histogram bins
+     *
+     * @return the bin count
+     */
+    public int bins() {
+        return bins;
+    }
+
+    /**
+     * Retrieves the years summarized
+     *
+     * @return the years, ascending
+     */
+    public int[] years() {
+        int[] result = new int[years.size()];
+        int next = 0;
+        for (int year : years.keySet()) {
+            result[next++] = year;
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Finds the sketch of a metric in a year
+     *
+     * @param year   the year
+     * @param metric the metric index
+     * @return the sketch; null if it is empty
+     */
+    private QuantileSketch sketch(int year, int metric) {
+        checkMetric(metric);
+        YearSummary summary = years.get(year);
+        return summary == null || summary.sketches[metric].isEmpty() ? null : summary.sketches[metric];
+    }
+
+    /**
+     * Finds the histogram bin of a percentage
+     *
+     * @param value the percentage; values outside 0 to 100 go in the first or last bin
+     * @return the bin
+     */
+    private int binOf(double value) {
+        int bin = (int) (value * bins / 100);
+        return Math.max(0, Math.min(bins - 1, bin));
+    }
+
+    /**
+     * Rejects a metric index out of range
+     *
+     * @param metric the metric index
+     */
+    private static void checkMetric(int metric) {
+        if (metric < 0 || metric >= YearlyWaterRecord.METRIC_COUNT) {
+            throw new IllegalArgumentException("metric must be 0 to " + (YearlyWaterRecord.METRIC_COUNT - 1));
+        }
+    }
+
+    /**
+     * Sketches and histograms of every metric for one year
+     */
+    private static final class YearSummary {
+        /** quantile sketch of each metric */
+        final QuantileSketch[] sketches = new QuantileSketch[YearlyWaterRecord.METRIC_COUNT];
+        /** histogram of each metric, indexed [metric][bin] */
+        final long[][] histograms;
+
+        /**
+         * Creates empty summaries
+         *
+         * @param k    sketch accuracy
+         * @param bins number of histogram bins
+         */
+        YearSummary(int k, int bins) {
+            for (int metric = 0; metric < sketches.length; metric++) {
+                sketches[metric] = new QuantileSketch(k);
+            }
+            histograms = new long[YearlyWaterRecord.METRIC_COUNT][bins];
+        }
+    }
+
+    /**
+     * Summarizes a range of records, splitting it in half until the halves are one chunk, then merging upward
+     */
+    private static final class BuildTask extends RecursiveTask<WaterSketches> {
+        /** tasks are never serialized; declared to keep the serializable superclass's contract */
+        private static final long serialVersionUID = 1L;
+
+        /** the records; not serialized, as the task only runs in the pool that built it */
+        private final transient YearlyWaterRecord[] records;
+        /** first record of the range */
+        private final int from;
+        /** one past the last record of the range */
+        private final int to;
+        /** sketch accuracy */
+        private final int k;
+        /** number of histogram bins */
+        private final int bins;
+
+        /**
+         * Creates a task for a range
+         *
+         * @param records the records
+         * @param from    first record
+         * @param to      one past the last record
+         * @param k       sketch accuracy
+         * @param bins    number of histogram bins
+         */
+        BuildTask(YearlyWaterRecord[] records, int from, int to, int k, int bins) {
+            this.records = records;
+            this.from = from;
+            this.to = to;
+            this.k = k;
+            this.bins = bins;
+        }
+
+        @Override
+        protected WaterSketches compute() {
+            if (to - from <= BUILD_CHUNK) {
+                WaterSketches sketches = new WaterSketches(k, bins);
+                for (int i = from; i < to; i++) {
+                    sketches.add(records[i]);
+                }
+                return sketches;
+            }
+            int middle = (from + to) >>> 1;
+            BuildTask left = new BuildTask(records, from, middle, k, bins);
+            left.fork();
+            WaterSketches right = new BuildTask(records, middle, to, k, bins).compute();
+            WaterSketches merged = left.join();
+            merged.merge(right);
+            return merged;
+        }
+    }
+}
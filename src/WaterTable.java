@@ -0,0 +1,282 @@
+import java.util.Iterator;
+
+/**
+ * Column-oriented, read-only copy of a sorted list of water records; each metric is a double column with a
+ * validity bitmap and two censoring bitmaps alongside it, so aggregates skip missing values a 64-row word at a
+ * time instead of testing every value against the -1 placeholder
+ *
+ * @author Raingsey Tevy
+ * @version 2026-10-19
+ */
+public class WaterTable {
+
+    /** number of rows covered by one bitmap word */
+    private static final int WORD_BITS = Long.SIZE;
+
+    /** isoYear keys in sorted order */
+    private final String[] keys;
+    /** year of each row, parsed once so row masks need not parse keys */
+    private final int[] years;
+    /** metric values, indexed [metric][row]; missing values hold -1 */
+    private final double[][] values;
+    /** bit set for every row whose metric has a value, indexed [metric][word] */
+    private final long[][] valid;
+    /** bit set for every row whose metric was written as "&lt;1", indexed [metric][word] */
+    private final long[][] below;
+    /** bit set for every row whose metric was written as "&gt;99", indexed [metric][word] */
+    private final long[][] above;
+
+    /**
+     * Copies a sorted list of records into columns
+     *
+     * @param records the records to copy; must not be null
+     */
+    public WaterTable(SortedArrayListInterface<YearlyWaterRecord> records) {
+        if (records == null) {
+            throw new IllegalArgumentException("records must not be null");
+        }
+        int size = records.size();
+        int words = wordCount(size);
+        keys = new String[size];
+        years = new int[size];
+        values = new double[YearlyWaterRecord.METRIC_COUNT][size];
+        valid = new long[YearlyWaterRecord.METRIC_COUNT][words];
+        below = new long[YearlyWaterRecord.METRIC_COUNT][words];
+        above = new long[YearlyWaterRecord.METRIC_COUNT][words];
+
+        Iterator<YearlyWaterRecord> iterator = records.iterator();
+        for (int row = 0; row < size; row++) {
+            YearlyWaterRecord record = iterator.next();
+            keys[row] = record.isoYear();
+            years[row] = Main.yearOf(keys[row]);
+            long bit = 1L << row;
+            int word = row / WORD_BITS;
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                values[metric][row] = record.metric(metric);
+                switch (record.censoring(metric)) {
+                    case BELOW:
+                        below[metric][word] |= bit;
+                        valid[metric][word] |= bit;
+                        break;
+                    case ABOVE:
+                        above[metric][word] |= bit;
+                        valid[metric][word] |= bit;
+                        break;
+                    case NONE:
+                        valid[metric][word] |= bit;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of rows
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Retrieves the isoYear key of a row
+     *
+     * @param row the row; must be 0 to size-1
+     * @return the key
+     */
+    public String key(int row) {
+        return keys[row];
+    }
+
+    /**
+     * Retrieves a metric value
+     *
+     * @param metric the metric index, in the order of YearlyWaterRecord.METRIC_NAMES
+     * @param row    the row; must be 0 to size-1
+     * @return the value; -1 if missing
+     */
+    public double value(int metric, int row) {
+        return values[metric][row];
+    }
+
+    /**
+     * Retrieves whether a metric has a value in a row
+     *
+     * @param metric the metric index
+     * @param row    the row; must be 0 to size-1
+     * @return true, if the value is present
+     */
+    public boolean isValid(int metric, int row) {
+        return (valid[metric][row / WORD_BITS] & (1L << row)) != 0;
+    }
+
+    /**
+     * Retrieves how a metric value in a row relates to the source data
+     *
+     * @param metric the metric index
+     * @param row    the row; must be 0 to size-1
+     * @return the censoring of the value
+     */
+    public Censoring censoring(int metric, int row) {
+        int word = row / WORD_BITS;
+        long bit = 1L << row;
+        if ((valid[metric][word] & bit) == 0) {
+            return Censoring.MISSING;
+        } else if ((below[metric][word] & bit) != 0) {
+            return Censoring.BELOW;
+        } else if ((above[metric][word] & bit) != 0) {
+            return Censoring.ABOVE;
+        }
+        return Censoring.NONE;
+    }
+
+    /**
+     * Rebuilds the record for a row
+     *
+     * @param row the row; must be 0 to size-1
+     * @return a record equal in every component to the one the table was built from
+     */
+    public YearlyWaterRecord record(int row) {
+        int flags = 0;
+        for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+            flags = censoring(metric, row).pack(flags, metric);
+        }
+        return new YearlyWaterRecord(keys[row], values[0][row], values[1][row], values[2][row], values[3][row], flags);
+    }
+
+    /**
+     * Builds a row mask selecting the rows of one year, for use with the aggregate methods
+     *
+     * @param year the year
+     * @return a bitmap with one bit per row
+     */
+    public long[] yearMask(int year) {
+        long[] mask = new long[wordCount(keys.length)];
+        for (int row = 0; row < keys.length; row++) {
+            if (years[row] == year) {
+                mask[row / WORD_BITS] |= 1L << row;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Counts the rows with a value for a metric
+     *
+     * @param metric the metric index
+     * @param mask   rows to consider, as returned by yearMask; null for all rows
+     * @return the number of selected rows with a value
+     */
+    public int count(int metric, long[] mask) {
+        long[] validWords = valid[metric];
+        int count = 0;
+        for (int word = 0; word < validWords.length; word++) {
+            count += Long.bitCount(select(validWords, mask, word));
+        }
+        return count;
+    }
+
+    /**
+     * Counts the rows where a metric has the specified censoring
+     *
+     * @param metric    the metric index
+     * @param censoring the censoring to count; must not be null
+     * @param mask      rows to consider; null for all rows
+     * @return the number of selected rows with that censoring
+     */
+    public int count(int metric, Censoring censoring, long[] mask) {
+        if (censoring == null) {
+            throw new IllegalArgumentException("censoring must not be null");
+        }
+        int count = 0;
+        for (int word = 0; word < valid[metric].length; word++) {
+            long bits;
+            switch (censoring) {
+                case BELOW:
+                    bits = below[metric][word];
+                    break;
+                case ABOVE:
+                    bits = above[metric][word];
+                    break;
+                case MISSING:
+                    bits = ~valid[metric][word] & liveBits(word);
+                    break;
+                default:
+                    bits = valid[metric][word] & ~below[metric][word] & ~above[metric][word];
+                    break;
+            }
+            count += Long.bitCount(mask == null ? bits : bits & mask[word]);
+        }
+        return count;
+    }
+
+    /**
+     * Sums the values of a metric, visiting only set bits of the validity bitmap
+     *
+     * @param metric the metric index
+     * @param mask   rows to consider; null for all rows
+     * @return the sum of the selected values that are present
+     */
+    public double sum(int metric, long[] mask) {
+        long[] validWords = valid[metric];
+        double[] column = values[metric];
+        double sum = 0;
+        for (int word = 0; word < validWords.length; word++) {
+            long bits = select(validWords, mask, word);
+            int base = word * WORD_BITS;
+            while (bits != 0) {
+                sum += column[base + Long.numberOfTrailingZeros(bits)];
+                bits &= bits - 1;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Averages the values of a metric, ignoring missing values
+     *
+     * @param metric the metric index
+     * @param mask   rows to consider; null for all rows
+     * @return the mean; NaN if no selected row has a value
+     */
+    public double mean(int metric, long[] mask) {
+        int count = count(metric, mask);
+        return count == 0 ? Double.NaN : sum(metric, mask) / count;
+    }
+
+    /**
+     * Combines one word of a bitmap with the mask, if any
+     *
+     * @param bitmap the bitmap
+     * @param mask   the mask; null for all rows
+     * @param word   the word index
+     * @return the selected bits
+     */
+    private static long select(long[] bitmap, long[] mask, int word) {
+        return mask == null ? bitmap[word] : bitmap[word] & mask[word];
+    }
+
+    /**
+     * Retrieves the bits of a word that correspond to rows that exist; only the last word is partial
+     *
+     * @param word the word index
+     * @return a mask of existing rows in that word
+     */
+    private long liveBits(int word) {
+        int remaining = keys.length - word * WORD_BITS;
+        return remaining >= WORD_BITS ? -1L : (1L << remaining) - 1;
+    }
+
+    /**
+     * Computes the number of bitmap words needed for a number of rows
+     *
+     * @param rows the number of rows
+     * @return the number of words
+     */
+    private static int wordCount(int rows) {
+        return (rows + WORD_BITS - 1) / WORD_BITS;
+    }
+}
@@ -0,0 +1,135 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that censoring survives parsing the bundled data, and that WaterTable's bitmap aggregates agree with a
+ * record-by-record computation
+ */
+class WaterTableTest {
+
+    @Test
+    public void testCensoringRoundTripsThroughParse() throws IOException {
+        List<String> lines = Files.readAllLines(new File("IsoYearWaterData.txt").toPath());
+        int[] seen = new int[Censoring.values().length];
+        for (String line : lines.subList(1, lines.size())) {
+            String[] tokens = line.split(",");
+            YearlyWaterRecord record = Main.parseRecord(line);
+            assertNotNull(record, line);
+            StringBuilder rebuilt = new StringBuilder(record.isoYear());
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                String token = tokens[metric + 1];
+                Censoring censoring = Censoring.of(token);
+                seen[censoring.ordinal()]++;
+                assertEquals(censoring, record.censoring(metric), line);
+                assertEquals(censoring != Censoring.MISSING, record.isValid(metric), line);
+                assertEquals(Double.parseDouble(Main.translation(token)), record.metric(metric), line);
+                if (censoring == Censoring.NONE) {
+                    assertNull(censoring.token());
+                    rebuilt.append(',').append(token);
+                } else {
+                    assertEquals(token, censoring.token());
+                    rebuilt.append(',').append(censoring.token());
+                }
+                assertEquals(censoring, Censoring.unpack(censoring.pack(-1, metric), metric));
+            }
+            assertEquals(line, rebuilt.toString());
+            YearlyWaterRecord reparsed = Main.parseRecord(rebuilt.toString());
+            assertEquals(record.flags(), reparsed.flags());
+        }
+        for (Censoring censoring : Censoring.values()) {
+            assertTrue(seen[censoring.ordinal()] > 0, censoring + " does not occur in the data");
+        }
+    }
+
+    @Test
+    public void testTableMatchesRecords() throws FileNotFoundException {
+        SortedArrayList<Integer> years = new SortedArrayList<>();
+        SortedArrayList<YearlyWaterRecord> records = Main.loadWaterData(new File("IsoYearWaterData.txt"), years);
+        WaterTable table = new WaterTable(records);
+        assertEquals(records.size(), table.size());
+        for (int row = 0; row < table.size(); row++) {
+            YearlyWaterRecord record = records.get(row);
+            assertEquals(record.isoYear(), table.key(row));
+            YearlyWaterRecord rebuilt = table.record(row);
+            assertEquals(record, rebuilt);
+            assertEquals(record.flags(), rebuilt.flags());
+            for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+                assertEquals(record.metric(metric), table.value(metric, row));
+                assertEquals(record.isValid(metric), table.isValid(metric, row));
+                assertEquals(record.censoring(metric), table.censoring(metric, row));
+            }
+        }
+        for (Integer year : years) {
+            assertMaskedAggregatesMatch(records, table, year);
+        }
+        assertMaskedAggregatesMatch(records, table, 1999);
+        assertMaskedAggregatesMatch(records, table, null);
+    }
+
+    @Test
+    public void testPartialLastWordAndEmptyTable() {
+        SortedArrayList<YearlyWaterRecord> records = new SortedArrayList<>();
+        for (int i = 0; i < 70; i++) {              // one full word and six rows of the next
+            records.add(new YearlyWaterRecord(String.format("C%02d%d", i / 2, 2000 + i % 2),
+                    i % 3 == 0 ? -1 : i, 50.0, 50.0, 50.0));
+        }
+        WaterTable table = new WaterTable(records);
+        assertMaskedAggregatesMatch(records, table, null);
+        assertMaskedAggregatesMatch(records, table, 2001);
+        assertEquals(24, table.count(0, Censoring.MISSING, null));
+        assertEquals(70, table.count(1, Censoring.NONE, null));
+        assertEquals(0, table.count(1, Censoring.MISSING, null));
+
+        WaterTable empty = new WaterTable(new SortedArrayList<>());
+        assertEquals(0, empty.size());
+        assertEquals(0, empty.count(0, null));
+        assertTrue(Double.isNaN(empty.mean(0, empty.yearMask(2000))));
+        assertThrows(IllegalArgumentException.class, () -> new WaterTable(null));
+        assertThrows(IllegalArgumentException.class, () -> table.count(0, null, null));
+    }
+
+    /**
+     * Compares every masked aggregate of a table with a scan of the records it was built from
+     *
+     * @param records the records
+     * @param table   the table built from them
+     * @param year    the year to select; null for all rows
+     */
+    private static void assertMaskedAggregatesMatch(SortedArrayList<YearlyWaterRecord> records, WaterTable table,
+                                                    Integer year) {
+        long[] mask = year == null ? null : table.yearMask(year);
+        for (int metric = 0; metric < YearlyWaterRecord.METRIC_COUNT; metric++) {
+            int[] counts = new int[Censoring.values().length];
+            int valid = 0;
+            double sum = 0;
+            for (YearlyWaterRecord record : records) {
+                if (year != null && Main.yearOf(record.isoYear()) != year) {
+                    continue;
+                }
+                counts[record.censoring(metric).ordinal()]++;
+                if (record.isValid(metric)) {
+                    valid++;
+                    sum += record.metric(metric);
+                }
+            }
+            assertEquals(valid, table.count(metric, mask), "year " + year);
+            assertEquals(sum, table.sum(metric, mask), 1e-9 * Math.max(1, Math.abs(sum)));
+            if (valid == 0) {
+                assertTrue(Double.isNaN(table.mean(metric, mask)));
+            } else {
+                assertEquals(sum / valid, table.mean(metric, mask), 1e-9);
+            }
+            for (Censoring censoring : Censoring.values()) {
+                assertEquals(counts[censoring.ordinal()], table.count(metric, censoring, mask),
+                        censoring + " in year " + year);
+            }
+        }
+    }
+}
@@ -9,13 +9,95 @@
  * @param limitedPct double that shows the percentage of the country with limited access to water sources
  * @param unimprovedPct double that shows the percentage of the country using unimproved water sources
  * @param surfacePct double that shows the percentage of the country using surface water sources, e.g. lakes, rivers
+ * @param flags packed Censoring of each metric, Censoring.BITS bits per metric in metric order; 0 means all exact
  */
 public record YearlyWaterRecord(
         String isoYear,
         double basicPlusPct,
         double limitedPct,
         double unimprovedPct,
-        double surfacePct) implements Comparable<YearlyWaterRecord> {
+        double surfacePct,
+        int flags) implements Comparable<YearlyWaterRecord>, PackedKey {
+
+    /** number of percentage metrics in each record */
+    public static final int METRIC_COUNT = 4;
+    /** names of the metrics, in the order used by metric(int) and the data file columns */
+    public static final String[] METRIC_NAMES = {"BasicPlusPct", "LimitedPct", "UnimprovedPct", "SurfacePct"};
+
+    /**
+     * Creates a record whose censoring is inferred from the values: -1 means missing, anything else is exact
+     *
+     * @param isoYear string of the iso codes for the country and the year, e.g. "KHM2000"
+     * @param basicPlusPct percentage with basic or better access to water
+     * @param limitedPct percentage with limited access to water sources
+     * @param unimprovedPct percentage using unimproved water sources
+     * @param surfacePct percentage using surface water sources
+     */
+    public YearlyWaterRecord(String isoYear, double basicPlusPct, double limitedPct, double unimprovedPct,
+                             double surfacePct) {
+        this(isoYear, basicPlusPct, limitedPct, unimprovedPct, surfacePct,
+                inferFlags(basicPlusPct, limitedPct, unimprovedPct, surfacePct));
+    }
+
+    /**
+     * Retrieves whether a metric has a value; censored values ("&lt;1", "&gt;99") count as present
+     *
+     * @param metric the metric index, in the order of METRIC_NAMES
+     * @return true, if the metric is not missing
+     */
+    public boolean isValid(int metric) {
+        return censoring(metric) != Censoring.MISSING;
+    }
+
+    /**
+     * Retrieves how a metric's value relates to the source data
+     *
+     * @param metric the metric index, in the order of METRIC_NAMES
+     * @return the censoring of the metric
+     */
+    public Censoring censoring(int metric) {
+        if (metric < 0 || metric >= METRIC_COUNT) {
+            throw new IndexOutOfBoundsException("metric: " + metric);
+        }
+        return Censoring.unpack(flags, metric);
+    }
+
+    /**
+     * Builds flags for records created without censoring information, treating the -1 placeholder as missing
+     *
+     * @param values the metric values in metric order
+     * @return the packed flags
+     */
+    private static int inferFlags(double... values) {
+        int flags = 0;
+        for (int metric = 0; metric < values.length; metric++) {
+            if (values[metric] == -1) {
+                flags = Censoring.MISSING.pack(flags, metric);
+            }
+        }
+        return flags;
+    }
+
+    /**
+     * Retrieves a metric by position, so that code can loop over all four metrics
+     *
+     * @param metric the metric index; must be 0 to METRIC_COUNT-1, in the order of METRIC_NAMES
+     * @return the value of that metric
+     */
+    public double metric(int metric) {
+        switch (metric) {
+            case 0:
+                return basicPlusPct;
+            case 1:
+                return limitedPct;
+            case 2:
+                return unimprovedPct;
+            case 3:
+                return surfacePct;
+            default:
+                throw new IndexOutOfBoundsException("metric: " + metric);
+        }
+    }
 
     /**
      * Compares two yearly water record objects
@@ -48,4 +130,90 @@ public record YearlyWaterRecord(
             return compareTo(otherRecord) == 0;
         }
     }
+
+    /**
+     * Checks whether a key can be packed by packKey
+     *
+     * @param isoYear the key; may be null
+     * @return true, if the key is 1 to 8 ASCII characters
+     */
+    public static boolean isPackable(String isoYear) {
+        if (isoYear == null || isoYear.isEmpty() || isoYear.length() > Long.BYTES) {
+            return false;
+        }
+        for (int i = 0; i < isoYear.length(); i++) {
+            char c = isoYear.charAt(i);
+            if (c == 0 || c > 127) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Packs an isoYear key into a single long, one ASCII character per byte from the most significant byte down;
+     * comparing two packed keys with Long.compareUnsigned gives the same order as String.compareTo on the keys
+     *
+     * @param isoYear the key to pack, e.g. "KHM2000"; must not be null and must be 1 to 8 ASCII characters
+     * @return the packed key
+     */
+    public static long packKey(String isoYear) {
+        if (isoYear == null || isoYear.isEmpty() || isoYear.length() > Long.BYTES) {
+            throw new IllegalArgumentException("isoYear must be 1 to " + Long.BYTES + " characters: " + isoYear);
+        }
+        long packed = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            packed <<= Byte.SIZE;
+            if (i < isoYear.length()) {
+                char c = isoYear.charAt(i);
+                if (c == 0 || c > 127) {
+                    throw new IllegalArgumentException("isoYear must be ASCII: " + isoYear);
+                }
+                packed |= c;
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * Retrieves a packed key for searching frozen lists: the isoYear as packKey packs it when it can, and otherwise
+     * its first eight characters, stopping after the first one above 254, which packs as 255; keys that share those
+     * bytes share the packed key, so the packed keys still never contradict compareTo
+     *
+     * @return the packed key
+     */
+    @Override
+    public long packedKey() {
+        long packed = 0;
+        int length = Math.min(isoYear.length(), Long.BYTES);
+        for (int i = 0; i < Long.BYTES; i++) {
+            packed <<= Byte.SIZE;
+            if (i < length) {
+                char c = isoYear.charAt(i);
+                packed |= Math.min(c, 0xFF);
+                if (c >= 0xFF) {
+                    length = i + 1;
+                }
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * Unpacks a key produced by packKey back into its isoYear string
+     *
+     * @param packed the packed key
+     * @return the isoYear string
+     */
+    public static String unpackKey(long packed) {
+        StringBuilder isoYear = new StringBuilder(Long.BYTES);
+        for (int shift = Long.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+            char c = (char) ((packed >>> shift) & 0xFF);
+            if (c == 0) {
+                break;
+            }
+            isoYear.append(c);
+        }
+        return isoYear.toString();
+    }
 }